@@ -22,6 +22,12 @@ import jcontrol.comm.I2C;
  */
 public class TSC2003 extends I2C {
 
+    /** The command buffer, reused by every conversion. */
+    private byte[] m_command = new byte[1];
+
+    /** The result buffer, reused by every conversion. */
+    private byte[] m_result = new byte[2];
+
     public TSC2003(int address) {
         super(address);
     }
@@ -30,16 +36,33 @@ public class TSC2003 extends I2C {
         write((char) 0x08);
     }
 
+    /**
+     * Runs a 12-bit conversion.
+     * 
+     * @param command the conversion command
+     * @return the result
+     * @throws IOException
+     */
+    private synchronized int convert(int command) throws IOException {
+        m_command[0] = (byte) command;
+        read(m_command, m_result, 0, 2);
+        return ((m_result[0] & 0xff) << 4) + ((m_result[1] & 0xF0) >> 4);
+    }
+
     public int getXPos() throws IOException {
-        byte[] buf = new byte[2];
-        read(new byte[]{(byte) 0xC0}, buf, 0, 2);
-        return ((buf[0] & 0xff) * 16) + ((buf[1] & 0xF0) >> 4);
+        return convert(0xC0);
     }
 
     public int getYPos() throws IOException {
-        byte[] buf = new byte[2];
-        read(new byte[]{(byte) 0xD0}, buf, 0, 2);
-        return ((buf[0] & 0xff) * 16) + ((buf[1] & 0xF0) >> 4);
+        return convert(0xD0);
+    }
+
+    public int getZ1() throws IOException {
+        return convert(0xE0);
+    }
+
+    public int getZ2() throws IOException {
+        return convert(0xF0);
     }
 
 }
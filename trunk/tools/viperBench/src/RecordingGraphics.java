@@ -0,0 +1,267 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+
+import jcontrol.ui.viper.IBlitGraphics;
+
+/**
+ * <p>
+ * A headless <code>Graphics</code> that draws nothing. It counts the drawing operations and the
+ * pixels they would touch, and folds every call with its arguments into a checksum. The checksum
+ * changes whenever a widget paints something different, so it can be compared between two
+ * builds to tell a rendering change from a pure speed change.
+ * </p>
+ * <p>
+ * Text metrics are fixed (<code>CHAR_WIDTH</code> x <code>FONT_HEIGHT</code>), so the results do
+ * not depend on the fonts installed on the device.
+ * </p>
+ * <p>
+ * Area copies are accepted and counted like drawing operations, so scrolling widgets take the
+ * same path as on a display that can move pixels and only paint the rows scrolled in.
+ * </p>
+ * 
+ * @see ViperBench
+ * @version $Revision$
+ */
+public class RecordingGraphics implements IBlitGraphics {
+
+    /** The width of every character. Value: 6. */
+    public static final int CHAR_WIDTH = 6;
+
+    /** The height of the font. Value: 8. */
+    public static final int FONT_HEIGHT = 8;
+
+    /** Operation index of <code>setPixel()</code>. */
+    public static final int OP_PIXEL = 0;
+
+    /** Operation index of <code>drawLine()</code>. */
+    public static final int OP_LINE = 1;
+
+    /** Operation index of <code>drawRect()</code>. */
+    public static final int OP_RECT = 2;
+
+    /** Operation index of <code>fillRect()</code>. */
+    public static final int OP_FILL = 3;
+
+    /** Operation index of <code>clearRect()</code>. */
+    public static final int OP_CLEAR = 4;
+
+    /** Operation index of the <code>drawImage()</code> methods. */
+    public static final int OP_IMAGE = 5;
+
+    /** Operation index of the <code>drawString()</code> and <code>drawChar()</code> methods. */
+    public static final int OP_TEXT = 6;
+
+    /** Operation index of <code>setColor()</code>, <code>setDrawMode()</code> etc. */
+    public static final int OP_STATE = 7;
+
+    /** Operation index of <code>copyArea()</code>. */
+    public static final int OP_COPY = 8;
+
+    /** The number of operation indices. */
+    public static final int OP_COUNT = 9;
+
+    /** The number of calls per operation. */
+    private int[] m_counts = new int[OP_COUNT];
+
+    /** The number of pixels touched by filling operations. */
+    private int m_pixelCount;
+
+    /** The checksum of all calls. */
+    private int m_checksum;
+
+    /** The current draw mode. */
+    private int m_drawMode = NORMAL;
+
+    /**
+     * Adds an operation with its arguments to the checksum.
+     */
+    private void record(int op, int a, int b, int c, int d) {
+        m_counts[op]++;
+        int h = m_checksum;
+        h = h * 31 + op;
+        h = h * 31 + a;
+        h = h * 31 + b;
+        h = h * 31 + c;
+        h = h * 31 + d;
+        m_checksum = h;
+    }
+
+    /**
+     * Adds a string to the checksum.
+     */
+    private void record(String s) {
+        int h = m_checksum;
+        for (int i = 0; i < s.length(); i++) {
+            h = h * 31 + s.charAt(i);
+        }
+        m_checksum = h;
+    }
+
+    /**
+     * Returns the checksum of all calls since the last reset.
+     * 
+     * @return the checksum
+     */
+    public int getChecksum() {
+        return m_checksum;
+    }
+
+    /**
+     * Returns the number of calls of an operation since the last reset.
+     * 
+     * @param op the operation index, e.g. <code>OP_FILL</code>
+     * @return the number of calls
+     */
+    public int getCount(int op) {
+        return m_counts[op];
+    }
+
+    /**
+     * Returns the number of drawing calls since the last reset, state changes excluded.
+     * 
+     * @return the number of calls
+     */
+    public int getDrawCount() {
+        int result = 0;
+        for (int i = 0; i < OP_COUNT; i++) {
+            if (i != OP_STATE) result += m_counts[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of pixels touched by rectangles, lines, images and text since the last
+     * reset. Overlapping areas are counted multiple times.
+     * 
+     * @return the pixel count
+     */
+    public int getPixelCount() {
+        return m_pixelCount;
+    }
+
+    /**
+     * Resets the counters and the checksum.
+     */
+    public void reset() {
+        for (int i = 0; i < OP_COUNT; i++) {
+            m_counts[i] = 0;
+        }
+        m_pixelCount = 0;
+        m_checksum = 0;
+    }
+
+    public void clearRect(int x, int y, int width, int height) {
+        record(OP_CLEAR, x, y, width, height);
+        if (width > 0 && height > 0) m_pixelCount += width * height;
+    }
+
+    public boolean copyArea(int x, int y, int width, int height, int dx, int dy) {
+        record(OP_COPY, x, y, width, height);
+        m_checksum = (m_checksum * 31 + dx) * 31 + dy;
+        if (width > 0 && height > 0) m_pixelCount += width * height;
+        return true;
+    }
+
+    public int drawChar(char c, int x, int y) {
+        record(OP_TEXT, x, y, c, 1);
+        m_pixelCount += CHAR_WIDTH * FONT_HEIGHT;
+        return CHAR_WIDTH;
+    }
+
+    public void drawImage(Object image, int x, int y) {
+        record(OP_IMAGE, x, y, 0, 0);
+    }
+
+    public void drawImage(Object image, int x, int y, int width, int height, int xoffset,
+            int yoffset) {
+        record(OP_IMAGE, x, y, width, height);
+        if (width > 0 && height > 0) m_pixelCount += width * height;
+    }
+
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        record(OP_LINE, x1, y1, x2, y2);
+        int dx = x2 > x1 ? x2 - x1 : x1 - x2;
+        int dy = y2 > y1 ? y2 - y1 : y1 - y2;
+        m_pixelCount += (dx > dy ? dx : dy) + 1;
+    }
+
+    public void drawRect(int x, int y, int width, int height) {
+        record(OP_RECT, x, y, width, height);
+        if (width > 0 && height > 0) m_pixelCount += 2 * (width + height);
+    }
+
+    public int drawString(String str, int x, int y) {
+        record(OP_TEXT, x, y, 0, 0);
+        record(str);
+        m_pixelCount += str.length() * CHAR_WIDTH * FONT_HEIGHT;
+        return str.length() * CHAR_WIDTH;
+    }
+
+    public int drawString(String str, int x, int y, int width, int height, int xoffset,
+            int yoffset) {
+        record(OP_TEXT, x, y, width, height);
+        record(str);
+        int textWidth = str.length() * CHAR_WIDTH - xoffset;
+        if (width > 0 && textWidth > width) textWidth = width;
+        if (textWidth > 0) m_pixelCount += textWidth * FONT_HEIGHT;
+        return textWidth > 0 ? textWidth : 0;
+    }
+
+    public void fillRect(int x, int y, int width, int height) {
+        record(OP_FILL, x, y, width, height);
+        if (width > 0 && height > 0) m_pixelCount += width * height;
+    }
+
+    public int getDrawMode() {
+        return m_drawMode;
+    }
+
+    public int getFontHeight() {
+        return FONT_HEIGHT;
+    }
+
+    public int getPixel(int x, int y) {
+        return 0;
+    }
+
+    public int getTextWidth(String str) {
+        return str.length() * CHAR_WIDTH;
+    }
+
+    public void setBackground(int color) {
+        record(OP_STATE, 1, color, 0, 0);
+    }
+
+    public void setColor(int color) {
+        record(OP_STATE, 2, color, 0, 0);
+    }
+
+    public void setDrawMode(int mode) {
+        record(OP_STATE, 3, mode, 0, 0);
+        m_drawMode = mode;
+    }
+
+    public void setFont(Object font) {
+        record(OP_STATE, 4, 0, 0, 0);
+    }
+
+    public void setPixel(int x, int y) {
+        record(OP_PIXEL, x, y, 0, 0);
+        m_pixelCount++;
+    }
+}
@@ -0,0 +1,631 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+
+import jcontrol.io.Console;
+import jcontrol.io.Drawable;
+import jcontrol.io.Graphics;
+import jcontrol.lang.ThreadExt;
+import jcontrol.ui.viper.Border;
+import jcontrol.ui.viper.Button;
+import jcontrol.ui.viper.CheckBox;
+import jcontrol.ui.viper.ComboBox;
+import jcontrol.ui.viper.Component;
+import jcontrol.ui.viper.Container;
+import jcontrol.ui.viper.DisplayListGraphics;
+import jcontrol.ui.viper.Frame;
+import jcontrol.ui.viper.Label;
+import jcontrol.ui.viper.ListBox;
+import jcontrol.ui.viper.NumberChooser;
+import jcontrol.ui.viper.OffscreenGraphics;
+import jcontrol.ui.viper.RadioButton;
+import jcontrol.ui.viper.RockerSwitch;
+import jcontrol.ui.viper.Slider;
+import jcontrol.ui.viper.TextScroller;
+import jcontrol.ui.viper.TextViewer;
+import jcontrol.ui.viper.ToggleSwitch;
+import jcontrol.ui.viper.TypeWriter;
+import jcontrol.ui.viper.event.IEvent;
+import jcontrol.ui.viper.event.KeyEvent;
+import jcontrol.ui.viper.event.RotaryTouchEvent;
+import jcontrol.ui.viper.event.TouchEvent;
+import jcontrol.ui.viper.graph.Diagram;
+import jcontrol.ui.viper.graph.Histogram;
+import jcontrol.ui.viper.menu.MenuBar;
+import jcontrol.ui.viper.menu.TextMenu;
+import jcontrol.ui.viper.meter.AnalogClock;
+import jcontrol.ui.viper.meter.AnalogMeter;
+import jcontrol.ui.viper.meter.BarMeter;
+import jcontrol.ui.viper.meter.DigitalClock;
+import jcontrol.ui.viper.meter.DigitalMeter;
+import jcontrol.ui.viper.meter.FanMeter;
+import jcontrol.ui.viper.meter.Indicator;
+import jcontrol.ui.viper.meter.SevenSegmentMeter;
+import jcontrol.ui.viper.meter.Thermometer;
+
+/**
+ * <p>
+ * Measures the rendering throughput of the Viper widgets against a headless
+ * <code>RecordingGraphics</code>. Every scenario is run a few times to warm up, then timed over a
+ * fixed number of passes. For each scenario one line is printed to the console:
+ * </p>
+ * 
+ * <pre>
+ * name: &lt;us per pass&gt; us, &lt;draw calls per pass&gt; ops, &lt;pixels per pass&gt; px, #&lt;checksum&gt;
+ * </pre>
+ * 
+ * <p>
+ * The time is what to watch for speed regressions. The operation and pixel counts do not depend
+ * on the device and show whether a change paints more than before, the checksum shows whether it
+ * paints something different.
+ * </p>
+ * <p>
+ * The scenarios cover a repaint of every widget that does not need image resources, a
+ * <code>ListBox</code> with 1000 items, <code>TextViewer</code> scrolling,
+ * <code>AnalogMeter</code> needle sweeps, a <code>Diagram</code> with a full history and
+ * <code>Frame</code> passes over a page of 20 widgets. The list, scrolling, diagram and frame
+ * scenarios are repeated on a <code>DisplayListGraphics</code>, followed by a line with the
+ * number of operations recorded, dropped, merged and replayed per pass.
+ * </p>
+ * <p>
+ * The scenarios are followed by checks of properties that must hold on every device. Each check
+ * prints one line ending with <code>ok</code> or <code>FAILED</code> and the measured values, the
+ * last line gives the number of failed checks.
+ * </p>
+ * 
+ * @see RecordingGraphics
+ * @version $Revision$
+ */
+public class ViperBench {
+
+    /** The number of untimed passes before each measurement. Value: 10. */
+    static final int WARMUP_PASSES = 10;
+
+    /** The number of timed passes per scenario. Value: 100. */
+    static final int PASSES = 100;
+
+    /** The maximum time a woken up frame may take to paint a change, in ms. Value: 25. */
+    static final int WAKEUP_LIMIT = 25;
+
+    /** The graphics all operations end up on. */
+    static final RecordingGraphics g = new RecordingGraphics();
+
+    /** The graphics the scenarios paint on, either <code>g</code> or a display list on it. */
+    static Graphics out = g;
+
+    /** The number of failed checks. */
+    static int failures;
+
+    /**
+     * A benchmark scenario.
+     */
+    abstract static class Scenario {
+
+        String name;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Runs one pass of the scenario.
+         * 
+         * @param n the number of the pass, counting from 0
+         */
+        abstract void pass(int n);
+    }
+
+    /**
+     * Repaints a single widget.
+     */
+    static class RepaintScenario extends Scenario {
+
+        Component component;
+
+        RepaintScenario(String name, Component component) {
+            super(name);
+            this.component = component;
+        }
+
+        @Override
+        void pass(int n) {
+            component.repaint();
+            component.update(out);
+        }
+    }
+
+    /**
+     * A frame that is shown without starting its worker thread, so the passes can be driven by
+     * the benchmark.
+     */
+    static class BenchFrame extends Frame {
+
+        BenchFrame() {
+            this(g);
+        }
+
+        BenchFrame(Graphics graphics) {
+            super(graphics, null, null);
+            state |= STATE_VISIBLE;
+        }
+    }
+
+    /**
+     * A frame buffer for an <code>OffscreenGraphics</code> that draws on a
+     * <code>RecordingGraphics</code>. It copies itself to the target as an image and keeps the
+     * rows it has been copied to.
+     */
+    static class BufferImage implements Drawable {
+
+        /** The first and the last row plus one copied since the last reset. */
+        int top, bottom;
+
+        void reset() {
+            top = Integer.MAX_VALUE;
+            bottom = 0;
+        }
+
+        public void draw(Graphics target, int x, int y) {
+            target.drawImage(this, x, y);
+        }
+
+        public void draw(Graphics target, int x, int y, int width, int height, int xoffset,
+                int yoffset) {
+            target.drawImage(this, x, y, width, height, xoffset, yoffset);
+            if (y < top) top = y;
+            if (y + height > bottom) bottom = y + height;
+        }
+    }
+
+    /**
+     * main()
+     */
+    public static void main(String[] args) {
+        Console.out.println("ViperBench, ".concat(String.valueOf(PASSES)).concat(" passes"));
+
+        String[] items = {"Alpha", "Beta", "Gamma", "Delta", "Epsilon"};
+        Component[] widgets = {new Label("Label", 0, 0, 60, 12, Label.STYLE_SHOW_BORDER),
+                new Button("Button", 0, 0, 60, 14), new CheckBox("CheckBox", 0, 0, 60, 10),
+                new RadioButton("Radio", 0, 0, 60, 10), new ComboBox(items, 0, 0, 60),
+                new ListBox(items, 0, 0, 60, 40, ListBox.STYLE_SHOW_SCROLLBAR),
+                new NumberChooser(0, 0, 0, 99), new Slider(0, 0, 60, 0, 100),
+                new ToggleSwitch(0, 0), new RockerSwitch(0, 0),
+                new TextScroller(items, 0, 0, 60, 40, TextScroller.STYLE_ALIGN_CENTER),
+                new TextViewer(items, 0, 0, 60, 40, TextViewer.STYLE_SHOW_SCROLLBAR),
+                new TypeWriter("TypeWriter"), new Border("Border", 0, 0, 60, 40, 0),
+                new AnalogClock(0, 0, 40, 40, AnalogClock.STYLE_SHOW_SECONDS),
+                new AnalogMeter(0, 0, 60, 40, 180, 10, AnalogMeter.STYLE_SHOW_NUMERIC_VALUE),
+                new BarMeter(0, 0, 10, 40, BarMeter.STYLE_ORIENTATION_VERTICAL),
+                new DigitalClock(0, 0, DigitalClock.STYLE_SHOW_SECONDS),
+                new DigitalMeter(0, 0), new FanMeter(0, 0, FanMeter.STYLE_SHOW_NUMERIC_VALUE),
+                new Indicator(0, 0), new SevenSegmentMeter(0, 0, 40, 20),
+                new Thermometer(0, 0, 20, 60, Thermometer.STYLE_SHOW_NUMERIC_VALUE),
+                new Diagram(0, 0, 60, 40, 30), new Histogram(0, 0, 60, 40, 30),
+                new TextMenu(items, 0, 0, 60, 40)};
+        for (int i = 0; i < widgets.length; i++) {
+            String name = widgets[i].getClass().getName();
+            run(new RepaintScenario(name.substring(name.lastIndexOf(".") + 1), widgets[i]));
+        }
+        // the menu bar takes its width from the frame
+        MenuBar menuBar = new MenuBar(items, MenuBar.ALIGN_TOP);
+        new BenchFrame().add(menuBar);
+        run(new RepaintScenario("MenuBar", menuBar));
+
+        // a list box with 1000 items, moving the selection through the whole list
+        String[] manyItems = new String[1000];
+        for (int i = 0; i < manyItems.length; i++) {
+            manyItems[i] = "Item ".concat(String.valueOf(i));
+        }
+        final ListBox listBox = new ListBox(manyItems, 0, 0, 100, 60,
+                ListBox.STYLE_SHOW_SCROLLBAR);
+        Scenario listScenario = new Scenario("ListBox.select1000") {
+            @Override
+            void pass(int n) {
+                listBox.setSelection((n * 7) % 1000);
+                listBox.update(out);
+            }
+        };
+        run(listScenario);
+        int listDropped = runDisplayList(listScenario);
+
+        // a text viewer scrolled line by line
+        final TextViewer textViewer = new TextViewer(manyItems, 0, 0, 100, 60,
+                TextViewer.STYLE_SHOW_SCROLLBAR);
+        Scenario scrollScenario = new Scenario("TextViewer.scroll") {
+            @Override
+            void pass(int n) {
+                textViewer.setScrollValue(n % 1000);
+                textViewer.update(out);
+            }
+        };
+        run(scrollScenario);
+        int scrollDropped = runDisplayList(scrollScenario);
+
+        // a needle sweeping forth and back over the full range
+        final AnalogMeter analogMeter = new AnalogMeter(0, 0, 100, 60, 180, 10,
+                AnalogMeter.STYLE_SHOW_NUMERIC_VALUE);
+        analogMeter.setRange(0, 100);
+        run(new Scenario("AnalogMeter.sweep") {
+            @Override
+            void pass(int n) {
+                int value = n % 200;
+                analogMeter.setValue(value < 100 ? value : 200 - value);
+                analogMeter.update(out);
+            }
+        });
+
+        // a diagram with its history filled, shifting in a new value per pass
+        final Diagram diagram = new Diagram(0, 0, 100, 60, 98);
+        diagram.setRange(0, 100);
+        for (int i = 0; i < 98; i++) {
+            diagram.setValue(i % 100);
+        }
+        diagram.update(g);
+        Scenario diagramScenario = new Scenario("Diagram.history") {
+            @Override
+            void pass(int n) {
+                diagram.setValue((n * 13) % 100);
+                diagram.update(out);
+            }
+        };
+        run(diagramScenario);
+        int diagramDropped = runDisplayList(diagramScenario);
+
+        // a frame with a page of 20 widgets, fully repainted or with a single widget changing
+        BenchFrame frame = new BenchFrame();
+        final Container page = new Container();
+        BarMeter lastMeter = null;
+        for (int i = 0; i < 20; i++) {
+            int x = (i % 5) * 25;
+            int y = (i / 5) * 16;
+            switch (i % 4) {
+                case 0:
+                    page.add(new Label("L".concat(String.valueOf(i)), x, y, 24, 14,
+                            Label.STYLE_ALIGN_CENTER));
+                    break;
+                case 1:
+                    page.add(new Button("B".concat(String.valueOf(i)), x, y, 24, 14));
+                    break;
+                case 2:
+                    page.add(new CheckBox("C", x, y, 24, 14));
+                    break;
+                default:
+                    lastMeter = new BarMeter(x, y, 24, 14, BarMeter.STYLE_FILL_SOLID);
+                    page.add(lastMeter);
+            }
+        }
+        final BarMeter barMeter = lastMeter;
+        barMeter.setRange(0, 100);
+        frame.setContent(page);
+        final Frame pageFrame = frame;
+        Scenario repaintScenario = new Scenario("Frame.repaint20") {
+            @Override
+            void pass(int n) {
+                page.repaint();
+                pageFrame.update(out);
+            }
+        };
+        run(repaintScenario);
+        int repaintDropped = runDisplayList(repaintScenario);
+        run(new Scenario("Frame.update1of20") {
+            @Override
+            void pass(int n) {
+                barMeter.setValue(n % 100);
+                pageFrame.update(out);
+            }
+        });
+
+        Console.out.println("Checks");
+        checkWakeup();
+        checkEventPool();
+        checkAnalogMeter();
+        checkScrolling(manyItems);
+        checkOffscreen();
+        // the lists paint every pixel once, the diagram overdraws one operation per pass and the
+        // page one per bar meter
+        int passes = WARMUP_PASSES + PASSES;
+        checkDropped(listScenario, listDropped, 0);
+        checkDropped(scrollScenario, scrollDropped, 0);
+        checkDropped(diagramScenario, diagramDropped, passes);
+        checkDropped(repaintScenario, repaintDropped, 5 * passes);
+        Console.out.println(String.valueOf(failures).concat(" checks failed"));
+    }
+
+    /**
+     * Prints the result of a check.
+     * 
+     * @param name the name of the check
+     * @param ok <code>true</code> if the check has passed
+     * @param detail the measured values
+     */
+    static void check(String name, boolean ok, String detail) {
+        if (!ok) failures++;
+        Console.out.println(name.concat(ok ? ": ok, " : ": FAILED, ").concat(detail));
+    }
+
+    /**
+     * Waits until something is drawn on <code>g</code>.
+     * 
+     * @param count the number of drawing calls before the change
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the time waited in milliseconds, -1 if nothing has been drawn
+     */
+    static int waitForPaint(int count, int timeout) {
+        long start = System.currentTimeMillis();
+        while (g.getDrawCount() == count) {
+            int waited = (int) (System.currentTimeMillis() - start);
+            if (waited >= timeout) return -1;
+            try {
+                ThreadExt.sleep(1);
+            } catch (InterruptedException e) {
+            }
+        }
+        return (int) (System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Checks that a change made by another thread than the frame's worker thread is painted
+     * without waiting for the poll interval. The frame does not poll at all, so the change is only
+     * painted if it wakes up the worker thread.
+     */
+    static void checkWakeup() {
+        Frame frame = new Frame(g, null, null);
+        frame.setPollInterval(0);
+        Label label = new Label("0", 0, 0, 60, 12, Label.STYLE_ALIGN_CENTER);
+        frame.add(label);
+        frame.setVisible(true);
+        // let the worker thread paint the page and go to sleep
+        waitForPaint(g.getDrawCount(), 1000);
+        try {
+            ThreadExt.sleep(100);
+        } catch (InterruptedException e) {
+        }
+        int worst = 0;
+        for (int i = 1; i <= 10 && worst >= 0; i++) {
+            int count = g.getDrawCount();
+            label.setText(String.valueOf(i));
+            int waited = waitForPaint(count, 1000);
+            worst = waited < 0 || worst < 0 ? -1 : waited > worst ? waited : worst;
+        }
+        frame.setVisible(false);
+        check("Frame.wakeup", worst >= 0 && worst < WAKEUP_LIMIT, "painted after ".concat(
+                String.valueOf(worst)).concat(" ms"));
+    }
+
+    /**
+     * Checks that dispatching touch, key and rotary touch events recycles them. After the warm-up,
+     * the pools must not allocate a single event any more.
+     */
+    static void checkEventPool() {
+        BenchFrame frame = new BenchFrame();
+        Container page = new Container();
+        Slider slider = new Slider(0, 0, 100, 0, 100);
+        page.add(slider);
+        page.add(new ListBox(new String[]{"Alpha", "Beta", "Gamma"}, 0, 20, 60, 30,
+                ListBox.STYLE_SHOW_SCROLLBAR));
+        frame.setContent(page);
+        frame.requestFocus(slider);
+        int allocations = 0;
+        for (int i = 0; i < WARMUP_PASSES + PASSES; i++) {
+            if (i == WARMUP_PASSES) allocations = getAllocationCount();
+            int x = 10 + (i * 17) % 80;
+            dispatch(frame, TouchEvent.acquire(TouchEvent.TYPE_TOUCH_PRESSED, x, 4));
+            dispatch(frame, TouchEvent.acquire(TouchEvent.TYPE_TOUCH_DRAGGED, x + 5, 4));
+            dispatch(frame, TouchEvent.acquire(TouchEvent.TYPE_TOUCH_RELEASED, x + 5, 4));
+            dispatch(frame, KeyEvent.acquire(KeyEvent.KEY_RIGHT_PRESSED, 'R'));
+            dispatch(frame, KeyEvent.acquire(KeyEvent.KEY_RIGHT_RELEASED, (char) 0));
+            dispatch(frame, RotaryTouchEvent.acquire(i & 7, Frame.FIELD_STATE_TOUCHED_MOVE,
+                    (i & 1) == 0 ? RotaryTouchEvent.ROTATES_LEFT : RotaryTouchEvent.ROTATES_RIGHT));
+            frame.update(g);
+        }
+        allocations = getAllocationCount() - allocations;
+        check("EventPool.recycle", allocations == 0, String.valueOf(allocations).concat(
+                " events allocated in ").concat(String.valueOf(PASSES * 6)).concat(" dispatches"));
+    }
+
+    /**
+     * Checks that the cost of a new <code>AnalogMeter</code> value does not depend on the dial.
+     * Meters of the same size with few and many dial lines must draw the same operations for the
+     * same values. A larger meter moves its needle more often, but no meter may draw more than the
+     * needle, that is two lines and two mode changes per value.
+     */
+    static void checkAnalogMeter() {
+        int few = countValueOps(new AnalogMeter(0, 0, 60, 40, 180, 5, 0));
+        int many = countValueOps(new AnalogMeter(0, 0, 60, 40, 180, 30, 0));
+        int large = countValueOps(new AnalogMeter(0, 0, 120, 80, 180, 30, 0));
+        check("AnalogMeter.setValue", few == many && many <= 4 * PASSES && large <= 4 * PASSES,
+                String.valueOf(few).concat(" ops with 5 dials, ").concat(String.valueOf(many))
+                        .concat(" with 30 dials, ").concat(String.valueOf(large)).concat(
+                                " with 30 dials at double size for ").concat(
+                                String.valueOf(PASSES)).concat(" values"));
+    }
+
+    /**
+     * Checks that scrolling by one line copies the visible rows and paints only the new one. A
+     * <code>TextViewer</code> paints one row per line, a <code>ListBox</code> that moves its
+     * selection along also repaints the rows of the old and the new selection.
+     * 
+     * @param items the lines, more than fit into the widgets
+     */
+    static void checkScrolling(String[] items) {
+        TextViewer viewer = new TextViewer(items, 0, 0, 100, 60, TextViewer.STYLE_SHOW_SCROLLBAR);
+        viewer.update(g);
+        g.reset();
+        for (int i = 1; i <= PASSES; i++) {
+            viewer.setScrollValue(i);
+            viewer.update(g);
+        }
+        int copies = g.getCount(RecordingGraphics.OP_COPY);
+        int rows = g.getCount(RecordingGraphics.OP_TEXT);
+        check("TextViewer.scroll1", copies == PASSES && rows == PASSES, String.valueOf(rows)
+                .concat(" rows painted, ").concat(String.valueOf(copies)).concat(
+                        " copies for ").concat(String.valueOf(PASSES)).concat(" lines"));
+
+        ListBox list = new ListBox(items, 0, 0, 100, 60, ListBox.STYLE_SHOW_SCROLLBAR);
+        // start with the selection in the middle, so every step scrolls
+        list.setSelection(PASSES);
+        list.update(g);
+        g.reset();
+        for (int i = 1; i <= PASSES; i++) {
+            list.setSelection(PASSES + i);
+            list.update(g);
+        }
+        copies = g.getCount(RecordingGraphics.OP_COPY);
+        rows = g.getCount(RecordingGraphics.OP_TEXT);
+        check("ListBox.scroll1", copies == PASSES && rows == 3 * PASSES, String.valueOf(rows)
+                .concat(" rows painted, ").concat(String.valueOf(copies)).concat(
+                        " copies for ").concat(String.valueOf(PASSES)).concat(" lines"));
+    }
+
+    /**
+     * Checks that a frame on an <code>OffscreenGraphics</code> only flushes the rows a pass has
+     * painted. A single meter of a page changes, so nothing outside its rows may be copied to the
+     * display.
+     */
+    static void checkOffscreen() {
+        BufferImage image = new BufferImage();
+        OffscreenGraphics offscreen = new OffscreenGraphics(g, new RecordingGraphics(), image,
+                128, 64);
+        BenchFrame frame = new BenchFrame(offscreen);
+        Container page = new Container();
+        for (int i = 0; i < 4; i++) {
+            page.add(new Label("L".concat(String.valueOf(i)), i * 32, 0, 30, 14,
+                    Label.STYLE_ALIGN_CENTER));
+        }
+        BarMeter meter = new BarMeter(0, 40, 60, 10, BarMeter.STYLE_FILL_SOLID);
+        meter.setRange(0, PASSES);
+        page.add(meter);
+        frame.setContent(page);
+        frame.update(offscreen);
+        g.reset();
+        image.reset();
+        for (int i = 1; i <= PASSES; i++) {
+            meter.setValue(i);
+            frame.update(offscreen);
+        }
+        int copies = g.getCount(RecordingGraphics.OP_IMAGE);
+        check("OffscreenGraphics.flush", copies > 0 && copies == g.getDrawCount()
+                && image.top >= 40 && image.bottom <= 50, String.valueOf(copies).concat(
+                " blocks flushed to rows ").concat(String.valueOf(image.top)).concat("..")
+                .concat(String.valueOf(image.bottom - 1)).concat(", the meter is at 40..49"));
+    }
+
+    /**
+     * Paints a meter once, then counts the operations drawn for the new values of a sweep.
+     * 
+     * @param meter the meter
+     * @return the number of operations drawn for all values
+     */
+    static int countValueOps(AnalogMeter meter) {
+        meter.setRange(0, 100);
+        meter.update(g);
+        g.reset();
+        for (int i = 1; i <= PASSES; i++) {
+            meter.setValue(i);
+            meter.update(g);
+        }
+        return g.getDrawCount();
+    }
+
+    /**
+     * Dispatches an event to a frame and releases it, as the frame's worker thread does.
+     * 
+     * @param frame the frame
+     * @param event the event
+     */
+    static void dispatch(Frame frame, IEvent event) {
+        frame.onEvent(frame, event);
+        if (event instanceof TouchEvent) {
+            ((TouchEvent) event).release();
+        } else if (event instanceof KeyEvent) {
+            ((KeyEvent) event).release();
+        } else {
+            ((RotaryTouchEvent) event).release();
+        }
+    }
+
+    /**
+     * Returns the number of events the touch, key and rotary touch event pools have allocated.
+     * 
+     * @return the sum of the allocation counts
+     */
+    static int getAllocationCount() {
+        return TouchEvent.POOL.getAllocationCount() + KeyEvent.POOL.getAllocationCount()
+                + RotaryTouchEvent.POOL.getAllocationCount();
+    }
+
+    /**
+     * Runs a scenario and prints its results.
+     * 
+     * @param scenario the scenario
+     */
+    static void run(Scenario scenario) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            scenario.pass(i);
+            if (out != g) ((DisplayListGraphics) out).flush();
+        }
+        g.reset();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < PASSES; i++) {
+            scenario.pass(WARMUP_PASSES + i);
+            if (out != g) ((DisplayListGraphics) out).flush();
+        }
+        int time = (int) (System.currentTimeMillis() - start);
+
+        Console.out.println(scenario.name.concat(": ")
+                .concat(String.valueOf(time * 1000 / PASSES)).concat(" us, ")
+                .concat(String.valueOf(g.getDrawCount() / PASSES)).concat(" ops, ")
+                .concat(String.valueOf(g.getPixelCount() / PASSES)).concat(" px, #")
+                .concat(String.valueOf(g.getChecksum())));
+    }
+
+    /**
+     * Runs a scenario on a display list and prints how many operations the list has saved.
+     * 
+     * @param scenario the scenario
+     * @return the number of operations dropped in all passes
+     */
+    static int runDisplayList(Scenario scenario) {
+        DisplayListGraphics displayList = new DisplayListGraphics(g);
+        out = displayList;
+        scenario.name = scenario.name.concat("+list");
+        run(scenario);
+        out = g;
+
+        int passes = WARMUP_PASSES + PASSES;
+        Console.out.println("  recorded ".concat(
+                String.valueOf(displayList.getRecordedCount() / passes)).concat(", dropped ")
+                .concat(String.valueOf(displayList.getDroppedCount() / passes))
+                .concat(", merged ").concat(String.valueOf(displayList.getMergedCount() / passes))
+                .concat(", replayed ")
+                .concat(String.valueOf(displayList.getReplayedCount() / passes)));
+        return displayList.getDroppedCount();
+    }
+
+    /**
+     * Checks the number of operations a display list has dropped in a scenario. The number only
+     * changes if a widget paints differently or the display list optimizes differently.
+     * 
+     * @param scenario the scenario, run on a display list
+     * @param dropped the number of dropped operations in all passes
+     * @param expected the expected number
+     */
+    static void checkDropped(Scenario scenario, int dropped, int expected) {
+        check(scenario.name.concat(".dropped"), dropped == expected, String.valueOf(dropped)
+                .concat(" dropped, ").concat(String.valueOf(expected)).concat(" expected"));
+    }
+}
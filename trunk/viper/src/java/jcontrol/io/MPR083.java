@@ -20,7 +20,6 @@ package jcontrol.io;
 import java.io.IOException;
 
 import jcontrol.comm.I2C;
-import jcontrol.lang.ThreadExt;
 
 /**
  * MPR083 touch sensor implementation.
@@ -31,127 +30,6 @@ import jcontrol.lang.ThreadExt;
  */
 public class MPR083 extends I2C implements IRotaryTouchDevice {
 
-    class MPR083EventThread extends Thread {
-
-        public static final int STATE_IDLE = 0;
-        public static final int STATE_TOUCHED = 2;
-        public static final int STATE_TOUCHED_MOVE = 3;
-        public static final int STATE_TOUCHED_TIMEOUT = 1;
-
-        boolean alive;
-
-        @Override
-        public void run() {
-
-            try {
-
-                int lastPosition = 0;
-                int state = 0;
-
-                alive = true;
-                while (alive) {
-
-                    try {
-                        ThreadExt.sleep(10);
-                    } catch (InterruptedException e) {
-                    }
-
-                    // check for short to vdd / vss
-
-                    if (0 != getFaultState()) {
-                        reset();
-                        continue;
-                    }
-
-                    // get rotary state
-
-                    int rotaryState = getRotaryState();
-                    boolean touched = (0 != (rotaryState & FLAG_STATUS_TOUCHED));
-                    int position = rotaryState & FLAG_STATUS_CP_MASK;
-
-                    // trigger state machine
-
-                    switch (state) {
-
-                        case STATE_IDLE: {
-                            if (touched) {
-                                state = STATE_TOUCHED_TIMEOUT;
-                                lastPosition = position;
-                                m_listener.pressed(position);
-                            }
-                            break;
-                        }
-
-                        case STATE_TOUCHED_TIMEOUT: {
-
-                            if (touched && lastPosition == position) {
-                                break; // switch
-                            }
-                            state = STATE_TOUCHED;
-                            // |
-                            // fall trough \|/
-                            // '
-                        }
-
-                        case STATE_TOUCHED: {
-
-                            if (!touched) {
-                                m_listener.select(lastPosition);
-                                m_listener.released();
-                                state = STATE_IDLE;
-                                break; // switch
-                            }
-
-                            state = STATE_TOUCHED_MOVE;
-                            // |
-                            // fall trough \|/
-                            // '
-                        }
-
-                        case STATE_TOUCHED_MOVE: {
-
-                            if (!touched) {
-                                state = STATE_IDLE;
-                                m_listener.released();
-                                break; // switch
-                            }
-
-                            if (lastPosition != position) {
-
-                                if (lastPosition > position) {
-                                    lastPosition -= 8;
-                                }
-                                int diff = position - lastPosition;
-                                if (diff < 4) {
-                                    m_listener.rightRotate(position, diff);
-                                } else if (diff > 4) {
-                                    m_listener.leftRotate(position, 8 - diff);
-                                }
-
-                                // next time current position is last position
-                                lastPosition = position;
-                            }
-
-                            break;
-                        }
-
-                        default: {
-                            state = STATE_IDLE;
-                            break;
-                        }
-
-                    } // end: case
-
-                } // end: while alive
-
-            } catch (IOException ioe) {
-                // I2C Communication Error
-                // m_listener.communicationError(ioe);
-            }
-        } // end: method "run"
-
-    } // end: class MPR083EventThread
-
     public static final int FLAG_CONFIG_IRQEN = (1 << 1); // Interrupt Enable (0 disabled, 1
     // enabled)
     public static final int FLAG_CONFIG_IRQR_LSHIFT = 5; // Interrupt Rate Left Shift
@@ -202,6 +80,21 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
     public static final int SENSITIVITY_MAX = 63; // sets sensitivity to 64
 
     public static final int SENSITIVITY_MIN = 0; // sets sensitivity to 1
+
+    /** The number of FIFO entries read in one transaction. Value: 6. */
+    public static final int FIFO_BURST = 6;
+
+    /** The FIFO entries of the last burst. */
+    private byte[] m_fifo = new byte[FIFO_BURST];
+
+    /** Indicates whether the FIFO is drained instead of polling the rotary status. */
+    private boolean m_fifoMode;
+
+    /** The GPIO the IRQ output is connected to, -1 if not connected. */
+    private int m_interruptGpio = -1;
+
+    /** The number of FIFO entries that reported an overflow. */
+    private int m_overflowCount;
     // don't allocate each time byte arrays!
     private byte cmd[] = new byte[1];
 
@@ -209,10 +102,9 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
      * EVENT MECHANISM IMPLEMENTATION
      ******************************************************************************************************************/
 
+    /** The listener set by <code>setListener()</code>. */
     private MPR083EventListener m_listener;
 
-    MPR083EventThread m_thread;
-
     private byte value[] = new byte[1];
 
     public MPR083(int address) throws IOException {
@@ -244,6 +136,18 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
         return value[0];
     }
 
+    /**
+     * Reads the fault and the rotary status register in one transaction.
+     * 
+     * @return the fault state in bits 8 and up, the rotary state in bits 0 to 7
+     * @throws IOException
+     */
+    public int getFaultAndRotaryState() throws IOException {
+        cmd[0] = REGISTER_FAULT;
+        read(cmd, m_fifo, 0, 2);
+        return ((m_fifo[0] & 0xff) << 8) | (m_fifo[1] & 0xff);
+    }
+
     public int getRotaryState() throws IOException {
         // byte cmd[] = new byte[1];
         // byte value[] = new byte[1];
@@ -252,6 +156,66 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
         return value[0];
     }
 
+    /**
+     * Returns the number of FIFO overflows detected while draining the FIFO. Each overflow means
+     * that touches or releases have been lost because the FIFO has not been read in time.
+     * 
+     * @return the overflow count
+     */
+    public int getOverflowCount() {
+        return m_overflowCount;
+    }
+
+    /**
+     * Returns <code>true</code> if the FIFO is drained instead of polling the rotary status.
+     * 
+     * @return <code>true</code> in FIFO mode
+     * @see #setFifoMode(boolean)
+     */
+    public boolean isFifoMode() {
+        return m_fifoMode;
+    }
+
+    /**
+     * Returns <code>true</code> if the IRQ output signals new data. If no interrupt GPIO is set,
+     * this method always returns <code>true</code>, so the device is polled.
+     * 
+     * @return <code>false</code> if there is no need to read the device
+     * @see #setInterruptGpio(int)
+     */
+    public boolean isInterruptPending() {
+        return m_interruptGpio < 0 || !GPIO.getState(m_interruptGpio);
+    }
+
+    /**
+     * Drains the position FIFO. The entries are read in bursts of <code>FIFO_BURST</code> bytes,
+     * one transaction each, until the FIFO is empty or <code>states</code> is full. Each entry is
+     * returned in the format of the rotary status: <code>FLAG_STATUS_TOUCHED</code> if the entry
+     * records a touch, plus the position. Overflows are counted, see
+     * <code>getOverflowCount()</code>.
+     * 
+     * @param states receives the entries, oldest first
+     * @return the number of entries
+     * @throws IOException
+     */
+    public int readFifo(int[] states) throws IOException {
+        int count = 0;
+        boolean more = true;
+        while (more && count < states.length) {
+            cmd[0] = REGISTER_FIFO;
+            read(cmd, m_fifo, 0, m_fifo.length);
+            more = false;
+            for (int i = 0; i < m_fifo.length && count < states.length; i++) {
+                int entry = m_fifo[i] & 0xff;
+                if ((entry & FLAG_FIFO_NDF) != 0) break;
+                if ((entry & FLAG_FIFO_OF) != 0) m_overflowCount++;
+                states[count++] = entry & (FLAG_FIFO_TRF | FLAG_FIFO_CP_MASK);
+                more = (entry & FLAG_FIFO_MDF) != 0;
+            }
+        }
+        return count;
+    }
+
     public String getSensorInformationString() throws IOException {
         // byte cmd[] = new byte[1];
         byte value[] = new byte[128];
@@ -314,6 +278,7 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
                 | FLAG_CONFIG_RUNE; // ==
         // 0xD5
         // (1101_0101)
+        if (m_interruptGpio >= 0) config |= FLAG_CONFIG_IRQEN;
         setConfig(config);
 
         // check fault state
@@ -336,16 +301,50 @@ public class MPR083 extends I2C implements IRotaryTouchDevice {
         write(cmd, value, 0, value.length);
     }
 
-    public void setListener(MPR083EventListener listener) {
-        if (null != m_thread) {
-            m_thread.alive = false;
-            m_thread = null;
+    /**
+     * Switches between polling the rotary status and draining the position FIFO. In FIFO mode,
+     * every buffered touch and release is processed, so fast rotations do not lose steps between
+     * two reads. The FIFO buffers are enabled by <code>init()</code>.
+     * 
+     * @param fifoMode <code>true</code> to drain the FIFO
+     * @see #readFifo(int[])
+     */
+    public void setFifoMode(boolean fifoMode) {
+        m_fifoMode = fifoMode;
+    }
+
+    /**
+     * Sets the GPIO the IRQ output of the sensor is connected to and enables the interrupt. The
+     * device is only read while the IRQ output is active (low), so an idle sensor causes no bus
+     * traffic.
+     * 
+     * @param gpio the GPIO channel or -1 to disable the interrupt and poll the device
+     * @throws IOException
+     * @see #isInterruptPending()
+     */
+    public void setInterruptGpio(int gpio) throws IOException {
+        m_interruptGpio = gpio;
+        if (gpio >= 0) {
+            GPIO.setMode(gpio, GPIO.PULLUP);
+            setConfig(getConfig() | FLAG_CONFIG_IRQEN);
+        } else {
+            setConfig(getConfig() & ~FLAG_CONFIG_IRQEN);
         }
+    }
+
+    /**
+     * Sets the listener of the decoded touches, selections and rotations. The listener is
+     * subscribed to the shared <code>RotaryTouchDecoder</code> of this device, so the device is not
+     * read by a second thread if a frame uses it, too.
+     * 
+     * @param listener the listener or <code>null</code> to remove the current one
+     * @see RotaryTouchDecoder#getDecoder(IRotaryTouchDevice)
+     */
+    public void setListener(MPR083EventListener listener) {
+        RotaryTouchDecoder decoder = RotaryTouchDecoder.getDecoder(this);
+        if (null != m_listener) decoder.removeListener(m_listener);
         m_listener = listener;
-        if (null != listener) {
-            m_thread = new MPR083EventThread();
-            m_thread.start();
-        }
+        if (null != listener) decoder.addListener(listener);
     }
 
     public void setLowPower(int val) throws IOException {
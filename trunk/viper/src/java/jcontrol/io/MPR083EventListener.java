@@ -21,7 +21,8 @@ import java.io.IOException;
 
 /**
  * Event listener for MPR083 rotary sensor. <br>
- * not used in the current viper implementation.
+ * Listeners are subscribed to a <code>RotaryTouchDecoder</code>, which also feeds the frames of
+ * the viper implementation. The <code>count</code> of a rotation is the number of fields passed.
  * 
  * @author roebbenack
  * @since Viper 1.0
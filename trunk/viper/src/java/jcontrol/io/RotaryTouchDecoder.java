@@ -0,0 +1,401 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.io;
+
+import java.io.IOException;
+
+import jcontrol.lang.ThreadExt;
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Decodes the states of a rotary touch device into touches, selections and rotations. There is
+ * only one decoder per device, see <code>getDecoder()</code>; it owns the device and publishes
+ * the decoded events to any number of listeners, so the device is read by a single thread however
+ * many parts of the application are interested in it.
+ * </p>
+ * <p>
+ * An <code>MPR083</code> is read with one transaction per sample, which returns the fault and the
+ * rotary status together. In FIFO mode its position FIFO is drained instead, and if an interrupt
+ * GPIO is set, the device is only read while the IRQ output is active. While the IRQ output stays
+ * idle and nothing is touched, the sampling interval is doubled up to <code>IDLE_INTERVAL</code>;
+ * the sensor holds the IRQ output active until it is read, so no event is lost.
+ * </p>
+ * <p>
+ * The speed of a rotation is reported as acceleration factor, see <code>getAcceleration()</code>.
+ * </p>
+ * 
+ * @see MPR083#setListener(MPR083EventListener)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class RotaryTouchDecoder {
+
+    /** The default sampling interval in milliseconds. Value: 10. */
+    public static final int DEFAULT_INTERVAL = 10;
+
+    /**
+     * The maximum sampling interval in milliseconds while the IRQ output of an
+     * <code>MPR083</code> is idle. Value: 50.
+     */
+    public static final int IDLE_INTERVAL = 50;
+
+    /** The time per step in milliseconds below which rotations are accelerated. Value: 120. */
+    public static final int ACCELERATION_PERIOD = 120;
+
+    /** The maximum acceleration factor. Value: 8. */
+    public static final int MAX_ACCELERATION = 8;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_TOUCHED_TIMEOUT = 1;
+    private static final int STATE_TOUCHED = 2;
+    private static final int STATE_TOUCHED_MOVE = 3;
+
+    /** The decoders created so far. */
+    private static RotaryTouchDecoder[] s_decoders = new RotaryTouchDecoder[0];
+
+    /** The decoded device. */
+    private IRotaryTouchDevice m_device;
+
+    /** The subscribed listeners, replaced on every change. */
+    private MPR083EventListener[] m_listeners = new MPR083EventListener[0];
+
+    /** The sampling thread or <code>null</code> if there are no listeners. */
+    private DecoderThread m_thread;
+
+    /** The sampling interval in milliseconds. */
+    private int m_interval = DEFAULT_INTERVAL;
+
+    /** The state of the state machine. */
+    private int m_state = STATE_IDLE;
+
+    /** The last touched position. */
+    private int m_lastPosition;
+
+    /** The time of the current sample or FIFO entry. */
+    private long m_now;
+
+    /** The time of the last touch or rotation. */
+    private long m_lastStepTime;
+
+    /** The acceleration factor of the last rotation. */
+    private int m_acceleration = 1;
+
+    /** The rotary states drained from the FIFO. */
+    private int[] m_states = new int[MPR083.FIFO_BURST];
+
+    /** The number of device transactions. */
+    private int m_transactionCount;
+
+    class DecoderThread extends Thread {
+
+        boolean alive = true;
+
+        @Override
+        public void run() {
+            int interval = m_interval;
+            while (alive) {
+                boolean read = false;
+                // a thread that has just been stopped must not overlap with its successor
+                synchronized (m_states) {
+                    try {
+                        if (alive) read = sample();
+                    } catch (IOException e) {
+                        publishError(e);
+                    }
+                }
+                if (read || m_state != STATE_IDLE) {
+                    interval = m_interval;
+                } else if (interval < IDLE_INTERVAL) {
+                    // the IRQ output is idle, back off towards the idle interval
+                    interval <<= 1;
+                    if (interval > IDLE_INTERVAL) interval = IDLE_INTERVAL;
+                }
+                try {
+                    ThreadExt.sleep(interval);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the decoder of a device, creating it on the first call.
+     * 
+     * @param device the rotary touch device
+     * @return the decoder shared by all users of the device
+     */
+    public static synchronized RotaryTouchDecoder getDecoder(IRotaryTouchDevice device) {
+        RotaryTouchDecoder[] decoders = s_decoders;
+        for (int i = 0; i < decoders.length; i++) {
+            if (decoders[i].m_device == device) return decoders[i];
+        }
+        RotaryTouchDecoder decoder = new RotaryTouchDecoder(device);
+        RotaryTouchDecoder[] newDecoders = new RotaryTouchDecoder[decoders.length + 1];
+        Management.arraycopy(decoders, 0, newDecoders, 0, decoders.length);
+        newDecoders[decoders.length] = decoder;
+        s_decoders = newDecoders;
+        return decoder;
+    }
+
+    /**
+     * Creates a decoder.
+     * 
+     * @param device the rotary touch device
+     */
+    private RotaryTouchDecoder(IRotaryTouchDevice device) {
+        m_device = device;
+    }
+
+    /**
+     * Subscribes a listener. The device is sampled as long as there are listeners. The listener is
+     * called by the sampling thread.
+     * 
+     * @param listener the listener
+     */
+    public synchronized void addListener(MPR083EventListener listener) {
+        MPR083EventListener[] listeners = m_listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) return;
+        }
+        MPR083EventListener[] newListeners = new MPR083EventListener[listeners.length + 1];
+        Management.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        m_listeners = newListeners;
+        if (m_thread == null) {
+            m_state = STATE_IDLE;
+            m_thread = new DecoderThread();
+            m_thread.start();
+        }
+    }
+
+    /**
+     * Returns the acceleration factor of the last rotation. It is 1 if a step took
+     * <code>ACCELERATION_PERIOD</code> or longer, and grows inversely with the time per step up to
+     * <code>MAX_ACCELERATION</code>. Listeners read it while handling a rotation.
+     * 
+     * @return the acceleration factor
+     */
+    public int getAcceleration() {
+        return m_acceleration;
+    }
+
+    /**
+     * Returns the decoded device.
+     * 
+     * @return the rotary touch device
+     */
+    public IRotaryTouchDevice getDevice() {
+        return m_device;
+    }
+
+    /**
+     * Returns the sampling interval.
+     * 
+     * @return the interval in milliseconds
+     */
+    public int getInterval() {
+        return m_interval;
+    }
+
+    /**
+     * Returns the number of device transactions since the decoder has been created.
+     * 
+     * @return the number of transactions
+     */
+    public int getTransactionCount() {
+        return m_transactionCount;
+    }
+
+    /**
+     * Passes a communication error to the listeners.
+     * 
+     * @param e the error
+     */
+    private void publishError(IOException e) {
+        MPR083EventListener[] listeners = m_listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].communicationError(e);
+        }
+    }
+
+    /**
+     * Unsubscribes a listener. Sampling stops with the last listener.
+     * 
+     * @param listener the listener
+     */
+    public synchronized void removeListener(MPR083EventListener listener) {
+        MPR083EventListener[] listeners = m_listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MPR083EventListener[] newListeners = new MPR083EventListener[listeners.length - 1];
+                Management.arraycopy(listeners, 0, newListeners, 0, i);
+                Management.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                m_listeners = newListeners;
+                if (newListeners.length == 0 && m_thread != null) {
+                    m_thread.alive = false;
+                    m_thread = null;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the device once and triggers the state machine.
+     * 
+     * @return <code>false</code> if the device has not been read, because its IRQ output is idle
+     * @throws IOException
+     */
+    private boolean sample() throws IOException {
+        long last = m_now;
+        long now = System.currentTimeMillis();
+        m_now = now;
+        if (!(m_device instanceof MPR083)) {
+            m_transactionCount++;
+            step(m_device.getRotaryState());
+            return true;
+        }
+        MPR083 sensor = (MPR083) m_device;
+        // no bus traffic while the interrupt line is idle
+        if (!sensor.isInterruptPending()) return false;
+        if (sensor.isFifoMode()) {
+            int count = sensor.readFifo(m_states);
+            m_transactionCount++;
+            if (count == 0) {
+                // the interrupt may as well be caused by a fault
+                m_transactionCount++;
+                if (0 != sensor.getFaultState()) sensor.reset();
+            }
+            // the entries have been queued since the last sample, spread them over that time so the
+            // steps of a burst are not taken as simultaneous; a longer gap, e.g. of a restarted
+            // thread, is not accelerated
+            long elapsed = now - last;
+            if (elapsed > (long) ACCELERATION_PERIOD * count) elapsed = ACCELERATION_PERIOD * count;
+            for (int i = 0; i < count; i++) {
+                m_now = now - elapsed + elapsed * (i + 1) / count;
+                step(m_states[i]);
+            }
+            return true;
+        }
+        int state = sensor.getFaultAndRotaryState();
+        m_transactionCount++;
+        if ((state >> 8) != 0) {
+            // short to vdd / vss
+            sensor.reset();
+            return true;
+        }
+        step(state);
+        return true;
+    }
+
+    /**
+     * Sets the sampling interval. It is used while the device is touched or its IRQ output is
+     * active.
+     * 
+     * @param interval the interval in milliseconds
+     */
+    public void setInterval(int interval) {
+        m_interval = interval < 1 ? 1 : interval;
+    }
+
+    /**
+     * Triggers the state machine with a rotary state and publishes the resulting events.
+     * 
+     * @param rotaryState the rotary state or a FIFO entry
+     */
+    private void step(int rotaryState) {
+        boolean touched = (0 != (rotaryState & IRotaryTouchDevice.FLAG_STATUS_TOUCHED));
+        int position = rotaryState & IRotaryTouchDevice.FLAG_STATUS_CP_MASK;
+        MPR083EventListener[] listeners = m_listeners;
+
+        switch (m_state) {
+
+            case STATE_IDLE: {
+                if (touched) {
+                    m_state = STATE_TOUCHED_TIMEOUT;
+                    m_lastPosition = position;
+                    m_lastStepTime = m_now;
+                    m_acceleration = 1;
+                    for (int i = 0; i < listeners.length; i++) {
+                        listeners[i].pressed(position);
+                    }
+                }
+                break;
+            }
+
+            case STATE_TOUCHED_TIMEOUT: {
+                if (touched && m_lastPosition == position) {
+                    break; // switch
+                }
+                m_state = STATE_TOUCHED;
+                // |
+                // fall trough \|/
+                // '
+            }
+
+            case STATE_TOUCHED: {
+                if (!touched) {
+                    m_state = STATE_IDLE;
+                    for (int i = 0; i < listeners.length; i++) {
+                        listeners[i].select(m_lastPosition);
+                        listeners[i].released();
+                    }
+                    break; // switch
+                }
+                m_state = STATE_TOUCHED_MOVE;
+                // |
+                // fall trough \|/
+                // '
+            }
+
+            case STATE_TOUCHED_MOVE: {
+                if (!touched) {
+                    m_state = STATE_IDLE;
+                    for (int i = 0; i < listeners.length; i++) {
+                        listeners[i].released();
+                    }
+                    break; // switch
+                }
+                // the eight fields form a ring, the shorter way round gives the direction
+                int diff = (position - m_lastPosition) & 7;
+                m_lastPosition = position;
+                if (diff == 0 || diff == 4) break; // switch
+                int steps = diff < 4 ? diff : 8 - diff;
+                int period = (int) (m_now - m_lastStepTime) / steps;
+                m_lastStepTime = m_now;
+                m_acceleration = period >= ACCELERATION_PERIOD ? 1 : period <= 0 ? MAX_ACCELERATION
+                        : ACCELERATION_PERIOD / period;
+                if (m_acceleration > MAX_ACCELERATION) m_acceleration = MAX_ACCELERATION;
+                for (int i = 0; i < listeners.length; i++) {
+                    if (diff < 4) {
+                        listeners[i].rightRotate(position, steps);
+                    } else {
+                        listeners[i].leftRotate(position, steps);
+                    }
+                }
+                break;
+            }
+
+            default: {
+                m_state = STATE_IDLE;
+                break;
+            }
+        }
+    }
+}
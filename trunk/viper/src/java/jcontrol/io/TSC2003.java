@@ -0,0 +1,385 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.io;
+
+import java.io.IOException;
+
+import jcontrol.comm.I2C;
+import jcontrol.lang.Math;
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Pointing device driver for TSC2003 touch screen controllers, reading 12-bit samples with
+ * pressure measurement. No conversion is made while the PENIRQ output signals no touch. The first
+ * report of a stroke is one sequence of conversions with reused buffers:
+ * <ol>
+ * <li>Z1 first; if it indicates no contact, the report is rejected after one transaction,</li>
+ * <li>X and Y, each oversampled <code>getOversampling()</code> times and averaged without the
+ * extremes,</li>
+ * <li>Z2, from which the touch resistance is computed together with X and Z1.</li>
+ * </ol>
+ * Only touches with a resistance up to <code>getMaxResistance()</code> are reported as pressed,
+ * so light, bouncing contacts with unreliable coordinates are dropped before they reach the
+ * application. Once a stroke has been accepted, the following reports only convert X and Y until
+ * PENIRQ signals the release. The number of IC transactions and accepted reports is counted,
+ * see <code>getTransactionCount()</code>.
+ * </p>
+ * <p>
+ * The controller runs one conversion per command, so X and Y cannot share a transaction. A report
+ * within a stroke costs 2 * <code>getOversampling()</code> transactions, the first report of a
+ * stroke 2 more for the pressure: 2 and 4 without oversampling. The coordinates are not
+ * oversampled by default, since the <code>TouchFilter</code> already removes the jitter.
+ * </p>
+ * <p>
+ * The coordinates are mapped by a <code>TouchCalibration</code> and smoothed by a
+ * <code>TouchFilter</code>, like those of <code>Touch</code>.
+ * </p>
+ * 
+ * @see Touch
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class TSC2003 extends I2C implements IPointingDevice {
+
+    /** The system property the calibration is saved in. Value: "tsc2003.calibration". */
+    public static final String CALIBRATION_PROPERTY = "tsc2003.calibration";
+
+    /** The default oversampling, a single reading per coordinate. Value: 1. */
+    public static final int DEFAULT_OVERSAMPLING = 1;
+
+    /** The maximum oversampling. Value: 8. */
+    public static final int MAX_OVERSAMPLING = 8;
+
+    /** The default maximum touch resistance, in 1/4096 of the X plate resistance. Value: 4096. */
+    public static final int DEFAULT_MAX_RESISTANCE = 4096;
+
+    /** Command: measure X position, 12-bit, power down between conversions. */
+    private static final byte CMD_X = (byte) 0xC0;
+
+    /** Command: measure Y position, 12-bit, power down between conversions. */
+    private static final byte CMD_Y = (byte) 0xD0;
+
+    /** Command: measure Z1, 12-bit, power down between conversions. */
+    private static final byte CMD_Z1 = (byte) 0xE0;
+
+    /** Command: measure Z2, 12-bit, power down between conversions. */
+    private static final byte CMD_Z2 = (byte) 0xF0;
+
+    /** The smallest Z1 value that indicates a contact. Value: 16. */
+    private static final int Z1_MIN = 16;
+
+    /** The GPIO the PENIRQ output is connected to. Value: 8. */
+    private static final int GPIO_PENIRQ = 8;
+
+    /** The command buffer. */
+    private byte[] m_command = new byte[1];
+
+    /** The result buffer. */
+    private byte[] m_result = new byte[2];
+
+    /** The readings of one oversampled coordinate. */
+    private int[] m_readings = new int[MAX_OVERSAMPLING];
+
+    /** The number of readings per coordinate. */
+    private int m_oversampling = DEFAULT_OVERSAMPLING;
+
+    /** The maximum touch resistance of a valid touch. */
+    private int m_maxResistance = DEFAULT_MAX_RESISTANCE;
+
+    /** The raw values of the last accepted report. */
+    private int m_rawX, m_rawY;
+
+    /** The touch resistance measured at the start of the current or last stroke. */
+    private int m_resistance;
+
+    /** Indicates whether the last report has been accepted. */
+    private boolean m_pressed;
+
+    /** The number of IC transactions. */
+    private int m_transactionCount;
+
+    /** The number of accepted reports. */
+    private int m_sampleCount;
+
+    /** Maps the raw values to display coordinates. */
+    private TouchCalibration m_calibration;
+
+    /** Removes the jitter from the mapped coordinates. */
+    private TouchFilter m_filter = new TouchFilter();
+
+    /**
+     * Creates a driver for a controller at the default address <code>0x90</code> and a 128x64
+     * display.
+     * 
+     * @throws IOException if the controller does not respond
+     */
+    public TSC2003() throws IOException {
+        this(0x90, 128, 64);
+    }
+
+    /**
+     * Creates a driver.
+     * 
+     * @param address the bus address of the controller
+     * @param width the display width
+     * @param height the display height
+     * @throws IOException if the controller does not respond
+     */
+    public TSC2003(int address, int width, int height) throws IOException {
+        super(address);
+        // power down with PENIRQ enabled
+        write((char) 0x00);
+        GPIO.setMode(GPIO_PENIRQ, GPIO.PULLUP);
+        m_calibration = new TouchCalibration(width, height);
+        if (!m_calibration.load(Management.getProperty(CALIBRATION_PROPERTY))) {
+            // corners of the 128x64 panel
+            m_calibration.calibrate(359, 243, 3669, 243, 3669, 2650, 359, 2650);
+        }
+        m_filter.setDeadZone(1 << TouchCalibration.FRACTION_BITS);
+    }
+
+    /**
+     * Calibrates the touch screen by the raw 12-bit coordinates of the four display corners. The
+     * calibration is saved in the system property <code>CALIBRATION_PROPERTY</code>.
+     * 
+     * @see jcontrol.io.IPointingDevice#calibrate(int, int, int, int, int, int, int, int)
+     */
+    public void calibrate(int x0, int y0, int x1, int y1, int x2, int y2, int x3, int y3) {
+        if (m_calibration.calibrate(x0, y0, x1, y1, x2, y2, x3, y3)) {
+            Management.setProperty(CALIBRATION_PROPERTY, m_calibration.toString());
+        }
+    }
+
+    /**
+     * Runs a conversion and returns its 12-bit result.
+     * 
+     * @param command the conversion command
+     * @return the result
+     * @throws IOException if the controller does not respond
+     */
+    private int convert(byte command) throws IOException {
+        m_command[0] = command;
+        read(m_command, m_result, 0, 2);
+        m_transactionCount++;
+        return ((m_result[0] & 0xff) << 4) | ((m_result[1] & 0xf0) >> 4);
+    }
+
+    /**
+     * Runs the oversampled conversions of a coordinate and averages them. With three or more
+     * readings, the smallest and the largest one are dropped.
+     * 
+     * @param command the conversion command
+     * @return the averaged result
+     * @throws IOException if the controller does not respond
+     */
+    private int convertOversampled(byte command) throws IOException {
+        int n = m_oversampling;
+        int[] readings = m_readings;
+        int sum = 0;
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < n; i++) {
+            int v = convert(command);
+            readings[i] = v;
+            sum += v;
+            if (v < readings[min]) min = i;
+            if (v > readings[max]) max = i;
+        }
+        if (n < 3) return sum / n;
+        return (sum - readings[min] - readings[max] + ((n - 2) >> 1)) / (n - 2);
+    }
+
+    /**
+     * Runs the conversions of the first report of a stroke, including the pressure.
+     * 
+     * @return <code>true</code> if the touch resistance is low enough for reliable coordinates
+     * @throws IOException if the controller does not respond
+     */
+    private boolean convertStroke() throws IOException {
+        int z1 = convert(CMD_Z1);
+        if (z1 < Z1_MIN) return false;
+        int x = convertOversampled(CMD_X);
+        int y = convertOversampled(CMD_Y);
+        int z2 = convert(CMD_Z2);
+        // R = Rx * X / 4096 * (Z2 / Z1 - 1)
+        int resistance = z2 > z1 ? Math.scale(x, z1, z2 - z1) : 0;
+        if (resistance > m_maxResistance) return false;
+        m_rawX = x;
+        m_rawY = y;
+        m_resistance = resistance;
+        m_sampleCount++;
+        return true;
+    }
+
+    /**
+     * Returns the calibration that maps the raw values to display coordinates.
+     * 
+     * @return the calibration
+     */
+    public TouchCalibration getCalibration() {
+        return m_calibration;
+    }
+
+    /**
+     * Returns the filter that removes the jitter. It works on display coordinates with
+     * <code>TouchCalibration.FRACTION_BITS</code> fractional bits.
+     * 
+     * @return the filter
+     */
+    public TouchFilter getFilter() {
+        return m_filter;
+    }
+
+    /**
+     * Returns the maximum touch resistance of a valid touch.
+     * 
+     * @return the resistance in 1/4096 of the X plate resistance
+     */
+    public int getMaxResistance() {
+        return m_maxResistance;
+    }
+
+    /**
+     * Returns the number of readings per coordinate.
+     * 
+     * @return the oversampling
+     */
+    public int getOversampling() {
+        return m_oversampling;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.IPointingDevice#getRawX()
+     */
+    public int getRawX() {
+        return m_rawX;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.IPointingDevice#getRawY()
+     */
+    public int getRawY() {
+        return m_rawY;
+    }
+
+    /**
+     * Returns the touch resistance measured at the start of the current or last stroke. It falls
+     * with increasing pressure.
+     * 
+     * @return the resistance in 1/4096 of the X plate resistance
+     */
+    public int getResistance() {
+        return m_resistance;
+    }
+
+    /**
+     * Returns the number of accepted reports since the driver has been created.
+     * 
+     * @return the number of reports
+     */
+    public int getSampleCount() {
+        return m_sampleCount;
+    }
+
+    /**
+     * Returns the number of IC transactions since the driver has been created. Divided by
+     * <code>getSampleCount()</code>, it gives the bus load per accepted report.
+     * 
+     * @return the number of transactions
+     */
+    public int getTransactionCount() {
+        return m_transactionCount;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.IPointingDevice#getX()
+     */
+    public int getX() {
+        return (m_filter.getX() + (1 << (TouchCalibration.FRACTION_BITS - 1)))
+                >> TouchCalibration.FRACTION_BITS;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.IPointingDevice#getY()
+     */
+    public int getY() {
+        return (m_filter.getY() + (1 << (TouchCalibration.FRACTION_BITS - 1)))
+                >> TouchCalibration.FRACTION_BITS;
+    }
+
+    /**
+     * Reads a report if the PENIRQ output signals a touch. A new stroke is only accepted if its
+     * touch resistance is low enough for reliable coordinates; within a stroke, only the
+     * coordinates are converted.
+     * 
+     * @see jcontrol.io.IPointingDevice#isPressed()
+     */
+    public boolean isPressed() {
+        boolean pressed = false;
+        if (!GPIO.getState(GPIO_PENIRQ)) {
+            try {
+                if (m_pressed) {
+                    // the pen is still down, its pressure has been checked at the start
+                    m_rawX = convertOversampled(CMD_X);
+                    m_rawY = convertOversampled(CMD_Y);
+                    m_sampleCount++;
+                    pressed = true;
+                } else {
+                    pressed = convertStroke();
+                }
+            } catch (IOException e) {
+            }
+        }
+        if (pressed) {
+            // a new stroke starts unfiltered
+            if (!m_pressed) m_filter.reset();
+            m_filter.add(m_calibration.mapX(m_rawX, m_rawY), m_calibration.mapY(m_rawX, m_rawY));
+        }
+        m_pressed = pressed;
+        return pressed;
+    }
+
+    /**
+     * Sets the maximum touch resistance of a valid touch. Lower values require a firmer touch.
+     * 
+     * @param resistance the resistance in 1/4096 of the X plate resistance
+     */
+    public void setMaxResistance(int resistance) {
+        m_maxResistance = resistance;
+    }
+
+    /**
+     * Sets the number of readings per coordinate. More readings reduce the noise but take longer
+     * and load the bus: every reading adds two IC transactions to a report.
+     * 
+     * @param oversampling the number of readings, from 1 to <code>MAX_OVERSAMPLING</code>
+     */
+    public void setOversampling(int oversampling) {
+        m_oversampling = oversampling < 1 ? 1 : oversampling > MAX_OVERSAMPLING ? MAX_OVERSAMPLING
+                : oversampling;
+    }
+}
@@ -20,6 +20,7 @@ package jcontrol.io;
 import java.io.IOException;
 
 import jcontrol.comm.I2C;
+import jcontrol.system.Management;
 
 /**
  * Class for a touch device. At the IC-Address <code>0x90</code>.
@@ -50,14 +51,26 @@ public class Touch extends I2C implements IPointingDevice {
     /** Minimum y coordinate if the touch device. Value: 18. */
     private static final int Y_MIN = 18;
 
+    /** The system property the calibration is saved in. Value: "touch.calibration". */
+    public static final String CALIBRATION_PROPERTY = "touch.calibration";
+
     /** Byte buffer. Size 1 */
     byte[] buf = new byte[1];
 
-    /** x position of the last touch. */
-    private int m_x;
+    /** Raw x value of the last touch. */
+    private int m_rawX;
+
+    /** Raw y value of the last touch. */
+    private int m_rawY;
+
+    /** Indicates whether the screen has been pressed on the last call of isPressed(). */
+    private boolean m_pressed;
 
-    /** y position of the last touch. */
-    private int m_y;
+    /** Maps the raw values to display coordinates. */
+    private TouchCalibration m_calibration = new TouchCalibration(DISPLAY_WIDTH, DISPLAY_HEIGHT);
+
+    /** Removes the jitter from the mapped coordinates. */
+    private TouchFilter m_filter = new TouchFilter();
 
     /**
      * Creates a new touch with the default address <code>0x90</code> of the IC-Device.
@@ -65,9 +78,7 @@ public class Touch extends I2C implements IPointingDevice {
      * @throws IOException
      */
     public Touch() throws IOException {
-        super(0x90);
-        write((char) 0x08);
-        GPIO.setMode(0, GPIO.PULLUP);
+        this(0x90);
     }
 
     /**
@@ -80,9 +91,45 @@ public class Touch extends I2C implements IPointingDevice {
         super(address);
         write((char) 0x08);
         GPIO.setMode(0, GPIO.PULLUP);
+        if (!m_calibration.load(Management.getProperty(CALIBRATION_PROPERTY))) {
+            m_calibration.calibrate(X_MIN, Y_MIN, X_MAX, Y_MIN, X_MAX, Y_MAX, X_MIN, Y_MAX);
+        }
+        // ignore jitter up to one pixel
+        m_filter.setDeadZone(1 << TouchCalibration.FRACTION_BITS);
+    }
+
+    /**
+     * Calibrates the touch screen by the raw coordinates of the four display corners, see
+     * <code>getRawX()</code> and <code>getRawY()</code>. The calibration is saved in the system
+     * property <code>CALIBRATION_PROPERTY</code> and restored by the constructor.
+     * 
+     * @see jcontrol.io.IPointingDevice#calibrate(int, int, int, int, int, int, int, int)
+     */
+    public void calibrate(int x0, int y0, int x1, int y1, int x2, int y2, int x3, int y3) {
+        if (m_calibration.calibrate(x0, y0, x1, y1, x2, y2, x3, y3)) {
+            Management.setProperty(CALIBRATION_PROPERTY, m_calibration.toString());
+        }
     }
 
-    public void calibrate(int x0, int y0, int x1, int y1, int x2, int y2, int x3, int y3) {}
+    /**
+     * Returns the calibration that maps the raw values to display coordinates.
+     * 
+     * @return the calibration
+     */
+    public TouchCalibration getCalibration() {
+        return m_calibration;
+    }
+
+    /**
+     * Returns the filter that removes the jitter. It works on display coordinates with
+     * <code>TouchCalibration.FRACTION_BITS</code> fractional bits; by default, it takes the median
+     * of 3 samples, smoothes with a shift of 1 and ignores moves up to one pixel.
+     * 
+     * @return the filter
+     */
+    public TouchFilter getFilter() {
+        return m_filter;
+    }
 
     /*
      * (non-Javadoc)
@@ -90,7 +137,7 @@ public class Touch extends I2C implements IPointingDevice {
      * @see jcontrol.io.IPointingDevice#getRawX()
      */
     public int getRawX() {
-        return m_x;
+        return m_rawX;
     }
 
     /*
@@ -99,7 +146,7 @@ public class Touch extends I2C implements IPointingDevice {
      * @see jcontrol.io.IPointingDevice#getRawY()
      */
     public int getRawY() {
-        return m_y;
+        return m_rawY;
     }
 
     /*
@@ -108,7 +155,8 @@ public class Touch extends I2C implements IPointingDevice {
      * @see jcontrol.io.IPointingDevice#getX()
      */
     public int getX() {
-        return m_x;
+        return (m_filter.getX() + (1 << (TouchCalibration.FRACTION_BITS - 1)))
+                >> TouchCalibration.FRACTION_BITS;
     }
 
     /*
@@ -117,7 +165,8 @@ public class Touch extends I2C implements IPointingDevice {
      * @see jcontrol.io.IPointingDevice#getY()
      */
     public int getY() {
-        return m_y;
+        return (m_filter.getY() + (1 << (TouchCalibration.FRACTION_BITS - 1)))
+                >> TouchCalibration.FRACTION_BITS;
     }
 
     /*
@@ -131,19 +180,22 @@ public class Touch extends I2C implements IPointingDevice {
             try {
                 buf[0] = (byte) 0xDa; // command value
                 read(buf, buf, 0, 1);
-                m_y = ((buf[0] & 0xff) - Y_MIN) * DISPLAY_HEIGHT / (Y_MAX - Y_MIN);
-                // m_y = Math.scale((buf[0] & 0xff) - Y_MIN, Y_MAX - Y_MIN, DISPLAY_HEIGHT);
+                m_rawY = buf[0] & 0xff;
 
                 buf[0] = (byte) 0xCa; // command value
                 read(buf, buf, 0, 1);
-                m_x = ((buf[0] & 0xff) - X_MIN) * DISPLAY_WIDTH / (X_MAX - X_MIN);
-                // m_x = Math.scale((buf[0] & 0xff) - X_MIN, X_MAX - X_MIN, DISPLAY_WIDTH);
+                m_rawX = buf[0] & 0xff;
             } catch (IOException e) {
                 return false;
             }
+            // a new stroke starts unfiltered
+            if (!m_pressed) m_filter.reset();
+            m_pressed = true;
+            m_filter.add(m_calibration.mapX(m_rawX, m_rawY), m_calibration.mapY(m_rawX, m_rawY));
             return true;
         } else {
             buf = null;
+            m_pressed = false;
             return false;
         }
     }
@@ -0,0 +1,190 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.io;
+
+import jcontrol.lang.Math;
+
+/**
+ * <p>
+ * Maps raw touch screen coordinates to display coordinates by an affine transformation. The
+ * transformation is computed from the raw coordinates measured at the four display corners, so
+ * it corrects offset, scale, rotation and shear of the panel. The matrix is kept in fixed point,
+ * mapping a sample takes two multiplications per axis.
+ * </p>
+ * <p>
+ * The results have <code>FRACTION_BITS</code> fractional bits, so a following filter does not
+ * lose the resolution of the touch controller.
+ * </p>
+ * 
+ * @see Touch#calibrate(int, int, int, int, int, int, int, int)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class TouchCalibration {
+
+    /** The number of fractional bits of the mapped coordinates. Value: 4. */
+    public static final int FRACTION_BITS = 4;
+
+    /** The largest x coordinate of the display. */
+    private int m_xSpan;
+
+    /** The largest y coordinate of the display. */
+    private int m_ySpan;
+
+    /** The raw corner coordinates of the current calibration. */
+    private int[] m_points = new int[8];
+
+    /** The inverse matrix, scaled by 2^16. */
+    private int m_a, m_b, m_c, m_d;
+
+    /** The sum of the raw corner coordinates, i.e. four times the raw center. */
+    private int m_centerX, m_centerY;
+
+    /**
+     * Creates an uncalibrated mapping for a display of the specified size.
+     * 
+     * @param width the display width in pixels
+     * @param height the display height in pixels
+     */
+    public TouchCalibration(int width, int height) {
+        m_xSpan = width - 1;
+        m_ySpan = height - 1;
+    }
+
+    /**
+     * Computes the transformation from the raw coordinates of the four display corners.
+     * 
+     * <pre>
+     *  (x0,y0)                  (x1,y1)
+     *    +------------------------+
+     *    |                        |
+     *    +------------------------+
+     *  (x3,y3)                  (x2,y2)
+     * </pre>
+     * 
+     * The opposite edges are averaged, which is the least squares fit of an affine transformation
+     * to the four corners.
+     * 
+     * @param x0 raw x-coordinate top left corner
+     * @param y0 raw y-coordinate top left corner
+     * @param x1 raw x-coordinate top right corner
+     * @param y1 raw y-coordinate top right corner
+     * @param x2 raw x-coordinate lower right corner
+     * @param y2 raw y-coordinate lower right corner
+     * @param x3 raw x-coordinate lower left corner
+     * @param y3 raw y-coordinate lower left corner
+     * @return <code>false</code> if the corners do not span an area, the previous calibration is
+     *         kept then
+     */
+    public boolean calibrate(int x0, int y0, int x1, int y1, int x2, int y2, int x3, int y3) {
+        // twice the raw vectors of the display's horizontal and vertical edges
+        int sx = x1 - x0 + x2 - x3;
+        int sy = y1 - y0 + y2 - y3;
+        int tx = x3 - x0 + x2 - x1;
+        int ty = y3 - y0 + y2 - y1;
+        int det = sx * ty - tx * sy;
+        if (det == 0) return false;
+        m_a = Math.scale(2 * m_xSpan * ty, det, 1 << 16);
+        m_b = Math.scale(-2 * m_xSpan * tx, det, 1 << 16);
+        m_c = Math.scale(-2 * m_ySpan * sy, det, 1 << 16);
+        m_d = Math.scale(2 * m_ySpan * sx, det, 1 << 16);
+        m_centerX = x0 + x1 + x2 + x3;
+        m_centerY = y0 + y1 + y2 + y3;
+        int[] p = m_points;
+        p[0] = x0;
+        p[1] = y0;
+        p[2] = x1;
+        p[3] = y1;
+        p[4] = x2;
+        p[5] = y2;
+        p[6] = x3;
+        p[7] = y3;
+        return true;
+    }
+
+    /**
+     * Restores a calibration saved by <code>toString()</code>.
+     * 
+     * @param s the eight comma separated raw corner coordinates
+     * @return <code>false</code> if the string is not a valid calibration
+     */
+    public boolean load(String s) {
+        if (s == null) return false;
+        int[] p = new int[8];
+        int start = 0;
+        try {
+            for (int i = 0; i < 8; i++) {
+                int end = s.indexOf(",", start);
+                if (end < 0) {
+                    if (i < 7) return false;
+                    end = s.length();
+                }
+                p[i] = Integer.parseInt(s.substring(start, end));
+                start = end + 1;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return calibrate(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7]);
+    }
+
+    /**
+     * Maps a raw point to the display x-coordinate.
+     * 
+     * @param rawX the raw x-coordinate
+     * @param rawY the raw y-coordinate
+     * @return the x-coordinate with <code>FRACTION_BITS</code> fractional bits, clipped to the
+     *         display
+     */
+    public int mapX(int rawX, int rawY) {
+        int x = (m_xSpan << (FRACTION_BITS - 1))
+                + ((m_a * ((rawX << 2) - m_centerX) + m_b * ((rawY << 2) - m_centerY)
+                        + (1 << (17 - FRACTION_BITS))) >> (18 - FRACTION_BITS));
+        return x < 0 ? 0 : x > m_xSpan << FRACTION_BITS ? m_xSpan << FRACTION_BITS : x;
+    }
+
+    /**
+     * Maps a raw point to the display y-coordinate.
+     * 
+     * @param rawX the raw x-coordinate
+     * @param rawY the raw y-coordinate
+     * @return the y-coordinate with <code>FRACTION_BITS</code> fractional bits, clipped to the
+     *         display
+     */
+    public int mapY(int rawX, int rawY) {
+        int y = (m_ySpan << (FRACTION_BITS - 1))
+                + ((m_c * ((rawX << 2) - m_centerX) + m_d * ((rawY << 2) - m_centerY)
+                        + (1 << (17 - FRACTION_BITS))) >> (18 - FRACTION_BITS));
+        return y < 0 ? 0 : y > m_ySpan << FRACTION_BITS ? m_ySpan << FRACTION_BITS : y;
+    }
+
+    /**
+     * Returns the raw corner coordinates as comma separated list, to be restored by
+     * <code>load()</code>.
+     * 
+     * @return the calibration as string
+     */
+    @Override
+    public String toString() {
+        String s = String.valueOf(m_points[0]);
+        for (int i = 1; i < 8; i++) {
+            s = s.concat(",").concat(String.valueOf(m_points[i]));
+        }
+        return s;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.io;
+
+/**
+ * <p>
+ * Removes the jitter from touch samples. Each sample passes three stages:
+ * <ol>
+ * <li>a median over the last 1, 3 or 5 samples, which drops single outliers,</li>
+ * <li>an exponential (IIR) low pass, <code>y += (x - y) / 2^smoothing</code>,</li>
+ * <li>a dead zone: the output only follows when it would move farther than the dead zone.</li>
+ * </ol>
+ * A resting finger thus reports a constant position instead of a stream of 1-pixel moves.
+ * </p>
+ * <p>
+ * The filter does not depend on a device, so it can be tested with recorded sample traces. The
+ * coordinates may be in any unit, the dead zone is given in the same unit.
+ * </p>
+ * 
+ * @see Touch#getFilter()
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class TouchFilter {
+
+    /** The maximum median window. Value: 5. */
+    public static final int MAX_MEDIAN = 5;
+
+    /** The median window. */
+    private int m_median = 3;
+
+    /** The smoothing shift of the low pass, 0 to disable it. */
+    private int m_smoothing = 1;
+
+    /** The dead zone. */
+    private int m_deadZone;
+
+    /** The last samples of the median window. */
+    private int[] m_xs = new int[MAX_MEDIAN], m_ys = new int[MAX_MEDIAN];
+
+    /** Sort buffer of the median. */
+    private int[] m_sorted = new int[MAX_MEDIAN];
+
+    /** The number of samples since the last reset. */
+    private int m_count;
+
+    /** The low pass state, scaled by 2^8. */
+    private int m_lowPassX, m_lowPassY;
+
+    /** The output position. */
+    private int m_x, m_y;
+
+    /**
+     * Adds a sample.
+     * 
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return <code>true</code> if the output position has changed
+     */
+    public boolean add(int x, int y) {
+        int index = m_count % MAX_MEDIAN;
+        m_xs[index] = x;
+        m_ys[index] = y;
+        m_count++;
+        x = median(m_xs);
+        y = median(m_ys);
+        if (m_count == 1) {
+            m_lowPassX = x << 8;
+            m_lowPassY = y << 8;
+            m_x = x;
+            m_y = y;
+            return true;
+        }
+        m_lowPassX += ((x << 8) - m_lowPassX) >> m_smoothing;
+        m_lowPassY += ((y << 8) - m_lowPassY) >> m_smoothing;
+        x = (m_lowPassX + 128) >> 8;
+        y = (m_lowPassY + 128) >> 8;
+        int dx = x > m_x ? x - m_x : m_x - x;
+        int dy = y > m_y ? y - m_y : m_y - y;
+        if (dx <= m_deadZone && dy <= m_deadZone) return false;
+        m_x = x;
+        m_y = y;
+        return true;
+    }
+
+    /**
+     * Returns the dead zone.
+     * 
+     * @return the dead zone
+     */
+    public int getDeadZone() {
+        return m_deadZone;
+    }
+
+    /**
+     * Returns the median window.
+     * 
+     * @return the number of samples, 1 if the median is disabled
+     */
+    public int getMedian() {
+        return m_median;
+    }
+
+    /**
+     * Returns the smoothing of the low pass.
+     * 
+     * @return the smoothing shift, 0 if the low pass is disabled
+     */
+    public int getSmoothing() {
+        return m_smoothing;
+    }
+
+    /**
+     * Returns the filtered x-coordinate.
+     * 
+     * @return the x-coordinate
+     */
+    public int getX() {
+        return m_x;
+    }
+
+    /**
+     * Returns the filtered y-coordinate.
+     * 
+     * @return the y-coordinate
+     */
+    public int getY() {
+        return m_y;
+    }
+
+    /**
+     * Returns the median of the last samples in a window.
+     * 
+     * @param samples the last samples
+     * @return the median
+     */
+    private int median(int[] samples) {
+        int n = m_count < m_median ? m_count : m_median;
+        int[] sorted = m_sorted;
+        // insertion sort of the newest n samples
+        for (int i = 0; i < n; i++) {
+            int v = samples[(m_count - 1 - i) % MAX_MEDIAN];
+            int j = i;
+            for (; j > 0 && sorted[j - 1] > v; j--) {
+                sorted[j] = sorted[j - 1];
+            }
+            sorted[j] = v;
+        }
+        return sorted[n >> 1];
+    }
+
+    /**
+     * Starts a new stroke. The next sample is passed unfiltered.
+     */
+    public void reset() {
+        m_count = 0;
+    }
+
+    /**
+     * Sets the dead zone. The output position only changes if the filtered position is more than
+     * this distance away in x or y direction. By default, the dead zone is 0.
+     * 
+     * @param deadZone the dead zone
+     */
+    public void setDeadZone(int deadZone) {
+        m_deadZone = deadZone < 0 ? 0 : deadZone;
+    }
+
+    /**
+     * Sets the median window. By default, the median of the last 3 samples is taken.
+     * 
+     * @param median the number of samples, 1, 3 or 5
+     */
+    public void setMedian(int median) {
+        m_median = median < 1 ? 1 : median > MAX_MEDIAN ? MAX_MEDIAN : median | 1;
+    }
+
+    /**
+     * Sets the smoothing of the low pass. Each sample moves the output by
+     * <code>1 / 2^smoothing</code> of its distance. By default, the smoothing is 1.
+     * 
+     * @param smoothing the smoothing shift from 0 (no low pass) to 4
+     */
+    public void setSmoothing(int smoothing) {
+        m_smoothing = smoothing < 0 ? 0 : smoothing > 4 ? 4 : smoothing;
+    }
+}
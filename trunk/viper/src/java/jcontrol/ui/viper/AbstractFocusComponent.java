@@ -82,12 +82,17 @@ public abstract class AbstractFocusComponent extends Component implements IFocus
     }
 
     /**
-     * Pushes the ActionEvent to the global event queue.
+     * Pushes the ActionEvent to the global event queue. The event is released to its pool after
+     * the listener has been called.
      * 
      * @param e the ActionEvent
      */
     protected void onActionEvent(ActionEvent e) {
-        if (listener != null) eventQueue.push(e);
+        if (listener != null) {
+            eventQueue.push(e);
+        } else {
+            e.release();
+        }
     }
 
     /*
@@ -0,0 +1,66 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.ui.viper.event.ActionEvent;
+import jcontrol.util.RingQueue;
+
+/**
+ * The global queue of action events. If the queue overflows, a <code>VALUE_CHANGED</code> event
+ * replaces a queued one of the same source, as only the latest value is of interest. Otherwise,
+ * the oldest event is dropped.
+ * 
+ * @see Component#eventQueue
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+class ActionEventQueue extends RingQueue {
+
+    /** The capacity of the queue. Value: 16. */
+    static final int CAPACITY = 16;
+
+    /**
+     * Creates the action event queue.
+     */
+    ActionEventQueue() {
+        super(CAPACITY, POLICY_COALESCE);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.util.RingQueue#canCoalesce(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected boolean canCoalesce(Object queued, Object o) {
+        ActionEvent a = (ActionEvent) queued;
+        ActionEvent b = (ActionEvent) o;
+        return a.source == b.source && a.type == ActionEvent.VALUE_CHANGED
+                && b.type == ActionEvent.VALUE_CHANGED;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.util.RingQueue#discard(java.lang.Object)
+     */
+    @Override
+    protected void discard(Object o) {
+        ((ActionEvent) o).release();
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Drives all animations from the worker threads of the frames, so animated components need no
+ * thread of their own. An animation is registered with a period and ticked right before an update
+ * pass; the changes of all animations that are due together are painted in one pass.
+ * </p>
+ * <p>
+ * The time is divided into frames of <code>1000 / getMaxFrameRate()</code> milliseconds. The
+ * animations are kept in a timing wheel with one slot per frame; an animation due more than
+ * <code>WHEEL_SIZE</code> frames ahead counts down the revolutions of the wheel in its slot. The
+ * periods are rounded to whole frames and an animation is ticked at most once per frame, so
+ * periods shorter than a frame are stretched to a frame. A late animation is ticked once and not
+ * caught up. Between the frames, the worker thread sleeps or polls the input devices, so
+ * animations cannot starve the input handling.
+ * </p>
+ * <p>
+ * An animated component that is invisible, disposed or removed from its container when it is due
+ * is dropped from the wheel. The components register again whenever they are painted entirely, so
+ * an animation pauses while its component is hidden and resumes when it is shown again.
+ * </p>
+ * 
+ * @see IAnimated
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public final class AnimationScheduler {
+
+    /** The default maximum frame rate in frames per second. Value: 25. */
+    public static final int DEFAULT_FRAME_RATE = 25;
+
+    /** The number of slots of the timing wheel. Value: 32. */
+    public static final int WHEEL_SIZE = 32;
+
+    /** The scheduler shared by all frames. */
+    private static AnimationScheduler s_scheduler = new AnimationScheduler();
+
+    /** The registered animations, <code>null</code> for free entries. */
+    private IAnimated[] m_animations = new IAnimated[4];
+
+    /** The periods of the animations in milliseconds. */
+    private int[] m_periods = new int[4];
+
+    /** The revolutions of the wheel left before an animation is due. */
+    private int[] m_rounds = new int[4];
+
+    /** The next entry in the same slot, -1 at the end of the slot. */
+    private int[] m_next = new int[4];
+
+    /** The first entry of each slot, -1 if the slot is empty. */
+    private int[] m_slots = new int[WHEEL_SIZE];
+
+    /** The number of registered animations. */
+    private int m_count;
+
+    /** The last frame the wheel has been advanced to. */
+    private long m_frame;
+
+    /** The duration of a frame in milliseconds. */
+    private int m_framePeriod = 1000 / DEFAULT_FRAME_RATE;
+
+    /** The animations to tick, collected by <code>advance()</code>. */
+    private IAnimated[] m_due = new IAnimated[4];
+
+    /** The number of ticks since the scheduler has been created. */
+    private int m_tickCount;
+
+    /**
+     * Creates the scheduler.
+     */
+    private AnimationScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            m_slots[i] = -1;
+        }
+    }
+
+    /**
+     * Returns the scheduler shared by all frames.
+     * 
+     * @return the animation scheduler
+     */
+    public static AnimationScheduler getScheduler() {
+        return s_scheduler;
+    }
+
+    /**
+     * Registers an animation. It is ticked for the first time after its period. If the animation
+     * is already registered with the same period, nothing happens; with another period, it is
+     * scheduled anew.
+     * 
+     * @param animation the animation
+     * @param period the period in milliseconds, rounded to whole frames
+     */
+    public synchronized void add(IAnimated animation, int period) {
+        if (period < 1) period = 1;
+        long frame = System.currentTimeMillis() / m_framePeriod;
+        int entry = indexOf(animation);
+        if (entry >= 0) {
+            if (m_periods[entry] == period) return;
+            unlink(entry);
+        } else {
+            // an empty wheel may have stood still for a long time
+            if (m_count == 0) m_frame = frame;
+            entry = allocate(animation);
+        }
+        m_periods[entry] = period;
+        schedule(entry, frame);
+    }
+
+    /**
+     * Ticks all animations due up to the specified time and schedules them for their next period.
+     * The animations of paused components are dropped. Called by the worker threads of the frames
+     * before each update pass.
+     * 
+     * @param now the current time in milliseconds
+     * @return the number of ticked animations
+     */
+    int advance(long now) {
+        // a second worker thread has to wait until the collected animations have been ticked
+        synchronized (m_due) {
+            int count = 0;
+            synchronized (this) {
+                long frame = now / m_framePeriod;
+                if (m_count == 0 || frame <= m_frame) return 0;
+                // skip the revolutions of a long pause but walk at least one, so every slot is
+                // visited and the late animations are ticked once
+                long revolutions = (frame - m_frame - WHEEL_SIZE) / WHEEL_SIZE;
+                if (revolutions > 0) {
+                    for (int i = 0; i < m_animations.length; i++) {
+                        m_rounds[i] = m_rounds[i] > revolutions ? m_rounds[i] - (int) revolutions
+                                : 0;
+                    }
+                    m_frame += revolutions * WHEEL_SIZE;
+                }
+                // take the due entries out of their slots and chain them
+                int due = -1;
+                while (m_frame < frame) {
+                    m_frame++;
+                    int slot = (int) m_frame & (WHEEL_SIZE - 1);
+                    int previous = -1;
+                    for (int entry = m_slots[slot]; entry >= 0;) {
+                        int next = m_next[entry];
+                        if (m_rounds[entry] > 0) {
+                            m_rounds[entry]--;
+                            previous = entry;
+                        } else {
+                            if (previous < 0) {
+                                m_slots[slot] = next;
+                            } else {
+                                m_next[previous] = next;
+                            }
+                            m_next[entry] = due;
+                            due = entry;
+                        }
+                        entry = next;
+                    }
+                }
+                // the next period starts now, not when the animation was due
+                for (int entry = due; entry >= 0;) {
+                    int next = m_next[entry];
+                    IAnimated animation = m_animations[entry];
+                    if (isPaused(animation)) {
+                        m_animations[entry] = null;
+                        m_count--;
+                    } else {
+                        schedule(entry, frame);
+                        if (count == m_due.length) {
+                            IAnimated[] dueAnimations = new IAnimated[count << 1];
+                            Management.arraycopy(m_due, 0, dueAnimations, 0, count);
+                            m_due = dueAnimations;
+                        }
+                        m_due[count++] = animation;
+                    }
+                    entry = next;
+                }
+                m_tickCount += count;
+            }
+            // tick outside the lock, the animations mark their components dirty
+            for (int i = 0; i < count; i++) {
+                m_due[i].tick(now);
+                m_due[i] = null;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Returns a free entry for an animation, growing the entries if necessary.
+     * 
+     * @param animation the animation
+     * @return the index of the entry
+     */
+    private int allocate(IAnimated animation) {
+        int n = m_animations.length;
+        int entry = 0;
+        while (entry < n && m_animations[entry] != null) {
+            entry++;
+        }
+        if (entry == n) {
+            IAnimated[] animations = new IAnimated[n << 1];
+            int[] periods = new int[n << 1];
+            int[] rounds = new int[n << 1];
+            int[] next = new int[n << 1];
+            Management.arraycopy(m_animations, 0, animations, 0, n);
+            Management.arraycopy(m_periods, 0, periods, 0, n);
+            Management.arraycopy(m_rounds, 0, rounds, 0, n);
+            Management.arraycopy(m_next, 0, next, 0, n);
+            m_animations = animations;
+            m_periods = periods;
+            m_rounds = rounds;
+            m_next = next;
+        }
+        m_animations[entry] = animation;
+        m_count++;
+        return entry;
+    }
+
+    /**
+     * Returns the number of registered animations.
+     * 
+     * @return the number of animations
+     */
+    public synchronized int getAnimationCount() {
+        return m_count;
+    }
+
+    /**
+     * Returns the maximum frame rate.
+     * 
+     * @return the frame rate in frames per second
+     */
+    public int getMaxFrameRate() {
+        return 1000 / m_framePeriod;
+    }
+
+    /**
+     * Returns the number of ticks since the scheduler has been created.
+     * 
+     * @return the number of ticks
+     */
+    public int getTickCount() {
+        return m_tickCount;
+    }
+
+    /**
+     * Returns the time until the next frame with a due animation.
+     * 
+     * @param now the current time in milliseconds
+     * @return the time in milliseconds, at least 1, or 0 if there are no animations
+     */
+    synchronized int getWaitTime(long now) {
+        if (m_count == 0) return 0;
+        // wake up after a revolution at the latest to count down the rounds
+        long next = m_frame + WHEEL_SIZE;
+        search: for (int i = 1; i < WHEEL_SIZE; i++) {
+            int slot = (int) (m_frame + i) & (WHEEL_SIZE - 1);
+            for (int entry = m_slots[slot]; entry >= 0; entry = m_next[entry]) {
+                if (m_rounds[entry] == 0) {
+                    next = m_frame + i;
+                    break search;
+                }
+            }
+        }
+        long wait = next * m_framePeriod - now;
+        return wait < 1 ? 1 : (int) wait;
+    }
+
+    /**
+     * Returns the index of an animation.
+     * 
+     * @param animation the animation
+     * @return the index or -1 if the animation is not registered
+     */
+    private int indexOf(IAnimated animation) {
+        for (int i = 0; i < m_animations.length; i++) {
+            if (m_animations[i] == animation) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns <code>true</code> if an animation belongs to a component that is invisible, disposed
+     * or not part of a container.
+     * 
+     * @param animation the animation
+     * @return <code>true</code> if the animation has to be dropped
+     */
+    private static boolean isPaused(IAnimated animation) {
+        if (!(animation instanceof Component)) return false;
+        Component component = (Component) animation;
+        return component.parent == null || !component.isVisible();
+    }
+
+    /**
+     * Unregisters an animation.
+     * 
+     * @param animation the animation
+     */
+    public synchronized void remove(IAnimated animation) {
+        int entry = indexOf(animation);
+        if (entry < 0) return;
+        unlink(entry);
+        m_animations[entry] = null;
+        m_count--;
+    }
+
+    /**
+     * Inserts an entry into the slot of the frame its period ends in.
+     * 
+     * @param entry the index of the entry
+     * @param frame the frame the period starts in
+     */
+    private void schedule(int entry, long frame) {
+        int frames = (m_periods[entry] + (m_framePeriod >> 1)) / m_framePeriod;
+        long due = frame + (frames > 0 ? frames : 1);
+        if (due <= m_frame) due = m_frame + 1;
+        int slot = (int) due & (WHEEL_SIZE - 1);
+        m_rounds[entry] = (int) ((due - m_frame - 1) / WHEEL_SIZE);
+        m_next[entry] = m_slots[slot];
+        m_slots[slot] = entry;
+    }
+
+    /**
+     * Sets the maximum frame rate of all animations. The animations are scheduled anew.
+     * 
+     * @param framesPerSecond the frame rate, from 1 to 1000
+     */
+    public synchronized void setMaxFrameRate(int framesPerSecond) {
+        if (framesPerSecond < 1) framesPerSecond = 1;
+        if (framesPerSecond > 1000) framesPerSecond = 1000;
+        m_framePeriod = 1000 / framesPerSecond;
+        // the frame numbers have changed
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            m_slots[i] = -1;
+        }
+        m_frame = System.currentTimeMillis() / m_framePeriod;
+        for (int i = 0; i < m_animations.length; i++) {
+            if (m_animations[i] != null) schedule(i, m_frame);
+        }
+    }
+
+    /**
+     * Removes an entry from its slot.
+     * 
+     * @param entry the index of the entry
+     */
+    private void unlink(int entry) {
+        for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+            int previous = -1;
+            for (int i = m_slots[slot]; i >= 0; previous = i, i = m_next[i]) {
+                if (i == entry) {
+                    if (previous < 0) {
+                        m_slots[slot] = m_next[i];
+                    } else {
+                        m_next[previous] = m_next[i];
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -111,10 +111,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_SELECTED | STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
+                                    null));
                     }
                 }
                 return null;
@@ -124,10 +125,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
+                                    null));
                     }
                 }
                 return null;
@@ -149,10 +151,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_SELECTED | STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
+                                    null));
                     }
                 }
                 return null;
@@ -163,10 +166,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
+                                    null));
                     }
                 }
                 return e;
@@ -178,10 +182,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
+                                    null));
                     }
                 }
                 return null;
@@ -203,10 +208,11 @@ public class Button extends AbstractFocusComponent {
                     state |= STATE_SELECTED | STATE_DIRTY_REPAINT;
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_PRESSED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_PRESSED,
+                                    null));
                     }
                     return RESULT_EXECUTED;
                 }
@@ -219,10 +225,11 @@ public class Button extends AbstractFocusComponent {
                     // touch released inside button area
                     if (listener != null) {
                         if (m_caption instanceof String)
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
                                     (String) m_caption));
                         else
-                            onActionEvent(new ActionEvent(this, ActionEvent.BUTTON_RELEASED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.BUTTON_RELEASED,
+                                    null));
                     }
                     return RESULT_EXECUTED;
                 }
@@ -253,10 +260,10 @@ public class Button extends AbstractFocusComponent {
             if (m_caption instanceof String) {
                 g.setFont(font);
                 if ((state & STATE_WIDTH_FIXED) == 0) {
-                    width = g.getTextWidth((String) m_caption) + 4;
+                    width = TextMetrics.getTextWidth(g, font, (String) m_caption) + 4;
                 }
                 if ((state & STATE_HEIGHT_FIXED) == 0) {
-                    height = g.getFontHeight() + 3;
+                    height = TextMetrics.getFontHeight(g, font) + 3;
                 }
                 g.setFont(null);
             } else if (m_caption instanceof Resource) {
@@ -273,9 +280,9 @@ public class Button extends AbstractFocusComponent {
         // the caption is a String
         if (m_caption instanceof String) {
             g.setFont(font);
-            int textWidth = g.getTextWidth((String) m_caption);
+            int textWidth = TextMetrics.getTextWidth(g, font, (String) m_caption);
             if (textWidth > width - 3) textWidth = width - 3;
-            int theight = g.getFontHeight();
+            int theight = TextMetrics.getFontHeight(g, font);
             if (theight > height - 3) theight = height - 3;
             int xoffset = ((width - textWidth) >> 1) + (((state & STATE_SELECTED) != 0) ? 1 : 0);
             if (xoffset < 1) xoffset = 1;
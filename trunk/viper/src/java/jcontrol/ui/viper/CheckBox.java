@@ -95,7 +95,7 @@ public class CheckBox extends AbstractFocusComponent {
             }
             state |= STATE_DIRTY_REPAINT;
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -119,7 +119,7 @@ public class CheckBox extends AbstractFocusComponent {
             // state |= STATE_DIRTY_REPAINT;
             state |= STATE_DIRTY_PAINT_ALL;
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -144,7 +144,7 @@ public class CheckBox extends AbstractFocusComponent {
                 state |= STATE_DIRTY_REPAINT;
                 // setSelected(!isSelected());
                 if (listener != null)
-                    onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
                 return RESULT_EXECUTED;
             }
         }
@@ -20,7 +20,6 @@ package jcontrol.ui.viper;
 import jcontrol.io.Display;
 import jcontrol.io.Graphics;
 import jcontrol.lang.Math;
-import jcontrol.system.Management;
 import jcontrol.ui.viper.event.ActionEvent;
 import jcontrol.ui.viper.event.KeyEvent;
 import jcontrol.ui.viper.event.RotaryTouchEvent;
@@ -47,6 +46,12 @@ public class ComboBox extends AbstractFocusComponent {
     /** Default scroll bar width. Value: 9. */
     private static final int SCROLL_BAR_WIDTH = 9;
 
+    /**
+     * The number of items measured to compute the preferred width. Value: 32. The items of larger
+     * providers are not all read; the preferred width is taken from the first ones.
+     */
+    private static final int MEASURE_LIMIT = 32;
+
     /** */
     private static final int STATE_OPEN_PAINTED = RESERVED2;
 
@@ -63,7 +68,7 @@ public class ComboBox extends AbstractFocusComponent {
     private int m_fontHeight;
 
     /** The combo box items. */
-    private String[] m_items;
+    private IItemProvider m_items;
 
     /** The scroll value. */
     private int m_scrollValue = 0;
@@ -83,7 +88,7 @@ public class ComboBox extends AbstractFocusComponent {
         this.width = width;
         state |= STATE_WIDTH_FIXED;
         state |= STATE_REVALIDATE; // should be recomputed on paint
-        m_items = new String[0];
+        m_items = new ItemList();
     }
 
     /**
@@ -99,19 +104,20 @@ public class ComboBox extends AbstractFocusComponent {
         this.x = x;
         this.y = y;
         this.width = width;
-        setItems(items);
+        m_items = new ItemList(items);
+        m_currentItem = items != null ? 0 : -1;
+        state |= STATE_REVALIDATE; // should be recomputed on paint
     }
 
     /**
-     * Adds an item to this <code>ComboBox</code>.
+     * Adds an item to this <code>ComboBox</code>. Has no effect if the items are provided by
+     * another provider than an <code>ItemList</code>.
      * 
      * @param item The item to add to the <code>ComboBox</code>.
      */
     public synchronized void add(String item) {
-        String[] newItems = new String[m_items.length + 1];
-        if (m_items.length > 0) Management.arraycopy(m_items, 0, newItems, 0, m_items.length);
-        newItems[newItems.length - 1] = item;
-        m_items = newItems;
+        if (!(m_items instanceof ItemList)) return;
+        ((ItemList) m_items).add(item);
         state |= STATE_REVALIDATE; // should be recomputed on paint
         if (m_currentItem < 0) m_currentItem = 0;
         redrawInternalAndParent();
@@ -137,13 +143,31 @@ public class ComboBox extends AbstractFocusComponent {
         }
     }
 
+    /**
+     * Returns the number of items.
+     * 
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return m_items.getItemCount();
+    }
+
+    /**
+     * Returns the provider of the items.
+     * 
+     * @return the item provider
+     */
+    public IItemProvider getItemProvider() {
+        return m_items;
+    }
+
     /**
      * Returns the currently selected index.
      * 
      * @return the selected index
      */
     public synchronized int getSelectedIndex() {
-        if (m_currentItem < m_items.length && m_currentItem >= 0) { return m_currentItem; }
+        if (m_currentItem < m_items.getItemCount() && m_currentItem >= 0) { return m_currentItem; }
         return -1;
     }
 
@@ -153,7 +177,8 @@ public class ComboBox extends AbstractFocusComponent {
      * @return the selected item
      */
     public synchronized String getSelectedItem() {
-        if (m_currentItem < m_items.length && m_currentItem >= 0) { return m_items[m_currentItem]; }
+        if (m_currentItem < m_items.getItemCount()
+                && m_currentItem >= 0) { return m_items.getItem(m_currentItem); }
         return null;
     }
 
@@ -170,11 +195,12 @@ public class ComboBox extends AbstractFocusComponent {
                 int item = m_currentItem;
                 close(false);
                 m_currentItem = item;
-                if (listener != null && m_currentItem >= 0 && m_currentItem < m_items.length) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                            m_items[m_currentItem]));
+                if (listener != null && m_currentItem >= 0
+                        && m_currentItem < m_items.getItemCount()) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                            m_items.getItem(m_currentItem)));
                 }
-            } else if (m_items.length > 0) { // user opens the combo box
+            } else if (m_items.getItemCount() > 0) { // user opens the combo box
                 state |= STATE_SELECTED | STATE_DIRTY_REPAINT;
                 int previousState = state;
 
@@ -203,8 +229,8 @@ public class ComboBox extends AbstractFocusComponent {
             // move to next item
             if ((state & STATE_SELECTED) == 0) return e; // let the container transfer the focus
             m_currentItem++;
-            if (m_currentItem > m_items.length - 1) {
-                m_currentItem = m_items.length - 1;
+            if (m_currentItem > m_items.getItemCount() - 1) {
+                m_currentItem = m_items.getItemCount() - 1;
             } else {
                 state |= STATE_DIRTY_REPAINT;
             }
@@ -232,11 +258,12 @@ public class ComboBox extends AbstractFocusComponent {
                 int item = m_currentItem;
                 close(false);
                 m_currentItem = item;
-                if (listener != null && m_currentItem >= 0 && m_currentItem < m_items.length) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                            m_items[m_currentItem]));
+                if (listener != null && m_currentItem >= 0
+                        && m_currentItem < m_items.getItemCount()) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                            m_items.getItem(m_currentItem)));
                 }
-            } else if (m_items.length > 0) { // user opens the combo box
+            } else if (m_items.getItemCount() > 0) { // user opens the combo box
                 state |= STATE_SELECTED | STATE_DIRTY_REPAINT;
                 int previousState = state;
 
@@ -265,8 +292,8 @@ public class ComboBox extends AbstractFocusComponent {
             // move to next item
             if ((state & STATE_SELECTED) == 0) return e; // let the container transfer the focus
             m_currentItem++;
-            if (m_currentItem > m_items.length - 1) {
-                m_currentItem = m_items.length - 1;
+            if (m_currentItem > m_items.getItemCount() - 1) {
+                m_currentItem = m_items.getItemCount() - 1;
             } else {
                 state |= STATE_DIRTY_REPAINT;
             }
@@ -336,7 +363,7 @@ public class ComboBox extends AbstractFocusComponent {
                             // maybe inside selection area
                             int visibleItems = (m_boxHeight - (BORDER_WIDTH << 1)) / m_fontHeight;
                             int m_scrollBarSize = m_fontHeight < 9 ? 9 : m_fontHeight;
-                            if (m_items.length > visibleItems
+                            if (m_items.getItemCount() > visibleItems
                                     && e.x > x + width - m_scrollBarSize - BORDER_WIDTH) {
                                 // clicked on scrollbar
                                 if (e.y < boxY + m_scrollBarSize + BORDER_WIDTH) {
@@ -347,7 +374,7 @@ public class ComboBox extends AbstractFocusComponent {
                                     }
                                 } else if (e.y > boxY + m_boxHeight - m_scrollBarSize
                                         - BORDER_WIDTH) {
-                                    if (m_currentItem < m_items.length - 1) {
+                                    if (m_currentItem < m_items.getItemCount() - 1) {
                                         m_currentItem++;
                                         state |= STATE_DIRTY_REPAINT;
                                         // setDirty(STATE_DIRTY_REPAINT, true);
@@ -357,9 +384,9 @@ public class ComboBox extends AbstractFocusComponent {
                                     int newItem = Math.scale(e.y
                                             - (boxY + m_scrollBarSize + BORDER_WIDTH), m_boxHeight
                                             - (m_scrollBarSize * 3) + (BORDER_WIDTH << 1),
-                                            m_items.length);
+                                            m_items.getItemCount());
                                     if (newItem != m_currentItem && newItem >= 0
-                                            && newItem < m_items.length) {
+                                            && newItem < m_items.getItemCount()) {
                                         m_currentItem = newItem;
                                         state |= STATE_DIRTY_REPAINT;
                                         // setDirty(STATE_DIRTY_REPAINT, true);
@@ -370,8 +397,8 @@ public class ComboBox extends AbstractFocusComponent {
                             int newItem = (((e.y - boxY + BORDER_WIDTH) / m_fontHeight) + m_scrollValue);
                             if (newItem < 0) {
                                 newItem = 0;
-                            } else if (newItem >= m_items.length) {
-                                newItem = m_items.length - 1;
+                            } else if (newItem >= m_items.getItemCount()) {
+                                newItem = m_items.getItemCount() - 1;
                             }
                             if (newItem != m_currentItem) {
                                 m_currentItem = newItem;
@@ -380,8 +407,9 @@ public class ComboBox extends AbstractFocusComponent {
                             } else {
                                 if (e.type == TouchEvent.TYPE_TOUCH_PRESSED) {
                                     close(false); // touched on the current selection
-                                    onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                                            m_items[m_currentItem]));
+                                    onActionEvent(ActionEvent.acquire(this,
+                                            ActionEvent.ITEM_SELECTED,
+                                            m_items.getItem(m_currentItem)));
                                 }
                             }
                             return RESULT_EXECUTED;
@@ -399,13 +427,13 @@ public class ComboBox extends AbstractFocusComponent {
                         // released inside selection area
                         int visibleItems = (m_boxHeight - (BORDER_WIDTH << 1)) / m_fontHeight;
                         int m_scrollBarSize = m_fontHeight < 9 ? 9 : m_fontHeight;
-                        if (m_items.length > visibleItems
+                        if (m_items.getItemCount() > visibleItems
                                 && e.x > x + width - m_scrollBarSize - BORDER_WIDTH) {
                             // released on scrollbar
                         } else {
                             close(false);
-                            onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                                    m_items[m_currentItem]));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                                    m_items.getItem(m_currentItem)));
                             return RESULT_EXECUTED;
                         }
                     }
@@ -423,7 +451,7 @@ public class ComboBox extends AbstractFocusComponent {
      */
     @Override
     public synchronized void paint(Graphics g) {
-        if (m_currentItem < 0 && m_items.length > 0) {
+        if (m_currentItem < 0 && m_items.getItemCount() > 0) {
             m_currentItem = 0;
         }
         if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
@@ -451,7 +479,7 @@ public class ComboBox extends AbstractFocusComponent {
         boxY = (state & STATE_OPEN_UPWARDS) == STATE_OPEN_UPWARDS ? y - m_boxHeight + 1 : y
                 + height - 1;
         g.setFont(font);
-        m_fontHeight = g.getFontHeight();
+        m_fontHeight = TextMetrics.getFontHeight(g, font);
         int m_scrollBarSize = m_fontHeight < 9 ? 9 : m_fontHeight;
         if (width == 0 || height == 0 || (state & STATE_REVALIDATE) != 0) {
             // validate
@@ -459,8 +487,11 @@ public class ComboBox extends AbstractFocusComponent {
                 if (width < SCROLL_BAR_WIDTH + 2) {
                     width = SCROLL_BAR_WIDTH + 2;
                 }
-                for (int i = 0; i < m_items.length; i++) {
-                    int w = m_items[i] != null ? g.getTextWidth(m_items[i])
+                int count = m_items.getItemCount();
+                if (count > MEASURE_LIMIT) count = MEASURE_LIMIT;
+                for (int i = 0; i < count; i++) {
+                    String item = m_items.getItem(i);
+                    int w = item != null ? TextMetrics.getTextWidth(g, font, item)
                             : 0 + (SCROLL_BAR_WIDTH + 2);
                     if (width < w) {
                         width = w;
@@ -468,7 +499,7 @@ public class ComboBox extends AbstractFocusComponent {
                 }
             }
             height = m_fontHeight + (BORDER_WIDTH << 1);
-            m_boxHeight = (BORDER_WIDTH << 1) + (m_fontHeight * m_items.length);
+            m_boxHeight = (BORDER_WIDTH << 1) + (m_fontHeight * m_items.getItemCount());
             Component root = (Component) getFrame();
             if (root != null) {
                 if (y + height + m_boxHeight - BOX_OFFSET > root.y + root.height) {
@@ -502,9 +533,10 @@ public class ComboBox extends AbstractFocusComponent {
             // before
             // text
             int textWidth = 0;
-            if (m_items[m_currentItem] != null && m_currentItem >= 0
-                    && m_currentItem < m_items.length) { // draw text
-                textWidth = g.drawString(m_items[m_currentItem], x + BORDER_WIDTH + 1, y
+            String item = m_currentItem >= 0 && m_currentItem < m_items.getItemCount() ? m_items
+                    .getItem(m_currentItem) : null;
+            if (item != null) { // draw text
+                textWidth = g.drawString(item, x + BORDER_WIDTH + 1, y
                         + BORDER_WIDTH, width - m_scrollBarSize - ((BORDER_WIDTH << 1) + 1), -1, 0,
                         0);
             }
@@ -538,10 +570,10 @@ public class ComboBox extends AbstractFocusComponent {
             state |= STATE_OPEN_PAINTED;
             // the ComboBox is open
             int visibleItems = (m_boxHeight - (BORDER_WIDTH << 1)) / m_fontHeight;
-            if (m_currentItem >= m_items.length) {
-                m_currentItem = m_items.length - 1;
+            if (m_currentItem >= m_items.getItemCount()) {
+                m_currentItem = m_items.getItemCount() - 1;
             }
-            if (m_currentItem < 0 && m_items.length > 0) {
+            if (m_currentItem < 0 && m_items.getItemCount() > 0) {
                 m_currentItem = 0;
             }
             // check if scroll value is valid
@@ -552,14 +584,14 @@ public class ComboBox extends AbstractFocusComponent {
             if (m_currentItem >= m_scrollValue + visibleItems) {
                 m_scrollValue = m_currentItem - visibleItems + 1;
             }
-            if (m_scrollValue > m_items.length - visibleItems) {
-                m_scrollValue = m_items.length - visibleItems;
+            if (m_scrollValue > m_items.getItemCount() - visibleItems) {
+                m_scrollValue = m_items.getItemCount() - visibleItems;
             }
             if (m_scrollValue < 0) {
                 m_scrollValue = 0;
             }
 
-            boolean showSB = visibleItems < m_items.length;
+            boolean showSB = visibleItems < m_items.getItemCount();
             {
                 int yoffset = boxY + 1; // top line of selection box+1
                 g.drawLine(x, yoffset, x, boxY + m_boxHeight - 2); // left line
@@ -576,8 +608,9 @@ public class ComboBox extends AbstractFocusComponent {
                 // draw all items
                 for (int c = 0; c < visibleItems; c++) {
                     g.clearRect(x + 1, yoffset, 2, m_fontHeight); // clear area before text
-                    int w = g.drawString(m_items[c + m_scrollValue] != null ? (String) m_items[c
-                            + m_scrollValue] : "", x + 2, yoffset, width
+                    // only the visible items are requested from the provider
+                    String item = m_items.getItem(c + m_scrollValue);
+                    int w = g.drawString(item != null ? item : "", x + 2, yoffset, width
                             - (showSB ? SCROLL_BAR_WIDTH + 1 : 2), m_fontHeight, 0, 0);
                     g.clearRect(x + 1 + w, yoffset,
                             width - (showSB ? SCROLL_BAR_WIDTH + 1 : 2) - w, m_fontHeight); // clear
@@ -610,7 +643,8 @@ public class ComboBox extends AbstractFocusComponent {
 
                 xoff = x + width - 8;
                 if (m_boxHeight > 26) {
-                    int yoff = (m_scrollValue * (m_boxHeight - 26) / (m_items.length - visibleItems));
+                    int yoff = (m_scrollValue * (m_boxHeight - 26) / (m_items.getItemCount()
+                            - visibleItems));
                     g.clearRect(xoff, boxY + 9, 7, yoff);
                     // slider
                     g.drawImage(new String[]{"\u81C1\uD5D5\uD5C1\uFD00"}, xoff, yoff + boxY + 9, 7,
@@ -634,20 +668,13 @@ public class ComboBox extends AbstractFocusComponent {
      * @return Success of remove operation.
      */
     public synchronized boolean remove(String item) {
-        String[] newItems = new String[m_items.length - 1];
-        int count = 0;
-        for (int i = 0; i < m_items.length; i++) {
-            if (m_items[i] != item) {
-                newItems[count] = m_items[i];
-                count++;
-            }
-        }
-        if (count == m_items.length) { return false; }
-        m_items = newItems;
-        if (m_currentItem > m_items.length - 1) {
+        if (!(m_items instanceof ItemList)) return false;
+        ItemList list = (ItemList) m_items;
+        if (!list.remove(list.indexOf(item))) { return false; }
+        if (m_currentItem > m_items.getItemCount() - 1) {
             m_currentItem--;
         }
-        if (m_items.length == 0) {
+        if (m_items.getItemCount() == 0) {
             m_currentItem = -1;
         }
         state |= STATE_REVALIDATE; // should be recomputed on paint
@@ -656,19 +683,33 @@ public class ComboBox extends AbstractFocusComponent {
     }
 
     /**
-     * Sets the combo box items.
+     * Sets the provider of the items. The first item is selected.
+     * 
+     * @param items the item provider
+     */
+    public synchronized void setItemProvider(IItemProvider items) {
+        m_items = items != null ? items : new ItemList();
+        m_currentItem = m_items.getItemCount() > 0 ? 0 : -1;
+        m_scrollValue = 0;
+        state |= STATE_REVALIDATE; // should be recomputed on paint
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Sets the combo box items. The items are copied in one pass, regardless of their number.
      * 
      * @param items the items to set
      */
-    public void setItems(String[] items) {
-        m_items = new String[items != null ? items.length : 0];
-        if (items != null) {
-            Management.arraycopy(items, 0, m_items, 0, m_items.length);
-            m_currentItem = 0;
+    public synchronized void setItems(String[] items) {
+        if (m_items instanceof ItemList) {
+            ((ItemList) m_items).setItems(items);
+            m_currentItem = items != null ? 0 : -1;
+            m_scrollValue = 0;
+            state |= STATE_REVALIDATE; // should be recomputed on paint
+            redrawInternalAndParent();
         } else {
-            m_currentItem = -1;
+            setItemProvider(new ItemList(items));
         }
-        state |= STATE_REVALIDATE; // should be recomputed on paint
     }
 
     /**
@@ -681,10 +722,10 @@ public class ComboBox extends AbstractFocusComponent {
      */
     public synchronized String setSelection(int index) {
         if ((state & STATE_SELECTED) != 0) { return null; }
-        if (index < m_items.length && index >= 0 && index != m_currentItem) {
+        if (index < m_items.getItemCount() && index >= 0 && index != m_currentItem) {
             m_currentItem = index;
             redrawInternalAndParent();
-            return m_items[index];
+            return m_items.getItem(index);
         }
         return null;
     }
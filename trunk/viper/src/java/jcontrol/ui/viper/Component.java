@@ -19,7 +19,7 @@ package jcontrol.ui.viper;
 
 import jcontrol.io.Graphics;
 import jcontrol.io.Resource;
-import jcontrol.util.Queue;
+import jcontrol.util.RingQueue;
 
 /**
  * <p>
@@ -140,9 +140,9 @@ public abstract class Component {
     protected Resource font;
 
     /**
-     * Static event queue for all components.
+     * Static event queue for all components. It has a fixed capacity and never reallocates.
      */
-    protected static Queue eventQueue;
+    protected static RingQueue eventQueue = new ActionEventQueue();
 
     /**
      * Returns the applications root IFrame object.
@@ -193,6 +193,42 @@ public abstract class Component {
 
     }
 
+    /**
+     * Scrolls an area vertically, if the graphics can copy areas. Scrolling components use it to
+     * paint only the rows they scroll in.
+     * 
+     * @param g the graphics
+     * @param x the x-coordinate of the area
+     * @param y the y-coordinate of the area
+     * @param width the width of the area
+     * @param height the height of the area
+     * @param dy the distance, negative to scroll the content upwards
+     * @return <code>false</code> if the area has not been scrolled, it must be repainted then
+     * @see IBlitGraphics
+     */
+    protected static boolean scrollArea(Graphics g, int x, int y, int width, int height, int dy) {
+        return scrollArea(g, x, y, width, height, 0, dy);
+    }
+
+    /**
+     * Scrolls an area, if the graphics can copy areas.
+     * 
+     * @param g the graphics
+     * @param x the x-coordinate of the area
+     * @param y the y-coordinate of the area
+     * @param width the width of the area
+     * @param height the height of the area
+     * @param dx the horizontal distance, negative to scroll the content to the left
+     * @param dy the vertical distance, negative to scroll the content upwards
+     * @return <code>false</code> if the area has not been scrolled, it must be repainted then
+     * @see IBlitGraphics
+     */
+    protected static boolean scrollArea(Graphics g, int x, int y, int width, int height, int dx,
+            int dy) {
+        return g instanceof IBlitGraphics
+                && ((IBlitGraphics) g).copyArea(x, y, width, height, dx, dy);
+    }
+
     /**
      * Redraw.
      */
@@ -201,7 +237,11 @@ public abstract class Component {
             state |= STATE_DIRTY_REPAINT;
             Component parent = (Component) this.parent;
             if (parent != null && parent.isVisibleInternal()
-                    && (parent.state & STATE_DIRTY_MASK) == 0) parent.redrawInternalAndParent();
+                    && (parent.state & STATE_DIRTY_MASK) == 0) {
+                parent.redrawInternalAndParent();
+            } else {
+                wakeUpFrame();
+            }
         }
     }
 
@@ -229,6 +269,7 @@ public abstract class Component {
         if (width > 0) state |= STATE_WIDTH_FIXED;
         if (height > 0) state |= STATE_HEIGHT_FIXED;
         state |= STATE_REVALIDATE;
+        if (parent instanceof Container) ((Container) parent).invalidateBounds();
         if (isVisibleInternal()) setDirty(STATE_DIRTY_PAINT_ALL, true);
     }
 
@@ -241,6 +282,11 @@ public abstract class Component {
      * @param onoff set or not set the state
      */
     public synchronized void setDirty(int state, boolean onoff) {
+        if (onoff && (state & STATE_DIRTY_PAINT_ALL) == STATE_DIRTY_PAINT_ALL
+                && parent instanceof Container) {
+            // the bounds may have changed
+            ((Container) parent).invalidateBounds();
+        }
         synchronized (this) {
             if (onoff) {
                 if (!isVisible()) return;
@@ -250,8 +296,11 @@ public abstract class Component {
             }
         }
         Component parent = (Component) this.parent;
-        if (parent != null && (parent.state & STATE_DIRTY_MASK) == 0)
+        if (parent != null && (parent.state & STATE_DIRTY_MASK) == 0) {
             parent.setDirty(STATE_DIRTY_REPAINT, onoff);
+        } else if (onoff) {
+            wakeUpFrame();
+        }
     }
 
     /**
@@ -304,4 +353,17 @@ public abstract class Component {
         }
     }
 
+    /**
+     * Wakes up the worker thread of the frame this component belongs to. It is called where a
+     * change stops propagating, at the frame or at a parent that is already dirty, so a change made
+     * by another thread is painted without waiting for the poll interval.
+     */
+    private void wakeUpFrame() {
+        Component root = this;
+        while (root.parent instanceof Component) {
+            root = (Component) root.parent;
+        }
+        if (root instanceof IFrame) ((IFrame) root).wakeUp();
+    }
+
 }
@@ -68,6 +68,18 @@ public class Container extends Component implements IContainer {
      */
     int focusIndex = -1;
 
+    /**
+     * The united bounds of all children. Used to skip this container when damaged areas are
+     * distributed. Only valid if <code>boundsValid</code> is set.
+     */
+    int boundsX, boundsY, boundsWidth, boundsHeight;
+
+    /** Indicates whether the united bounds of the children are up to date. */
+    boolean boundsValid;
+
+    /** The spatial index used to dispatch touch events to the children, created on demand. */
+    private HitGrid m_hitGrid;
+
     /**
      * Create a new <code>Container</code> with a default initial capacity of 10. Using this
      * constructor corresponds to the call <code>new Container(10)</code>.
@@ -144,13 +156,108 @@ public class Container extends Component implements IContainer {
             if (font != null && component.font == null) {
                 component.setFont(font);
             }
-
+            invalidateBounds();
         }
         if (component.isVisible()) {
             redrawInternalAndParent();
         }
     }
 
+    /**
+     * Marks all visible components under the specified component that intersect the given damage
+     * region to be repainted. Containers whose children do not intersect the region at all are
+     * skipped without visiting their children.
+     * 
+     * @param c a component or container
+     * @param damage the damaged areas of the current update pass
+     * @return <code>true</code> if at least one component has been marked
+     */
+    static boolean applyDamage(Component c, DamageRegion damage) {
+        if (c == null || !c.isVisibleInternal()) return false;
+        if (c instanceof Container) {
+            Container container = (Container) c;
+            boolean result = false;
+            synchronized (container.children) {
+                container.validateBounds();
+                if (!damage.intersects(container.boundsX, container.boundsY,
+                        container.boundsWidth, container.boundsHeight)) { return false; }
+                Component[] children = container.children;
+                for (int i = 0; i < children.length; i++) {
+                    if (applyDamage(children[i], damage)) result = true;
+                }
+            }
+            if (result) container.state |= STATE_DIRTY_REPAINT;
+            return result;
+        }
+        if ((c.state & STATE_DISPOSED) == 0 && damage.intersects(c.x, c.y, c.width, c.height)) {
+            c.state |= STATE_DIRTY_REPAINT;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the united bounds of the children as out of date. This is propagated to all parent
+     * containers.
+     */
+    void invalidateBounds() {
+        boundsValid = false;
+        if (m_hitGrid != null) m_hitGrid.valid = false;
+        if (parent instanceof Container) ((Container) parent).invalidateBounds();
+    }
+
+    /**
+     * Returns the spatial index of the children. The caller must synchronize on
+     * <code>children</code>.
+     * 
+     * @return the hit grid of this container
+     */
+    HitGrid getHitGrid() {
+        if (m_hitGrid == null) m_hitGrid = new HitGrid();
+        return m_hitGrid;
+    }
+
+    /**
+     * Recomputes the united bounds of the children if necessary.
+     */
+    void validateBounds() {
+        if (boundsValid) return;
+        int x1 = Integer.MAX_VALUE, y1 = Integer.MAX_VALUE;
+        int x2 = Integer.MIN_VALUE, y2 = Integer.MIN_VALUE;
+        for (int i = 0; i < children.length; i++) {
+            Component c = children[i];
+            if (c == null) continue;
+            int cx, cy, cx2, cy2;
+            if (c instanceof Container) {
+                Container container = (Container) c;
+                container.validateBounds();
+                if (container.boundsWidth <= 0) continue;
+                cx = container.boundsX;
+                cy = container.boundsY;
+                cx2 = cx + container.boundsWidth;
+                cy2 = cy + container.boundsHeight;
+            } else {
+                cx = c.x;
+                cy = c.y;
+                cx2 = cx + c.width;
+                cy2 = cy + c.height;
+            }
+            if (cx < x1) x1 = cx;
+            if (cy < y1) y1 = cy;
+            if (cx2 > x2) x2 = cx2;
+            if (cy2 > y2) y2 = cy2;
+        }
+        if (x1 > x2) { // no children
+            boundsX = boundsY = boundsWidth = boundsHeight = 0;
+        } else {
+            boundsX = x1;
+            boundsY = y1;
+            boundsWidth = x2 - x1;
+            boundsHeight = y2 - y1;
+        }
+        boundsValid = true;
+    }
+
     /**
      * Dispose.
      */
@@ -258,6 +365,10 @@ public class Container extends Component implements IContainer {
     public boolean setDirty(Object source, int x, int y, int width, int height, int newstate,
             boolean onoff) {
         // if (!isVisible()) return false;
+        if (source != null && parent != null && onoff && newstate == STATE_DIRTY_REPAINT) {
+            // damage reported by a child, the frame collects it for its next update pass
+            return parent.setDirty(this, x, y, width, height, newstate, onoff);
+        }
         boolean result = false;
         for (int i = 0; i < children.length; i++) {
             Component c = children[i];
@@ -340,6 +451,7 @@ public class Container extends Component implements IContainer {
         if (g == null || (state & STATE_DIRTY_MASK) == 0) return;
         paint(g);
         state &= ~STATE_DIRTY_MASK;
+        RenderStatistics statistics = RenderStatistics.active;
         synchronized (children) {
             int offset = focusIndex >= 0 ? focusIndex : 0;
             for (int i = offset; i < children.length + offset; i++) {
@@ -355,9 +467,24 @@ public class Container extends Component implements IContainer {
                                         STATE_DIRTY_REPAINT, true);
                             }
                             c.parent = null;
+                            invalidateBounds();
                             state |= STATE_UPDATED;
                         } else {
-                            c.update(g);
+                            int cx = c.x, cy = c.y, cwidth = c.width, cheight = c.height;
+                            if (statistics == null || c instanceof Container) {
+                                c.update(g);
+                            } else {
+                                long start = System.currentTimeMillis();
+                                c.update(g);
+                                if ((c.state & STATE_UPDATED) != 0) {
+                                    statistics.countPaint(c, System.currentTimeMillis() - start);
+                                }
+                            }
+                            if (c.x != cx || c.y != cy || c.width != cwidth
+                                    || c.height != cheight) {
+                                // components may compute their size while painting
+                                invalidateBounds();
+                            }
                         }
 
                         if ((c.state & STATE_UPDATED) != 0) {
@@ -0,0 +1,251 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.lang.Math;
+
+/**
+ * <p>
+ * A <code>DamageRegion</code> collects the screen areas that must be repainted during the next
+ * update pass of a frame. Components report their dirty rectangles, the region merges them into a
+ * small set of non-overlapping rectangles.
+ * </p>
+ * <p>
+ * The region has a fixed capacity. Rectangles that overlap each other are always united. If the
+ * capacity is exhausted, the two rectangles whose union grows the least are merged. Thus, no memory
+ * is allocated after construction.
+ * </p>
+ * 
+ * @see Frame
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class DamageRegion {
+
+    /** The default capacity. Value: 8. */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** The x-coordinates of the rectangles. */
+    private int[] m_x;
+
+    /** The y-coordinates of the rectangles. */
+    private int[] m_y;
+
+    /** The widths of the rectangles. */
+    private int[] m_width;
+
+    /** The heights of the rectangles. */
+    private int[] m_height;
+
+    /** The number of rectangles. */
+    private int m_count;
+
+    /**
+     * Creates a damage region with a default capacity of <code>DEFAULT_CAPACITY</code>
+     * rectangles.
+     */
+    public DamageRegion() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a damage region.
+     * 
+     * @param capacity the maximum number of rectangles held by this region (at least 1).
+     */
+    public DamageRegion(int capacity) {
+        if (capacity < 1) capacity = 1;
+        m_x = new int[capacity];
+        m_y = new int[capacity];
+        m_width = new int[capacity];
+        m_height = new int[capacity];
+    }
+
+    /**
+     * Adds a rectangle to this region. Empty rectangles are ignored.
+     * 
+     * @param x the x-coordinate of the rectangle
+     * @param y the y-coordinate of the rectangle
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     */
+    public synchronized void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        for (;;) {
+            boolean merged = false;
+            for (int i = 0; i < m_count; i++) {
+                if (x < m_x[i] + m_width[i] && y < m_y[i] + m_height[i] && x + width > m_x[i]
+                        && y + height > m_y[i]) {
+                    if (x >= m_x[i] && y >= m_y[i] && x + width <= m_x[i] + m_width[i]
+                            && y + height <= m_y[i] + m_height[i]) {
+                        return; // already covered
+                    }
+                    // unite with the overlapping rectangle and try again
+                    int x2 = Math.max(x + width, m_x[i] + m_width[i]);
+                    int y2 = Math.max(y + height, m_y[i] + m_height[i]);
+                    x = Math.min(x, m_x[i]);
+                    y = Math.min(y, m_y[i]);
+                    width = x2 - x;
+                    height = y2 - y;
+                    removeIndex(i);
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) break;
+        }
+        if (m_count == m_x.length) {
+            // no space left, merge with the rectangle that grows least
+            int best = 0;
+            int bestGrowth = Integer.MAX_VALUE;
+            for (int i = 0; i < m_count; i++) {
+                int x2 = Math.max(x + width, m_x[i] + m_width[i]);
+                int y2 = Math.max(y + height, m_y[i] + m_height[i]);
+                int x1 = Math.min(x, m_x[i]);
+                int y1 = Math.min(y, m_y[i]);
+                int growth = (x2 - x1) * (y2 - y1) - m_width[i] * m_height[i];
+                if (growth < bestGrowth) {
+                    bestGrowth = growth;
+                    best = i;
+                }
+            }
+            int x2 = Math.max(x + width, m_x[best] + m_width[best]);
+            int y2 = Math.max(y + height, m_y[best] + m_height[best]);
+            int x1 = Math.min(x, m_x[best]);
+            int y1 = Math.min(y, m_y[best]);
+            removeIndex(best);
+            // the union may overlap other rectangles now
+            add(x1, y1, x2 - x1, y2 - y1);
+            return;
+        }
+        m_x[m_count] = x;
+        m_y[m_count] = y;
+        m_width[m_count] = width;
+        m_height[m_count] = height;
+        m_count++;
+    }
+
+    /**
+     * Removes all rectangles from this region.
+     */
+    public synchronized void clear() {
+        m_count = 0;
+    }
+
+    /**
+     * Moves all rectangles of this region to the specified region and clears this region. The
+     * target region is cleared before.
+     * 
+     * @param target the region to move the rectangles to
+     */
+    public synchronized void drainTo(DamageRegion target) {
+        target.clear();
+        for (int i = 0; i < m_count; i++) {
+            target.add(m_x[i], m_y[i], m_width[i], m_height[i]);
+        }
+        m_count = 0;
+    }
+
+    /**
+     * Returns the number of rectangles in this region.
+     * 
+     * @return the number of rectangles
+     */
+    public synchronized int getCount() {
+        return m_count;
+    }
+
+    /**
+     * Returns the x-coordinate of the rectangle at the specified index.
+     * 
+     * @param index the zero-relative index of the rectangle
+     * @return the x-coordinate
+     */
+    public synchronized int getX(int index) {
+        return m_x[index];
+    }
+
+    /**
+     * Returns the y-coordinate of the rectangle at the specified index.
+     * 
+     * @param index the zero-relative index of the rectangle
+     * @return the y-coordinate
+     */
+    public synchronized int getY(int index) {
+        return m_y[index];
+    }
+
+    /**
+     * Returns the width of the rectangle at the specified index.
+     * 
+     * @param index the zero-relative index of the rectangle
+     * @return the width
+     */
+    public synchronized int getWidth(int index) {
+        return m_width[index];
+    }
+
+    /**
+     * Returns the height of the rectangle at the specified index.
+     * 
+     * @param index the zero-relative index of the rectangle
+     * @return the height
+     */
+    public synchronized int getHeight(int index) {
+        return m_height[index];
+    }
+
+    /**
+     * Tests whether the specified rectangle intersects any rectangle of this region.
+     * 
+     * @param x the x-coordinate of the rectangle
+     * @param y the y-coordinate of the rectangle
+     * @param width the width of the rectangle
+     * @param height the height of the rectangle
+     * @return <code>true</code> if the rectangle intersects this region
+     */
+    public synchronized boolean intersects(int x, int y, int width, int height) {
+        for (int i = 0; i < m_count; i++) {
+            if (x < m_x[i] + m_width[i] && y < m_y[i] + m_height[i] && x + width > m_x[i]
+                    && y + height > m_y[i]) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if this region does not contain any rectangle.
+     * 
+     * @return <code>true</code> if this region is empty
+     */
+    public synchronized boolean isEmpty() {
+        return m_count == 0;
+    }
+
+    /**
+     * Removes the rectangle at the specified index by moving the last one to its place.
+     * 
+     * @param index the index to remove
+     */
+    private void removeIndex(int index) {
+        m_count--;
+        m_x[index] = m_x[m_count];
+        m_y[index] = m_y[m_count];
+        m_width[index] = m_width[m_count];
+        m_height[index] = m_height[m_count];
+    }
+}
@@ -0,0 +1,713 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.Graphics;
+import jcontrol.io.Resource;
+import jcontrol.system.Management;
+import jcontrol.toolkit.ImageUtils;
+
+/**
+ * <p>
+ * A <code>DisplayListGraphics</code> records the drawing operations of an update pass instead of
+ * executing them. When the pass is flushed, the recorded list is optimized and replayed to the
+ * target graphics:
+ * <ul>
+ * <li>Operations that are completely overdrawn by a later <code>clearRect()</code> or
+ * <code>fillRect()</code> in <code>NORMAL</code> mode shortly after them are dropped.</li>
+ * <li>A <code>clearRect()</code> in <code>NORMAL</code> mode that is adjacent to or inside an
+ * earlier one with the same background is merged into it, if nothing drawn in between overlaps
+ * it.</li>
+ * <li>Color, background, draw mode and font are only set on the target when they change.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Widgets typically clear a gutter, draw a text and clear the remainder of the line, or clear and
+ * redraw a block that is painted again later in the same pass. These patterns leave far fewer
+ * operations after the optimization. To use it, pass an instance to the frame's constructor. The
+ * target may be an <code>OffscreenGraphics</code>, which is flushed after the replay:
+ * </p>
+ * 
+ * <pre>
+ * Frame frame = new Frame(new DisplayListGraphics(new Display()), keyboard, touch);
+ * </pre>
+ * <p>
+ * Text widths are returned without drawing, measured with <code>getTextWidth()</code> of the
+ * target. <code>getPixel()</code> and <code>copyArea()</code> replay the list first, so reading
+ * back pixels is exact but cancels the optimization for the operations recorded so far. Areas can
+ * only be copied if the target implements <code>IBlitGraphics</code>.
+ * </p>
+ * 
+ * @see OffscreenGraphics
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class DisplayListGraphics implements IBlitGraphics {
+
+    /** The initial capacity of the display list. Value: 64. */
+    public static final int INITIAL_CAPACITY = 64;
+
+    /** The maximum number of operations recorded before the list is flushed. Value: 512. */
+    public static final int MAX_CAPACITY = 512;
+
+    /** State value that has not been set yet. */
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    /** Operation codes. */
+    private static final int OP_NONE = 0, OP_PIXEL = 1, OP_LINE = 2, OP_RECT = 3, OP_FILL = 4,
+            OP_CLEAR = 5, OP_IMAGE = 6, OP_IMAGE_PART = 7, OP_STRING = 8, OP_STRING_CLIPPED = 9,
+            OP_CHAR = 10;
+
+    /** Field offsets of an operation in <code>m_data</code>. */
+    private static final int F_OP = 0, F_A = 1, F_B = 2, F_C = 3, F_D = 4, F_E = 5, F_F = 6,
+            F_COLOR = 7, F_BACKGROUND = 8, F_MODE = 9, F_LEFT = 10, F_TOP = 11, F_RIGHT = 12,
+            F_BOTTOM = 13;
+
+    /** The number of fields per operation. */
+    private static final int STRIDE = 14;
+
+    /** The maximum number of earlier <code>clearRect()</code>s tried for a merge. */
+    private static final int MERGE_LOOKBACK = 8;
+
+    /** The maximum number of earlier operations tested against a covering one. Value: 32. */
+    private static final int DROP_LOOKBACK = 32;
+
+    /** The graphics the list is replayed to. */
+    private Graphics m_target;
+
+    /** The operations: code, arguments, state and bounds. */
+    private int[] m_data;
+
+    /** The string or image argument of each operation. */
+    private Object[] m_objects;
+
+    /** The font of each text operation. */
+    private Object[] m_fonts;
+
+    /** The number of recorded operations. */
+    private int m_count;
+
+    /** The state set by the widgets. */
+    private int m_color = UNSET, m_background = UNSET, m_mode;
+
+    /** The font set by the widgets. */
+    private Object m_font;
+
+    /** Indicates whether a font has been set. */
+    private boolean m_fontSet;
+
+    /** The character measured by <code>drawChar()</code>. */
+    private char[] m_char = new char[1];
+
+    /** The state last set on the target. */
+    private int m_targetColor = UNSET, m_targetBackground = UNSET, m_targetMode;
+
+    /** The font last set on the target by a replay. */
+    private Object m_targetFont;
+
+    /** Indicates whether <code>m_targetFont</code> is valid. */
+    private boolean m_targetFontValid;
+
+    /** Statistics: recorded, replayed, dropped and merged operations. */
+    private int m_recordedCount, m_replayedCount, m_droppedCount, m_mergedCount;
+
+    /**
+     * Creates a display list graphics.
+     * 
+     * @param target the graphics to replay the list to, e.g. a <code>Display</code>
+     */
+    public DisplayListGraphics(Graphics target) {
+        m_target = target;
+        m_mode = m_targetMode = target.getDrawMode();
+        m_data = new int[INITIAL_CAPACITY * STRIDE];
+        m_objects = new Object[INITIAL_CAPACITY];
+        m_fonts = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Flushes the graphics an update pass has been painted on, if it buffers its output.
+     * 
+     * @param g the graphics
+     */
+    static void flushPass(Graphics g) {
+        if (g instanceof DisplayListGraphics) {
+            ((DisplayListGraphics) g).flush();
+        } else if (g instanceof OffscreenGraphics) {
+            // copy the areas painted during this pass to the display
+            ((OffscreenGraphics) g).flush();
+        }
+    }
+
+    /**
+     * Optimizes the recorded operations and replays them to the target. If the target is an
+     * <code>OffscreenGraphics</code>, it is flushed afterwards.
+     * 
+     * @return the number of operations that have been replayed
+     */
+    public synchronized int flush() {
+        int replayed = replay();
+        if (m_target instanceof OffscreenGraphics) ((OffscreenGraphics) m_target).flush();
+        return replayed;
+    }
+
+    /**
+     * Optimizes the recorded operations and replays them to the target, without flushing it.
+     * 
+     * @return the number of operations that have been replayed
+     */
+    private int replay() {
+        int replayed = 0;
+        if (m_count > 0) {
+            dropOverdrawn();
+            mergeClears();
+            for (int i = 0; i < m_count; i++) {
+                if (m_data[i * STRIDE + F_OP] != OP_NONE) {
+                    replay(i);
+                    replayed++;
+                }
+                m_objects[i] = null;
+                m_fonts[i] = null;
+            }
+            m_count = 0;
+            m_replayedCount += replayed;
+            if (m_fontSet && (!m_targetFontValid || m_targetFont != m_font)) {
+                // restore the font used to measure the text
+                m_target.setFont(m_font);
+                m_targetFont = m_font;
+                m_targetFontValid = true;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Returns the number of operations dropped because they have been overdrawn.
+     * 
+     * @return the number of dropped operations
+     */
+    public synchronized int getDroppedCount() {
+        return m_droppedCount;
+    }
+
+    /**
+     * Returns the number of <code>clearRect()</code> operations that have been merged into others.
+     * 
+     * @return the number of merged operations
+     */
+    public synchronized int getMergedCount() {
+        return m_mergedCount;
+    }
+
+    /**
+     * Returns the number of drawing operations recorded so far.
+     * 
+     * @return the number of recorded operations
+     */
+    public synchronized int getRecordedCount() {
+        return m_recordedCount;
+    }
+
+    /**
+     * Returns the number of drawing operations replayed to the target so far.
+     * 
+     * @return the number of replayed operations
+     */
+    public synchronized int getReplayedCount() {
+        return m_replayedCount;
+    }
+
+    /**
+     * Returns the graphics the list is replayed to.
+     * 
+     * @return the target graphics
+     */
+    public Graphics getTarget() {
+        return m_target;
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public synchronized void resetStatistics() {
+        m_recordedCount = 0;
+        m_replayedCount = 0;
+        m_droppedCount = 0;
+        m_mergedCount = 0;
+    }
+
+    /**
+     * Appends an operation to the list.
+     * 
+     * @param op the operation code
+     * @param a first argument
+     * @param b second argument
+     * @param c third argument
+     * @param d fourth argument
+     * @param left the left bound of the affected area
+     * @param top the upper bound of the affected area
+     * @param right the right bound of the affected area, exclusive
+     * @param bottom the lower bound of the affected area, exclusive
+     * @return the index of the operation
+     */
+    private int add(int op, int a, int b, int c, int d, int left, int top, int right, int bottom) {
+        if (m_count == MAX_CAPACITY) {
+            flush();
+        } else if (m_count == m_objects.length) {
+            int capacity = m_count << 1;
+            int[] data = new int[capacity * STRIDE];
+            Management.arraycopy(m_data, 0, data, 0, m_data.length);
+            m_data = data;
+            Object[] objects = new Object[capacity];
+            Management.arraycopy(m_objects, 0, objects, 0, m_count);
+            m_objects = objects;
+            Object[] fonts = new Object[capacity];
+            Management.arraycopy(m_fonts, 0, fonts, 0, m_count);
+            m_fonts = fonts;
+        }
+        int index = m_count++;
+        int base = index * STRIDE;
+        m_data[base + F_OP] = op;
+        m_data[base + F_A] = a;
+        m_data[base + F_B] = b;
+        m_data[base + F_C] = c;
+        m_data[base + F_D] = d;
+        m_data[base + F_COLOR] = m_color;
+        m_data[base + F_BACKGROUND] = m_background;
+        m_data[base + F_MODE] = m_mode;
+        if (left > right) {
+            int t = left;
+            left = right;
+            right = t;
+        }
+        if (top > bottom) {
+            int t = top;
+            top = bottom;
+            bottom = t;
+        }
+        m_data[base + F_LEFT] = left;
+        m_data[base + F_TOP] = top;
+        m_data[base + F_RIGHT] = right;
+        m_data[base + F_BOTTOM] = bottom;
+        m_recordedCount++;
+        return index;
+    }
+
+    /**
+     * Returns <code>true</code> if the operation paints its whole bounds opaquely.
+     * 
+     * @param base the offset of the operation in <code>m_data</code>
+     * @return <code>true</code> if the operation hides everything below it
+     */
+    private boolean isOpaque(int base) {
+        int op = m_data[base + F_OP];
+        return (op == OP_CLEAR || op == OP_FILL)
+                && m_data[base + F_MODE] == NORMAL
+                && m_data[base + F_C] > 0 && m_data[base + F_D] > 0;
+    }
+
+    /**
+     * Returns <code>true</code> if the bounds of two operations intersect.
+     * 
+     * @param a the offset of the first operation
+     * @param b the offset of the second operation
+     * @return <code>true</code> if the bounds intersect
+     */
+    private boolean intersects(int a, int b) {
+        return m_data[a + F_LEFT] < m_data[b + F_RIGHT] && m_data[b + F_LEFT] < m_data[a + F_RIGHT]
+                && m_data[a + F_TOP] < m_data[b + F_BOTTOM]
+                && m_data[b + F_TOP] < m_data[a + F_BOTTOM];
+    }
+
+    /**
+     * Returns <code>true</code> if the bounds of the first operation contain those of the second.
+     * 
+     * @param a the offset of the outer operation
+     * @param b the offset of the inner operation
+     * @return <code>true</code> if <code>a</code> contains <code>b</code>
+     */
+    private boolean contains(int a, int b) {
+        return m_data[a + F_LEFT] <= m_data[b + F_LEFT] && m_data[a + F_TOP] <= m_data[b + F_TOP]
+                && m_data[a + F_RIGHT] >= m_data[b + F_RIGHT]
+                && m_data[a + F_BOTTOM] >= m_data[b + F_BOTTOM];
+    }
+
+    /**
+     * Drops the operations whose bounds are covered by a later opaque operation. Every operation
+     * only modifies the pixels within its bounds, so the covering operation overwrites whatever
+     * has been drawn there in between. A widget overdraws what it has just painted itself, so only
+     * the last <code>DROP_LOOKBACK</code> operations before a covering one are tested, which keeps
+     * the cost linear in the length of the list.
+     */
+    private void dropOverdrawn() {
+        for (int j = m_count - 1; j > 0; j--) {
+            int covering = j * STRIDE;
+            if (m_data[covering + F_OP] == OP_NONE || !isOpaque(covering)) continue;
+            int end = j > DROP_LOOKBACK ? j - DROP_LOOKBACK : 0;
+            for (int i = j - 1; i >= end; i--) {
+                int base = i * STRIDE;
+                if (m_data[base + F_OP] != OP_NONE && contains(covering, base)) {
+                    m_data[base + F_OP] = OP_NONE;
+                    m_droppedCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges each <code>clearRect()</code> into an earlier one with the same state, if both form a
+     * rectangle together or the later one lies inside the earlier one, and nothing drawn between
+     * them overlaps the later one.
+     */
+    private void mergeClears() {
+        for (int j = 1; j < m_count; j++) {
+            int later = j * STRIDE;
+            if (m_data[later + F_OP] != OP_CLEAR || !isOpaque(later)) continue;
+            int tries = 0;
+            for (int i = j - 1; i >= 0 && tries < MERGE_LOOKBACK; i--) {
+                int earlier = i * STRIDE;
+                int op = m_data[earlier + F_OP];
+                if (op == OP_NONE) continue;
+                if (op == OP_CLEAR && isOpaque(earlier)
+                        && m_data[earlier + F_BACKGROUND] == m_data[later + F_BACKGROUND]) {
+                    if (merge(earlier, later)) {
+                        m_data[later + F_OP] = OP_NONE;
+                        m_mergedCount++;
+                        break;
+                    }
+                    tries++;
+                }
+                // the later clear must not be moved before an overlapping operation
+                if (intersects(earlier, later)) break;
+            }
+        }
+    }
+
+    /**
+     * Extends a <code>clearRect()</code> by a later one, if possible.
+     * 
+     * @param a the offset of the earlier operation
+     * @param b the offset of the later operation
+     * @return <code>true</code> if <code>a</code> now covers <code>b</code>
+     */
+    private boolean merge(int a, int b) {
+        if (contains(a, b)) return true;
+        int left = m_data[a + F_LEFT], top = m_data[a + F_TOP];
+        int right = m_data[a + F_RIGHT], bottom = m_data[a + F_BOTTOM];
+        if (top == m_data[b + F_TOP] && bottom == m_data[b + F_BOTTOM]) {
+            // same rows, side by side or overlapping
+            if (m_data[b + F_LEFT] > right || m_data[b + F_RIGHT] < left) return false;
+            if (m_data[b + F_LEFT] < left) left = m_data[b + F_LEFT];
+            if (m_data[b + F_RIGHT] > right) right = m_data[b + F_RIGHT];
+        } else if (left == m_data[b + F_LEFT] && right == m_data[b + F_RIGHT]) {
+            // same columns, on top of each other or overlapping
+            if (m_data[b + F_TOP] > bottom || m_data[b + F_BOTTOM] < top) return false;
+            if (m_data[b + F_TOP] < top) top = m_data[b + F_TOP];
+            if (m_data[b + F_BOTTOM] > bottom) bottom = m_data[b + F_BOTTOM];
+        } else {
+            return false;
+        }
+        m_data[a + F_LEFT] = m_data[a + F_A] = left;
+        m_data[a + F_TOP] = m_data[a + F_B] = top;
+        m_data[a + F_RIGHT] = right;
+        m_data[a + F_BOTTOM] = bottom;
+        m_data[a + F_C] = right - left;
+        m_data[a + F_D] = bottom - top;
+        return true;
+    }
+
+    /**
+     * Replays an operation to the target.
+     * 
+     * @param index the index of the operation
+     */
+    private void replay(int index) {
+        int base = index * STRIDE;
+        int op = m_data[base + F_OP];
+        int mode = m_data[base + F_MODE];
+        if (mode != m_targetMode) {
+            m_target.setDrawMode(mode);
+            m_targetMode = mode;
+        }
+        int background = m_data[base + F_BACKGROUND];
+        if (background != UNSET && background != m_targetBackground) {
+            m_target.setBackground(background);
+            m_targetBackground = background;
+        }
+        int color = m_data[base + F_COLOR];
+        if (op != OP_CLEAR && color != UNSET && color != m_targetColor) {
+            m_target.setColor(color);
+            m_targetColor = color;
+        }
+        if (op == OP_STRING || op == OP_STRING_CLIPPED || op == OP_CHAR) {
+            Object font = m_fonts[index];
+            if (!m_targetFontValid || font != m_targetFont) {
+                m_target.setFont(font);
+                m_targetFont = font;
+                m_targetFontValid = true;
+            }
+        }
+        int a = m_data[base + F_A], b = m_data[base + F_B];
+        int c = m_data[base + F_C], d = m_data[base + F_D];
+        switch (op) {
+            case OP_PIXEL:
+                m_target.setPixel(a, b);
+                break;
+            case OP_LINE:
+                m_target.drawLine(a, b, c, d);
+                break;
+            case OP_RECT:
+                m_target.drawRect(a, b, c, d);
+                break;
+            case OP_FILL:
+                m_target.fillRect(a, b, c, d);
+                break;
+            case OP_CLEAR:
+                m_target.clearRect(a, b, c, d);
+                break;
+            case OP_IMAGE:
+                m_target.drawImage(m_objects[index], a, b);
+                break;
+            case OP_IMAGE_PART:
+                m_target.drawImage(m_objects[index], a, b, c, d, m_data[base + F_E],
+                        m_data[base + F_F]);
+                break;
+            case OP_STRING:
+                m_target.drawString((String) m_objects[index], a, b);
+                break;
+            case OP_STRING_CLIPPED:
+                m_target.drawString((String) m_objects[index], a, b, c, d, m_data[base + F_E],
+                        m_data[base + F_F]);
+                break;
+            case OP_CHAR:
+                m_target.drawChar((char) c, a, b);
+                break;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#clearRect(int, int, int, int)
+     */
+    public synchronized void clearRect(int x, int y, int width, int height) {
+        add(OP_CLEAR, x, y, width, height, x, y, x + width, y + height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IBlitGraphics#copyArea(int, int, int, int, int, int)
+     */
+    public synchronized boolean copyArea(int x, int y, int width, int height, int dx, int dy) {
+        if (!(m_target instanceof IBlitGraphics)) return false;
+        // the copy reads pixels the recorded operations have not drawn yet
+        replay();
+        return ((IBlitGraphics) m_target).copyArea(x, y, width, height, dx, dy);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawChar(char, int, int)
+     */
+    public synchronized int drawChar(char c, int x, int y) {
+        // String.valueOf() would take the character as number
+        m_char[0] = c;
+        int width = m_target.getTextWidth(new String(m_char, 0, 1));
+        int index = add(OP_CHAR, x, y, c, 0, x, y, x + width, y + m_target.getFontHeight());
+        m_fonts[index] = m_font;
+        return width;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawImage(java.lang.Object, int, int)
+     */
+    public synchronized void drawImage(Object image, int x, int y) {
+        int right = Integer.MAX_VALUE, bottom = Integer.MAX_VALUE;
+        if (image instanceof Resource) {
+            right = x + ImageUtils.getWidth((Resource) image);
+            bottom = y + ImageUtils.getHeight((Resource) image);
+        }
+        m_objects[add(OP_IMAGE, x, y, 0, 0, x, y, right, bottom)] = image;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawImage(java.lang.Object, int, int, int, int, int, int)
+     */
+    public synchronized void drawImage(Object image, int x, int y, int width, int height,
+            int xoff, int yoff) {
+        int index = add(OP_IMAGE_PART, x, y, width, height, x, y, x + width, y + height);
+        m_data[index * STRIDE + F_E] = xoff;
+        m_data[index * STRIDE + F_F] = yoff;
+        m_objects[index] = image;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawLine(int, int, int, int)
+     */
+    public synchronized void drawLine(int x1, int y1, int x2, int y2) {
+        add(OP_LINE, x1, y1, x2, y2, x1 < x2 ? x1 : x2, y1 < y2 ? y1 : y2, (x1 < x2 ? x2 : x1) + 1,
+                (y1 < y2 ? y2 : y1) + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawRect(int, int, int, int)
+     */
+    public synchronized void drawRect(int x, int y, int width, int height) {
+        // the outline may include the pixels at x + width and y + height
+        add(OP_RECT, x, y, width, height, width < 0 ? x + width : x, height < 0 ? y + height : y,
+                (width < 0 ? x : x + width) + 1, (height < 0 ? y : y + height) + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawString(java.lang.String, int, int)
+     */
+    public synchronized int drawString(String s, int x, int y) {
+        int width = m_target.getTextWidth(s);
+        int index = add(OP_STRING, x, y, 0, 0, x, y, x + width, y + m_target.getFontHeight());
+        m_objects[index] = s;
+        m_fonts[index] = m_font;
+        return width;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawString(java.lang.String, int, int, int, int, int, int)
+     */
+    public synchronized int drawString(String s, int x, int y, int width, int height, int xoff,
+            int yoff) {
+        int result = m_target.getTextWidth(s) - xoff;
+        if (width >= 0 && result > width) result = width;
+        if (result < 0) result = 0;
+        int index = add(OP_STRING_CLIPPED, x, y, width, height, x, y,
+                x + (width >= 0 ? width : result),
+                y + (height >= 0 ? height : m_target.getFontHeight()));
+        m_data[index * STRIDE + F_E] = xoff;
+        m_data[index * STRIDE + F_F] = yoff;
+        m_objects[index] = s;
+        m_fonts[index] = m_font;
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#fillRect(int, int, int, int)
+     */
+    public synchronized void fillRect(int x, int y, int width, int height) {
+        add(OP_FILL, x, y, width, height, x, y, x + width, y + height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getDrawMode()
+     */
+    public synchronized int getDrawMode() {
+        return m_mode;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getFontHeight()
+     */
+    public int getFontHeight() {
+        return m_target.getFontHeight();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getPixel(int, int)
+     */
+    public synchronized int getPixel(int x, int y) {
+        flush();
+        return m_target.getPixel(x, y);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getTextWidth(java.lang.String)
+     */
+    public int getTextWidth(String s) {
+        return m_target.getTextWidth(s);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setBackground(int)
+     */
+    public synchronized void setBackground(int color) {
+        m_background = color;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setColor(int)
+     */
+    public synchronized void setColor(int color) {
+        m_color = color;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setDrawMode(int)
+     */
+    public synchronized void setDrawMode(int mode) {
+        m_mode = mode;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setFont(java.lang.Object)
+     */
+    public synchronized void setFont(Object font) {
+        if (m_fontSet && font == m_font) return;
+        m_font = font;
+        m_fontSet = true;
+        // the target measures the text, the replay sets the font of each text again
+        m_target.setFont(font);
+        m_targetFontValid = false;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setPixel(int, int)
+     */
+    public synchronized void setPixel(int x, int y) {
+        add(OP_PIXEL, x, y, 0, 0, x, y, x + 1, y + 1);
+    }
+}
@@ -21,14 +21,10 @@ import jcontrol.io.Display;
 import jcontrol.io.Graphics;
 import jcontrol.io.Keyboard;
 import jcontrol.io.Resource;
-import jcontrol.lang.ThreadExt;
 import jcontrol.system.Management;
-import jcontrol.ui.viper.event.ActionEvent;
-import jcontrol.ui.viper.event.ActionListener;
 import jcontrol.ui.viper.event.IEvent;
 import jcontrol.ui.viper.event.IKeyListener;
 import jcontrol.ui.viper.event.KeyEvent;
-import jcontrol.util.Queue;
 
 /**
  * <p>
@@ -58,8 +54,37 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
 
     private Component outline;
 
-    /** time interval between key buffer reads and graphics update in millis */
-    private static final int SLEEP_INTERVAL = 50;
+    /** Dispatches the input and collects the damaged areas. */
+    private FrameDispatcher m_dispatcher = new FrameDispatcher(0) {
+
+        @Override
+        int dispatch(IEvent event) {
+            return onEvent(FocusFrame.this, event);
+        }
+    };
+
+    /** Wakes up the worker thread when input or damage is available. */
+    private WakeupSignal m_signal = new WakeupSignal();
+
+    /** Decides when the input devices are polled. */
+    private InputScheduler m_inputScheduler = new InputScheduler();
+
+    /** The keyboard as input source. */
+    private InputSource m_keySource = new InputSource() {
+
+        /** The key pressed in the last poll, -1 if none. */
+        private int m_key = -1;
+
+        public boolean isActive() {
+            return m_key != -1;
+        }
+
+        public boolean poll() {
+            state &= ~STATE_UPDATED;
+            m_key = workKeyEvents(m_key);
+            return (state & STATE_UPDATED) != 0;
+        }
+    };
 
     /**
      * <p>
@@ -369,6 +394,60 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getInputScheduler()
+     */
+    public InputScheduler getInputScheduler() {
+        return m_inputScheduler;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastLatency()
+     */
+    public int getLastLatency() {
+        return m_signal.getLastLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastUpdateTime()
+     */
+    public long getLastUpdateTime() {
+        return m_signal.getLastUpdateTime();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getMaxLatency()
+     */
+    public int getMaxLatency() {
+        return m_signal.getMaxLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#setPollInterval(int)
+     */
+    public void setPollInterval(int interval) {
+        m_signal.setPollInterval(interval);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#wakeUp()
+     */
+    public void wakeUp() {
+        m_signal.signal();
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -376,6 +455,12 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
      */
     public boolean setDirty(Object source, int x, int y, int width, int height, int state, boolean b) {
         this.state |= STATE_DIRTY_UPDATE;
+        if (b) m_signal.signal();
+        if (b && state == STATE_DIRTY_REPAINT) {
+            // collect the damaged area, it is distributed on the next update pass
+            m_dispatcher.addDamage(x, y, width, height);
+            return true;
+        }
         boolean result = false;
         if (content != null && (source == null || source != content)) {
             content.setDirty(null, x, y, width, height, state, b);
@@ -472,40 +557,34 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
             if (graphics == null) graphics = new Display();
             if ((state & TYPE_KEYBOARD) != 0 && (state & STATE_FOCUS) == 0)
                 transferFocus(this, IFocusable.TRANSFER_FOCUS_FORWARD);
-            new Thread() {
+            if ((state & TYPE_KEYBOARD) != 0) m_inputScheduler.add(m_keySource);
+            eventQueue.clear();
+            m_signal.resetLatency();
+            new FrameWorker(m_inputScheduler, m_signal) {
 
                 @Override
-                public void run() {
-                    // setPriority(9);
-                    int key = -1;
-                    eventQueue = new Queue(2);
-                    for (; (state & STATE_VISIBLE) != 0;) {
-                        boolean worked = false;
-                        if ((state & TYPE_KEYBOARD) != 0) {
-                            key = workKeyEvents(key);
-                            worked |= ((state & STATE_UPDATED) != 0);
-                        }
-                        if (worked) { // update graphics after user input
-                            update(graphics);
-                            worked |= ((state & STATE_UPDATED) != 0);
-                        }
-                        worked |= workEventQueue();
-                        update(graphics); // always here
+                boolean isRunning() {
+                    return (state & STATE_VISIBLE) != 0;
+                }
+
+                @Override
+                boolean work(boolean input) {
+                    boolean worked = input;
+                    if (worked) { // update graphics after user input
+                        update(graphics);
                         worked |= ((state & STATE_UPDATED) != 0);
-                        try {
-                            if (!worked) {
-                                ThreadExt.sleep(SLEEP_INTERVAL);
-                            } else {
-                                ThreadExt.sleep(1);
-                            }
-                        } catch (InterruptedException e) {
-                        }
                     }
+                    worked |= FrameDispatcher.processEventQueue();
+                    update(graphics); // always here
+                    worked |= ((state & STATE_UPDATED) != 0);
+                    return worked;
                 }
             }.start();
         } else {
             state &= ~STATE_VISIBLE;
             keyboard = null;
+            // let the worker thread terminate
+            m_signal.signal();
         }
     }
 
@@ -642,15 +721,25 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
     @Override
     public void update(Graphics g) {
         state &= ~STATE_UPDATED;
+        RenderStatistics statistics = RenderStatistics.active;
+        long start = statistics != null ? System.currentTimeMillis() : 0;
 
         if ((state & STATE_DIRTY_MASK) != 0) {
             if (!isVisible() || (state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
                 g.clearRect(x, y, width, height);
                 state &= ~STATE_DIRTY_MASK;
                 state |= STATE_UPDATED;
-                if (!isVisible()) return;
+                if (!isVisible()) {
+                    DisplayListGraphics.flushPass(g);
+                    return;
+                }
             }
         }
+        // like a container, the frame is clean while its children are painted, so the changes made
+        // during the pass reach it and wake up the worker thread again
+        state &= ~STATE_DIRTY_MASK;
+        // mark the components that intersect the damaged areas
+        m_dispatcher.applyDamage(outline, content);
         if (outline != null) {
             outline.update(g);
             if ((outline.state & STATE_UPDATED) != 0) {
@@ -667,23 +756,11 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
                 content.state &= ~STATE_ABORT_UPDATE;
             }
         }
-    }
-
-    /**
-     * @return the result.
-     */
-    private boolean workEventQueue() {
-        // work event queue
-        ActionEvent event;
-        boolean result = false;
-        for (; (event = (ActionEvent) eventQueue.pop()) != null;) {
-            ActionListener listener = event.source.getActionListener();
-            if (listener != null) {
-                listener.onActionEvent(event);
-            }
-            result = true;
+        if (statistics != null) {
+            statistics.endPass(this, g, start, (state & STATE_UPDATED) != 0);
         }
-        return result;
+        // copy the areas painted during this pass to the display
+        DisplayListGraphics.flushPass(g);
     }
 
     /**
@@ -718,10 +795,16 @@ public class FocusFrame extends Component implements IFrame, IKeyListener {
         }
         if (key > -1) {
             if (k != 0) { // the key has been pressed now
-                onKeyEvent(new KeyEvent(key | KeyEvent.TYPE_KEY_PRESSED, k));
+                KeyEvent event = KeyEvent.acquire(key | KeyEvent.TYPE_KEY_PRESSED, k);
+                onKeyEvent(event);
+                RenderStatistics.countEvent();
+                event.release();
                 state |= STATE_UPDATED;
             } else { // the key has been pressed in previous loop
-                onKeyEvent(new KeyEvent(key, k));
+                KeyEvent event = KeyEvent.acquire(key, k);
+                onKeyEvent(event);
+                RenderStatistics.countEvent();
+                event.release();
                 key = -1;
                 state |= STATE_UPDATED;
             }
@@ -25,13 +25,9 @@ import jcontrol.io.IPointingDevice;
 import jcontrol.io.IRotaryTouchDevice;
 import jcontrol.io.Keyboard;
 import jcontrol.io.MPR083;
-import jcontrol.io.PWM;
 import jcontrol.io.Resource;
 import jcontrol.io.Touch;
-import jcontrol.lang.ThreadExt;
 import jcontrol.system.Management;
-import jcontrol.ui.viper.event.ActionEvent;
-import jcontrol.ui.viper.event.ActionListener;
 import jcontrol.ui.viper.event.IEvent;
 import jcontrol.ui.viper.event.IKeyListener;
 import jcontrol.ui.viper.event.IRotaryTouchListener;
@@ -39,7 +35,6 @@ import jcontrol.ui.viper.event.ITouchListener;
 import jcontrol.ui.viper.event.KeyEvent;
 import jcontrol.ui.viper.event.RotaryTouchEvent;
 import jcontrol.ui.viper.event.TouchEvent;
-import jcontrol.util.Queue;
 
 /**
  * <p>
@@ -67,12 +62,6 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
 
     public static final int FIELD_STATE_SELECTED = 4;
 
-    /** Last touched rotary touch field. */
-    int lastTouchedField = -1;
-
-    /** Field state of the rotary touch sensor. */
-    int fieldState = 0;
-
     /** Flag indicating which input devices are connected. */
     private static int inputDevices;
 
@@ -103,8 +92,37 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
     /** The frame outline. */
     private Component m_outline;
 
-    /** The time interval between key buffer reads and graphics update in millis */
-    private static final int SLEEP_INTERVAL = 50;
+    /** Dispatches the sampled input and collects the damaged areas. */
+    private FrameDispatcher m_dispatcher = new FrameDispatcher(16) {
+
+        @Override
+        int dispatch(IEvent event) {
+            return onEvent(Frame.this, event);
+        }
+    };
+
+    /** Wakes up the worker thread when input or damage is available. */
+    private WakeupSignal m_signal = new WakeupSignal();
+
+    /** Decides when the input devices are polled. */
+    private InputScheduler m_inputScheduler = new InputScheduler();
+
+    /** The keyboard as input source. */
+    private InputSource m_keySource = new InputSource() {
+
+        /** The key pressed in the last poll, -1 if none. */
+        private int m_key = -1;
+
+        public boolean isActive() {
+            return m_key != -1;
+        }
+
+        public boolean poll() {
+            state &= ~STATE_UPDATED;
+            m_key = processKeyEvents(m_key);
+            return (state & STATE_UPDATED) != 0;
+        }
+    };
 
     private static TextViewer debugViewer;
 
@@ -129,6 +147,12 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
      * The dimensions are equivalent to the display size. They may be changed by using
      * <code>setBounds()</code>.
      * </p>
+     * <p>
+     * Pass an <code>OffscreenGraphics</code> to render each update pass into a frame buffer. Only
+     * the rows modified during a pass are copied to the display at its end. A
+     * <code>DisplayListGraphics</code> records each pass instead and replays it without the
+     * operations that are overdrawn later in the same pass.
+     * </p>
      * 
      * @param graphics An instance of a custom display adapter.<br>
      *        If this parameter is <code>null</code>, this application will not have keyboard
@@ -137,6 +161,8 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
      * @param pointingDevice An instance of a pointing device, e.g. <code>jcontrol.io.Touch</code>,
      *        or <code>null</code>.<br>
      *        If this parameter is <code>null</code>, this application will not have touch support.
+     * @see OffscreenGraphics
+     * @see DisplayListGraphics
      */
     public Frame(Graphics graphics, Keyboard keyboard, IPointingDevice pointingDevice) {
         // top-level components are initially invisible
@@ -427,9 +453,13 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
             } else if (container instanceof Container) {
                 Container source = (Container) container;
                 synchronized (source.children) {
-                    int start = source.focusIndex >= 0 ? source.focusIndex : 0;
-                    for (int i = start; i < source.children.length + start; i++) {
-                        Component c = source.children[i % source.children.length];
+                    // only ask the children under the touched point and the focused one
+                    HitGrid grid = source.getHitGrid();
+                    int count = grid.find(source.children, source.focusIndex,
+                            ((TouchEvent) event).x, ((TouchEvent) event).y);
+                    for (int n = 0; n < count; n++) {
+                        int i = grid.candidates[n];
+                        Component c = source.children[i];
                         if (c != null) {
                             if (c.isVisible() && (c.state & STATE_DISPOSED) == 0) {
                                 int result = ITouchListener.RESULT_NONE;
@@ -439,10 +469,9 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
                                     result = onEvent((IContainer) c, event);
                                 }
                                 if (result > ITouchListener.RESULT_NONE) {
-                                    if (source.focusIndex != i % source.children.length
-                                            || (source.state & STATE_FOCUS) == 0) {
+                                    if (source.focusIndex != i || (source.state & STATE_FOCUS) == 0) {
                                         clearFocus(source);
-                                        source.focusIndex = i % source.children.length;
+                                        source.focusIndex = i;
                                         c.state |= STATE_FOCUS;
                                     }
                                     source.state |= STATE_FOCUS | STATE_DIRTY_REPAINT;
@@ -482,23 +511,6 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
         return e;
     }
 
-    /**
-     * @return xxx
-     */
-    private boolean processEventQueue() {
-        // work event queue
-        ActionEvent event;
-        boolean result = false;
-        for (; (event = (ActionEvent) eventQueue.pop()) != null;) {
-            ActionListener listener = event.source.getActionListener();
-            if (listener != null) {
-                listener.onActionEvent(event);
-            }
-            result = true;
-        }
-        return result;
-    }
-
     /**
      * Processes the key events.
      * 
@@ -533,10 +545,16 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
         }
         if (key > -1) {
             if (k != 0) { // the key has been pressed now
-                onEvent(this, new KeyEvent(key | KeyEvent.TYPE_KEY_PRESSED, k));
+                KeyEvent event = KeyEvent.acquire(key | KeyEvent.TYPE_KEY_PRESSED, k);
+                onEvent(this, event);
+                RenderStatistics.countEvent();
+                event.release();
                 state |= STATE_UPDATED;
             } else { // the key has been pressed in previous loop
-                onEvent(this, new KeyEvent(key, k));
+                KeyEvent event = KeyEvent.acquire(key, k);
+                onEvent(this, event);
+                RenderStatistics.countEvent();
+                event.release();
                 key = -1;
                 state |= STATE_UPDATED;
             }
@@ -545,147 +563,19 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
     }
 
     /**
-     * Processes the rotary touch events
+     * Processes the rotary touch events. They are taken from the input sampler together with the
+     * touch events, see <code>FrameDispatcher.poll()</code>, so all pending events are processed by
+     * a single call.
      * 
-     * @param rotaryTouchType
-     * @return xxx
+     * @param rotaryTouchType the value returned by the previous call; it is not needed any more,
+     *        since the sampler keeps the state of the rotary touch device between the calls
+     * @return the field state of the last processed rotary touch event, e.g.
+     *         <code>FIELD_STATE_TOUCHED</code>, or -1 if no rotary touch event has been processed
      * @throws IOException if rotary touch sensor is not working
      */
     public int processRotaryTouchEvents(int rotaryTouchType) throws IOException {
-
-        // get state of the rotary touch device
-        int rotaryState = rotaryTouchDevice.getRotaryState();
-        boolean isTouched = (0 != (rotaryState & IRotaryTouchDevice.FLAG_STATUS_TOUCHED));
-        int touchedField = rotaryState & IRotaryTouchDevice.FLAG_STATUS_CP_MASK;
-
-        // 
-        RotaryTouchEvent rotaryTouchEvent = null;
-
-        // trigger state machine
-        switch (fieldState) {
-            case FIELD_STATE_IDLE: {
-                if (isTouched) {
-                    fieldState = FIELD_STATE_TOUCHED;
-                    lastTouchedField = touchedField;
-                    rotaryTouchEvent = new RotaryTouchEvent(touchedField, FIELD_STATE_TOUCHED,
-                            RotaryTouchEvent.ROTATES_NONE);
-                    // m_listener.pressed(position);
-                }
-                break;
-            }
-                /*
-                 * case FIELD_STATE_TOUCHED_TIMEOUT: {
-                 * 
-                 * if (isTouched && lastTouchedField == touchedField) { break; // switch }
-                 * fieldState = FIELD_STATE_TOUCHED; break; // | // fall trough \|/ // ' }
-                 */
-
-            case FIELD_STATE_TOUCHED: {
-                if (isTouched && lastTouchedField == touchedField) {
-                    break; // switch
-                }
-                if (!isTouched) {
-                    rotaryTouchEvent = new RotaryTouchEvent(lastTouchedField, FIELD_STATE_SELECTED,
-                            RotaryTouchEvent.ROTATES_NONE);
-                    // m_listener.select( lastPosition );
-                    // m_listener.released();
-                    fieldState = FIELD_STATE_IDLE;
-                    break; // switch
-                }
-
-                fieldState = FIELD_STATE_TOUCHED_MOVE;
-                // |
-                // fall trough \|/
-                // '
-                break;
-            }
-
-            case FIELD_STATE_TOUCHED_MOVE: {
-
-                if (!isTouched) {
-                    fieldState = FIELD_STATE_IDLE;
-                    rotaryTouchEvent = new RotaryTouchEvent(-1, FIELD_STATE_IDLE,
-                            RotaryTouchEvent.ROTATES_NONE);
-                    lastTouchedField = touchedField;
-                    // m_listener.released();
-                    break; // switch
-                }
-
-                if (lastTouchedField != touchedField) {
-
-                    if (lastTouchedField > touchedField) {
-                        lastTouchedField -= 8;
-                    }
-                    int diff = touchedField - lastTouchedField;
-                    if (diff < 4) {
-                        rotaryTouchEvent = new RotaryTouchEvent(touchedField,
-                                FIELD_STATE_TOUCHED_MOVE, RotaryTouchEvent.ROTATES_RIGHT);
-                        // m_listener.rightRotate(position, diff);
-                    } else if (diff > 4) {
-                        rotaryTouchEvent = new RotaryTouchEvent(touchedField,
-                                FIELD_STATE_TOUCHED_MOVE, RotaryTouchEvent.ROTATES_LEFT);
-                        // m_listener.leftRotate(position, 8-diff);
-                    }
-
-                    // next time current position is last position
-                    lastTouchedField = touchedField;
-                }
-
-                break;
-            }
-
-            default: {
-                state = FIELD_STATE_IDLE;
-                break;
-            }
-
-        } // end: case
-
-        if (rotaryTouchEvent != null) {
-            /*
-             * switch (rotaryTouchEvent.getRotaryTouchState()) { case FIELD_STATE_IDLE: {
-             * debugViewer.add("IDLE"); break; } case FIELD_STATE_SELECTED: {
-             * debugViewer.add("SELECTED"); break; } case FIELD_STATE_TOUCHED: {
-             * debugViewer.add("TOUCHED"); break; } case FIELD_STATE_TOUCHED_MOVE: {
-             * debugViewer.add("TOUCHED_MOVED"); break; } }
-             */
-
-            onEvent(this, rotaryTouchEvent);
-            state |= STATE_UPDATED;
-        }
-        return -1;
-    }
-
-    /**
-     * Processes the touch events.
-     * 
-     * @param touchType
-     * @return xxx
-     */
-    private int processTouchEvents(int touchType) {
-        if (pointingDevice == null) return 0;
-        state &= ~STATE_UPDATED;
-        if (pointingDevice.isPressed()) {
-            int result = onEvent(this, new TouchEvent(TouchEvent.TYPE_TOUCH_PRESSED | touchType,
-                    pointingDevice.getX(), pointingDevice.getY()));
-            state |= STATE_UPDATED;
-            if (result > ITouchListener.RESULT_NONE && touchType == 0) {
-                PWM.setFrequency(result == ITouchListener.RESULT_ACCEPTED ? 1000 : 2000);
-                PWM.setDuty(3, -127);
-                PWM.setActive(3, true);
-                try {
-                    ThreadExt.sleep(16);
-                } catch (InterruptedException e) {
-                }
-                PWM.setActive(3, false);
-            }
-            return TouchEvent.TYPE_TOUCH_DRAGGED; // will be ORed on next touch event
-        } else if (touchType > 0) {
-            state |= STATE_UPDATED;
-            onEvent(this, new TouchEvent(TouchEvent.TYPE_TOUCH_RELEASED, pointingDevice.getX(),
-                    pointingDevice.getY()));
-        }
-        return 0;
+        m_dispatcher.poll();
+        return m_dispatcher.getRotaryFieldState();
     }
 
     /*
@@ -788,6 +678,60 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getInputScheduler()
+     */
+    public InputScheduler getInputScheduler() {
+        return m_inputScheduler;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastLatency()
+     */
+    public int getLastLatency() {
+        return m_signal.getLastLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastUpdateTime()
+     */
+    public long getLastUpdateTime() {
+        return m_signal.getLastUpdateTime();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getMaxLatency()
+     */
+    public int getMaxLatency() {
+        return m_signal.getMaxLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#setPollInterval(int)
+     */
+    public void setPollInterval(int interval) {
+        m_signal.setPollInterval(interval);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#wakeUp()
+     */
+    public void wakeUp() {
+        m_signal.signal();
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -795,6 +739,12 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
      */
     public boolean setDirty(Object source, int x, int y, int width, int height, int state, boolean b) {
         this.state |= STATE_DIRTY_UPDATE;
+        if (b) m_signal.signal();
+        if (b && state == STATE_DIRTY_REPAINT) {
+            // collect the damaged area, it is distributed on the next update pass
+            m_dispatcher.addDamage(x, y, width, height);
+            return true;
+        }
         boolean result = false;
         if (m_content != null && (source == null || source != m_content)) {
             m_content.setDirty(null, x, y, width, height, state, b);
@@ -917,72 +867,50 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
                 transferFocus(this, IFocusable.TRANSFER_FOCUS_FORWARD);
             }
 
+            // register the input devices, the sampler wakes up the worker thread on input
+            boolean touch = (inputDevices & FLAG_TOUCH_CONNECTED) != 0 && pointingDevice != null;
+            boolean rotaryTouch = (inputDevices & FLAG_ROTARY_TOUCH_CONNECTED) != 0
+                    && rotaryTouchDevice != null;
+            if (touch || rotaryTouch) {
+                m_dispatcher.startSampling(touch ? pointingDevice : null,
+                        rotaryTouch ? rotaryTouchDevice : null, m_signal, m_inputScheduler);
+            }
+            if ((inputDevices & FLAG_KEYBOARD_CONNECTED) != 0) {
+                m_inputScheduler.add(m_keySource);
+            }
+
             // Working thread
-            new Thread() {
+            eventQueue.clear();
+            m_signal.resetLatency();
+            new FrameWorker(m_inputScheduler, m_signal) {
 
-                /*
-                 * (non-Javadoc)
-                 * 
-                 * @see java.lang.Thread#run()
-                 */
                 @Override
-                public void run() {
-                    int key = -1;
-                    int touchType = 0;
-                    int rotaryTouchType = -1;
-                    eventQueue = new Queue(2);
-                    for (; (state & STATE_VISIBLE) != 0;) {
-                        boolean isFinished = false;
-
-                        // process the touch events
-                        if ((key == -1 || touchType != 0)
-                                && (inputDevices & FLAG_TOUCH_CONNECTED) != 0) {
-                            touchType = processTouchEvents(touchType);
-                            isFinished |= ((state & STATE_UPDATED) != 0);
-                        }
-
-                        // process the rotary touch events
-                        if ((key == -1 || rotaryTouchType != -1)
-                                && (inputDevices & FLAG_ROTARY_TOUCH_CONNECTED) != 0
-                                && rotaryTouchDevice != null) {
-                            try {
-                                rotaryTouchType = processRotaryTouchEvents(rotaryTouchType);
-                            } catch (IOException e) {
-                                rotaryTouchType = -1;
-                            }
-                            isFinished |= ((state & STATE_UPDATED) != 0);
-                        }
-
-                        // process the key events
-                        if ((key != -1 || touchType == 0)
-                                && (inputDevices & FLAG_KEYBOARD_CONNECTED) != 0) {
-                            key = processKeyEvents(key);
-                            isFinished |= ((state & STATE_UPDATED) != 0);
-                        }
+                boolean isRunning() {
+                    return (state & STATE_VISIBLE) != 0;
+                }
 
-                        // update graphics after user input
-                        if (isFinished) {
-                            update(graphics);
-                            isFinished |= ((state & STATE_UPDATED) != 0);
-                        }
+                @Override
+                boolean work(boolean input) {
+                    boolean isFinished = input;
 
-                        isFinished |= processEventQueue();
-                        update(graphics); // always here
+                    // update graphics after user input
+                    if (isFinished) {
+                        update(graphics);
                         isFinished |= ((state & STATE_UPDATED) != 0);
-                        try {
-                            if (!isFinished) {
-                                ThreadExt.sleep(SLEEP_INTERVAL);
-                            } else {
-                                ThreadExt.sleep(1);
-                            }
-                        } catch (InterruptedException e) {
-                        }
                     }
+
+                    isFinished |= FrameDispatcher.processEventQueue();
+                    update(graphics); // always here
+                    isFinished |= ((state & STATE_UPDATED) != 0);
+                    return isFinished;
                 }
             }.start();
         } else {
             state &= ~STATE_VISIBLE;
             keyboard = null;
+            m_dispatcher.stopSampling();
+            // let the worker thread terminate
+            m_signal.signal();
         }
     }
 
@@ -1119,15 +1047,25 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
     @Override
     public void update(Graphics g) {
         state &= ~STATE_UPDATED;
+        RenderStatistics statistics = RenderStatistics.active;
+        long start = statistics != null ? System.currentTimeMillis() : 0;
 
         if ((state & STATE_DIRTY_MASK) != 0) {
             if (!isVisible() || (state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
                 g.clearRect(x, y, width, height);
                 state &= ~STATE_DIRTY_MASK;
                 state |= STATE_UPDATED;
-                if (!isVisible()) return;
+                if (!isVisible()) {
+                    DisplayListGraphics.flushPass(g);
+                    return;
+                }
             }
         }
+        // like a container, the frame is clean while its children are painted, so the changes made
+        // during the pass reach it and wake up the worker thread again
+        state &= ~STATE_DIRTY_MASK;
+        // mark the components that intersect the damaged areas
+        m_dispatcher.applyDamage(m_outline, m_content);
         if (m_outline != null) {
             m_outline.update(g);
             if ((m_outline.state & STATE_UPDATED) != 0) {
@@ -1144,6 +1082,11 @@ public class Frame extends Component implements IFrame, IKeyListener, IRotaryTou
                 m_content.state &= ~STATE_ABORT_UPDATE;
             }
         }
+        if (statistics != null) {
+            statistics.endPass(this, g, start, (state & STATE_UPDATED) != 0);
+        }
+        // copy the areas painted during this pass to the display
+        DisplayListGraphics.flushPass(g);
     }
 
 }
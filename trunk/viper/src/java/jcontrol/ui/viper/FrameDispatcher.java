@@ -0,0 +1,311 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.IPointingDevice;
+import jcontrol.io.IRotaryTouchDevice;
+import jcontrol.io.PWM;
+import jcontrol.lang.ThreadExt;
+import jcontrol.ui.viper.event.ActionEvent;
+import jcontrol.ui.viper.event.ActionListener;
+import jcontrol.ui.viper.event.IEvent;
+import jcontrol.ui.viper.event.ITouchListener;
+import jcontrol.ui.viper.event.RotaryTouchEvent;
+import jcontrol.ui.viper.event.TouchEvent;
+
+/**
+ * The input dispatch and damage handling shared by all frame types. It dispatches the touch and
+ * rotary touch events taken from an <code>InputSampler</code> and the queued action events, clicks
+ * the speaker on accepted touches and collects the damaged areas until the next update pass.
+ * 
+ * @see InputSampler
+ * @see DamageRegion
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+abstract class FrameDispatcher {
+
+    /** The damaged areas to be repainted on the next update pass. */
+    private DamageRegion m_damage = new DamageRegion();
+
+    /** The damaged areas of the current update pass. */
+    private DamageRegion m_passDamage = new DamageRegion();
+
+    /** The duration of the click on a touched component, in milliseconds. */
+    private int m_clickTime;
+
+    /** Samples the touch screen and the rotary touch device while the frame is visible. */
+    private InputSampler m_sampler;
+
+    /** Receives the edges and positions taken from the sampler. */
+    private int[] m_edge = new int[4];
+
+    /** The type of the last touch event, <code>TYPE_TOUCH_RELEASED</code> if not pressed. */
+    private int m_touchType = TouchEvent.TYPE_TOUCH_RELEASED;
+
+    /** Field state of the rotary touch sensor. */
+    private int m_fieldState = Frame.FIELD_STATE_IDLE;
+
+    /** Last touched rotary touch field. */
+    private int m_lastTouchedField = -1;
+
+    /** <code>true</code> if an event has been dispatched by the current poll. */
+    private boolean m_dispatched;
+
+    /** The field state of the last rotary touch event of the current poll, -1 if there is none. */
+    private int m_rotaryFieldState = -1;
+
+    /** The sampled devices as input source. */
+    private InputSource m_source = new InputSource() {
+
+        public boolean isActive() {
+            return m_touchType != TouchEvent.TYPE_TOUCH_RELEASED
+                    || m_fieldState != Frame.FIELD_STATE_IDLE;
+        }
+
+        public boolean poll() {
+            return FrameDispatcher.this.poll();
+        }
+    };
+
+    /**
+     * Creates a dispatcher.
+     * 
+     * @param clickTime the duration of the click on a touched component, in milliseconds
+     */
+    FrameDispatcher(int clickTime) {
+        m_clickTime = clickTime;
+    }
+
+    /**
+     * Dispatches an event to the frame's components.
+     * 
+     * @param event the event
+     * @return the result of the component that received the event
+     */
+    abstract int dispatch(IEvent event);
+
+    /**
+     * Adds a damaged area. It is distributed on the next update pass.
+     * 
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param width the width
+     * @param height the height
+     */
+    void addDamage(int x, int y, int width, int height) {
+        m_damage.add(x, y, width, height);
+    }
+
+    /**
+     * Marks the components that intersect the damaged areas collected since the last update pass.
+     * 
+     * @param outline the outline of the frame, may be <code>null</code>
+     * @param content the content of the frame, may be <code>null</code>
+     */
+    void applyDamage(Component outline, Component content) {
+        if (m_damage.isEmpty()) return;
+        m_damage.drainTo(m_passDamage);
+        Container.applyDamage(outline, m_passDamage);
+        Container.applyDamage(content, m_passDamage);
+    }
+
+    /**
+     * Starts sampling the input devices and adds them as source to the frame's scheduler.
+     * 
+     * @param touch the touch screen, may be <code>null</code>
+     * @param rotaryTouch the rotary touch device, may be <code>null</code>
+     * @param signal the signal of the frame's worker thread
+     * @param scheduler the input scheduler of the frame
+     */
+    void startSampling(IPointingDevice touch, IRotaryTouchDevice rotaryTouch,
+            WakeupSignal signal, InputScheduler scheduler) {
+        m_touchType = TouchEvent.TYPE_TOUCH_RELEASED;
+        m_fieldState = Frame.FIELD_STATE_IDLE;
+        m_sampler = new InputSampler(touch, rotaryTouch, signal);
+        m_sampler.setIntervals(InputScheduler.DEFAULT_ACTIVE_INTERVAL,
+                InputScheduler.DEFAULT_IDLE_INTERVAL);
+        m_sampler.start();
+        // the sampler wakes up the frame on input, the idle polls only back it up
+        scheduler.add(m_source, InputScheduler.DEFAULT_ACTIVE_INTERVAL,
+                InputScheduler.DEFAULT_IDLE_INTERVAL);
+    }
+
+    /**
+     * Stops sampling the input devices.
+     */
+    void stopSampling() {
+        if (m_sampler != null) {
+            m_sampler.stopSampling();
+            m_sampler = null;
+        }
+    }
+
+    /**
+     * Processes the events taken from the input sampler. The press, touch and release edges of
+     * both devices are dispatched in the order they have been sampled. The movement since the last
+     * call is dispatched as a single drag event at the latest position, the rotation as one event
+     * per step.
+     * 
+     * @return <code>true</code> if an event has been dispatched
+     */
+    boolean poll() {
+        InputSampler sampler = m_sampler;
+        m_dispatched = false;
+        m_rotaryFieldState = -1;
+        if (sampler == null) return false;
+        int[] edge = m_edge;
+        while (sampler.takeEdge(edge) != InputSampler.EDGE_NONE) {
+            switch (edge[0]) {
+                case InputSampler.EDGE_ROTARY_TOUCHED:
+                    m_fieldState = Frame.FIELD_STATE_TOUCHED;
+                    m_lastTouchedField = edge[1];
+                    dispatchRotaryTouchEvent(edge[1], Frame.FIELD_STATE_TOUCHED,
+                            RotaryTouchEvent.ROTATES_NONE, 1);
+                    break;
+                case InputSampler.EDGE_ROTARY_RELEASED:
+                    dispatchRotation(edge[2], edge[1], edge[3]);
+                    if (m_fieldState == Frame.FIELD_STATE_TOUCHED) {
+                        dispatchRotaryTouchEvent(m_lastTouchedField, Frame.FIELD_STATE_SELECTED,
+                                RotaryTouchEvent.ROTATES_NONE, 1);
+                    } else {
+                        dispatchRotaryTouchEvent(-1, Frame.FIELD_STATE_IDLE,
+                                RotaryTouchEvent.ROTATES_NONE, 1);
+                    }
+                    m_fieldState = Frame.FIELD_STATE_IDLE;
+                    break;
+                case InputSampler.EDGE_PRESSED:
+                    click(dispatchTouchEvent(TouchEvent.TYPE_TOUCH_PRESSED, edge[1], edge[2]));
+                    m_touchType = TouchEvent.TYPE_TOUCH_DRAGGED; // used for the next touch event
+                    break;
+                case InputSampler.EDGE_RELEASED:
+                    dispatchTouchEvent(TouchEvent.TYPE_TOUCH_RELEASED, edge[1], edge[2]);
+                    m_touchType = TouchEvent.TYPE_TOUCH_RELEASED;
+                    break;
+            }
+        }
+        if (m_touchType != TouchEvent.TYPE_TOUCH_RELEASED && sampler.takeDrag(edge)) {
+            dispatchTouchEvent(TouchEvent.TYPE_TOUCH_DRAGGED, edge[0], edge[1]);
+        }
+        int delta = sampler.takeRotaryDelta(edge);
+        if (m_fieldState != Frame.FIELD_STATE_IDLE) dispatchRotation(delta, edge[0], edge[1]);
+        return m_dispatched;
+    }
+
+    /**
+     * Returns the field state of the last rotary touch event dispatched by the last poll.
+     * 
+     * @return the field state, e.g. <code>Frame.FIELD_STATE_TOUCHED</code>, or -1 if no rotary
+     *         touch event has been dispatched
+     */
+    int getRotaryFieldState() {
+        return m_rotaryFieldState;
+    }
+
+    /**
+     * Clicks the PWM speaker if a component has received a touch, with a higher tone if it has
+     * rejected the touch.
+     * 
+     * @param result the result of the component
+     */
+    private void click(int result) {
+        if (result <= ITouchListener.RESULT_NONE) return;
+        PWM.setFrequency(result == ITouchListener.RESULT_ACCEPTED ? 1000 : 2000);
+        PWM.setDuty(3, -127);
+        PWM.setActive(3, true);
+        try {
+            ThreadExt.sleep(m_clickTime);
+        } catch (InterruptedException e) {
+        }
+        PWM.setActive(3, false);
+    }
+
+    /**
+     * Dispatches a touch event.
+     * 
+     * @param type the touch type
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the result of the component that received the event
+     */
+    private int dispatchTouchEvent(int type, int x, int y) {
+        TouchEvent event = TouchEvent.acquire(type, x, y);
+        int result = dispatch(event);
+        RenderStatistics.countEvent();
+        event.release();
+        m_dispatched = true;
+        return result;
+    }
+
+    /**
+     * Dispatches a rotation as one rotary touch event per step.
+     * 
+     * @param delta the number of steps, positive to the right
+     * @param field the touched field
+     * @param acceleration the acceleration factor of the steps
+     */
+    private void dispatchRotation(int delta, int field, int acceleration) {
+        if (delta == 0) return;
+        m_fieldState = Frame.FIELD_STATE_TOUCHED_MOVE;
+        m_lastTouchedField = field;
+        int direction = delta > 0 ? RotaryTouchEvent.ROTATES_RIGHT : RotaryTouchEvent.ROTATES_LEFT;
+        for (int i = delta > 0 ? delta : -delta; i > 0; i--) {
+            dispatchRotaryTouchEvent(field, Frame.FIELD_STATE_TOUCHED_MOVE, direction,
+                    acceleration);
+        }
+    }
+
+    /**
+     * Dispatches a rotary touch event.
+     * 
+     * @param field the touched field
+     * @param fieldState the field state
+     * @param direction the rotate direction
+     * @param acceleration the acceleration factor
+     */
+    private void dispatchRotaryTouchEvent(int field, int fieldState, int direction,
+            int acceleration) {
+        RotaryTouchEvent event = RotaryTouchEvent.acquire(field, fieldState, direction,
+                acceleration);
+        dispatch(event);
+        RenderStatistics.countEvent();
+        event.release();
+        m_dispatched = true;
+        m_rotaryFieldState = fieldState;
+    }
+
+    /**
+     * Passes the queued action events to the listeners of their sources.
+     * 
+     * @return <code>true</code> if an event has been processed
+     */
+    static boolean processEventQueue() {
+        ActionEvent event;
+        boolean result = false;
+        for (; (event = (ActionEvent) Component.eventQueue.pop()) != null;) {
+            ActionListener listener = event.source.getActionListener();
+            if (listener != null) {
+                listener.onActionEvent(event);
+            }
+            RenderStatistics.countEvent();
+            event.release();
+            result = true;
+        }
+        return result;
+    }
+}
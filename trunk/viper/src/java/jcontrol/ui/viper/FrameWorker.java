@@ -0,0 +1,101 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.lang.ThreadExt;
+
+/**
+ * The worker thread shared by all frame types. It polls the input sources that are due, ticks the
+ * due animations, lets the frame run an update pass and then sleeps until the next source or
+ * animation is due, the frame's poll interval has passed or the frame is woken up.
+ * 
+ * @see InputScheduler
+ * @see AnimationScheduler
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+abstract class FrameWorker extends Thread {
+
+    /** The scheduler of the input sources. */
+    private InputScheduler m_scheduler;
+
+    /** The signal that wakes up the worker. */
+    private WakeupSignal m_signal;
+
+    /**
+     * Creates a worker thread.
+     * 
+     * @param scheduler the scheduler of the frame's input sources
+     * @param signal the signal the frame raises on input or damage
+     */
+    FrameWorker(InputScheduler scheduler, WakeupSignal signal) {
+        m_scheduler = scheduler;
+        m_signal = signal;
+    }
+
+    /**
+     * Returns <code>true</code> as long as the frame is visible.
+     * 
+     * @return <code>true</code> to keep on running
+     */
+    abstract boolean isRunning();
+
+    /**
+     * Runs an update pass of the frame: repaints after input, processes the action events and
+     * updates the display.
+     * 
+     * @param input <code>true</code> if input events have been dispatched before
+     * @return <code>true</code> if anything has been done
+     */
+    abstract boolean work(boolean input);
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Thread#run()
+     */
+    @Override
+    public void run() {
+        AnimationScheduler animations = AnimationScheduler.getScheduler();
+        boolean woken = true;
+        while (isRunning()) {
+            long now = System.currentTimeMillis();
+            boolean input = m_scheduler.poll(now, woken);
+            // the animations change their components right before the pass that paints them
+            animations.advance(now);
+            boolean worked = work(input);
+            m_signal.measureLatency(worked);
+            try {
+                if (!worked) {
+                    // wait for input, damage or the next animation frame
+                    now = System.currentTimeMillis();
+                    int timeout = m_scheduler.getWaitTime(now);
+                    int interval = m_signal.getPollInterval();
+                    if (timeout == 0 || (interval > 0 && interval < timeout)) timeout = interval;
+                    int frame = animations.getWaitTime(now);
+                    if (frame > 0 && (timeout == 0 || frame < timeout)) timeout = frame;
+                    woken = m_signal.await(timeout);
+                } else {
+                    woken = false;
+                    ThreadExt.sleep(1);
+                }
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+}
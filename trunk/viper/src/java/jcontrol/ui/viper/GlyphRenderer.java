@@ -0,0 +1,288 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.Graphics;
+import jcontrol.io.Resource;
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Remembers the characters a component has drawn, so a changed text only redraws the glyphs that
+ * differ, like <code>SevenSegmentMeter</code> does with the segments of its digits. A clock that
+ * ticks once a second thus draws one or two glyphs instead of the whole time.
+ * </p>
+ * <p>
+ * There are two ways to use it:
+ * <ul>
+ * <li>Components with fixed character cells, like <code>DigitalMeter</code>, ask
+ * <code>update()</code> for every cell and draw only those that have changed, e.g. with
+ * <code>drawGlyph()</code>.</li>
+ * <li>Components with running text, like <code>Label</code>, let <code>drawText()</code> redraw
+ * the glyphs that differ from the drawn text. With a proportional font, all glyphs behind a change
+ * of width are redrawn as they have moved.</li>
+ * </ul>
+ * The drawn characters are kept in a <code>char[]</code> that only grows, and the glyph widths of
+ * the last used font are cached, so once the glyphs are measured an update allocates nothing.
+ * </p>
+ * 
+ * @see jcontrol.ui.viper.meter.DigitalMeter
+ * @see jcontrol.ui.viper.meter.DigitalClock
+ * @see Label
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class GlyphRenderer {
+
+    /** The number of characters whose widths are cached. Value: 128. */
+    private static final int WIDTH_CACHE_SIZE = 128;
+
+    /** The drawn characters. */
+    private char[] m_glyphs;
+
+    /** The number of drawn characters of a text, -1 if no text is known to be drawn. */
+    private int m_length = -1;
+
+    /** The position of the drawn text. */
+    private int m_x, m_y;
+
+    /** The width of the drawn text. */
+    private int m_width;
+
+    /** The font the widths are cached for. */
+    private Resource m_font;
+
+    /** The cached glyph widths, -1 if not measured yet. */
+    private int[] m_widths;
+
+    /** The number of glyphs drawn since the renderer has been created. */
+    private int m_drawCount;
+
+    /** The character to measure. */
+    private char[] m_char = new char[1];
+
+    /**
+     * Creates a renderer.
+     * 
+     * @param capacity the initial number of cells or characters
+     */
+    public GlyphRenderer(int capacity) {
+        m_glyphs = new char[capacity < 1 ? 1 : capacity];
+        invalidate();
+    }
+
+    /**
+     * Centers a glyph in a cell. The space before and behind it is cleared, except for the columns
+     * covered by the glyph of the cell to the left, see <code>getOverhang()</code>.
+     * 
+     * @param g the graphics with the font set
+     * @param font the font
+     * @param c the character
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @param width the width of the cell
+     * @param height the height of the cell
+     * @param bias added to the free space before it is halved, e.g. to round up
+     * @param covered the number of columns at the left of the cell not to clear
+     */
+    public void drawGlyph(Graphics g, Resource font, char c, int x, int y, int width, int height,
+            int bias, int covered) {
+        int padWidth = (width - getWidth(g, font, c) + bias) >> 1;
+        if (padWidth > covered) g.clearRect(x + covered, y, padWidth - covered, height);
+        g.clearRect(x + width - padWidth, y, padWidth, height);
+        g.drawChar(c, x + padWidth, y);
+        m_drawCount++;
+    }
+
+    /**
+     * Draws a text, redrawing only the glyphs that differ from the text drawn last at the same
+     * position. Space left behind by a shorter text is cleared. Nothing is drawn if no text is
+     * known to be drawn at the position, or if the glyph widths do not add up to the width of the
+     * text, e.g. because of kerning; the caller has to draw the text itself and report it with
+     * <code>textDrawn()</code>.
+     * 
+     * @param g the graphics with the font set
+     * @param font the font
+     * @param text the text
+     * @param textWidth the width of the text
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param height the height of the text
+     * @return the number of redrawn glyphs or -1 if the text has not been drawn
+     */
+    public int drawText(Graphics g, Resource font, String text, int textWidth, int x, int y,
+            int height) {
+        if (m_length < 0 || x != m_x || y != m_y) return -1;
+        int length = text.length();
+        int width = 0;
+        for (int i = 0; i < length; i++) {
+            width += getWidth(g, font, text.charAt(i));
+        }
+        if (width != textWidth) return -1;
+        char[] glyphs = m_glyphs;
+        int oldLength = m_length;
+        int oldX = x;
+        int newX = x;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int w = getWidth(g, font, c);
+            // a glyph is unchanged if it is the same and still at its place
+            if (i >= oldLength || oldX != newX || glyphs[i] != c) {
+                g.clearRect(newX, y, w, height);
+                g.drawChar(c, newX, y);
+                count++;
+            }
+            if (i < oldLength) oldX += getWidth(g, font, glyphs[i]);
+            newX += w;
+        }
+        if (m_width > width) g.clearRect(x + width, y, m_width - width, height);
+        m_drawCount += count;
+        textDrawn(text, x, y, width);
+        return count;
+    }
+
+    /**
+     * Returns the character of a cell.
+     * 
+     * @param cell the index of the cell
+     * @return the character set last, 0 if none has been set since <code>invalidate()</code>
+     */
+    public char getGlyph(int cell) {
+        return cell < m_glyphs.length ? m_glyphs[cell] : 0;
+    }
+
+    /**
+     * Returns the number of columns a glyph centered by <code>drawGlyph()</code> reaches beyond the
+     * right of its cell. If a row of cells is drawn from the right, these columns show the glyph,
+     * so the cell to the right must leave them alone when it is redrawn alone.
+     * 
+     * @param g the graphics with the font set
+     * @param font the font
+     * @param c the character
+     * @param width the width of the cell
+     * @param bias added to the free space before it is halved
+     * @return the number of columns, 0 if the glyph fits
+     */
+    public int getOverhang(Graphics g, Resource font, char c, int width, int bias) {
+        int glyphWidth = getWidth(g, font, c);
+        int overhang = ((width - glyphWidth + bias) >> 1) + glyphWidth - width;
+        return overhang > 0 ? overhang : 0;
+    }
+
+    /**
+     * Returns the number of glyphs drawn by this renderer since it has been created.
+     * 
+     * @return the number of glyphs
+     */
+    public int getDrawCount() {
+        return m_drawCount;
+    }
+
+    /**
+     * Returns the width of a glyph. The widths of the characters below 128 are cached for the
+     * last used font.
+     * 
+     * @param g the graphics with the font set
+     * @param font the font
+     * @param c the character
+     * @return the width in pixels
+     */
+    public int getWidth(Graphics g, Resource font, char c) {
+        if (c >= WIDTH_CACHE_SIZE) return measure(g, c);
+        if (m_widths == null || font != m_font) {
+            if (m_widths == null) m_widths = new int[WIDTH_CACHE_SIZE];
+            for (int i = 0; i < WIDTH_CACHE_SIZE; i++) {
+                m_widths[i] = -1;
+            }
+            m_font = font;
+        }
+        int width = m_widths[c];
+        if (width < 0) {
+            width = measure(g, c);
+            m_widths[c] = width;
+        }
+        return width;
+    }
+
+    /**
+     * Measures a glyph. <code>String.valueOf()</code> would take the character as number.
+     * 
+     * @param g the graphics with the font set
+     * @param c the character
+     * @return the width in pixels
+     */
+    private int measure(Graphics g, char c) {
+        m_char[0] = c;
+        return g.getTextWidth(new String(m_char, 0, 1));
+    }
+
+    /**
+     * Forgets all drawn characters, so every cell and glyph is drawn next time. Components call it
+     * whenever they repaint entirely.
+     */
+    public void invalidate() {
+        char[] glyphs = m_glyphs;
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i] = 0;
+        }
+        m_length = -1;
+        m_width = 0;
+    }
+
+    /**
+     * Reports that a text has been drawn entirely, so the next <code>drawText()</code> at the same
+     * position can redraw only the differences.
+     * 
+     * @param text the text
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param width the width of the text
+     */
+    public void textDrawn(String text, int x, int y, int width) {
+        int length = text.length();
+        if (length > m_glyphs.length) m_glyphs = new char[length];
+        for (int i = 0; i < length; i++) {
+            m_glyphs[i] = text.charAt(i);
+        }
+        m_length = length;
+        m_x = x;
+        m_y = y;
+        m_width = width;
+    }
+
+    /**
+     * Sets the character of a cell and tells whether it has to be drawn.
+     * 
+     * @param cell the index of the cell
+     * @param c the character
+     * @return <code>true</code> if the cell has changed since it was set last or since
+     *         <code>invalidate()</code>
+     */
+    public boolean update(int cell, char c) {
+        char[] glyphs = m_glyphs;
+        if (cell >= glyphs.length) {
+            char[] newGlyphs = new char[cell + 1];
+            Management.arraycopy(glyphs, 0, newGlyphs, 0, glyphs.length);
+            m_glyphs = glyphs = newGlyphs;
+        }
+        if (glyphs[cell] == c) return false;
+        glyphs[cell] = c;
+        return true;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+/**
+ * <p>
+ * A uniform grid over the bounds of the children of a container. It is used by the frame to route
+ * touch events directly to the components under the touched point instead of asking every child.
+ * </p>
+ * <p>
+ * The united bounds of all children are divided into <code>SIZE</code> x <code>SIZE</code> cells.
+ * Each cell holds the indices of the children that overlap it. Child containers are stored in every
+ * cell, they are narrowed down by their own grid. The child that has the focus is always a
+ * candidate, as a pressed component must receive the drag and release events even if the touch
+ * has left its bounds.
+ * </p>
+ * <p>
+ * The grid is built lazily on the first lookup after it has been invalidated by adding, removing
+ * or moving a child.
+ * </p>
+ * 
+ * @see Container
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+class HitGrid {
+
+    /** The number of cells per row and column. Value: 4. */
+    static final int SIZE = 4;
+
+    /** The index of the cell that holds the children hit outside the grid. */
+    private static final int OUTSIDE = SIZE * SIZE;
+
+    /** The indices of the candidates found by the last lookup. */
+    int[] candidates = new int[0];
+
+    /** Indicates whether the grid is up to date. */
+    boolean valid;
+
+    /** The origin of the grid. */
+    private int m_x, m_y;
+
+    /** The size of a cell. */
+    private int m_cellWidth, m_cellHeight;
+
+    /** The start offsets of the cells in <code>m_entries</code>. */
+    private int[] m_cellStart = new int[OUTSIDE + 2];
+
+    /** The child indices of all cells, sorted ascending per cell. */
+    private int[] m_entries = new int[0];
+
+    /**
+     * Finds the children that may accept a touch at the specified point. The indices are stored in
+     * <code>candidates</code> in the order the children should be asked: the focused child first,
+     * then the following ones wrapping around at the end of the array.
+     * 
+     * @param children the children of the container
+     * @param focusIndex the index of the focused child or -1
+     * @param x the x-coordinate of the touch
+     * @param y the y-coordinate of the touch
+     * @return the number of candidates
+     */
+    int find(Component[] children, int focusIndex, int x, int y) {
+        if (!valid) build(children);
+        if (candidates.length < children.length) candidates = new int[children.length];
+        int cell = OUTSIDE;
+        if (x >= m_x && y >= m_y) {
+            int column = (x - m_x) / m_cellWidth;
+            int row = (y - m_y) / m_cellHeight;
+            if (column < SIZE && row < SIZE) cell = row * SIZE + column;
+        }
+        int first = m_cellStart[cell];
+        int last = m_cellStart[cell + 1];
+        int count = 0;
+        int start = 0;
+        if (focusIndex >= 0 && focusIndex < children.length) {
+            candidates[count++] = focusIndex;
+            start = focusIndex;
+        }
+        // entries are sorted, begin with the first one behind the focused child
+        int offset = first;
+        while (offset < last && m_entries[offset] < start) {
+            offset++;
+        }
+        for (int n = 0; n < last - first; n++) {
+            int index = offset + n;
+            if (index >= last) index -= last - first;
+            if (m_entries[index] != focusIndex) candidates[count++] = m_entries[index];
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds the grid from the current bounds of the children.
+     * 
+     * @param children the children of the container
+     */
+    private void build(Component[] children) {
+        int x1 = Integer.MAX_VALUE, y1 = Integer.MAX_VALUE;
+        int x2 = Integer.MIN_VALUE, y2 = Integer.MIN_VALUE;
+        for (int i = 0; i < children.length; i++) {
+            Component c = children[i];
+            if (c == null || c instanceof Container || c.width <= 0 || c.height <= 0) continue;
+            if (c.x < x1) x1 = c.x;
+            if (c.y < y1) y1 = c.y;
+            if (c.x + c.width > x2) x2 = c.x + c.width;
+            if (c.y + c.height > y2) y2 = c.y + c.height;
+        }
+        if (x1 > x2) {
+            // no component with a size, every point lies outside
+            x1 = y1 = Integer.MAX_VALUE;
+            x2 = y2 = Integer.MAX_VALUE;
+        }
+        m_x = x1;
+        m_y = y1;
+        m_cellWidth = (x2 - x1 + SIZE - 1) / SIZE;
+        m_cellHeight = (y2 - y1 + SIZE - 1) / SIZE;
+        if (m_cellWidth < 1) m_cellWidth = 1;
+        if (m_cellHeight < 1) m_cellHeight = 1;
+
+        // first pass: count the entries per cell, second pass: store them
+        for (int i = 0; i < m_cellStart.length; i++) {
+            m_cellStart[i] = 0;
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < children.length; i++) {
+                Component c = children[i];
+                if (c == null) continue;
+                if (c instanceof Container) {
+                    for (int cell = 0; cell <= OUTSIDE; cell++) {
+                        addEntry(pass, cell, i);
+                    }
+                } else if (c.width > 0 && c.height > 0) {
+                    int column1 = (c.x - m_x) / m_cellWidth;
+                    int row1 = (c.y - m_y) / m_cellHeight;
+                    int column2 = (c.x + c.width - 1 - m_x) / m_cellWidth;
+                    int row2 = (c.y + c.height - 1 - m_y) / m_cellHeight;
+                    if (column2 >= SIZE) column2 = SIZE - 1;
+                    if (row2 >= SIZE) row2 = SIZE - 1;
+                    for (int row = row1; row <= row2; row++) {
+                        for (int column = column1; column <= column2; column++) {
+                            addEntry(pass, row * SIZE + column, i);
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                // turn the counts into start offsets
+                int total = 0;
+                for (int cell = 0; cell <= OUTSIDE; cell++) {
+                    int n = m_cellStart[cell];
+                    m_cellStart[cell] = total;
+                    total += n;
+                }
+                m_cellStart[OUTSIDE + 1] = total;
+                if (m_entries.length < total) m_entries = new int[total];
+            } else {
+                // the start offsets have been moved to the end of each cell while storing
+                for (int cell = OUTSIDE; cell > 0; cell--) {
+                    m_cellStart[cell] = m_cellStart[cell - 1];
+                }
+                m_cellStart[0] = 0;
+            }
+        }
+        valid = true;
+    }
+
+    /**
+     * Counts or stores an entry of a cell.
+     * 
+     * @param pass 0 to count, 1 to store
+     * @param cell the cell
+     * @param index the child index
+     */
+    private void addEntry(int pass, int cell, int index) {
+        if (pass == 0) {
+            m_cellStart[cell]++;
+        } else {
+            m_entries[m_cellStart[cell]++] = index;
+        }
+    }
+}
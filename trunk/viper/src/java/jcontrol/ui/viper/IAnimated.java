@@ -0,0 +1,38 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+/**
+ * An animation driven by the <code>AnimationScheduler</code>. Animated components implement this
+ * interface and register themselves with a period instead of running a thread of their own.
+ * 
+ * @see AnimationScheduler
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public interface IAnimated {
+
+    /**
+     * Advances the animation. This method is called by the worker thread of a frame right before
+     * an update pass, at most once per period and frame. A component usually changes its state and
+     * marks itself dirty, so it is painted in the same pass.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public void tick(long now);
+}
@@ -0,0 +1,51 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.Graphics;
+
+/**
+ * <p>
+ * IBlitGraphics is an interface for graphics that can move pixels within their drawing area.
+ * Scrolling components shift their content with <code>copyArea()</code> and paint only the
+ * rows that have been scrolled in. With a graphics that does not implement this interface, or
+ * that refuses a copy, they repaint all visible rows instead.
+ * </p>
+ * 
+ * @see OffscreenGraphics
+ * @see DisplayListGraphics
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public interface IBlitGraphics extends Graphics {
+
+    /**
+     * Copies a rectangular area by a distance. The pixels of the area that are not overwritten by
+     * the copy keep their previous content and must be painted by the caller.
+     * 
+     * @param x the x-coordinate of the area
+     * @param y the y-coordinate of the area
+     * @param width the width of the area
+     * @param height the height of the area
+     * @param dx the horizontal distance to copy the pixels by
+     * @param dy the vertical distance to copy the pixels by
+     * @return <code>false</code> if the area has not been copied, the caller must repaint it
+     *         then
+     */
+    public boolean copyArea(int x, int y, int width, int height, int dx, int dy);
+}
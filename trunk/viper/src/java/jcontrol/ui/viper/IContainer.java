@@ -47,7 +47,10 @@ public interface IContainer {
 
     /**
      * Marks all components inside this container that intersect the given bounds to be repainted.
-     * This method should not be used by any application.
+     * This method should not be used by any application.<br>
+     * Areas reported by a child with state <code>STATE_DIRTY_REPAINT</code> are passed up to the
+     * frame, which collects them in a <code>DamageRegion</code> and marks the intersecting
+     * components on its next update pass.
      * 
      * @param source the calling object that must be a child of this container or null
      * @param x
@@ -53,6 +53,42 @@ public interface IFrame extends IContainer {
      */
     public Container getContent();
 
+    /**
+     * Returns the scheduler that decides when the input devices of this frame are polled. The
+     * built-in devices are added when the frame becomes visible; further devices may be added as
+     * <code>InputSource</code>.
+     * 
+     * @return the input scheduler
+     */
+    public InputScheduler getInputScheduler();
+
+    /**
+     * Returns the latency of the last input that caused the display to be updated. It is measured
+     * from the call of <code>wakeUp()</code> (or a change of a component from another thread) to
+     * the end of the update pass that painted the result.
+     * 
+     * @return the latency in milliseconds
+     * @see #wakeUp()
+     */
+    public int getLastLatency();
+
+    /**
+     * Returns the time the last update pass that painted anything has finished. Input devices that
+     * do not call <code>wakeUp()</code> may compare it to the time of their input to measure the
+     * latency.
+     * 
+     * @return the time in milliseconds
+     */
+    public long getLastUpdateTime();
+
+    /**
+     * Returns the maximum latency measured since the frame became visible.
+     * 
+     * @return the latency in milliseconds
+     * @see #getLastLatency()
+     */
+    public int getMaxLatency();
+
     /**
      * Returns the current outline or <code>null</code> if there is none.
      * 
@@ -133,6 +169,20 @@ public interface IFrame extends IContainer {
      */
     public void setContent(Container container);
 
+    /**
+     * Sets the maximum time the worker thread sleeps while there is nothing to do. By default, this
+     * is 50 milliseconds. The input devices are polled at the rates of the
+     * <code>InputScheduler</code> and the animations are ticked by the
+     * <code>AnimationScheduler</code>, so the interval may be set to 0 if no component relies on
+     * being updated regularly. The worker thread then blocks until it is woken up or the next input
+     * source or animation is due.
+     * 
+     * @param interval the interval in milliseconds or 0 to disable the periodic update
+     * @see #getInputScheduler()
+     * @see #wakeUp()
+     */
+    public void setPollInterval(int interval);
+
     /**
      * Sets a static element on the frame. The static element of a frame can be e.g. a clock or a
      * logo or whatever. It will not disappear when the content changes.
@@ -150,4 +200,11 @@ public interface IFrame extends IContainer {
      * @param direction IFocusable.TRANSFER_FOCUS_FORWARD or IFocusable.TRANSFER__FOCUS_BACKWARD
      */
     public boolean transferFocus(IContainer c, int direction);
+
+    /**
+     * Wakes up the worker thread of this frame. Input devices call this method when new data is
+     * available, so it is processed immediately instead of on the next poll. A frame also wakes
+     * itself up whenever it or one of its components is marked dirty.
+     */
+    public void wakeUp();
 }
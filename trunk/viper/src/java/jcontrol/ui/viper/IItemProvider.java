@@ -0,0 +1,51 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+/**
+ * <p>
+ * IItemProvider is an interface for the items of <code>ListBox</code>, <code>ComboBox</code>
+ * and menus. The components only ask for the items they paint, so a provider may keep its items
+ * anywhere, e.g. in a flash <code>Resource</code>, and may hold thousands of them.
+ * </p>
+ * <p>
+ * A provider that changes its items must let the component know, e.g. by setting it again.
+ * </p>
+ * 
+ * @see ItemList
+ * @see ResourceItemProvider
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public interface IItemProvider {
+
+    /**
+     * Returns the item at the specified index.
+     * 
+     * @param index the index from 0 to <code>getItemCount() - 1</code>
+     * @return the item
+     */
+    public String getItem(int index);
+
+    /**
+     * Returns the number of items.
+     * 
+     * @return the number of items
+     */
+    public int getItemCount();
+}
@@ -0,0 +1,372 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import java.io.IOException;
+
+import jcontrol.io.IPointingDevice;
+import jcontrol.io.IRotaryTouchDevice;
+import jcontrol.io.MPR083EventListener;
+import jcontrol.io.RotaryTouchDecoder;
+import jcontrol.lang.ThreadExt;
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Samples the touch screen and collects the events of the rotary touch device independently of
+ * the worker thread of a frame. Between two update passes, only the latest touch position and the
+ * sum of the rotary steps are kept, so a drag is dispatched as a single event per pass however
+ * long painting takes.
+ * </p>
+ * <p>
+ * The touch screen is sampled at the active interval of the <code>InputScheduler</code> while it
+ * is pressed or has just changed. After that, the interval is doubled with every quiet sample up
+ * to the idle interval, so an idle screen costs no more bus traffic than a slow poll.
+ * </p>
+ * <p>
+ * Press and release edges are never coalesced or dropped. They are kept in order in a small
+ * buffer. Touch sampling pauses while half of the buffer is taken, so the touch screen is read
+ * again only when the worker thread has caught up. The edges of the rotary touch device are
+ * reported by the decoder and cannot be held back, so the buffer grows if they do not fit.
+ * </p>
+ * <p>
+ * The rotary touch device is not read here. The sampler subscribes to the device's shared
+ * <code>RotaryTouchDecoder</code>, so the device is read by one thread only, even if an
+ * application listens to it as well.
+ * </p>
+ * 
+ * @see Frame
+ * @see TouchFrame
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+class InputSampler extends Thread implements MPR083EventListener {
+
+    /** No edge is pending. Value: 0. */
+    static final int EDGE_NONE = 0;
+
+    /** The touch screen has been pressed at (a, b). Value: 1. */
+    static final int EDGE_PRESSED = 1;
+
+    /** The touch screen has been released at (a, b). Value: 2. */
+    static final int EDGE_RELEASED = 2;
+
+    /** The rotary touch device has been touched at field a. Value: 3. */
+    static final int EDGE_ROTARY_TOUCHED = 3;
+
+    /**
+     * The rotary touch device has been released, a is the last field, b the steps rotated since
+     * the last call of <code>takeRotaryDelta()</code>, c their acceleration factor. Value: 4.
+     */
+    static final int EDGE_ROTARY_RELEASED = 4;
+
+    /** The initial number of edges buffered. Value: 16. */
+    private static final int EDGE_CAPACITY = 16;
+
+    /** The number of pending edges from which touch sampling pauses. Value: 8. */
+    private static final int TOUCH_EDGE_LIMIT = EDGE_CAPACITY / 2;
+
+    /** The touch screen or <code>null</code>. */
+    private IPointingDevice m_pointingDevice;
+
+    /** The decoder of the rotary touch device or <code>null</code>. */
+    private RotaryTouchDecoder m_decoder;
+
+    /** The signal of the frame, raised when new input is available. */
+    private WakeupSignal m_signal;
+
+    /** The sampling interval in milliseconds while the touch screen is in use. */
+    private int m_activeInterval = InputScheduler.DEFAULT_ACTIVE_INTERVAL;
+
+    /** The maximum sampling interval in milliseconds while the touch screen is idle. */
+    private int m_idleInterval = InputScheduler.DEFAULT_IDLE_INTERVAL;
+
+    /** Cleared to stop sampling. */
+    private volatile boolean m_running = true;
+
+    /** The buffered edges, four ints each: type, a, b, c. */
+    private int[] m_edges = new int[EDGE_CAPACITY * 4];
+
+    /** The index of the oldest edge. */
+    private int m_edgeHead;
+
+    /** The number of buffered edges. */
+    private int m_edgeCount;
+
+    /** Indicates whether the touch screen is pressed. */
+    private boolean m_pressed;
+
+    /** The latest touch position. */
+    private int m_x, m_y;
+
+    /** Indicates whether the touch position has changed since the last edge or drag taken. */
+    private boolean m_moved;
+
+    /** The latest touched rotary field. */
+    private int m_rotaryField = -1;
+
+    /** The steps rotated since the last edge or delta taken, positive to the right. */
+    private int m_rotaryDelta;
+
+    /** The largest acceleration factor of the steps in <code>m_rotaryDelta</code>. */
+    private int m_rotaryAcceleration = 1;
+
+    /**
+     * Creates a sampler. The events of the rotary touch device are collected right away, call
+     * <code>start()</code> to start sampling the touch screen.
+     * 
+     * @param pointingDevice the touch screen or <code>null</code>
+     * @param rotaryTouchDevice the rotary touch device or <code>null</code>
+     * @param signal the signal raised when new input is available
+     */
+    InputSampler(IPointingDevice pointingDevice, IRotaryTouchDevice rotaryTouchDevice,
+            WakeupSignal signal) {
+        m_pointingDevice = pointingDevice;
+        m_signal = signal;
+        if (rotaryTouchDevice != null) {
+            m_decoder = RotaryTouchDecoder.getDecoder(rotaryTouchDevice);
+            m_decoder.addListener(this);
+        }
+    }
+
+    /**
+     * Adds an edge to the buffer. If the buffer is full, it is doubled, so no edge is lost.
+     * 
+     * @param type the edge type
+     * @param a the first argument
+     * @param b the second argument
+     * @param c the third argument
+     */
+    private void addEdge(int type, int a, int b, int c) {
+        int capacity = m_edges.length / 4;
+        if (m_edgeCount == capacity) {
+            // unwrap the pending edges into the larger buffer
+            int[] edges = new int[capacity * 8];
+            int head = m_edgeHead * 4;
+            Management.arraycopy(m_edges, head, edges, 0, m_edges.length - head);
+            Management.arraycopy(m_edges, 0, edges, m_edges.length - head, head);
+            m_edges = edges;
+            m_edgeHead = 0;
+            capacity <<= 1;
+        }
+        int index = ((m_edgeHead + m_edgeCount) % capacity) * 4;
+        m_edges[index] = type;
+        m_edges[index + 1] = a;
+        m_edges[index + 2] = b;
+        m_edges[index + 3] = c;
+        m_edgeCount++;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#communicationError(java.io.IOException)
+     */
+    public void communicationError(IOException e) {
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#leftRotate(int, int)
+     */
+    public void leftRotate(int position, int count) {
+        rotate(position, -count);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#pressed(int)
+     */
+    public synchronized void pressed(int position) {
+        m_rotaryField = position;
+        m_rotaryDelta = 0;
+        m_rotaryAcceleration = 1;
+        addEdge(EDGE_ROTARY_TOUCHED, position, 0, 1);
+        m_signal.signal();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#released()
+     */
+    public synchronized void released() {
+        addEdge(EDGE_ROTARY_RELEASED, m_rotaryField, m_rotaryDelta, m_rotaryAcceleration);
+        m_rotaryDelta = 0;
+        m_rotaryAcceleration = 1;
+        m_signal.signal();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#rightRotate(int, int)
+     */
+    public void rightRotate(int position, int count) {
+        rotate(position, count);
+    }
+
+    /**
+     * Adds steps to the rotation since the last edge or delta taken.
+     * 
+     * @param position the touched field
+     * @param steps the number of steps, positive to the right
+     */
+    private synchronized void rotate(int position, int steps) {
+        int acceleration = m_decoder.getAcceleration();
+        if (acceleration > m_rotaryAcceleration) m_rotaryAcceleration = acceleration;
+        m_rotaryField = position;
+        m_rotaryDelta += steps;
+        m_signal.signal();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Thread#run()
+     */
+    @Override
+    public void run() {
+        // the rotary touch device is read by its decoder
+        if (m_pointingDevice == null) return;
+        int interval = m_activeInterval;
+        while (m_running) {
+            if (sample()) {
+                m_signal.signal();
+                interval = m_activeInterval;
+            } else if (m_pressed) {
+                interval = m_activeInterval;
+            } else if (interval < m_idleInterval) {
+                // back off towards the idle interval
+                interval <<= 1;
+                if (interval > m_idleInterval) interval = m_idleInterval;
+            }
+            try {
+                ThreadExt.sleep(interval);
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+
+    /**
+     * Reads the touch screen once.
+     * 
+     * @return <code>true</code> if anything has changed
+     */
+    private synchronized boolean sample() {
+        // wait for the worker thread, the rest of the buffer is left to the rotary touch device
+        if (m_edgeCount >= TOUCH_EDGE_LIMIT) return false;
+        boolean pressed = m_pointingDevice.isPressed();
+        int x = m_pointingDevice.getX();
+        int y = m_pointingDevice.getY();
+        boolean changed = false;
+        if (pressed != m_pressed) {
+            m_pressed = pressed;
+            m_moved = false;
+            addEdge(pressed ? EDGE_PRESSED : EDGE_RELEASED, x, y, 0);
+            changed = true;
+        } else if (pressed && (x != m_x || y != m_y)) {
+            m_moved = true;
+            changed = true;
+        }
+        m_x = x;
+        m_y = y;
+        return changed;
+    }
+
+    /**
+     * Sets the sampling intervals of the touch screen.
+     * 
+     * @param activeInterval the interval in milliseconds while the screen is in use
+     * @param idleInterval the maximum interval in milliseconds while the screen is idle
+     */
+    void setIntervals(int activeInterval, int idleInterval) {
+        m_activeInterval = activeInterval < 1 ? 1 : activeInterval;
+        m_idleInterval = idleInterval < m_activeInterval ? m_activeInterval : idleInterval;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.MPR083EventListener#select(int)
+     */
+    public void select(int position) {
+        // a release without rotation, recognized by the frame
+    }
+
+    /**
+     * Stops sampling. The thread terminates after the current interval, the rotary touch device is
+     * released immediately.
+     */
+    void stopSampling() {
+        m_running = false;
+        if (m_decoder != null) m_decoder.removeListener(this);
+    }
+
+    /**
+     * Takes the latest touch position if it has changed since the last edge or drag taken while
+     * the screen is pressed.
+     * 
+     * @param position receives the x and y coordinate
+     * @return <code>true</code> if the position has changed
+     */
+    synchronized boolean takeDrag(int[] position) {
+        if (!m_moved || m_edgeCount > 0) return false;
+        m_moved = false;
+        position[0] = m_x;
+        position[1] = m_y;
+        return true;
+    }
+
+    /**
+     * Takes the oldest edge.
+     * 
+     * @param edge receives the type and the three arguments of the edge
+     * @return the type of the edge or <code>EDGE_NONE</code> if there is none
+     */
+    synchronized int takeEdge(int[] edge) {
+        if (m_edgeCount == 0) return EDGE_NONE;
+        int index = m_edgeHead * 4;
+        edge[0] = m_edges[index];
+        edge[1] = m_edges[index + 1];
+        edge[2] = m_edges[index + 2];
+        edge[3] = m_edges[index + 3];
+        m_edgeHead = (m_edgeHead + 1) % (m_edges.length / 4);
+        m_edgeCount--;
+        return edge[0];
+    }
+
+    /**
+     * Takes the steps rotated since the last edge or delta taken while the rotary touch device is
+     * touched.
+     * 
+     * @param field receives the latest touched field and the acceleration factor of the steps
+     * @return the number of steps, positive to the right
+     */
+    synchronized int takeRotaryDelta(int[] field) {
+        if (m_edgeCount > 0) return 0;
+        int result = m_rotaryDelta;
+        m_rotaryDelta = 0;
+        field[0] = m_rotaryField;
+        field[1] = m_rotaryAcceleration;
+        m_rotaryAcceleration = 1;
+        return result;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * Decides when the worker thread of a frame polls its input sources. Each source has two
+ * intervals:
+ * <ul>
+ * <li>the active interval, used while an interaction is in progress (see
+ * <code>InputSource.isActive()</code>) or the last poll has dispatched events,</li>
+ * <li>the idle interval, approached by doubling the active interval after every poll without
+ * events. An idle interval of 0 stops polling an idle source, it is then only polled when the
+ * frame is woken up.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * While a source is active, the inactive sources are not polled, so an interaction is not
+ * disturbed by input from another device. All sources are polled when the frame is woken up by
+ * <code>wakeUp()</code> or a change of a component.
+ * </p>
+ * 
+ * @see InputSource
+ * @see Frame#getInputScheduler()
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class InputScheduler {
+
+    /** The default active interval in milliseconds. Value: 10. */
+    public static final int DEFAULT_ACTIVE_INTERVAL = 10;
+
+    /** The default idle interval in milliseconds. Value: 50. */
+    public static final int DEFAULT_IDLE_INTERVAL = 50;
+
+    /** The registered sources. */
+    private InputSource[] m_sources = new InputSource[0];
+
+    /** The active interval of each source. */
+    private int[] m_activeIntervals = new int[0];
+
+    /** The idle interval of each source. */
+    private int[] m_idleIntervals = new int[0];
+
+    /** The current interval of each source, 0 if it is only polled on a wakeup. */
+    private int[] m_intervals = new int[0];
+
+    /** The time of the next poll of each source. */
+    private long[] m_nextPolls = new long[0];
+
+    /** <code>true</code> for the sources that follow the default idle interval. */
+    private boolean[] m_defaultIdle = new boolean[0];
+
+    /** The idle interval of sources added without explicit intervals. */
+    private int m_defaultIdleInterval = DEFAULT_IDLE_INTERVAL;
+
+    /**
+     * Adds a source with the default active interval and the current default idle interval. If
+     * the source has already been added, nothing happens.
+     * 
+     * @param source the input source
+     * @see #setIdleInterval(int)
+     */
+    public synchronized void add(InputSource source) {
+        if (indexOf(source) >= 0) return;
+        add(source, DEFAULT_ACTIVE_INTERVAL, m_defaultIdleInterval);
+        m_defaultIdle[m_sources.length - 1] = true;
+    }
+
+    /**
+     * Adds a source. If the source has already been added, nothing happens.
+     * 
+     * @param source the input source
+     * @param activeInterval the interval in milliseconds while the source is active
+     * @param idleInterval the maximum interval in milliseconds while the source is idle, 0 to poll
+     *        it on wakeups only
+     */
+    public synchronized void add(InputSource source, int activeInterval, int idleInterval) {
+        if (indexOf(source) >= 0) return;
+        int n = m_sources.length;
+        InputSource[] sources = new InputSource[n + 1];
+        int[] activeIntervals = new int[n + 1];
+        int[] idleIntervals = new int[n + 1];
+        int[] intervals = new int[n + 1];
+        long[] nextPolls = new long[n + 1];
+        boolean[] defaultIdle = new boolean[n + 1];
+        if (n > 0) {
+            Management.arraycopy(m_sources, 0, sources, 0, n);
+            Management.arraycopy(m_activeIntervals, 0, activeIntervals, 0, n);
+            Management.arraycopy(m_idleIntervals, 0, idleIntervals, 0, n);
+            Management.arraycopy(m_intervals, 0, intervals, 0, n);
+            Management.arraycopy(m_nextPolls, 0, nextPolls, 0, n);
+            Management.arraycopy(m_defaultIdle, 0, defaultIdle, 0, n);
+        }
+        sources[n] = source;
+        m_sources = sources;
+        m_activeIntervals = activeIntervals;
+        m_idleIntervals = idleIntervals;
+        m_intervals = intervals;
+        m_nextPolls = nextPolls;
+        m_defaultIdle = defaultIdle;
+        setIntervals(n, activeInterval, idleInterval);
+    }
+
+    /**
+     * Returns the source at the specified index. When they become visible, the frames first add
+     * the source of their sampled devices, which dispatches the touch and the rotary touch events,
+     * and then the keyboard source.
+     * 
+     * @param index the index, from 0 to <code>getSourceCount() - 1</code>
+     * @return the input source
+     */
+    public synchronized InputSource getSource(int index) {
+        return m_sources[index];
+    }
+
+    /**
+     * Returns the number of registered sources.
+     * 
+     * @return the number of sources
+     */
+    public synchronized int getSourceCount() {
+        return m_sources.length;
+    }
+
+    /**
+     * Returns the time to wait until the next source is due.
+     * 
+     * @param now the current time in milliseconds
+     * @return the time in milliseconds, at least 1, or 0 if no source is due without a wakeup
+     */
+    synchronized int getWaitTime(long now) {
+        boolean exclusive = isAnyActive();
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < m_sources.length; i++) {
+            if (m_intervals[i] == 0 || (exclusive && !m_sources[i].isActive())) continue;
+            if (m_nextPolls[i] < next) next = m_nextPolls[i];
+        }
+        if (next == Long.MAX_VALUE) return 0;
+        return next - now < 1 ? 1 : (int) (next - now);
+    }
+
+    /**
+     * Returns the index of a source.
+     * 
+     * @param source the source
+     * @return the index or -1 if the source has not been added
+     */
+    private int indexOf(InputSource source) {
+        for (int i = 0; i < m_sources.length; i++) {
+            if (m_sources[i] == source) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns <code>true</code> if any source is active.
+     * 
+     * @return <code>true</code> if an interaction is in progress
+     */
+    private boolean isAnyActive() {
+        for (int i = 0; i < m_sources.length; i++) {
+            if (m_sources[i].isActive()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Polls all sources that are due.
+     * 
+     * @param now the current time in milliseconds
+     * @param all <code>true</code> to poll all sources regardless of their intervals
+     * @return <code>true</code> if any source has dispatched events
+     */
+    synchronized boolean poll(long now, boolean all) {
+        boolean exclusive = isAnyActive();
+        boolean dispatched = false;
+        for (int i = 0; i < m_sources.length; i++) {
+            InputSource source = m_sources[i];
+            if (exclusive && !source.isActive()) continue;
+            if (!all && (m_intervals[i] == 0 || now < m_nextPolls[i])) continue;
+            boolean events = source.poll();
+            dispatched |= events;
+            if (events || source.isActive()) {
+                m_intervals[i] = m_activeIntervals[i];
+            } else if (m_intervals[i] != 0) {
+                // back off towards the idle interval
+                m_intervals[i] <<= 1;
+                if (m_intervals[i] > m_idleIntervals[i] || m_idleIntervals[i] == 0) {
+                    m_intervals[i] = m_idleIntervals[i];
+                }
+            }
+            m_nextPolls[i] = now + m_intervals[i];
+        }
+        return dispatched;
+    }
+
+    /**
+     * Removes a source.
+     * 
+     * @param source the input source
+     */
+    public synchronized void remove(InputSource source) {
+        int index = indexOf(source);
+        if (index < 0) return;
+        int n = m_sources.length - 1;
+        InputSource[] sources = new InputSource[n];
+        int[] activeIntervals = new int[n];
+        int[] idleIntervals = new int[n];
+        int[] intervals = new int[n];
+        long[] nextPolls = new long[n];
+        boolean[] defaultIdle = new boolean[n];
+        for (int i = 0, j = 0; i <= n; i++) {
+            if (i == index) continue;
+            sources[j] = m_sources[i];
+            activeIntervals[j] = m_activeIntervals[i];
+            idleIntervals[j] = m_idleIntervals[i];
+            intervals[j] = m_intervals[i];
+            nextPolls[j] = m_nextPolls[i];
+            defaultIdle[j] = m_defaultIdle[i];
+            j++;
+        }
+        m_sources = sources;
+        m_activeIntervals = activeIntervals;
+        m_idleIntervals = idleIntervals;
+        m_intervals = intervals;
+        m_nextPolls = nextPolls;
+        m_defaultIdle = defaultIdle;
+    }
+
+    /**
+     * Sets the idle interval of the sources added without explicit intervals, including the ones
+     * added later. The sources added or set with explicit intervals keep their own, like the
+     * sampled touch and rotary touch devices of the frames.
+     * 
+     * @param idleInterval the maximum interval in milliseconds while a source is idle, 0 to poll
+     *        idle sources on wakeups only
+     */
+    public synchronized void setIdleInterval(int idleInterval) {
+        m_defaultIdleInterval = idleInterval < 0 ? 0 : idleInterval;
+        for (int i = 0; i < m_sources.length; i++) {
+            if (m_defaultIdle[i]) setIntervals(i, m_activeIntervals[i], m_defaultIdleInterval);
+        }
+    }
+
+    /**
+     * Sets the intervals of a source. The source no longer follows <code>setIdleInterval()</code>.
+     * 
+     * @param source the input source
+     * @param activeInterval the interval in milliseconds while the source is active
+     * @param idleInterval the maximum interval in milliseconds while the source is idle, 0 to poll
+     *        it on wakeups only
+     */
+    public synchronized void setIntervals(InputSource source, int activeInterval,
+            int idleInterval) {
+        int index = indexOf(source);
+        if (index < 0) return;
+        m_defaultIdle[index] = false;
+        setIntervals(index, activeInterval, idleInterval);
+    }
+
+    /**
+     * Sets the intervals of the source at the specified index and polls it on the next pass.
+     * 
+     * @param index the index of the source
+     * @param activeInterval the active interval
+     * @param idleInterval the idle interval
+     */
+    private void setIntervals(int index, int activeInterval, int idleInterval) {
+        m_activeIntervals[index] = activeInterval < 1 ? 1 : activeInterval;
+        m_idleIntervals[index] = idleInterval < 0 ? 0 : idleInterval;
+        m_intervals[index] = m_activeIntervals[index];
+        m_nextPolls[index] = 0;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+/**
+ * An input device polled by the worker thread of a frame. The frames wrap their keyboard, touch
+ * and rotary touch devices as input sources; applications may add their own ones to the frame's
+ * <code>InputScheduler</code>.
+ * 
+ * @see InputScheduler
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public interface InputSource {
+
+    /**
+     * Returns <code>true</code> while an interaction with the device is in progress, e.g. while
+     * the touch screen is pressed or a key is held down. Active sources are polled at their active
+     * rate and block the other sources until the interaction has ended.
+     * 
+     * @return <code>true</code> if the device is in use
+     */
+    public boolean isActive();
+
+    /**
+     * Reads the device and dispatches the resulting events to the frame. This method is called by
+     * the worker thread of the frame only.
+     * 
+     * @return <code>true</code> if any event has been dispatched
+     */
+    public boolean poll();
+}
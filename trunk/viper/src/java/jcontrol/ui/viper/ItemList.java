@@ -0,0 +1,181 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * An <code>IItemProvider</code> that keeps its items in RAM. The array grows by doubling, so
+ * adding n items takes linear time; inserting and removing shift the items behind the index in
+ * place.
+ * </p>
+ * 
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class ItemList implements IItemProvider {
+
+    /** The initial capacity. Value: 8. */
+    private static final int INITIAL_SIZE = 8;
+
+    /** The items, the first <code>m_count</code> are valid. */
+    private String[] m_items;
+
+    /** The number of items. */
+    private int m_count;
+
+    /**
+     * Creates an empty list.
+     */
+    public ItemList() {
+        m_items = new String[INITIAL_SIZE];
+    }
+
+    /**
+     * Creates a list with the specified items.
+     * 
+     * @param items the items, may be <code>null</code>
+     */
+    public ItemList(String[] items) {
+        m_items = new String[INITIAL_SIZE];
+        setItems(items);
+    }
+
+    /**
+     * Appends an item.
+     * 
+     * @param item the item
+     * @return the index of the item
+     */
+    public synchronized int add(String item) {
+        ensureCapacity(m_count + 1);
+        m_items[m_count] = item;
+        return m_count++;
+    }
+
+    /**
+     * Grows the array to hold at least the specified number of items.
+     * 
+     * @param capacity the number of items
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > m_items.length) {
+            int size = m_items.length << 1;
+            if (size < capacity) size = capacity;
+            String[] items = new String[size];
+            Management.arraycopy(m_items, 0, items, 0, m_count);
+            m_items = items;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IItemProvider#getItem(int)
+     */
+    public String getItem(int index) {
+        return m_items[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IItemProvider#getItemCount()
+     */
+    public int getItemCount() {
+        return m_count;
+    }
+
+    /**
+     * Returns the index of the first item that equals the specified one.
+     * 
+     * @param item the item to search for
+     * @return the index or -1 if there is no such item
+     */
+    public synchronized int indexOf(String item) {
+        for (int i = 0; i < m_count; i++) {
+            if (m_items[i] == item || (m_items[i] != null && m_items[i].equals(item))) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts an item. An index beyond the end appends the item.
+     * 
+     * @param index the position
+     * @param item the item
+     * @return the index of the item
+     */
+    public synchronized int insert(int index, String item) {
+        if (index < 0) index = 0;
+        if (index > m_count) index = m_count;
+        ensureCapacity(m_count + 1);
+        for (int i = m_count; i > index; i--) {
+            m_items[i] = m_items[i - 1];
+        }
+        m_items[index] = item;
+        m_count++;
+        return index;
+    }
+
+    /**
+     * Removes the item at the specified index.
+     * 
+     * @param index the index
+     * @return <code>true</code> if the item has been removed, <code>false</code> if the index is
+     *         out of range
+     */
+    public synchronized boolean remove(int index) {
+        if (index < 0 || index >= m_count) return false;
+        m_count--;
+        for (int i = index; i < m_count; i++) {
+            m_items[i] = m_items[i + 1];
+        }
+        m_items[m_count] = null;
+        return true;
+    }
+
+    /**
+     * Removes all items.
+     */
+    public synchronized void removeAll() {
+        for (int i = 0; i < m_count; i++) {
+            m_items[i] = null;
+        }
+        m_count = 0;
+    }
+
+    /**
+     * Replaces all items by the specified ones. The array is copied in one pass.
+     * 
+     * @param items the items, may be <code>null</code>
+     */
+    public synchronized void setItems(String[] items) {
+        int count = items != null ? items.length : 0;
+        if (count > m_items.length || m_items.length > (count << 1) + INITIAL_SIZE) {
+            m_items = new String[count > INITIAL_SIZE ? count : INITIAL_SIZE];
+        } else {
+            for (int i = count; i < m_count; i++) {
+                m_items[i] = null;
+            }
+        }
+        if (count > 0) Management.arraycopy(items, 0, m_items, 0, count);
+        m_count = count;
+    }
+}
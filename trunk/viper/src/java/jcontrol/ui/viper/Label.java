@@ -27,6 +27,10 @@ import jcontrol.toolkit.ImageUtils;
  * resource. The text can be changed by the application, but a user cannot edit it directly.<br>
  * Labels are passive components, they can neither be selected nor fire any events.
  * </p>
+ * <p>
+ * A left aligned text label with a fixed width redraws only the glyphs that differ when its text
+ * is replaced, see <code>GlyphRenderer</code>.
+ * </p>
  * 
  * @author Marcus Timmermann
  * @since Viper 1.0
@@ -60,6 +64,9 @@ public class Label extends Component {
     /** Text alignment and style */
     private int m_style = STYLE_ALIGN_LEFT;
 
+    /** The drawn text, <code>null</code> until a text is drawn that can be updated */
+    private GlyphRenderer m_glyphs;
+
     /**
      * Constructs a new label. The size will be calculated as big as is fits the given label.
      * 
@@ -176,9 +183,10 @@ public class Label extends Component {
             if (revalidate || revalidateWidth || revalidateHeight) {
                 if (m_label instanceof String) {
                     g.setFont(font);
-                    if (revalidateWidth)
-                        this.width = g.getTextWidth((String) m_label) + (marginWidth << 1);
-                    if (revalidateHeight) this.height = g.getFontHeight() + (borderSize << 1);
+                    if (revalidateWidth) this.width = TextMetrics.getTextWidth(g, font,
+                            (String) m_label) + (marginWidth << 1);
+                    if (revalidateHeight)
+                        this.height = TextMetrics.getFontHeight(g, font) + (borderSize << 1);
                 } else if (m_label instanceof Resource) {
                     if (revalidateWidth)
                         this.width = ImageUtils.getWidth((Resource) m_label) + (marginWidth << 1);
@@ -188,11 +196,13 @@ public class Label extends Component {
                 state &= ~STATE_REVALIDATE;
             }
         }
+        // only the text has been replaced
+        boolean update = (state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE;
         if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
             g.clearRect(x + borderSize, y + borderSize, width - (borderSize << 1), height
                     - (borderSize << 1));
         }
-        if ((m_style & STYLE_SHOW_BORDER) == STYLE_SHOW_BORDER) {
+        if ((m_style & STYLE_SHOW_BORDER) == STYLE_SHOW_BORDER && !update) {
             g.drawRect(x, y, width, height);
         }
         if ((m_style & STYLE_DRAW_INVERSE) == STYLE_DRAW_INVERSE) {
@@ -204,8 +214,8 @@ public class Label extends Component {
         if (m_label instanceof String) {
             // the label is a string
             g.setFont(font);
-            labelWidth = g.getTextWidth((String) m_label);
-            labelHeight = g.getFontHeight();
+            labelWidth = TextMetrics.getTextWidth(g, font, (String) m_label);
+            labelHeight = TextMetrics.getFontHeight(g, font);
         } else if (m_label instanceof Resource) {
             // the label is an image
             labelWidth = ImageUtils.getWidth((Resource) m_label);
@@ -213,11 +223,16 @@ public class Label extends Component {
         }
         int xoffset = marginWidth;
         int yoffset = borderSize;
+        // a text can be updated glyph by glyph if it is left aligned and fits
+        boolean glyphs = m_label instanceof String && (state & STATE_WIDTH_FIXED) != 0
+                && (m_style & ALIGN_MASK) == STYLE_ALIGN_LEFT;
         if (labelWidth > width - (marginWidth << 1)) {
             labelWidth = width - (marginWidth << 1); // cut the width if it doesn't fit
+            glyphs = false;
         }
         if (labelHeight > height - (borderSize << 1)) {
             labelHeight = height - (borderSize << 1); // cut the height if it doesn't fit
+            glyphs = false;
         } else {
             yoffset = ((height - labelHeight) >> 1);
         }
@@ -229,17 +244,29 @@ public class Label extends Component {
                 xoffset = width - marginWidth - labelWidth;
                 break;
         }
-        g.clearRect(x + xoffset, y + borderSize, labelWidth, yoffset - borderSize); // top
-        g.clearRect(x + borderSize, y + borderSize, xoffset - borderSize, height
-                - (borderSize << 1)); // left
-        g.clearRect(x + xoffset + labelWidth, y + borderSize, width - xoffset - labelWidth
-                - borderSize, height - (borderSize << 1)); // right
-        g.clearRect(x + xoffset, y + labelHeight + yoffset, labelWidth, height
-                - (yoffset + labelHeight) - borderSize); // below
-        if (m_label instanceof String) {
-            g.drawString((String) m_label, x + xoffset, y + yoffset, labelWidth, labelHeight, 0, 0);
-        } else if (m_label instanceof Resource) {
-            g.drawImage(m_label, x + xoffset, y + yoffset, labelWidth, labelHeight, 0, 0);
+        // on an update, the margins are still clear and only the changed glyphs are redrawn
+        if (!update || !glyphs || m_glyphs == null
+                || m_glyphs.drawText(g, font, (String) m_label, labelWidth, x + xoffset, y
+                        + yoffset, labelHeight) < 0) {
+            g.clearRect(x + xoffset, y + borderSize, labelWidth, yoffset - borderSize); // top
+            g.clearRect(x + borderSize, y + borderSize, xoffset - borderSize, height
+                    - (borderSize << 1)); // left
+            g.clearRect(x + xoffset + labelWidth, y + borderSize, width - xoffset - labelWidth
+                    - borderSize, height - (borderSize << 1)); // right
+            g.clearRect(x + xoffset, y + labelHeight + yoffset, labelWidth, height
+                    - (yoffset + labelHeight) - borderSize); // below
+            if (m_label instanceof String) {
+                g.drawString((String) m_label, x + xoffset, y + yoffset, labelWidth, labelHeight,
+                        0, 0);
+            } else if (m_label instanceof Resource) {
+                g.drawImage(m_label, x + xoffset, y + yoffset, labelWidth, labelHeight, 0, 0);
+            }
+            if (glyphs) {
+                if (m_glyphs == null) m_glyphs = new GlyphRenderer(((String) m_label).length());
+                m_glyphs.textDrawn((String) m_label, x + xoffset, y + yoffset, labelWidth);
+            } else if (m_glyphs != null) {
+                m_glyphs.invalidate();
+            }
         }
         g.setFont(null);
         if ((m_style & STYLE_DRAW_INVERSE) == STYLE_DRAW_INVERSE) {
@@ -282,12 +309,19 @@ public class Label extends Component {
     /**
      * Replaces the current text or image on this label by the specified text. The size will be
      * re-calculated if it has not been specified with the <code>setBounds()</code>-method or in the
-     * constructor.
+     * constructor. If the label has a fixed width and showed a text before, its border is kept and
+     * a left aligned text only redraws the glyphs that differ.
      * 
      * @param text the new text
      */
     public void setText(String text) {
+        Object label = m_label;
         m_label = text;
+        if (label instanceof String && label.equals(text)) return;
+        if ((state & STATE_WIDTH_FIXED) != 0 && label instanceof String && text != null) {
+            setDirty(STATE_DIRTY_UPDATE, true);
+            return;
+        }
         if ((state & STATE_WIDTH_FIXED) == 0) state |= STATE_REVALIDATE;
         setDirty(STATE_DIRTY_PAINT_ALL, true);
     }
@@ -19,7 +19,6 @@ package jcontrol.ui.viper;
 
 import jcontrol.io.Graphics;
 import jcontrol.lang.Math;
-import jcontrol.system.Management;
 import jcontrol.ui.viper.event.ActionEvent;
 import jcontrol.ui.viper.event.KeyEvent;
 import jcontrol.ui.viper.event.RotaryTouchEvent;
@@ -70,11 +69,23 @@ public class ListBox extends AbstractFocusComponent {
     private int m_scrollValue;
 
     /** The list items. */
-    private String[] m_items;
+    private IItemProvider m_items;
 
     /** The height of the font. */
     private int m_fontHeight;
 
+    /** The scroll value of the last paint, -1 if all rows must be painted. */
+    private int m_paintedScroll = -1;
+
+    /** The selection of the last paint. */
+    private int m_paintedSelection;
+
+    /** The number of visible rows of the last paint. */
+    private int m_paintedRows;
+
+    /** The top of the first row of the last paint. */
+    private int m_paintedTop;
+
     /**
      * Creates a list box.
      * 
@@ -107,23 +118,21 @@ public class ListBox extends AbstractFocusComponent {
         this.height = height;
         state |= (style & (STYLE_SHOW_SCROLLBAR | STYLE_SHOW_BORDER | STYLE_ALIGN_TOP));
         state |= STATE_REVALIDATE;
-        m_items = new String[items != null ? items.length : 0];
+        m_items = new ItemList(items);
         if (items != null) {
-            Management.arraycopy(items, 0, m_items, 0, m_items.length);
             m_selection = 0;
         }
     }
 
     /**
-     * Add a line to the end of the text field.
+     * Add a line to the end of the text field. Has no effect if the items are provided by another
+     * provider than an <code>ItemList</code>.
      * 
      * @param item The text to add.
      */
     public synchronized void add(String item) {
-        String[] newItems = new String[m_items.length + 1];
-        if (m_items.length > 0) Management.arraycopy(m_items, 0, newItems, 0, m_items.length);
-        newItems[newItems.length - 1] = item;
-        m_items = newItems;
+        if (!(m_items instanceof ItemList)) return;
+        ((ItemList) m_items).add(item);
         state |= STATE_REVALIDATE;
         if (m_selection < 0) m_selection = 0;
         redrawInternalAndParent();
@@ -134,18 +143,46 @@ public class ListBox extends AbstractFocusComponent {
      * @return xxx
      */
     private int findNextOrPrev(boolean updown) {
-        synchronized (m_items) {
-            if (updown) {
-                for (int i = m_selection + 1; i < m_items.length; i++) {
-                    if (!m_items[i].equals("-")) { return i; }
-                }
-            } else {
-                for (int i = m_selection - 1; i >= 0; i--) {
-                    if (!m_items[i].equals("-")) { return i; }
-                }
+        return findNextOrPrev(m_selection, updown);
+    }
+
+    /**
+     * Finds the next or previous item that is not a separator.
+     * 
+     * @param from the index to start from
+     * @param updown <code>true</code> to search downwards
+     * @return the index or -1 if there is none
+     */
+    private int findNextOrPrev(int from, boolean updown) {
+        IItemProvider items = m_items;
+        if (updown) {
+            for (int i = from + 1, count = items.getItemCount(); i < count; i++) {
+                if (!isSeparator(items.getItem(i))) { return i; }
+            }
+        } else {
+            for (int i = from - 1; i >= 0; i--) {
+                if (!isSeparator(items.getItem(i))) { return i; }
             }
-            return -1;
         }
+        return -1;
+    }
+
+    /**
+     * Returns the number of items.
+     * 
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return m_items.getItemCount();
+    }
+
+    /**
+     * Returns the provider of the items.
+     * 
+     * @return the item provider
+     */
+    public IItemProvider getItemProvider() {
+        return m_items;
     }
 
     /**
@@ -154,7 +191,7 @@ public class ListBox extends AbstractFocusComponent {
      * @return the selected index
      */
     public synchronized int getSelectedIndex() {
-        if (m_selection < m_items.length && m_selection >= 0) { return m_selection; }
+        if (m_selection < m_items.getItemCount() && m_selection >= 0) { return m_selection; }
         return -1;
     }
 
@@ -164,35 +201,36 @@ public class ListBox extends AbstractFocusComponent {
      * @return the selected item
      */
     public synchronized String getSelectedItem() {
-        if (m_selection < m_items.length && m_selection >= 0) { return m_items[m_selection]; }
+        if (m_selection < m_items.getItemCount()
+                && m_selection >= 0) { return m_items.getItem(m_selection); }
         return null;
     }
 
     /**
-     * Insert a line of text in the text field at the given zero-relative index.
+     * Insert a line of text in the text field at the given zero-relative index. Has no effect if
+     * the items are provided by another provider than an <code>ItemList</code>.
      * 
      * @param line The line to insert.
      * @param item The text for the row.
      */
     public synchronized void insert(int line, String item) {
-        String[] newItems = new String[m_items.length + 1];
-        int count = 0;
-        int i = 0;
-        for (; i < m_items.length; i++) {
-            if (count == line) {
-                newItems[count++] = item;
-            }
-            newItems[count++] = m_items[i];
-        }
-        if (count == i) {
-            newItems[count] = item;
-        }
+        if (!(m_items instanceof ItemList)) return;
+        ((ItemList) m_items).insert(line, item);
         if (m_selection < 0) m_selection = 0;
-        m_items = newItems;
         state |= STATE_REVALIDATE;
         redrawInternalAndParent();
     }
 
+    /**
+     * Returns whether an item is drawn as separator line.
+     * 
+     * @param item the item
+     * @return <code>true</code> for the item "-"
+     */
+    private static boolean isSeparator(String item) {
+        return "-".equals(item);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -214,9 +252,9 @@ public class ListBox extends AbstractFocusComponent {
                 }
                 return null; // event consumed
             case KeyEvent.KEY_SELECT_PRESSED: // user chooses the current item and exists the list
-                if (listener != null && m_selection >= 0 && m_selection < m_items.length) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                            m_items[m_selection]));
+                if (listener != null && m_selection >= 0 && m_selection < m_items.getItemCount()) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                            m_items.getItem(m_selection)));
                 }
                 return null;
             default:
@@ -232,24 +270,27 @@ public class ListBox extends AbstractFocusComponent {
      */
     @Override
     public RotaryTouchEvent onRotaryTouchEvent(RotaryTouchEvent e) {
-        switch (e.getRotaryTouchState()) {
+        switch (e.getRotaryDirection()) {
             case RotaryTouchEvent.ROTATES_LEFT:
-                int selection = findNextOrPrev(false);
-                if (selection >= 0) {
-                    setSelection(selection);
-                }
-                return null; // event consumed
             case RotaryTouchEvent.ROTATES_RIGHT:
-                selection = findNextOrPrev(true);
+                // fast spins skip several items
+                boolean down = e.getRotaryDirection() == RotaryTouchEvent.ROTATES_RIGHT;
+                int selection = -1;
+                for (int i = e.getAcceleration(), from = m_selection; i > 0; i--) {
+                    from = findNextOrPrev(from, down);
+                    if (from < 0) break;
+                    selection = from;
+                }
                 if (selection >= 0) {
                     setSelection(selection);
                 }
                 return null; // event consumed
             case RotaryTouchEvent.ROTATES_NONE: // user chooses the current item and exists the list
                 if (e.getRotaryTouchState() == RotaryTouchEvent.STATE_IDLE) {
-                    if (listener != null && m_selection >= 0 && m_selection < m_items.length) {
-                        onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                                m_items[m_selection]));
+                    if (listener != null && m_selection >= 0
+                            && m_selection < m_items.getItemCount()) {
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                                m_items.getItem(m_selection)));
                     }
                     return null;
                 }
@@ -275,7 +316,7 @@ public class ListBox extends AbstractFocusComponent {
                     state |= STATE_FOCUS;
                     int visibleItems = (height - 2) / m_fontHeight;
                     if ((state & STYLE_SHOW_SCROLLBAR) == STYLE_SHOW_SCROLLBAR
-                            && m_items.length > visibleItems) {
+                            && m_items.getItemCount() > visibleItems) {
                         if (e.x > x + width - SCROLL_BAR_WIDTH) {
                             // clicked on scrollbar
                             int selection;
@@ -287,9 +328,12 @@ public class ListBox extends AbstractFocusComponent {
 
                             } else {
                                 // touched between scroll buttons
-                                selection = Math.scale(e.y - (y + 9), height - 18, m_items.length);
-                                if (selection < 0 || selection >= m_items.length
-                                        || m_items[selection].equals("-")) { return RESULT_ACCEPTED; }
+                                selection = Math.scale(e.y - (y + 9), height - 18,
+                                        m_items.getItemCount());
+                                if (selection < 0 || selection >= m_items.getItemCount()
+                                        || isSeparator(m_items.getItem(selection))) {
+                                    return RESULT_ACCEPTED;
+                                }
                             }
                             if (selection >= 0) {
                                 setSelection(selection);
@@ -298,8 +342,8 @@ public class ListBox extends AbstractFocusComponent {
                         }
                     }
                     int yoffset = 1;
-                    if (visibleItems > m_items.length) {
-                        visibleItems = m_items.length;
+                    if (visibleItems > m_items.getItemCount()) {
+                        visibleItems = m_items.getItemCount();
                         yoffset += (((height - 4) - visibleItems * m_fontHeight) >> 1);
                     } else {
                         yoffset += (((height - 4) % m_fontHeight) >> 1);
@@ -313,13 +357,13 @@ public class ListBox extends AbstractFocusComponent {
                     if (e.type == TouchEvent.TYPE_TOUCH_PRESSED && m_selection == selection) {
                         // touched twice on same item
                         if (listener != null) {
-                            onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                                    m_items[m_selection]));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                                    m_items.getItem(m_selection)));
                         }
                         return RESULT_EXECUTED;
                     }
-                    if (selection < 0 || selection >= m_items.length
-                            || m_items[selection].equals("-")) { return RESULT_ACCEPTED; }
+                    if (selection < 0 || selection >= m_items.getItemCount()
+                            || isSeparator(m_items.getItem(selection))) { return RESULT_ACCEPTED; }
                     setSelection(selection);
                     return RESULT_ACCEPTED;
                 }
@@ -347,8 +391,8 @@ public class ListBox extends AbstractFocusComponent {
                 m_fontHeight = g.getFontHeight();
                 int visibleItems = (height - 4) / m_fontHeight;
                 int yoffset = y + 2;
-                if (visibleItems > m_items.length) {
-                    visibleItems = m_items.length;
+                if (visibleItems > m_items.getItemCount()) {
+                    visibleItems = m_items.getItemCount();
                     if ((state & STYLE_ALIGN_TOP) == 0) {
                         yoffset += (((height - 4) - visibleItems * m_fontHeight) >> 1);
                     }
@@ -359,10 +403,10 @@ public class ListBox extends AbstractFocusComponent {
                 }
                 if ((state & STATE_REVALIDATE) != 0) {
                     int selectionPos = visibleItems >> 1; // keep selection bar at center position
-                    if (m_selection >= m_items.length) {
-                        m_selection = m_items.length - 1;
+                    if (m_selection >= m_items.getItemCount()) {
+                        m_selection = m_items.getItemCount() - 1;
                     }
-                    if (m_selection < 0 && m_items.length > 0) {
+                    if (m_selection < 0 && m_items.getItemCount() > 0) {
                         m_selection = 0;
                     }
                     if (m_selection <= selectionPos) {
@@ -376,38 +420,68 @@ public class ListBox extends AbstractFocusComponent {
                     if (m_selection >= m_scrollValue + selectionPos) {
                         m_scrollValue = m_selection - selectionPos;
                     }
-                    if (m_scrollValue > m_items.length - visibleItems) {
-                        m_scrollValue = m_items.length - visibleItems;
+                    if (m_scrollValue > m_items.getItemCount() - visibleItems) {
+                        m_scrollValue = m_items.getItemCount() - visibleItems;
                     }
                     if (m_scrollValue < 0) {
                         m_scrollValue = 0;
                     }
                 }
-                boolean showSB = m_items.length > visibleItems
+                boolean showSB = m_items.getItemCount() > visibleItems
                         && (state & STYLE_SHOW_SCROLLBAR) == STYLE_SHOW_SCROLLBAR;
                 if ((state & STYLE_SHOW_BORDER) == STYLE_SHOW_BORDER) {
                     g.drawRect(x, y, showSB ? width - SCROLL_BAR_WIDTH + 1 : width, height);
                 }
                 {
+                    // a selection change only paints the rows that have changed
+                    int top = yoffset;
+                    boolean update = (state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE
+                            && m_paintedScroll >= 0 && m_paintedRows == visibleItems
+                            && m_paintedTop == top;
+                    int rowWidth = width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4);
+                    int first = 0, last = visibleItems;
+                    if (update) {
+                        int d = m_scrollValue - m_paintedScroll;
+                        if (d == 0) {
+                            last = 0;
+                        } else if (d > -visibleItems && d < visibleItems
+                                && scrollArea(g, x + 2, top, rowWidth, visibleItems * m_fontHeight,
+                                        -d * m_fontHeight)) {
+                            // the remaining rows have been moved, paint the new ones
+                            if (d > 0) {
+                                first = visibleItems - d;
+                            } else {
+                                last = -d;
+                            }
+                        }
+                    }
                     for (int c = 0; c < visibleItems; c++) {
                         int h = m_fontHeight;
                         if ((yoffset + h - (y + 2)) > height - 4) {
                             h = height - 4 - yoffset + (y + 1);
                         }
+                        int index = c + m_scrollValue;
+                        if (update && (c < first || c >= last) && index != m_selection
+                                && index != m_paintedSelection) {
+                            yoffset += h;
+                            continue;
+                        }
                         g.clearRect(x + 2, yoffset, 1, h);
                         int w;
-                        if (m_items[c + m_scrollValue].equals("-")) {
+                        // only the visible items are requested from the provider
+                        String item = m_items.getItem(index);
+                        if (isSeparator(item)) {
                             w = width - (showSB ? SCROLL_BAR_WIDTH + 5 : 6);
                             g.clearRect(x + 3, yoffset, w, m_fontHeight);
                             g.drawLine(x + 3, yoffset + (m_fontHeight >> 1), x + 3 + w, yoffset
                                     + (m_fontHeight >> 1));
                         } else {
-                            w = g.drawString(m_items[c + m_scrollValue], x + 3, yoffset, width
+                            w = g.drawString(item, x + 3, yoffset, width
                                     - (showSB ? SCROLL_BAR_WIDTH + 4 : 5), h, 0, 0);
                         }
                         g.clearRect(x + 2 + w, yoffset, width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4)
                                 - w, h);
-                        if (m_selection == c + m_scrollValue) {
+                        if (m_selection == index) {
                             g.setDrawMode(Graphics.XOR);
                             g.fillRect(x + 2, yoffset, width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4),
                                     h);
@@ -415,7 +489,11 @@ public class ListBox extends AbstractFocusComponent {
                         }
                         yoffset += h;
                     }
-                    if (yoffset < y + height - 4) {
+                    m_paintedScroll = m_scrollValue;
+                    m_paintedSelection = m_selection;
+                    m_paintedRows = visibleItems;
+                    m_paintedTop = top;
+                    if (!update && yoffset < y + height - 4) {
                         g.clearRect(x + 2, yoffset, width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4),
                                 height - 4 - yoffset);
                     }
@@ -446,7 +524,7 @@ public class ListBox extends AbstractFocusComponent {
                     // height - 25 pixels space
                     if (height >= 25) {
                         // draw a thumb
-                        int scroll = m_scrollValue * 100 / (m_items.length - visibleItems);
+                        int scroll = m_scrollValue * 100 / (m_items.getItemCount() - visibleItems);
                         scroll = y + 9 + (height - 26) * scroll / 100;
                         g.clearRect(++xoff, y + 9, 7, scroll - (y + 9));
                         g.drawImage(new String[]{"\u81C1\uD5D5\uD5C1\uFD00"}, xoff, scroll, 7, 8,
@@ -460,26 +538,17 @@ public class ListBox extends AbstractFocusComponent {
     }
 
     /**
-     * Removes a line from the text field.
+     * Removes a line from the text field. Has no effect if the items are provided by another
+     * provider than an <code>ItemList</code>.
      * 
      * @param line The line to remove.
      */
     public synchronized void remove(int line) {
-        if (line >= 0 && line < m_items.length) {
-            String[] newItems = new String[m_items.length - 1];
-            int count = 0;
-            for (int i = 0; i < m_items.length; i++) {
-                if (i != line) {
-                    newItems[count] = m_items[i];
-                    count++;
-                }
-            }
-
-            m_items = newItems;
-            if (m_selection > m_items.length - 1) {
+        if (m_items instanceof ItemList && ((ItemList) m_items).remove(line)) {
+            if (m_selection > m_items.getItemCount() - 1) {
                 m_selection--;
             }
-            if (m_items.length == 0) {
+            if (m_items.getItemCount() == 0) {
                 m_selection = -1;
             }
             state |= STATE_REVALIDATE; // should be recomputed on paint
@@ -487,6 +556,36 @@ public class ListBox extends AbstractFocusComponent {
         }
     }
 
+    /**
+     * Sets the provider of the items. The selection is moved to the first item.
+     * 
+     * @param items the item provider
+     */
+    public synchronized void setItemProvider(IItemProvider items) {
+        m_items = items != null ? items : new ItemList();
+        m_selection = m_items.getItemCount() > 0 ? 0 : -1;
+        m_scrollValue = 0;
+        state |= STATE_REVALIDATE;
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Replaces all items. The items are copied in one pass, regardless of their number.
+     * 
+     * @param items the items, may be <code>null</code>
+     */
+    public synchronized void setItems(String[] items) {
+        if (m_items instanceof ItemList) {
+            ((ItemList) m_items).setItems(items);
+            m_selection = m_items.getItemCount() > 0 ? 0 : -1;
+            m_scrollValue = 0;
+            state |= STATE_REVALIDATE;
+            redrawInternalAndParent();
+        } else {
+            setItemProvider(new ItemList(items));
+        }
+    }
+
     /**
      * Selects the item at the given zero-relative index in the receiver's list. If the item at the
      * index was already selected, it remains selected. Indices that are out of range are ignored.
@@ -494,11 +593,12 @@ public class ListBox extends AbstractFocusComponent {
      * @param index the index of the item to select
      */
     public synchronized void setSelection(int index) {
-        if (index >= 0 && index < m_items.length) {
+        if (index >= 0 && index < m_items.getItemCount()) {
             if (index != m_selection) {
                 m_selection = index;
                 state |= STATE_REVALIDATE;
-                redrawInternalAndParent();
+                // the rows are scrolled and only the changed ones are painted
+                setDirty(STATE_DIRTY_UPDATE, true);
             }
         }
     }
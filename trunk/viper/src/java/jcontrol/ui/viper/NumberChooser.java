@@ -38,6 +38,9 @@ import jcontrol.ui.viper.event.TouchEvent;
  */
 public class NumberChooser extends AbstractFocusComponent {
 
+    /** The distance a drag has to move for one step, in pixels. */
+    private static final int DRAG_STEP = 4;
+
     /** Min. value of the number chooser. */
     private int m_min;
 
@@ -47,7 +50,7 @@ public class NumberChooser extends AbstractFocusComponent {
     /** Value of the number chooser. */
     private int m_value;
 
-    /** */
+    /** The y-coordinate the value has last been changed at by a drag. */
     private int m_lastYTouch;
 
     /**
@@ -105,12 +108,12 @@ public class NumberChooser extends AbstractFocusComponent {
             case KeyEvent.KEY_UP_PRESSED:
                 // increment
                 if (setValue(m_value + 1)) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
                 }
                 return null;
             case KeyEvent.KEY_DOWN_PRESSED:
                 if (setValue(m_value - 1)) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
                 }
                 return null;
             default:
@@ -129,15 +132,15 @@ public class NumberChooser extends AbstractFocusComponent {
         switch (e.getRotaryDirection()) {
             // increment value
             case RotaryTouchEvent.ROTATES_LEFT:
-
-                if (setValue(m_value + 1)) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                // fast spins count faster
+                if (setValue(m_value + e.getAcceleration())) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
                 }
                 return null;
                 // decrement value
             case RotaryTouchEvent.ROTATES_RIGHT:
-                if (setValue(m_value - 1)) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                if (setValue(m_value - e.getAcceleration())) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
                 }
                 return null;
             default:
@@ -163,13 +166,15 @@ public class NumberChooser extends AbstractFocusComponent {
                         if (e.x > x + width - 9) { // touched on slider
                             if (e.y < y + (height >> 1)) {
                                 if (setValue(m_value + 1)) {
-                                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED,
+                                    onActionEvent(ActionEvent.acquire(this,
+                                            ActionEvent.VALUE_CHANGED,
                                             null));
                                 }
                             } else {
                                 // touched on down arrow
                                 if (setValue(m_value - 1)) {
-                                    onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED,
+                                    onActionEvent(ActionEvent.acquire(this,
+                                            ActionEvent.VALUE_CHANGED,
                                             null));
                                 }
                             }
@@ -182,25 +187,14 @@ public class NumberChooser extends AbstractFocusComponent {
                 return RESULT_NONE;
             case TouchEvent.TYPE_TOUCH_DRAGGED:
                 if ((state & STATE_SELECTED) == STATE_SELECTED) {
-                    if (e.y < m_lastYTouch) {
-                        m_lastYTouch = e.y;
-                        if (m_value < m_max) {
-                            m_value++;
-                            redrawInternalAndParent();
-                            if (listener != null) {
-                                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED,
-                                        String.valueOf(m_value)));
-                            }
-                        }
-                    } else if (e.y > m_lastYTouch) {
-                        m_lastYTouch = e.y;
-                        if (m_value > m_min) {
-                            m_value--;
-                            redrawInternalAndParent();
-                            if (listener != null) {
-                                listener.onActionEvent(new ActionEvent(this,
-                                        ActionEvent.VALUE_CHANGED, String.valueOf(m_value)));
-                            }
+                    // the drags are coalesced between the update passes, so the distance counts,
+                    // not the number of events; the remainder is kept for the next drag
+                    int steps = (m_lastYTouch - e.y) / DRAG_STEP;
+                    if (steps != 0) {
+                        m_lastYTouch -= steps * DRAG_STEP;
+                        if (setValue(m_value + steps) && listener != null) {
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED,
+                                    String.valueOf(m_value)));
                         }
                     }
                     return RESULT_EXECUTED;
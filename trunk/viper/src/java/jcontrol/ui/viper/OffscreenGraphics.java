@@ -0,0 +1,445 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.graphics.BufferedImage;
+import jcontrol.io.Drawable;
+import jcontrol.io.Graphics;
+import jcontrol.io.Resource;
+import jcontrol.toolkit.ImageUtils;
+
+/**
+ * <p>
+ * An <code>OffscreenGraphics</code> renders into an in-memory frame buffer instead of drawing
+ * directly to the display. All rows touched by a drawing operation are tracked together with the
+ * horizontal span that has been modified. Calling <code>flush()</code> copies only these spans to
+ * the target graphics, e.g. the display.
+ * </p>
+ * <p>
+ * The frame flushes the buffer at the end of each update pass, thus intermediate states of a
+ * component (cleared background, half drawn text) never become visible. To use it, pass an
+ * instance to the frame's constructor:
+ * </p>
+ * 
+ * <pre>
+ * Frame frame = new Frame(new OffscreenGraphics(new Display(), 320, 240), keyboard, touch);
+ * </pre>
+ * <p>
+ * The buffer itself can be replaced by any <code>Graphics</code> that is also
+ * <code>Drawable</code>, e.g. a simple in-memory stand-in to verify the rendering without a display.
+ * </p>
+ * <p>
+ * Areas are copied within the frame buffer in blocks that do not overlap their destination, so
+ * scrolling components only paint the rows they scroll in.
+ * </p>
+ * 
+ * @see Frame#Frame(Graphics, jcontrol.io.Keyboard, jcontrol.io.IPointingDevice)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class OffscreenGraphics implements IBlitGraphics {
+
+    /** The graphics the frame buffer is flushed to. */
+    private Graphics m_target;
+
+    /** The graphics that draws into the frame buffer. */
+    private Graphics m_buffer;
+
+    /** The frame buffer as drawable. */
+    private Drawable m_image;
+
+    /** The width of the frame buffer. */
+    private int m_width;
+
+    /** The height of the frame buffer. */
+    private int m_height;
+
+    /** The first modified column of each row. */
+    private int[] m_spanStart;
+
+    /** The column behind the last modified column of each row, 0 if the row is unmodified. */
+    private int[] m_spanEnd;
+
+    /** The first modified row or <code>m_height</code> if the buffer is unmodified. */
+    private int m_dirtyTop;
+
+    /** The last modified row plus one. */
+    private int m_dirtyBottom;
+
+    /** The current font, used to determine the height of text. */
+    private Object m_font;
+
+    /**
+     * Creates an off-screen graphics with a frame buffer of the specified size.
+     * 
+     * @param target the graphics to flush the frame buffer to, e.g. a <code>Display</code>
+     * @param width the width of the frame buffer
+     * @param height the height of the frame buffer
+     */
+    public OffscreenGraphics(Graphics target, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height);
+        m_buffer = image.getGraphics();
+        m_image = image;
+        init(target, width, height);
+    }
+
+    /**
+     * Creates an off-screen graphics that uses a custom frame buffer.
+     * 
+     * @param target the graphics to flush the frame buffer to
+     * @param buffer the graphics that draws into the frame buffer
+     * @param image the frame buffer, used to copy the modified areas to the target
+     * @param width the width of the frame buffer
+     * @param height the height of the frame buffer
+     */
+    public OffscreenGraphics(Graphics target, Graphics buffer, Drawable image, int width, int height) {
+        m_buffer = buffer;
+        m_image = image;
+        init(target, width, height);
+    }
+
+    /**
+     * Initializes the dirty row tracking.
+     * 
+     * @param target the target graphics
+     * @param width the buffer width
+     * @param height the buffer height
+     */
+    private void init(Graphics target, int width, int height) {
+        m_target = target;
+        m_width = width;
+        m_height = height;
+        m_spanStart = new int[height];
+        m_spanEnd = new int[height];
+        m_dirtyTop = height;
+        m_dirtyBottom = 0;
+    }
+
+    /**
+     * Copies all modified spans of the frame buffer to the target graphics. Consecutive modified
+     * rows are copied together as one block.
+     * 
+     * @return the number of rows that have been copied
+     */
+    public synchronized int flush() {
+        int rows = 0;
+        if (m_dirtyTop >= m_dirtyBottom) return rows;
+        int drawMode = m_target.getDrawMode();
+        m_target.setDrawMode(Graphics.NORMAL);
+        int top = -1;
+        int x1 = m_width, x2 = 0;
+        for (int row = m_dirtyTop; row <= m_dirtyBottom; row++) {
+            if (row < m_dirtyBottom && m_spanEnd[row] > 0) {
+                if (top < 0) top = row;
+                if (m_spanStart[row] < x1) x1 = m_spanStart[row];
+                if (m_spanEnd[row] > x2) x2 = m_spanEnd[row];
+                m_spanEnd[row] = 0;
+                rows++;
+            } else if (top >= 0) {
+                // end of a block of modified rows
+                m_image.draw(m_target, x1, top, x2 - x1, row - top, x1, top);
+                top = -1;
+                x1 = m_width;
+                x2 = 0;
+            }
+        }
+        m_target.setDrawMode(drawMode);
+        m_dirtyTop = m_height;
+        m_dirtyBottom = 0;
+        return rows;
+    }
+
+    /**
+     * Returns the graphics the frame buffer is flushed to.
+     * 
+     * @return the target graphics
+     */
+    public Graphics getTarget() {
+        return m_target;
+    }
+
+    /**
+     * Returns <code>true</code> if the frame buffer has been modified since the last flush.
+     * 
+     * @return <code>true</code> if a flush is pending
+     */
+    public synchronized boolean isDirty() {
+        return m_dirtyTop < m_dirtyBottom;
+    }
+
+    /**
+     * Marks the specified rectangle as modified.
+     * 
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param width the width
+     * @param height the height
+     */
+    private void markDirty(int x, int y, int width, int height) {
+        if (width < 0) {
+            x += width;
+            width = -width;
+        }
+        if (height < 0) {
+            y += height;
+            height = -height;
+        }
+        int x2 = x + width;
+        int y2 = y + height;
+        if (x < 0) x = 0;
+        if (y < 0) y = 0;
+        if (x2 > m_width) x2 = m_width;
+        if (y2 > m_height) y2 = m_height;
+        if (x >= x2 || y >= y2) return;
+        for (int row = y; row < y2; row++) {
+            if (m_spanEnd[row] == 0) {
+                m_spanStart[row] = x;
+                m_spanEnd[row] = x2;
+            } else {
+                if (x < m_spanStart[row]) m_spanStart[row] = x;
+                if (x2 > m_spanEnd[row]) m_spanEnd[row] = x2;
+            }
+        }
+        if (y < m_dirtyTop) m_dirtyTop = y;
+        if (y2 > m_dirtyBottom) m_dirtyBottom = y2;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#clearRect(int, int, int, int)
+     */
+    public synchronized void clearRect(int x, int y, int width, int height) {
+        m_buffer.clearRect(x, y, width, height);
+        markDirty(x, y, width, height);
+    }
+
+    /**
+     * Copies an area within the frame buffer. The area is moved in blocks of <code>dy</code> rows
+     * (or <code>dx</code> columns for a horizontal copy), each of which does not overlap its own
+     * destination.
+     * 
+     * @see jcontrol.ui.viper.IBlitGraphics#copyArea(int, int, int, int, int, int)
+     */
+    public synchronized boolean copyArea(int x, int y, int width, int height, int dx, int dy) {
+        if (x < 0 || y < 0 || x + width > m_width || y + height > m_height) return false;
+        int w = width - (dx < 0 ? -dx : dx);
+        int h = height - (dy < 0 ? -dy : dy);
+        if (w <= 0 || h <= 0) return true; // the area is scrolled out completely
+        if (dx == 0 && dy == 0) return true;
+        int sx = dx < 0 ? x - dx : x;
+        int sy = dy < 0 ? y - dy : y;
+        int drawMode = m_buffer.getDrawMode();
+        m_buffer.setDrawMode(Graphics.NORMAL);
+        if (dy != 0) {
+            int step = dy < 0 ? -dy : dy;
+            for (int i = 0; i < h; i += step) {
+                int n = h - i < step ? h - i : step;
+                // upwards from the top, downwards from the bottom
+                int row = dy < 0 ? sy + i : sy + h - i - n;
+                m_image.draw(m_buffer, sx + dx, row + dy, w, n, sx, row);
+            }
+        } else {
+            int step = dx < 0 ? -dx : dx;
+            for (int i = 0; i < w; i += step) {
+                int n = w - i < step ? w - i : step;
+                int column = dx < 0 ? sx + i : sx + w - i - n;
+                m_image.draw(m_buffer, column + dx, sy, n, h, column, sy);
+            }
+        }
+        m_buffer.setDrawMode(drawMode);
+        markDirty(sx + dx, sy + dy, w, h);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawChar(char, int, int)
+     */
+    public synchronized int drawChar(char c, int x, int y) {
+        int result = m_buffer.drawChar(c, x, y);
+        markDirty(x, y, result, m_buffer.getFontHeight());
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawImage(java.lang.Object, int, int)
+     */
+    public synchronized void drawImage(Object image, int x, int y) {
+        m_buffer.drawImage(image, x, y);
+        if (image instanceof Resource) {
+            markDirty(x, y, ImageUtils.getWidth((Resource) image), ImageUtils
+                    .getHeight((Resource) image));
+        } else {
+            // size is unknown, mark the rest of the buffer
+            markDirty(x, y, m_width - x, m_height - y);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawImage(java.lang.Object, int, int, int, int, int, int)
+     */
+    public synchronized void drawImage(Object image, int x, int y, int width, int height,
+            int xoff, int yoff) {
+        m_buffer.drawImage(image, x, y, width, height, xoff, yoff);
+        markDirty(x, y, width, height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawLine(int, int, int, int)
+     */
+    public synchronized void drawLine(int x1, int y1, int x2, int y2) {
+        m_buffer.drawLine(x1, y1, x2, y2);
+        markDirty(x1 < x2 ? x1 : x2, y1 < y2 ? y1 : y2, (x1 < x2 ? x2 - x1 : x1 - x2) + 1,
+                (y1 < y2 ? y2 - y1 : y1 - y2) + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawRect(int, int, int, int)
+     */
+    public synchronized void drawRect(int x, int y, int width, int height) {
+        m_buffer.drawRect(x, y, width, height);
+        markDirty(x, y, width, height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawString(java.lang.String, int, int)
+     */
+    public synchronized int drawString(String s, int x, int y) {
+        int result = m_buffer.drawString(s, x, y);
+        markDirty(x, y, result, m_buffer.getFontHeight());
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#drawString(java.lang.String, int, int, int, int, int, int)
+     */
+    public synchronized int drawString(String s, int x, int y, int width, int height, int xoff,
+            int yoff) {
+        int result = m_buffer.drawString(s, x, y, width, height, xoff, yoff);
+        markDirty(x, y, width, height);
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#fillRect(int, int, int, int)
+     */
+    public synchronized void fillRect(int x, int y, int width, int height) {
+        m_buffer.fillRect(x, y, width, height);
+        markDirty(x, y, width, height);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getDrawMode()
+     */
+    public int getDrawMode() {
+        return m_buffer.getDrawMode();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getFontHeight()
+     */
+    public int getFontHeight() {
+        return m_buffer.getFontHeight();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getPixel(int, int)
+     */
+    public synchronized int getPixel(int x, int y) {
+        return m_buffer.getPixel(x, y);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#getTextWidth(java.lang.String)
+     */
+    public int getTextWidth(String s) {
+        return m_buffer.getTextWidth(s);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setBackground(int)
+     */
+    public void setBackground(int color) {
+        m_buffer.setBackground(color);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setColor(int)
+     */
+    public void setColor(int color) {
+        m_buffer.setColor(color);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setDrawMode(int)
+     */
+    public void setDrawMode(int mode) {
+        m_buffer.setDrawMode(mode);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setFont(java.lang.Object)
+     */
+    public synchronized void setFont(Object font) {
+        if (font == m_font) return;
+        m_font = font;
+        m_buffer.setFont(font);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.io.Graphics#setPixel(int, int)
+     */
+    public synchronized void setPixel(int x, int y) {
+        m_buffer.setPixel(x, y);
+        markDirty(x, y, 1, 1);
+    }
+}
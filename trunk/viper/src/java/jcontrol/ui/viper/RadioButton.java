@@ -93,7 +93,7 @@ public class RadioButton extends AbstractFocusComponent {
         if (e.m_key == KeyEvent.KEY_SELECT_PRESSED) {
             if (!isSelected()) setSelectedInternal(true, false);
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -111,7 +111,7 @@ public class RadioButton extends AbstractFocusComponent {
         if (e.getRotaryTouchState() == RotaryTouchEvent.STATE_IDLE) {
             if (!isSelected()) setSelectedInternal(true, false);
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -130,7 +130,7 @@ public class RadioButton extends AbstractFocusComponent {
             if (e.type == TouchEvent.TYPE_TOUCH_PRESSED) {
                 if (!isSelected()) setSelectedInternal(true, false);
                 if (listener != null)
-                    onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, m_label));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, m_label));
                 return RESULT_EXECUTED;
             }
         }
@@ -217,7 +217,7 @@ public class RadioButton extends AbstractFocusComponent {
                     if (c instanceof RadioButton && c != this) {
                         ((RadioButton) c).setSelectedInternal(false, forceRepaint);
                         if (((RadioButton) c).listener != null)
-                            onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED,
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED,
                                     ((RadioButton) c).m_label));
                     }
                 }
@@ -0,0 +1,311 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.Graphics;
+
+/**
+ * <p>
+ * Collects rendering statistics of the user interface: how often and how long each component has
+ * been painted, the duration of the update passes of the frame and the number of input and action
+ * events dispatched per pass. This helps to find the components that make a page slow.
+ * </p>
+ * <p>
+ * The statistics are opt-in. Create an instance and activate it by calling
+ * <code>RenderStatistics.setActive(stats)</code>. While no instance is active, the frame and the
+ * containers only check a static field for <code>null</code>. Optionally, the pass duration and
+ * the number of events are drawn as a small overlay on top of the frame.
+ * </p>
+ * <p>
+ * <b>Note:</b> Times are measured with <code>System.currentTimeMillis()</code>. Fast components
+ * may thus be reported with a paint time of 0; compare the paint counts in that case.
+ * </p>
+ * 
+ * @see Frame#update(Graphics)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class RenderStatistics {
+
+    /** The active statistics or <code>null</code> if no statistics are collected. */
+    static RenderStatistics active;
+
+    /** The components painted so far. */
+    private Component[] m_components;
+
+    /** The number of paints per component. */
+    private int[] m_paintCount;
+
+    /** The cumulated paint time per component. */
+    private int[] m_paintTime;
+
+    /** The number of tracked components. */
+    private int m_count;
+
+    /** The number of update passes that painted anything. */
+    private int m_passCount;
+
+    /** The duration of the last update pass that painted anything. */
+    private int m_lastPassTime;
+
+    /** The maximum duration of an update pass. */
+    private int m_maxPassTime;
+
+    /** The events dispatched since the last update pass. */
+    private int m_events;
+
+    /** The events dispatched before the last update pass. */
+    private int m_lastPassEvents;
+
+    /** Indicates whether the overlay is drawn. */
+    private boolean m_overlayVisible;
+
+    /** The position of the overlay. */
+    private int m_overlayX, m_overlayY;
+
+    /** The width of the overlay drawn last, 0 if it has not been drawn. */
+    private int m_overlayWidth;
+
+    /** The height of the overlay drawn last. */
+    private int m_overlayHeight;
+
+    /** The frame the overlay has been drawn on last. */
+    private IContainer m_overlayFrame;
+
+    /**
+     * Creates a statistics object that tracks at most the specified number of components.
+     * 
+     * @param capacity the maximum number of components to track
+     */
+    public RenderStatistics(int capacity) {
+        m_components = new Component[capacity];
+        m_paintCount = new int[capacity];
+        m_paintTime = new int[capacity];
+    }
+
+    /**
+     * Activates the specified statistics. Pass <code>null</code> to stop collecting.
+     * 
+     * @param statistics the statistics to collect or <code>null</code>
+     */
+    public static void setActive(RenderStatistics statistics) {
+        active = statistics;
+    }
+
+    /**
+     * Returns the active statistics.
+     * 
+     * @return the active statistics or <code>null</code>
+     */
+    public static RenderStatistics getActive() {
+        return active;
+    }
+
+    /**
+     * Counts an event dispatched by the frame, if statistics are active.
+     */
+    static void countEvent() {
+        RenderStatistics statistics = active;
+        if (statistics != null) statistics.m_events++;
+    }
+
+    /**
+     * Records a paint of a component.
+     * 
+     * @param c the component
+     * @param time the time spent in milliseconds
+     */
+    synchronized void countPaint(Component c, long time) {
+        int index = indexOf(c);
+        if (index < 0) {
+            if (m_count == m_components.length) return; // capacity exhausted
+            index = m_count++;
+            m_components[index] = c;
+        }
+        m_paintCount[index]++;
+        m_paintTime[index] += (int) time;
+    }
+
+    /**
+     * Records the end of an update pass and draws the overlay.
+     * 
+     * @param frame the frame that has been painted
+     * @param g the graphics the frame has been painted on
+     * @param start the time the pass has been started
+     * @param updated <code>true</code> if anything has been painted
+     */
+    synchronized void endPass(IContainer frame, Graphics g, long start, boolean updated) {
+        if (!updated) return;
+        m_lastPassTime = (int) (System.currentTimeMillis() - start);
+        if (m_lastPassTime > m_maxPassTime) m_maxPassTime = m_lastPassTime;
+        m_lastPassEvents = m_events;
+        m_events = 0;
+        m_passCount++;
+        if (m_overlayVisible) {
+            String text = String.valueOf(m_lastPassTime).concat("ms ").concat(
+                    String.valueOf(m_lastPassEvents)).concat("ev");
+            int drawMode = g.getDrawMode();
+            g.setDrawMode(Graphics.NORMAL);
+            int width = g.getTextWidth(text) + 2;
+            if (width > m_overlayWidth) m_overlayWidth = width;
+            m_overlayHeight = g.getFontHeight();
+            m_overlayFrame = frame;
+            g.clearRect(m_overlayX, m_overlayY, m_overlayWidth, m_overlayHeight);
+            g.drawString(text, m_overlayX + 1, m_overlayY);
+            g.setDrawMode(drawMode);
+        }
+    }
+
+    /**
+     * Returns the component at the specified index.
+     * 
+     * @param index the index, from 0 to <code>getComponentCount() - 1</code>
+     * @return the component
+     */
+    public synchronized Component getComponent(int index) {
+        return m_components[index];
+    }
+
+    /**
+     * Returns the number of components that have been painted since the last reset.
+     * 
+     * @return the number of tracked components
+     */
+    public synchronized int getComponentCount() {
+        return m_count;
+    }
+
+    /**
+     * Returns the number of events dispatched before the last update pass.
+     * 
+     * @return the number of events
+     */
+    public synchronized int getLastPassEvents() {
+        return m_lastPassEvents;
+    }
+
+    /**
+     * Returns the duration of the last update pass that painted anything.
+     * 
+     * @return the duration in milliseconds
+     */
+    public synchronized int getLastPassTime() {
+        return m_lastPassTime;
+    }
+
+    /**
+     * Returns the maximum duration of an update pass since the last reset.
+     * 
+     * @return the duration in milliseconds
+     */
+    public synchronized int getMaxPassTime() {
+        return m_maxPassTime;
+    }
+
+    /**
+     * Returns how often the specified component has been painted.
+     * 
+     * @param c the component
+     * @return the number of paints
+     */
+    public synchronized int getPaintCount(Component c) {
+        int index = indexOf(c);
+        return index < 0 ? 0 : m_paintCount[index];
+    }
+
+    /**
+     * Returns the cumulated time spent painting the specified component.
+     * 
+     * @param c the component
+     * @return the paint time in milliseconds
+     */
+    public synchronized int getPaintTime(Component c) {
+        int index = indexOf(c);
+        return index < 0 ? 0 : m_paintTime[index];
+    }
+
+    /**
+     * Returns the number of update passes that painted anything since the last reset.
+     * 
+     * @return the number of passes
+     */
+    public synchronized int getPassCount() {
+        return m_passCount;
+    }
+
+    /**
+     * Returns the index of the specified component.
+     * 
+     * @param c the component
+     * @return the index or -1 if it is not tracked
+     */
+    private int indexOf(Component c) {
+        for (int i = 0; i < m_count; i++) {
+            if (m_components[i] == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < m_count; i++) {
+            m_components[i] = null;
+            m_paintCount[i] = 0;
+            m_paintTime[i] = 0;
+        }
+        m_count = 0;
+        m_passCount = 0;
+        m_lastPassTime = 0;
+        m_maxPassTime = 0;
+        m_events = 0;
+        m_lastPassEvents = 0;
+    }
+
+    /**
+     * Shows or hides the overlay. It displays the duration of the last update pass and the number
+     * of events dispatched before it. The area of an overlay that has been drawn before is
+     * repainted by the frame.
+     * 
+     * @param visible <code>true</code> to draw the overlay
+     * @param x the x-coordinate of the overlay
+     * @param y the y-coordinate of the overlay
+     */
+    public void setOverlayVisible(boolean visible, int x, int y) {
+        IContainer frame;
+        int oldX, oldY, oldWidth, oldHeight;
+        synchronized (this) {
+            frame = m_overlayFrame;
+            oldX = m_overlayX;
+            oldY = m_overlayY;
+            oldWidth = m_overlayWidth;
+            oldHeight = m_overlayHeight;
+            m_overlayVisible = visible;
+            m_overlayX = x;
+            m_overlayY = y;
+            m_overlayWidth = 0;
+            m_overlayFrame = null;
+        }
+        // the frame is not locked while it is marked dirty, it may be in an update pass
+        if (frame != null && oldWidth > 0) {
+            frame.setDirty(null, oldX, oldY, oldWidth, oldHeight, Component.STATE_DIRTY_REPAINT,
+                    true);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import java.io.IOException;
+
+import jcontrol.io.Resource;
+import jcontrol.system.Management;
+
+/**
+ * <p>
+ * An <code>IItemProvider</code> that reads its items from a text <code>Resource</code> in flash,
+ * one item per line. The resource is scanned once to index the line starts, afterwards an item is
+ * read only when it is requested. Up to <code>CACHE_SIZE</code> consecutive items are cached, so
+ * repainting the visible rows does not read the resource again. Only the index is held in RAM,
+ * four bytes per item.
+ * </p>
+ * <p>
+ * Lines end with CR, LF, CR LF or a zero byte, like those read by <code>Resource.readLine()</code>.
+ * </p>
+ * 
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class ResourceItemProvider implements IItemProvider {
+
+    /** The number of cached items. Value: 16. */
+    public static final int CACHE_SIZE = 16;
+
+    /** The resource. */
+    private Resource m_resource;
+
+    /** The start offsets of the lines, followed by the length of the resource. */
+    private int[] m_starts;
+
+    /** The number of lines. */
+    private int m_count;
+
+    /** The cached items. */
+    private String[] m_cache = new String[CACHE_SIZE];
+
+    /** The indices of the cached items, -1 for an empty slot. */
+    private int[] m_cacheIndices = new int[CACHE_SIZE];
+
+    /** The read buffer. */
+    private byte[] m_buffer = new byte[64];
+
+    /**
+     * Creates a provider for the lines of a resource.
+     * 
+     * @param name the name of the resource
+     * @throws IOException if the resource cannot be read
+     */
+    public ResourceItemProvider(String name) throws IOException {
+        this(new Resource(name));
+    }
+
+    /**
+     * Creates a provider for the lines of a resource. The resource must not be used elsewhere
+     * while the provider is in use.
+     * 
+     * @param resource the resource
+     * @throws IOException if the resource cannot be read
+     */
+    public ResourceItemProvider(Resource resource) throws IOException {
+        m_resource = resource;
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            m_cacheIndices[i] = -1;
+        }
+        index();
+    }
+
+    /**
+     * Adds a line start to the index.
+     * 
+     * @param start the offset of the line
+     */
+    private void addStart(int start) {
+        if (m_count + 1 == m_starts.length) {
+            int[] starts = new int[m_starts.length << 1];
+            Management.arraycopy(m_starts, 0, starts, 0, m_starts.length);
+            m_starts = starts;
+        }
+        m_starts[m_count++] = start;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IItemProvider#getItem(int)
+     */
+    public synchronized String getItem(int index) {
+        int slot = index & (CACHE_SIZE - 1);
+        if (m_cacheIndices[slot] == index) return m_cache[slot];
+        String item;
+        try {
+            item = read(index);
+        } catch (IOException e) {
+            return "";
+        }
+        m_cache[slot] = item;
+        m_cacheIndices[slot] = index;
+        return item;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IItemProvider#getItemCount()
+     */
+    public int getItemCount() {
+        return m_count;
+    }
+
+    /**
+     * Scans the resource for the line starts.
+     * 
+     * @throws IOException if the resource cannot be read
+     */
+    private void index() throws IOException {
+        m_starts = new int[32];
+        m_count = 0;
+        int length = m_resource.length();
+        m_resource.seek(0, true);
+        byte[] buffer = m_buffer;
+        boolean lineStart = true;
+        byte last = 0;
+        for (int offset = 0; offset < length;) {
+            int n = m_resource.read(buffer, 0, length - offset < buffer.length ? length - offset
+                    : buffer.length);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r' || b == 0) {
+                    // CR LF ends one line only
+                    if (!(b == '\n' && last == '\r')) {
+                        if (lineStart) addStart(offset + i);
+                        lineStart = true;
+                    }
+                } else if (lineStart) {
+                    addStart(offset + i);
+                    lineStart = false;
+                }
+                last = b;
+            }
+            offset += n;
+        }
+        m_starts[m_count] = length;
+    }
+
+    /**
+     * Reads a line from the resource.
+     * 
+     * @param index the index of the line
+     * @return the line without its end
+     * @throws IOException if the resource cannot be read
+     */
+    private String read(int index) throws IOException {
+        int start = m_starts[index];
+        int length = m_starts[index + 1] - start;
+        if (length > m_buffer.length) m_buffer = new byte[length];
+        m_resource.seek(start, true);
+        length = m_resource.read(m_buffer, 0, length);
+        int end = 0;
+        while (end < length && m_buffer[end] != '\n' && m_buffer[end] != '\r'
+                && m_buffer[end] != 0) {
+            end++;
+        }
+        return new String(m_buffer, 0, end);
+    }
+}
@@ -71,7 +71,7 @@ public class RockerSwitch extends AbstractFocusComponent {
             setSelected(!isSelected());
             // fire action event
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
             return null; // we consumed that event
         } else
             return e; // let the Container handle this KeyEvent
@@ -88,7 +88,7 @@ public class RockerSwitch extends AbstractFocusComponent {
         if (e.getRotaryTouchState() == RotaryTouchEvent.STATE_SELECTED) {
             setSelected(!isSelected());
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
             return null; // we consumed that event
         } else
             return e; // let the Container handle this KeyEvent
@@ -106,7 +106,7 @@ public class RockerSwitch extends AbstractFocusComponent {
             if (e.type == TouchEvent.TYPE_TOUCH_PRESSED) {
                 setSelected(!isSelected());
                 if (listener != null)
-                    onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
                 return RESULT_EXECUTED;
             }
         }
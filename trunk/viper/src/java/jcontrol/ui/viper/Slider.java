@@ -30,13 +30,25 @@ import jcontrol.ui.viper.event.TouchEvent;
  * the keyboard or the touch screen to simulate analog input. The slider issues notification by
  * throwing an ActionEvent of the type <code>ActionEvent.VALUE_CHANGED</code> when it is moved.
  * </p>
+ * <p>
+ * A touch beside the knob moves the slider by one step towards the finger. While a focused slider
+ * is held beside the knob, the step is repeated by the <code>AnimationScheduler</code> after
+ * <code>REPEAT_DELAY</code> and then every <code>REPEAT_INTERVAL</code> milliseconds until the
+ * knob reaches the finger or the finger is lifted.
+ * </p>
  * 
  * @author Marcus Timmermann
  * @author Alexander Schade
  * @since Viper 1.0
  * @version $Revision$
  */
-public class Slider extends AbstractFocusComponent {
+public class Slider extends AbstractFocusComponent implements IAnimated {
+
+    /** The delay before a held touch beside the knob is repeated, in milliseconds. Value: 400. */
+    public static final int REPEAT_DELAY = 400;
+
+    /** The interval of the repeated steps while the touch is held, in milliseconds. Value: 100. */
+    public static final int REPEAT_INTERVAL = 100;
 
     /** The value of the silder. */
     private int m_value;
@@ -50,6 +62,12 @@ public class Slider extends AbstractFocusComponent {
     /** The step of the slider. */
     private int m_step = 1;
 
+    /** <code>true</code> while a held touch beside the knob is repeated. */
+    private boolean m_repeating;
+
+    /** The latest position of the held touch. */
+    private int m_touchX, m_touchY;
+
     /**
      * Creates a slider and sets bounds.
      * 
@@ -106,7 +124,7 @@ public class Slider extends AbstractFocusComponent {
         // fire event
         if (consumed) {
             if (changed && listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
             return null;
         }
         return e;
@@ -141,7 +159,7 @@ public class Slider extends AbstractFocusComponent {
         // fire event
         if (consumed) {
             if (changed && listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
             return null;
         }
         return e;
@@ -169,39 +187,33 @@ public class Slider extends AbstractFocusComponent {
                                     + Math.scale(e.x - x - 1, width - 7, m_max - m_min));
                         }
                         if (change && listener != null)
-                            onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
+                            onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED,
+                                    null));
                         return RESULT_EXECUTED;
                     } else {
                         return RESULT_NONE;
                     }
                 }
                 if ((state & STATE_FOCUS) == 0) return RESULT_NONE;
+                // follow the finger, the steps are repeated by tick()
+                m_touchX = e.x;
+                m_touchY = e.y;
+                if (m_repeating) return RESULT_EXECUTED;
+                // |
+                // fall trough \|/
+                // '
             case TouchEvent.TYPE_TOUCH_PRESSED:
-                if ((e.x >= x && e.x < x + width && e.y >= y && e.y < y + height)) { // touched
-                    // inside
-                    int xpos = x + 1 + Math.scale(m_value - m_min, m_max - m_min, width - 7); // position
-                    // of
-                    // slider
-                    if (e.x < xpos) {
-                        if (setValue(m_value - m_step)) {
-                            if (listener != null)
-                                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
-                        }
-                        return RESULT_EXECUTED;
-                    } else if (e.x > xpos + 5) {
-                        if (setValue(m_value + m_step)) {
-                            if (listener != null)
-                                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, null));
-                        }
-                        return RESULT_EXECUTED;
-                    } else {
-                        // touched on slider
-                        state |= STATE_SELECTED;
-                        return RESULT_EXECUTED;
-                    }
+                m_touchX = e.x;
+                m_touchY = e.y;
+                int result = touch(e.x, e.y);
+                if (result == RESULT_EXECUTED && (state & STATE_SELECTED) == 0) {
+                    // touched beside the knob, repeat the step while held
+                    m_repeating = true;
+                    AnimationScheduler.getScheduler().add(this, REPEAT_DELAY);
                 }
-                break;
+                return result;
             default: // touch released
+                stopRepeat();
                 if ((state & STATE_SELECTED) == STATE_SELECTED
                         || (state & STATE_FOCUS) == STATE_FOCUS) {
                     state &= ~STATE_SELECTED;
@@ -211,6 +223,59 @@ public class Slider extends AbstractFocusComponent {
         return RESULT_NONE;
     }
 
+    /**
+     * Moves the slider by one step towards a touch beside the knob, or selects the knob if it is
+     * touched.
+     * 
+     * @param tx the x-coordinate of the touch
+     * @param ty the y-coordinate of the touch
+     * @return <code>RESULT_EXECUTED</code> if the slider has been touched, <code>RESULT_NONE</code>
+     *         otherwise
+     */
+    private int touch(int tx, int ty) {
+        if (tx < x || tx >= x + width || ty < y || ty >= y + height) return RESULT_NONE;
+        int xpos = x + 1 + Math.scale(m_value - m_min, m_max - m_min, width - 7); // the knob
+        boolean changed;
+        if (tx < xpos) {
+            changed = setValue(m_value - m_step);
+        } else if (tx > xpos + 5) {
+            changed = setValue(m_value + m_step);
+        } else {
+            // touched on the knob
+            state |= STATE_SELECTED;
+            stopRepeat();
+            return RESULT_EXECUTED;
+        }
+        if (changed && listener != null)
+            onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, null));
+        return RESULT_EXECUTED;
+    }
+
+    /**
+     * Stops repeating the step of a held touch.
+     */
+    private void stopRepeat() {
+        if (m_repeating) {
+            m_repeating = false;
+            AnimationScheduler.getScheduler().remove(this);
+        }
+    }
+
+    /**
+     * Repeats the step towards a held touch beside the knob.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public void tick(long now) {
+        if (!m_repeating) return;
+        if ((state & STATE_FOCUS) == 0 || touch(m_touchX, m_touchY) == RESULT_NONE) {
+            // the focus is lost or the finger has left the slider
+            stopRepeat();
+        } else if (m_repeating) {
+            AnimationScheduler.getScheduler().add(this, REPEAT_INTERVAL);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
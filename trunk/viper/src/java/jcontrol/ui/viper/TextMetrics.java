@@ -0,0 +1,191 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.io.Graphics;
+import jcontrol.io.Resource;
+
+/**
+ * <p>
+ * Caches text widths and font heights. Measuring a text walks the font resource glyph by glyph,
+ * so components should take their measurements from here instead of calling
+ * <code>Graphics.getTextWidth()</code> in every <code>paint()</code>.
+ * </p>
+ * <p>
+ * The widths are kept in a direct-mapped table of <code>CAPACITY</code> entries keyed by font and
+ * text; a colliding entry replaces the older one. A changed font or text is thus a different key
+ * and never returns a stale width. The fonts are identified by their <code>Resource</code>, the
+ * default font by <code>null</code>. Up to <code>MAX_FONTS</code> fonts are known at a time; the
+ * cache is cleared when another one is used.
+ * </p>
+ * 
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public final class TextMetrics {
+
+    /** The number of cached text widths. Value: 64. */
+    public static final int CAPACITY = 64;
+
+    /** The number of fonts known at a time. Value: 8. */
+    public static final int MAX_FONTS = 8;
+
+    /** The known fonts, index 0 is the default font. */
+    private static Resource[] s_fonts = new Resource[MAX_FONTS];
+
+    /** The heights of the known fonts, -1 if not measured yet. */
+    private static int[] s_fontHeights = new int[MAX_FONTS];
+
+    /** The number of known fonts. */
+    private static int s_fontCount;
+
+    /** The cached texts. */
+    private static String[] s_texts = new String[CAPACITY];
+
+    /** The font indices of the cached texts. */
+    private static int[] s_textFonts = new int[CAPACITY];
+
+    /** The cached widths. */
+    private static int[] s_widths = new int[CAPACITY];
+
+    /** The number of lookups answered from the cache. */
+    private static int s_hitCount;
+
+    /** The number of lookups that measured the text. */
+    private static int s_missCount;
+
+    static {
+        clear();
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private TextMetrics() {
+    }
+
+    /**
+     * Removes all cached measurements.
+     */
+    public static synchronized void clear() {
+        s_fontCount = 1;
+        for (int i = 0; i < MAX_FONTS; i++) {
+            s_fonts[i] = null;
+            s_fontHeights[i] = -1;
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            s_texts[i] = null;
+        }
+    }
+
+    /**
+     * Returns the index of a font, registering it if it is unknown.
+     * 
+     * @param font the font or <code>null</code> for the default font
+     * @return the index
+     */
+    private static int fontIndex(Resource font) {
+        if (font == null) return 0;
+        for (int i = 1; i < s_fontCount; i++) {
+            if (s_fonts[i] == font) return i;
+        }
+        if (s_fontCount == MAX_FONTS) clear();
+        s_fonts[s_fontCount] = font;
+        return s_fontCount++;
+    }
+
+    /**
+     * Returns the height of a font.
+     * 
+     * @param g the graphics to measure with on a miss
+     * @param font the font or <code>null</code> for the default font
+     * @return the height in pixels
+     */
+    public static synchronized int getFontHeight(Graphics g, Resource font) {
+        int index = fontIndex(font);
+        int height = s_fontHeights[index];
+        if (height < 0) {
+            g.setFont(font);
+            height = g.getFontHeight();
+            s_fontHeights[index] = height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * 
+     * @return the number of hits
+     */
+    public static int getHitCount() {
+        return s_hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that had to measure the text.
+     * 
+     * @return the number of misses
+     */
+    public static int getMissCount() {
+        return s_missCount;
+    }
+
+    /**
+     * Returns the width of a text. On a miss, the font is set on the graphics and the text is
+     * measured; components set their font before measuring anyway.
+     * 
+     * @param g the graphics to measure with on a miss
+     * @param font the font or <code>null</code> for the default font
+     * @param text the text
+     * @return the width in pixels
+     */
+    public static synchronized int getTextWidth(Graphics g, Resource font, String text) {
+        int length = text.length();
+        if (length == 0) return 0;
+        int fontIndex = fontIndex(font);
+        int slot = (fontIndex * 13 + length * 31 + text.charAt(0) + text.charAt(length >> 1) * 3
+                + text.charAt(length - 1) * 7)
+                & (CAPACITY - 1);
+        String cached = s_texts[slot];
+        if (s_textFonts[slot] == fontIndex && cached != null
+                && (cached == text || cached.equals(text))) {
+            s_hitCount++;
+            return s_widths[slot];
+        }
+        s_missCount++;
+        g.setFont(font);
+        int width = g.getTextWidth(text);
+        s_texts[slot] = text;
+        s_textFonts[slot] = fontIndex;
+        s_widths[slot] = width;
+        return width;
+    }
+
+    /**
+     * Removes the cached measurements of a font, e.g. after its resource has been replaced.
+     * 
+     * @param font the font or <code>null</code> for the default font
+     */
+    public static synchronized void invalidate(Resource font) {
+        int index = fontIndex(font);
+        s_fontHeights[index] = -1;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (s_textFonts[i] == index) s_texts[i] = null;
+        }
+    }
+}
@@ -21,14 +21,16 @@ import jcontrol.io.Graphics;
 
 /**
  * <p>
- * This class provides a TextScroller component.
+ * This class provides a TextScroller component. The text is scrolled by the
+ * <code>AnimationScheduler</code> while the scroller is visible.
  * </p>
  * 
+ * @see AnimationScheduler
  * @author Helge Bhme , Marcus Timmermann
  * @since Viper 1.0
  * @version $Revision$
  */
-public class TextScroller extends Component {
+public class TextScroller extends Component implements IAnimated {
 
     /** Constant value for center alignment */
     public static final int STYLE_ALIGN_CENTER = 0;
@@ -44,6 +46,15 @@ public class TextScroller extends Component {
     private int m_firstItem = 0;
     private int m_firstLine = 0;
 
+    /** The distance the text has been moved since the last paint, in pixels. */
+    private int m_moved;
+
+    /** Indicates whether the text has been painted at the position before the last move. */
+    private boolean m_painted;
+
+    /** The time between two steps in milliseconds. */
+    private int m_interval = 50;
+
     /**
      * Creates a new TextScroller containing the specified text.
      * 
@@ -63,32 +74,51 @@ public class TextScroller extends Component {
         this.width = width;
         this.height = height;
         m_style = style & (STYLE_ALIGN_CENTER | STYLE_ALIGN_LEFT | STYLE_ALIGN_RIGHT);
-        setDirty(STATE_ANIMATED, true);
     }
 
     /**
-     * The animate method of the text scroller. Whenever this method is called from the
-     * <code>AnimationContainer</code>, the component scrolls the text. The scroll speed and
-     * direction depends on the m_step value, which can be set with <code>setStep(int m_step)</code>
-     * .{@available}
+     * The animate method of the text scroller. Whenever the scroller is painted, it scrolls the
+     * text. The scroll speed and direction depends on the m_step value, which can be set with
+     * <code>setStep(int m_step)</code>, and on the interval of the ticks. If the graphics can copy
+     * areas, the painted text is moved and only the scrolled in strip is painted.
+     * 
+     * @param g the graphics
+     * @param repaint <code>true</code> to paint the whole text
      */
-    private void animate(Graphics g) {
+    private void animate(Graphics g, boolean repaint) {
         int fontHeight = g.getFontHeight();
         if (m_step != 0) {
-            if (m_step == 100) m_step = 0; // draw again
+            if (m_step == 100) {
+                m_step = 0; // draw again
+                repaint = true;
+            }
+            // the strip to paint
+            int top = 0, bottom = height;
+            if (!repaint && m_painted && m_moved > -height && m_moved < height
+                    && scrollArea(g, x, y, width, height, -m_moved)) {
+                if (m_moved > 0) {
+                    top = height - m_moved;
+                } else {
+                    bottom = -m_moved;
+                }
+            }
             int l = m_firstItem, ypos = -m_firstLine;
-            while (ypos < height) {
-                int h1 = ypos;
-                if (h1 < 0) h1 = 0;
+            while (ypos < bottom) {
                 int h2 = ypos + fontHeight + 1;
-                if (h2 > height) h2 = height;
-                g.clearRect(x, y + h1, width, h2 - h1);
-                g.drawString(m_items[l], m_xpos[l], y + h1, width, h2 - h1, 0, h1 - ypos);
+                if (h2 > top) {
+                    int h1 = ypos;
+                    if (h1 < top) h1 = top;
+                    if (h2 > bottom) h2 = bottom;
+                    g.clearRect(x, y + h1, width, h2 - h1);
+                    g.drawString(m_items[l], m_xpos[l], y + h1, width, h2 - h1, 0, h1 - ypos);
+                }
                 ypos += fontHeight;
                 l++;
                 if (l == m_items.length) l = 0;
             }
+            m_painted = true;
         }
+        m_moved = m_step;
         m_firstLine += m_step;
         if (m_firstLine < 0) {
             m_firstLine += fontHeight;
@@ -118,14 +148,33 @@ public class TextScroller extends Component {
                     if (m_style == STYLE_ALIGN_CENTER) p >>= 1;
                     m_xpos[i] = x + p;
                 }
+                // (re)starts the ticks, they are dropped while the scroller is hidden
+                AnimationScheduler.getScheduler().add(this, m_interval);
             default:
-                if ((state & STATE_ANIMATED) == STATE_ANIMATED) animate(g);
-        }
-        if ((state & STATE_ANIMATED) == STATE_ANIMATED) {
-            state &= ~(STATE_DIRTY_PAINT_ALL & ~STATE_ANIMATED);
-        } else {
-            state &= ~STATE_DIRTY_PAINT_ALL;
+                animate(g, (state & STATE_DIRTY_MASK) != STATE_DIRTY_UPDATE);
         }
+        state &= ~STATE_DIRTY_PAINT_ALL;
+    }
+
+    /**
+     * Returns the time between two steps.
+     * 
+     * @return the interval in milliseconds
+     */
+    public int getInterval() {
+        return m_interval;
+    }
+
+    /**
+     * Sets the time between two steps. The default value is 50 milliseconds. Together with the
+     * step width, it determines the speed of the text scroller.
+     * 
+     * @param interval the interval in milliseconds
+     * @see #setStep(int)
+     */
+    public void setInterval(int interval) {
+        m_interval = interval;
+        if (parent != null) AnimationScheduler.getScheduler().add(this, interval);
     }
 
     /**
@@ -136,4 +185,13 @@ public class TextScroller extends Component {
     public void setStep(int step) {
         m_step = step;
     }
+
+    /**
+     * Scrolls the text by one step in the next update pass.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public void tick(long now) {
+        if (m_step != 0) setDirty(STATE_DIRTY_UPDATE, true);
+    }
 }
\ No newline at end of file
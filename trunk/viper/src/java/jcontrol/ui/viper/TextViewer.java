@@ -18,6 +18,7 @@
 package jcontrol.ui.viper;
 
 import jcontrol.io.Graphics;
+import jcontrol.io.Resource;
 import jcontrol.system.Management;
 import jcontrol.ui.viper.event.KeyEvent;
 import jcontrol.ui.viper.event.RotaryTouchEvent;
@@ -28,6 +29,17 @@ import jcontrol.ui.viper.event.TouchEvent;
  * This class <CODE>TextViewer</CODE> implements a component to show multiple lines of text.<br>
  * The text can be scrolled, lines can be added, inserted and deleted.
  * </p>
+ * <p>
+ * The lines are kept in a ring that grows by doubling, so adding lines takes constant time. With a
+ * capacity set, the ring does not grow; the oldest line is dropped for each line added, and the
+ * view follows the newest line as long as it is scrolled to the end. This makes the viewer suitable
+ * as log view with a bounded heap.
+ * </p>
+ * <p>
+ * Long lines can be wrapped at word boundaries, see <code>setWordWrap()</code>. The row breaks of
+ * each line are computed once and cached; adding lines only lays out the new ones. Only the visible
+ * rows are drawn.
+ * </p>
  * 
  * @author Marcus Timmermann
  * @author Alexander Schade
@@ -48,12 +60,69 @@ public class TextViewer extends AbstractFocusComponent {
     /** Style constant for a bordered look with scroll bar. */
     public static final int STYLE_SHOW_SCROLLBAR = RESERVED2 | STYLE_SHOW_BORDER;
 
-    /** The scroll value. */
+    /** The initial size of the ring. Value: 8. */
+    private static final int INITIAL_SIZE = 8;
+
+    /** The scroll value, in rows. */
     private int m_scrollValue;
 
-    /** The items. */
+    /** The lines, a ring starting at <code>m_first</code>. */
     private String[] m_items;
 
+    /** The wrapped rows of the lines, <code>null</code> for lines shown in a single row. */
+    private String[][] m_rows;
+
+    /** The number of rows of the lines. */
+    private int[] m_rowCounts;
+
+    /** The ring index of the first line. */
+    private int m_first;
+
+    /** The number of lines. */
+    private int m_count;
+
+    /** The maximum number of lines, 0 if unbounded. */
+    private int m_capacity;
+
+    /** Indicates whether long lines are wrapped. */
+    private boolean m_wordWrap;
+
+    /** The number of lines laid out, counted from the first line. */
+    private int m_laidOut;
+
+    /** The number of rows of the lines laid out. */
+    private int m_rowCount;
+
+    /** The text width the lines have been laid out for, -1 to lay out all lines again. */
+    private int m_layoutWidth = -1;
+
+    /** The font the lines have been laid out with. */
+    private Resource m_layoutFont;
+
+    /** A laid out line near the scroll position, to find the visible lines quickly. */
+    private int m_anchorLine;
+
+    /** The first row of <code>m_anchorLine</code>. */
+    private int m_anchorRow;
+
+    /** The number of visible rows of the last paint. */
+    private int m_visibleRows;
+
+    /** Indicates whether the view follows the newest line. */
+    private boolean m_follow;
+
+    /** The scroll value of the last paint, -1 if all rows must be painted. */
+    private int m_paintedScroll = -1;
+
+    /** The number of rows shown by the last paint. */
+    private int m_paintedRows;
+
+    /** The top of the first row of the last paint. */
+    private int m_paintedTop;
+
+    /** Indicates whether the last paint has shown the scroll bar. */
+    private boolean m_paintedScrollBar;
+
     /** */
     private int m_lastYTouch = -1;
 
@@ -87,22 +156,113 @@ public class TextViewer extends AbstractFocusComponent {
         this.height = height;
         state |= (style & (STYLE_SHOW_SCROLLBAR | STYLE_SHOW_BORDER));
         state |= STATE_REVALIDATE;
-        m_items = new String[items != null ? items.length : 0];
-        if (items != null) Management.arraycopy(items, 0, m_items, 0, m_items.length);
+        int count = items != null ? items.length : 0;
+        allocate(count > INITIAL_SIZE ? count : INITIAL_SIZE);
+        if (items != null) Management.arraycopy(items, 0, m_items, 0, count);
+        m_count = count;
+    }
+
+    /**
+     * Creates a bounded text viewer, e.g. to show the tail of a log. Once it holds
+     * <code>capacity</code> lines, each line added drops the oldest one.
+     * 
+     * @param capacity The maximum number of lines.
+     * @param x The x coordinate on the display.
+     * @param y The y coordinate on the display.
+     * @param width The text field width.
+     * @param height The text field height.
+     * @param style STYLE_NONE or STYLE_SHOW_BORDER or STYLE_SHOW_SCROLLBAR
+     */
+    public TextViewer(int capacity, int x, int y, int width, int height, int style) {
+        this(null, x, y, width, height, style);
+        setCapacity(capacity);
     }
 
     /**
-     * Add a row to the end of the text field.
+     * Add a row to the end of the text field. If the capacity is reached, the first line is
+     * removed.
      * 
      * @param item The text to add.
      */
     public synchronized void add(String item) {
-        String[] newItems = new String[m_items.length + 1];
-        if (m_items.length > 0) Management.arraycopy(m_items, 0, newItems, 0, m_items.length);
-        newItems[newItems.length - 1] = item;
-        m_items = newItems;
+        if (m_count == m_items.length) {
+            if (m_capacity > 0) {
+                evict();
+            } else {
+                allocate(m_items.length << 1);
+            }
+        }
+        m_items[(m_first + m_count) % m_items.length] = item;
+        m_count++;
         state |= STATE_REVALIDATE;
-        redrawInternalAndParent();
+        if (m_follow) {
+            // the rows are scrolled up and only the new ones are painted
+            setDirty(STATE_DIRTY_UPDATE, true);
+        } else {
+            redrawInternalAndParent();
+        }
+    }
+
+    /**
+     * Replaces the ring by a new one that holds the newest lines.
+     * 
+     * @param size The size of the new ring.
+     */
+    private void allocate(int size) {
+        String[] items = new String[size];
+        String[][] rows = new String[size][];
+        int[] rowCounts = new int[size];
+        int count = m_count < size ? m_count : size;
+        // keep the newest lines
+        int skip = m_count - count;
+        for (int i = 0; i < count; i++) {
+            int index = (m_first + skip + i) % m_items.length;
+            items[i] = m_items[index];
+            rows[i] = m_rows[index];
+            rowCounts[i] = m_rowCounts[index];
+        }
+        m_items = items;
+        m_rows = rows;
+        m_rowCounts = rowCounts;
+        m_first = 0;
+        m_count = count;
+        if (skip > 0) invalidateLayout(0);
+    }
+
+    /**
+     * Removes the first line.
+     */
+    private void evict() {
+        int index = m_first;
+        if (m_laidOut > 0) {
+            int rows = m_rowCounts[index];
+            m_laidOut--;
+            m_rowCount -= rows;
+            if (m_anchorLine > 0) {
+                m_anchorLine--;
+                m_anchorRow -= rows;
+            }
+            m_scrollValue = m_scrollValue > rows ? m_scrollValue - rows : 0;
+            // the painted rows keep their content
+            m_paintedScroll = m_paintedScroll >= rows ? m_paintedScroll - rows : -1;
+        } else {
+            // counted as one row until it is laid out
+            if (m_scrollValue > 0) m_scrollValue--;
+            m_paintedScroll = -1;
+        }
+        m_items[index] = null;
+        m_rows[index] = null;
+        m_first = (index + 1) % m_items.length;
+        m_count--;
+    }
+
+    /**
+     * Returns the maximum number of lines.
+     * 
+     * @return the capacity or 0 if the number of lines is not limited
+     */
+    public int getCapacity() {
+        return m_capacity;
     }
 
     /**
@@ -111,7 +271,16 @@ public class TextViewer extends AbstractFocusComponent {
      * @return the number of lines
      */
     public int getLineCount() {
-        return m_items.length;
+        return m_count;
+    }
+
+    /**
+     * Returns the number of rows, counting the lines not laid out yet as one row.
+     * 
+     * @return the number of rows
+     */
+    private int getRowCount() {
+        return m_rowCount + m_count - m_laidOut;
     }
 
     /**
@@ -130,23 +299,100 @@ public class TextViewer extends AbstractFocusComponent {
      * @param item The text for the row.
      */
     public synchronized void insert(int line, String item) {
-        String[] newItems = new String[m_items.length + 1];
-        int count = 0;
-        int i = 0;
-        for (; i < m_items.length; i++) {
-            if (count == line) {
-                newItems[count++] = item;
+        if (line < 0) line = 0;
+        if (m_count == m_items.length) {
+            if (m_capacity > 0) {
+                evict();
+                line--;
+                if (line < 0) line = 0;
+            } else {
+                allocate(m_items.length << 1);
             }
-            newItems[count++] = m_items[i];
         }
-        if (count == i) {
-            newItems[count] = item;
+        if (line > m_count) line = m_count;
+        int size = m_items.length;
+        for (int i = m_count; i > line; i--) {
+            int to = (m_first + i) % size;
+            int from = (m_first + i - 1) % size;
+            m_items[to] = m_items[from];
+            m_rows[to] = m_rows[from];
+            m_rowCounts[to] = m_rowCounts[from];
         }
-        m_items = newItems;
+        m_items[(m_first + line) % size] = item;
+        m_count++;
+        invalidateLayout(line);
         state |= STATE_REVALIDATE;
         redrawInternalAndParent();
     }
 
+    /**
+     * Discards the layout of a line and all following lines.
+     * 
+     * @param line The first line to lay out again.
+     */
+    private void invalidateLayout(int line) {
+        if (line >= m_laidOut) return;
+        m_laidOut = line;
+        m_rowCount = 0;
+        for (int i = 0; i < line; i++) {
+            m_rowCount += m_rowCounts[(m_first + i) % m_items.length];
+        }
+        m_anchorLine = 0;
+        m_anchorRow = 0;
+    }
+
+    /**
+     * Returns whether long lines are wrapped.
+     * 
+     * @return <code>true</code> if lines are wrapped at word boundaries
+     */
+    public boolean isWordWrap() {
+        return m_wordWrap;
+    }
+
+    /**
+     * Lays out the lines added since the last call. All lines are laid out again if the text width
+     * or the font has changed.
+     * 
+     * @param g The graphics to measure the text with.
+     * @param textWidth The width available for the text.
+     */
+    private void layout(Graphics g, int textWidth) {
+        if (textWidth != m_layoutWidth || font != m_layoutFont) {
+            m_layoutWidth = textWidth;
+            m_layoutFont = font;
+            invalidateLayout(0);
+        }
+        int size = m_items.length;
+        for (int i = m_laidOut; i < m_count; i++) {
+            int index = (m_first + i) % size;
+            String[] rows = m_wordWrap ? wrap(g, m_items[index], textWidth) : null;
+            m_rows[index] = rows;
+            m_rowCounts[index] = rows != null ? rows.length : 1;
+            m_rowCount += m_rowCounts[index];
+        }
+        m_laidOut = m_count;
+    }
+
+    /**
+     * Moves the anchor to the line that contains a row.
+     * 
+     * @param row The row.
+     */
+    private void locate(int row) {
+        int size = m_items.length;
+        while (m_anchorLine > 0 && m_anchorRow > row) {
+            m_anchorLine--;
+            m_anchorRow -= m_rowCounts[(m_first + m_anchorLine) % size];
+        }
+        while (m_anchorLine < m_laidOut - 1) {
+            int rows = m_rowCounts[(m_first + m_anchorLine) % size];
+            if (m_anchorRow + rows > row) break;
+            m_anchorRow += rows;
+            m_anchorLine++;
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -256,41 +502,82 @@ public class TextViewer extends AbstractFocusComponent {
             default:
                 // draw the text
                 g.setFont(font);
-                int fontHeight = g.getFontHeight();
-                int visibleItems = (height - 4) / fontHeight;
+                int fontHeight = TextMetrics.getFontHeight(g, font);
+                // wrapped lines leave room for the scroll bar, whether it is shown or not
+                boolean hasSB = (state & STYLE_SHOW_SCROLLBAR) == STYLE_SHOW_SCROLLBAR;
+                layout(g, width - (hasSB ? SCROLL_BAR_WIDTH + 3 : 4));
+                m_visibleRows = (height - 4) / fontHeight;
+                int visibleItems = m_visibleRows;
                 int yoffset = y + 2;
-                if (visibleItems > m_items.length) {
-                    visibleItems = m_items.length;
+                if (visibleItems > m_rowCount) {
+                    visibleItems = m_rowCount;
                 } else {
                     yoffset += (((height - 4) % fontHeight) >> 1);
                 }
                 if ((state & STATE_REVALIDATE) != 0) {
-                    if (m_scrollValue > m_items.length - visibleItems) {
-                        m_scrollValue = m_items.length - visibleItems;
+                    if (m_follow || m_scrollValue > m_rowCount - visibleItems) {
+                        m_scrollValue = m_rowCount - visibleItems;
                     }
                     if (m_scrollValue < 0) {
                         m_scrollValue = 0;
                     }
                 }
-                boolean showSB = m_items.length > visibleItems
+                boolean showSB = m_rowCount > visibleItems
                         && (state & STYLE_SHOW_SCROLLBAR) == STYLE_SHOW_SCROLLBAR;
                 if ((state & STYLE_SHOW_BORDER) == STYLE_SHOW_BORDER) {
                     g.drawRect(x, y, showSB ? width - SCROLL_BAR_WIDTH + 1 : width, height);
                 }
                 {
-                    for (int c = 0; c < visibleItems; c++) {
+                    // scrolling moves the painted rows and only paints the new ones
+                    int top = yoffset;
+                    int rowWidth = width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4);
+                    int first = 0, last = visibleItems;
+                    if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE && m_paintedScroll >= 0
+                            && m_paintedRows == visibleItems && m_paintedTop == top
+                            && m_paintedScrollBar == showSB) {
+                        int d = m_scrollValue - m_paintedScroll;
+                        if (d == 0) {
+                            last = 0;
+                        } else if (d > -visibleItems && d < visibleItems
+                                && scrollArea(g, x + 2, top, rowWidth, visibleItems * fontHeight,
+                                        -d * fontHeight)) {
+                            if (d > 0) {
+                                first = visibleItems - d;
+                            } else {
+                                last = -d;
+                            }
+                        }
+                    }
+                    // the visible window starts at a row within the anchor line
+                    locate(m_scrollValue + first);
+                    int size = m_items.length;
+                    int line = m_anchorLine;
+                    int row = m_scrollValue + first - m_anchorRow;
+                    yoffset += first * fontHeight;
+                    for (int c = first; c < last; c++) {
                         int h = fontHeight;
                         if ((yoffset + h - (y + 2)) > height - 4) {
                             h = height - 4 - yoffset + (y + 1);
                         }
+                        int index = (m_first + line) % size;
+                        String[] rows = m_rows[index];
+                        String text = rows != null ? rows[row] : m_items[index];
+                        if (++row == m_rowCounts[index]) {
+                            line++;
+                            row = 0;
+                        }
                         g.clearRect(x + 2, yoffset, 1, h);
-                        int w = g.drawString(m_items[c + m_scrollValue], x + 3, yoffset, width
+                        int w = text == null ? 0 : g.drawString(text, x + 3, yoffset, width
                                 - (showSB ? SCROLL_BAR_WIDTH + 3 : 4), h, 0, 0);
                         g.clearRect(x + 2 + w, yoffset, width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4)
                                 - w, h);
                         yoffset += h;
                     }
-                    if (yoffset < y + height - 4) {
+                    m_paintedScroll = m_scrollValue;
+                    m_paintedRows = visibleItems;
+                    m_paintedTop = top;
+                    m_paintedScrollBar = showSB;
+                    if (last == visibleItems && yoffset < y + height - 4) {
                         g.clearRect(x + 2, yoffset, width - (showSB ? SCROLL_BAR_WIDTH + 3 : 4),
                                 height - 4 - yoffset);
                     }
@@ -321,7 +608,7 @@ public class TextViewer extends AbstractFocusComponent {
                     // height - 25 pixels space
                     if (height >= 25) {
                         // draw a thumb
-                        int scroll = m_scrollValue * 100 / (m_items.length - visibleItems);
+                        int scroll = m_scrollValue * 100 / (m_rowCount - visibleItems);
                         scroll = y + 9 + (height - 26) * scroll / 100;
                         g.clearRect(++xoff, y + 9, 7, scroll - (y + 9));
                         g.drawImage(new String[]{"\u81C1\uD5D5\uD5C1\uFD00"}, xoff, scroll, 7, 8,
@@ -340,33 +627,150 @@ public class TextViewer extends AbstractFocusComponent {
      * @param line The line to remove.
      */
     public synchronized void remove(int line) {
-        if (line >= 0 && line < m_items.length) {
-            String[] newItems = new String[m_items.length - 1];
-            int count = 0;
-            for (int i = 0; i < m_items.length; i++) {
-                if (i != line) {
-                    newItems[count] = m_items[i];
-                    count++;
-                }
+        if (line >= 0 && line < m_count) {
+            int size = m_items.length;
+            for (int i = line; i < m_count - 1; i++) {
+                int to = (m_first + i) % size;
+                int from = (m_first + i + 1) % size;
+                m_items[to] = m_items[from];
+                m_rows[to] = m_rows[from];
+                m_rowCounts[to] = m_rowCounts[from];
             }
-
-            m_items = newItems;
+            int last = (m_first + m_count - 1) % size;
+            m_items[last] = null;
+            m_rows[last] = null;
+            m_count--;
+            invalidateLayout(line);
             state |= STATE_REVALIDATE; // should be recomputed on paint
             redrawInternalAndParent();
         }
     }
 
     /**
-     * Sets the absolute scroll position of the text area.
+     * Removes all lines from the text field.
+     */
+    public synchronized void removeAll() {
+        for (int i = 0; i < m_items.length; i++) {
+            m_items[i] = null;
+            m_rows[i] = null;
+        }
+        m_first = 0;
+        m_count = 0;
+        m_scrollValue = 0;
+        invalidateLayout(0);
+        state |= STATE_REVALIDATE;
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Limits the number of lines. If there are more lines, the oldest ones are removed. A bounded
+     * text viewer follows the newest line as long as it is scrolled to the end.
+     * 
+     * @param capacity The maximum number of lines or 0 to let the text viewer grow.
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 0) capacity = 0;
+        m_capacity = capacity;
+        if (capacity > 0) {
+            if (capacity != m_items.length) allocate(capacity);
+            m_follow = m_scrollValue >= getRowCount() - m_visibleRows;
+        } else {
+            m_follow = false;
+        }
+        state |= STATE_REVALIDATE;
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Sets the absolute scroll position of the text area. If word wrap is enabled, the position is
+     * counted in rows.
      * 
      * @param scrollValue The new scroll position.
      */
     public void setScrollValue(int scrollValue) {
-        if (scrollValue >= 0 && scrollValue < m_items.length) {
+        int rowCount = getRowCount();
+        if (scrollValue >= 0 && scrollValue < rowCount) {
             m_scrollValue = scrollValue;
+            m_follow = m_capacity > 0 && scrollValue >= rowCount - m_visibleRows;
             state |= STATE_REVALIDATE;
-            redrawInternalAndParent();
+            // the rows are scrolled and only the new ones are painted
+            setDirty(STATE_DIRTY_UPDATE, true);
+        }
+    }
+
+    /**
+     * Enables or disables word wrap. Wrapped lines are broken at spaces; a word that is wider than
+     * the text field is broken between characters.
+     * 
+     * @param wordWrap <code>true</code> to wrap long lines
+     */
+    public synchronized void setWordWrap(boolean wordWrap) {
+        if (wordWrap == m_wordWrap) return;
+        m_wordWrap = wordWrap;
+        m_layoutWidth = -1;
+        state |= STATE_REVALIDATE;
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Breaks a line into rows that fit into the text width.
+     * 
+     * @param g The graphics to measure the text with.
+     * @param text The line.
+     * @param textWidth The width available for the text.
+     * @return The rows or <code>null</code> if the line fits into a single row.
+     */
+    private static String[] wrap(Graphics g, String text, int textWidth) {
+        if (text == null) return null;
+        int length = text.length();
+        if (length == 0 || g.getTextWidth(text) <= textWidth) return null;
+        String[] rows = new String[4];
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            if (count > 0) {
+                // continuation rows do not start with a space
+                while (start < length && text.charAt(start) == ' ') {
+                    start++;
+                }
+                if (start == length) break;
+            }
+            // take as many words as fit
+            int end = start;
+            int wordEnd = start;
+            while (wordEnd < length) {
+                int space = text.indexOf(" ", wordEnd + 1);
+                int next = space < 0 ? length : space;
+                if (g.getTextWidth(text.substring(start, next)) > textWidth) break;
+                end = wordEnd = next;
+            }
+            if (end == start) {
+                // the first word does not fit, take as many characters as fit, at least one
+                int space = text.indexOf(" ", start + 1);
+                int low = start + 1;
+                int high = space < 0 ? length : space;
+                while (low < high) {
+                    int mid = (low + high + 1) >> 1;
+                    if (g.getTextWidth(text.substring(start, mid)) <= textWidth) {
+                        low = mid;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                end = low;
+            }
+            if (count == rows.length) {
+                String[] newRows = new String[count << 1];
+                Management.arraycopy(rows, 0, newRows, 0, count);
+                rows = newRows;
+            }
+            rows[count++] = text.substring(start, end);
+            start = end;
         }
+        if (count == rows.length) return rows;
+        String[] result = new String[count];
+        Management.arraycopy(rows, 0, result, 0, count);
+        return result;
     }
 
 }
@@ -75,7 +75,7 @@ public class ToggleSwitch extends AbstractFocusComponent {
         if (e.m_key == KeyEvent.KEY_SELECT_PRESSED) {
             setSelected(!isSelected());
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -93,7 +93,7 @@ public class ToggleSwitch extends AbstractFocusComponent {
         if (e.getRotaryTouchState() == RotaryTouchEvent.STATE_SELECTED) {
             setSelected(!isSelected());
             if (listener != null)
-                onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
             return null; // we consumed that event
         } else {
             return e; // let the Container handle this KeyEvent
@@ -112,7 +112,7 @@ public class ToggleSwitch extends AbstractFocusComponent {
             if (e.type == TouchEvent.TYPE_TOUCH_PRESSED) {
                 setSelected(!isSelected());
                 if (listener != null)
-                    onActionEvent(new ActionEvent(this, ActionEvent.STATE_CHANGED, null));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.STATE_CHANGED, null));
                 return RESULT_EXECUTED;
             }
         }
@@ -22,17 +22,12 @@ import java.io.IOException;
 import jcontrol.io.Display;
 import jcontrol.io.Graphics;
 import jcontrol.io.IPointingDevice;
-import jcontrol.io.PWM;
 import jcontrol.io.Resource;
 import jcontrol.io.Touch;
-import jcontrol.lang.ThreadExt;
 import jcontrol.system.Management;
-import jcontrol.ui.viper.event.ActionEvent;
-import jcontrol.ui.viper.event.ActionListener;
 import jcontrol.ui.viper.event.IEvent;
 import jcontrol.ui.viper.event.ITouchListener;
 import jcontrol.ui.viper.event.TouchEvent;
-import jcontrol.util.Queue;
 
 /**
  * <p>
@@ -54,8 +49,21 @@ public class TouchFrame extends Component implements IFrame {
     public static Graphics graphics;
     private Container content;
     private Component outline;
-    /** time interval between key buffer reads and graphics update in millis */
-    private static final int SLEEP_INTERVAL = 50;
+
+    /** Dispatches the sampled input and collects the damaged areas. */
+    private FrameDispatcher m_dispatcher = new FrameDispatcher(25) {
+
+        @Override
+        int dispatch(IEvent event) {
+            return onEvent(TouchFrame.this, event);
+        }
+    };
+
+    /** Wakes up the worker thread when input or damage is available. */
+    private WakeupSignal m_signal = new WakeupSignal();
+
+    /** Decides when the input devices are polled. */
+    private InputScheduler m_inputScheduler = new InputScheduler();
 
     public static IPointingDevice pointingDevice;
 
@@ -215,9 +223,13 @@ public class TouchFrame extends Component implements IFrame {
             } else if (container instanceof Container) {
                 Container source = (Container) container;
                 synchronized (source.children) {
-                    int start = source.focusIndex >= 0 ? source.focusIndex : 0;
-                    for (int i = start; i < source.children.length + start; i++) {
-                        Component c = source.children[i % source.children.length];
+                    // only ask the children under the touched point and the focused one
+                    HitGrid grid = source.getHitGrid();
+                    int count = grid.find(source.children, source.focusIndex,
+                            ((TouchEvent) event).x, ((TouchEvent) event).y);
+                    for (int n = 0; n < count; n++) {
+                        int i = grid.candidates[n];
+                        Component c = source.children[i];
                         if (c != null) {
                             if ((c.state & STATE_VISIBLE) == STATE_VISIBLE
                                     && (c.state & STATE_DISPOSED) == 0) {
@@ -228,10 +240,9 @@ public class TouchFrame extends Component implements IFrame {
                                     result = onEvent((IContainer) c, event);
                                 }
                                 if (result > ITouchListener.RESULT_NONE) {
-                                    if (source.focusIndex != i % source.children.length
-                                            || (source.state & STATE_FOCUS) == 0) {
+                                    if (source.focusIndex != i || (source.state & STATE_FOCUS) == 0) {
                                         clearFocus(source);
-                                        source.focusIndex = i % source.children.length;
+                                        source.focusIndex = i;
                                         c.state |= STATE_FOCUS | STATE_DIRTY_REPAINT;
                                     }
                                     source.state |= STATE_FOCUS | STATE_DIRTY_REPAINT;
@@ -314,6 +325,60 @@ public class TouchFrame extends Component implements IFrame {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getInputScheduler()
+     */
+    public InputScheduler getInputScheduler() {
+        return m_inputScheduler;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastLatency()
+     */
+    public int getLastLatency() {
+        return m_signal.getLastLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getLastUpdateTime()
+     */
+    public long getLastUpdateTime() {
+        return m_signal.getLastUpdateTime();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#getMaxLatency()
+     */
+    public int getMaxLatency() {
+        return m_signal.getMaxLatency();
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#setPollInterval(int)
+     */
+    public void setPollInterval(int interval) {
+        m_signal.setPollInterval(interval);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.IFrame#wakeUp()
+     */
+    public void wakeUp() {
+        m_signal.signal();
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -321,6 +386,12 @@ public class TouchFrame extends Component implements IFrame {
      */
     public boolean setDirty(Object source, int x, int y, int width, int height, int state, boolean b) {
         this.state |= STATE_DIRTY_UPDATE;
+        if (b) m_signal.signal();
+        if (b && state == STATE_DIRTY_REPAINT) {
+            // collect the damaged area, it is distributed on the next update pass
+            m_dispatcher.addDamage(x, y, width, height);
+            return true;
+        }
         boolean result = false;
         if (content != null && (source == null || source != content)) {
             content.setDirty(null, x, y, width, height, state, b);
@@ -411,40 +482,38 @@ public class TouchFrame extends Component implements IFrame {
                     state &= ~TYPE_TOUCH;
                 }
             }
-            new Thread() {
+            if ((state & TYPE_TOUCH) != 0) {
+                // the sampler wakes up the worker thread on input
+                m_dispatcher.startSampling(pointingDevice, null, m_signal, m_inputScheduler);
+            }
+            eventQueue.clear();
+            m_signal.resetLatency();
+            new FrameWorker(m_inputScheduler, m_signal) {
 
                 @Override
-                public void run() {
-                    // setPriority(9);
-                    int touchType = 0;
-                    eventQueue = new Queue(2);
-                    for (; (state & STATE_VISIBLE) != 0;) {
-                        boolean worked = false;
-                        if ((state & TYPE_TOUCH) != 0) {
-                            touchType = workTouchEvents(touchType);
-                            worked |= ((state & STATE_UPDATED) != 0);
-                        }
-                        if (worked) { // update graphics after user input
-                            update(graphics);
-                            worked |= ((state & STATE_UPDATED) != 0);
-                        }
-                        worked |= workEventQueue();
-                        update(graphics); // always here
+                boolean isRunning() {
+                    return (state & STATE_VISIBLE) != 0;
+                }
+
+                @Override
+                boolean work(boolean input) {
+                    boolean worked = input;
+                    if (worked) { // update graphics after user input
+                        update(graphics);
                         worked |= ((state & STATE_UPDATED) != 0);
-                        try {
-                            if (!worked) {
-                                ThreadExt.sleep(SLEEP_INTERVAL);
-                            } else {
-                                ThreadExt.sleep(1);
-                            }
-                        } catch (InterruptedException e) {
-                        }
                     }
+                    worked |= FrameDispatcher.processEventQueue();
+                    update(graphics); // always here
+                    worked |= ((state & STATE_UPDATED) != 0);
+                    return worked;
                 }
             }.start();
         } else {
             state &= ~STATE_VISIBLE;
             pointingDevice = null;
+            m_dispatcher.stopSampling();
+            // let the worker thread terminate
+            m_signal.signal();
         }
     }
 
@@ -464,15 +533,25 @@ public class TouchFrame extends Component implements IFrame {
     @Override
     public void update(Graphics g) {
         state &= ~STATE_UPDATED;
+        RenderStatistics statistics = RenderStatistics.active;
+        long start = statistics != null ? System.currentTimeMillis() : 0;
 
         if ((state & STATE_DIRTY_MASK) != 0) {
             if (!isVisible() || (state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
                 g.clearRect(x, y, width, height);
                 state &= ~STATE_DIRTY_MASK;
                 state |= STATE_UPDATED;
-                if (!isVisible()) return;
+                if (!isVisible()) {
+                    DisplayListGraphics.flushPass(g);
+                    return;
+                }
             }
         }
+        // like a container, the frame is clean while its children are painted, so the changes made
+        // during the pass reach it and wake up the worker thread again
+        state &= ~STATE_DIRTY_MASK;
+        // mark the components that intersect the damaged areas
+        m_dispatcher.applyDamage(outline, content);
         if (outline != null) {
             outline.update(g);
             if ((outline.state & STATE_UPDATED) != 0) {
@@ -489,45 +568,10 @@ public class TouchFrame extends Component implements IFrame {
                 content.state &= ~STATE_ABORT_UPDATE;
             }
         }
-    }
-
-    private boolean workEventQueue() {
-        // work event queue
-        ActionEvent event;
-        boolean result = false;
-        for (; (event = (ActionEvent) eventQueue.pop()) != null;) {
-            ActionListener listener = event.source.getActionListener();
-            if (listener != null) {
-                listener.onActionEvent(event);
-            }
-            result = true;
-        }
-        return result;
-    }
-
-    private int workTouchEvents(int touchType) {
-        if (pointingDevice == null) return 0;
-        state &= ~STATE_UPDATED;
-        if (pointingDevice.isPressed()) {
-            int result = onEvent(this, new TouchEvent(TouchEvent.TYPE_TOUCH_PRESSED | touchType,
-                    pointingDevice.getX(), pointingDevice.getY()));
-            state |= STATE_UPDATED;
-            if (result > ITouchListener.RESULT_NONE && touchType == 0) {
-                PWM.setFrequency(result == ITouchListener.RESULT_ACCEPTED ? 1000 : 2000);
-                PWM.setDuty(3, -127);
-                PWM.setActive(3, true);
-                try {
-                    ThreadExt.sleep(25);
-                } catch (InterruptedException e) {
-                }
-                PWM.setActive(3, false);
-            }
-            return TouchEvent.TYPE_TOUCH_DRAGGED; // will be ORed on next touch event
-        } else if (touchType > TouchEvent.TYPE_TOUCH_RELEASED) {
-            state |= STATE_UPDATED;
-            onEvent(this, new TouchEvent(TouchEvent.TYPE_TOUCH_RELEASED, pointingDevice.getX(),
-                    pointingDevice.getY()));
+        if (statistics != null) {
+            statistics.endPass(this, g, start, (state & STATE_UPDATED) != 0);
         }
-        return TouchEvent.TYPE_TOUCH_RELEASED;
+        // copy the areas painted during this pass to the display
+        DisplayListGraphics.flushPass(g);
     }
-}
\ No newline at end of file
+}
@@ -17,23 +17,22 @@
  */
 package jcontrol.ui.viper;
 
-import jcontrol.io.Display;
 import jcontrol.io.Graphics;
-import jcontrol.system.Management;
 import jcontrol.ui.viper.event.ActionEvent;
 import jcontrol.ui.viper.event.KeyEvent;
 import jcontrol.ui.viper.event.RotaryTouchEvent;
 import jcontrol.ui.viper.event.TouchEvent;
 
 /**
- * Virtual keyboard using one small QWERTY area fitting on the screen.
+ * Virtual keyboard using one small QWERTY area fitting on the screen. The cursor is blinked by the
+ * <code>AnimationScheduler</code>.
  * 
  * @author Marcus Timmermann
  * @author Alexander Schade
  * @since Viper 1.0
  * @version $Revision$
  */
-public class TypeWriter extends AbstractFocusComponent {
+public class TypeWriter extends AbstractFocusComponent implements IAnimated {
 
     /* Key codes . */
     private static final int SPACE = 46;
@@ -44,6 +43,9 @@ public class TypeWriter extends AbstractFocusComponent {
     private static final int STATE_SHIFT = RESERVED1;
     private static final int STATE_CURSOR = RESERVED2;
 
+    /** The time the cursor is shown or hidden, in milliseconds. */
+    private static final int CURSOR_INTERVAL = 500;
+
     private static final int CHAR_WIDTH = 10;
     private static final int LINE_HEIGHT = 9;
     private static final int FIRST_LINE_X_OFFSET = 1;
@@ -77,9 +79,6 @@ public class TypeWriter extends AbstractFocusComponent {
             "\u0000\u0000\u0000\u0000\u0000\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u01FF\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u0101\u0101\u0001\u0101\u0101\u01FF\u0101\u0001\u0101\u0101\u0101\u0100\u0101\u0101\u0101\u0101\u0101\u0101\u0000\u0000",
             "\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0001\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0202\u0201\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000"};
 
-    /** The last time. */
-    private int lastTime = 0;
-
     /** The current character. */
     private int currChar = 0;
 
@@ -97,7 +96,6 @@ public class TypeWriter extends AbstractFocusComponent {
         y = 0;
         width = 128;
         height = 64;
-        state |= STATE_ANIMATED;
     }
 
     /**
@@ -179,7 +177,7 @@ public class TypeWriter extends AbstractFocusComponent {
                         }
                     } else if (currChar == OK) {
                         // OK
-                        onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, text));
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, text));
                     } else if (currChar == SHIFT) {
                         // SHIFT
                         if ((state & STATE_SHIFT) == 0) {
@@ -329,7 +327,7 @@ public class TypeWriter extends AbstractFocusComponent {
                         }
                     } else if (currChar == OK) {
                         // OK
-                        onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, text));
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, text));
                     } else if (currChar == SHIFT) {
                         // SHIFT
                         if ((state & STATE_SHIFT) == 0) {
@@ -501,7 +499,7 @@ public class TypeWriter extends AbstractFocusComponent {
             if (e.x >= 117 && e.y >= 54) {
                 // OK
                 currChar = OK;
-                onActionEvent(new ActionEvent(this, ActionEvent.VALUE_CHANGED, text));
+                onActionEvent(ActionEvent.acquire(this, ActionEvent.VALUE_CHANGED, text));
                 return RESULT_EXECUTED;
             } else if (e.x < 30 && e.y >= 54) {
                 // Shift
@@ -546,27 +544,29 @@ public class TypeWriter extends AbstractFocusComponent {
                 g.drawImage(KEYBOARD_IMAGE, FIRST_LINE_X_OFFSET, FIRST_LINE_Y_OFFSET - 1, 128, 50,
                         0, 0);
                 for (int c = 0; c < 12; c++) {
-                    ((Display) g).drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
+                    g.drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
                             .charAt(c), 3 + FIRST_LINE_X_OFFSET + CHAR_WIDTH * c,
                             FIRST_LINE_Y_OFFSET + 1);
                 }
                 for (int c = 0; c < 12; c++) {
-                    ((Display) g).drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
+                    g.drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
                             .charAt(c + 12), 2 + SECOND_LINE_X_OFFSET + CHAR_WIDTH * c,
                             SECOND_LINE_Y_OFFSET + 1);
                 }
                 for (int c = 0; c < 12; c++) {
-                    ((Display) g).drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
+                    g.drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
                             .charAt(c + 24), 3 + THIRD_LINE_X_OFFSET + CHAR_WIDTH * c,
                             THIRD_LINE_Y_OFFSET + 1);
                 }
                 for (int c = 0; c < 10; c++) {
-                    ((Display) g).drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
+                    g.drawChar(((state & STATE_SHIFT) != 0 ? LETTERS1 : LETTERS2)
                             .charAt(c + 36), 2 + FOURTH_LINE_X_OFFSET + CHAR_WIDTH * c,
                             FOURTH_LINE_Y_OFFSET + 1);
                 }
                 g.drawString("\u0018Shift", 2, 56);
                 g.drawString("OK", 118, 56);
+                // (re)starts the cursor, it is dropped while the type writer is hidden
+                AnimationScheduler.getScheduler().add(this, CURSOR_INTERVAL);
             case STATE_DIRTY_UPDATE:
                 if (lastChar > -1 && currChar != lastChar) {
                     drawRect(g, lastChar);
@@ -575,15 +575,6 @@ public class TypeWriter extends AbstractFocusComponent {
                     drawRect(g, currChar);
                     lastChar = currChar;
                 }
-                int time = Management.currentTimeMillis() & 0xffff;
-                if (time - lastTime > 500) {
-                    if ((state & STATE_CURSOR) == STATE_CURSOR) {
-                        state &= ~STATE_CURSOR;
-                    } else {
-                        state |= STATE_CURSOR;
-                    }
-                    lastTime = time;
-                }
                 int textwidth = g.getTextWidth(text);
                 if (textwidth < 122) {
                     g.drawString(text, 2, 2);
@@ -602,6 +593,16 @@ public class TypeWriter extends AbstractFocusComponent {
                     }
                 }
         }
-        state &= ~(STATE_DIRTY_PAINT_ALL & ~STATE_ANIMATED);
+        state &= ~STATE_DIRTY_PAINT_ALL;
+    }
+
+    /**
+     * Blinks the cursor.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public synchronized void tick(long now) {
+        state ^= STATE_CURSOR;
+        setDirty(STATE_DIRTY_UPDATE, true);
     }
 }
\ No newline at end of file
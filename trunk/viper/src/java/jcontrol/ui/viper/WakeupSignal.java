@@ -0,0 +1,214 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper;
+
+import jcontrol.lang.ThreadExt;
+
+/**
+ * <p>
+ * A <code>WakeupSignal</code> lets the worker thread of a frame sleep while there is nothing to
+ * do. Other threads call <code>signal()</code> when new input or damage is available, which ends
+ * the wait immediately.
+ * </p>
+ * <p>
+ * A signal raised while the worker thread is busy is remembered, so the following
+ * <code>await()</code> returns at once. Signals raised by the worker thread itself are ignored, as
+ * it processes them anyway before it waits again.
+ * </p>
+ * <p>
+ * The time of the first pending signal is kept to measure the latency between an input and the
+ * end of the update pass that painted its result. The signal keeps these measurements and the poll
+ * interval for its frame, so they survive the worker threads that are started whenever the frame
+ * is shown.
+ * </p>
+ * 
+ * @see IFrame#wakeUp()
+ * @see IFrame#getLastLatency()
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class WakeupSignal {
+
+    /** The default poll interval in milliseconds. Value: 50. */
+    public static final int DEFAULT_POLL_INTERVAL = 50;
+
+    /** Indicates whether a signal has been raised since the last wait. */
+    private boolean m_signaled;
+
+    /** The thread waiting for the signal or <code>null</code>. */
+    private Thread m_waiter;
+
+    /** The thread that consumes the signals, set on the first wait. */
+    private Thread m_owner;
+
+    /** Indicates whether the waiting thread sleeps for a limited time. */
+    private boolean m_sleeping;
+
+    /** The time of the first signal that has not been taken yet, 0 if there is none. */
+    private long m_signalTime;
+
+    /** The maximum time the worker thread sleeps while idle, 0 to wait for a signal only. */
+    private int m_pollInterval = DEFAULT_POLL_INTERVAL;
+
+    /** The latency of the last input that caused an update, in milliseconds. */
+    private int m_lastLatency;
+
+    /** The maximum latency measured since the last reset, in milliseconds. */
+    private int m_maxLatency;
+
+    /** The time the last update pass that painted anything has finished. */
+    private long m_lastUpdateTime;
+
+    /**
+     * Waits until a signal is raised. If a signal has been raised since the last wait, this method
+     * returns immediately.
+     * 
+     * @param timeout the maximum time to wait in milliseconds or 0 to wait without limit
+     * @return <code>true</code> if a signal has been raised, <code>false</code> on a timeout
+     */
+    public boolean await(int timeout) {
+        synchronized (this) {
+            m_owner = Thread.currentThread();
+            if (m_signaled) {
+                m_signaled = false;
+                return true;
+            }
+            m_waiter = m_owner;
+            if (timeout <= 0) {
+                while (!m_signaled) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                    }
+                }
+                m_signaled = false;
+                m_waiter = null;
+                return true;
+            }
+            m_sleeping = true;
+        }
+        try {
+            ThreadExt.sleep(timeout);
+        } catch (InterruptedException e) {
+        }
+        synchronized (this) {
+            boolean signaled = m_signaled;
+            m_sleeping = false;
+            m_waiter = null;
+            m_signaled = false;
+            // clear an interrupt raised after the sleep has ended
+            Thread.interrupted();
+            return signaled;
+        }
+    }
+
+    /**
+     * Returns the latency of the last input that caused an update pass to paint anything.
+     * 
+     * @return the latency in milliseconds
+     */
+    public int getLastLatency() {
+        return m_lastLatency;
+    }
+
+    /**
+     * Returns the time the last update pass that painted anything has finished.
+     * 
+     * @return the time in milliseconds
+     */
+    public long getLastUpdateTime() {
+        return m_lastUpdateTime;
+    }
+
+    /**
+     * Returns the maximum latency measured since the last call of <code>resetLatency()</code>.
+     * 
+     * @return the latency in milliseconds
+     */
+    public int getMaxLatency() {
+        return m_maxLatency;
+    }
+
+    /**
+     * Returns the maximum time the worker thread sleeps while there is nothing to do.
+     * 
+     * @return the interval in milliseconds or 0 if it waits for a signal only
+     */
+    public int getPollInterval() {
+        return m_pollInterval;
+    }
+
+    /**
+     * Records the latency of the input that caused the last update pass. Called by the worker
+     * thread after each pass.
+     * 
+     * @param updated <code>true</code> if the last update pass painted anything
+     */
+    void measureLatency(boolean updated) {
+        long signalTime = takeSignalTime();
+        if (!updated) return;
+        m_lastUpdateTime = System.currentTimeMillis();
+        if (signalTime != 0) {
+            m_lastLatency = (int) (m_lastUpdateTime - signalTime);
+            if (m_lastLatency > m_maxLatency) m_maxLatency = m_lastLatency;
+        }
+    }
+
+    /**
+     * Resets the maximum latency, e.g. when the frame becomes visible.
+     */
+    void resetLatency() {
+        m_maxLatency = 0;
+    }
+
+    /**
+     * Sets the maximum time the worker thread sleeps while there is nothing to do.
+     * 
+     * @param interval the interval in milliseconds or 0 to wait for a signal only
+     */
+    public void setPollInterval(int interval) {
+        m_pollInterval = interval < 0 ? 0 : interval;
+    }
+
+    /**
+     * Raises the signal and wakes up the waiting thread.
+     */
+    public synchronized void signal() {
+        if (m_signaled || Thread.currentThread() == m_owner) return;
+        m_signaled = true;
+        if (m_signalTime == 0) m_signalTime = System.currentTimeMillis();
+        if (m_waiter != null) {
+            if (m_sleeping) {
+                m_waiter.interrupt();
+            } else {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns the time of the first signal raised since the last call of this method.
+     * 
+     * @return the time in milliseconds or 0 if no signal has been raised
+     */
+    public synchronized long takeSignalTime() {
+        long result = m_signalTime;
+        m_signalTime = 0;
+        return result;
+    }
+}
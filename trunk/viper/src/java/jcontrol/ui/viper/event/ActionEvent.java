@@ -60,6 +60,28 @@ public class ActionEvent implements IEvent {
     /** The type of this action event. */
     public int type;
 
+    /** The pool of recycled action events. */
+    public static final EventPool POOL = new EventPool(4);
+
+    /**
+     * Returns an action event from the pool or creates a new one if the pool is empty. Events
+     * pushed to the event queue are released by the frame after the listener has been called.
+     * 
+     * @param source the source ActionProducer that generated the event.
+     * @param type the event type, such as BUTTON_PRESSED.
+     * @param command a String representing the command of this event
+     * @return the action event
+     * @see #release()
+     */
+    public static ActionEvent acquire(ActionProducer source, int type, String command) {
+        ActionEvent e = (ActionEvent) POOL.take();
+        if (e == null) return new ActionEvent(source, type, command);
+        e.source = source;
+        e.type = type;
+        e.command = command;
+        return e;
+    }
+
     /**
      * Constructs an action event.
      * 
@@ -84,4 +106,12 @@ public class ActionEvent implements IEvent {
         this.command = command;
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns this event to the pool. It must not be used afterwards.
+     */
+    public void release() {
+        source = null;
+        command = null;
+        POOL.put(this);
+    }
+}
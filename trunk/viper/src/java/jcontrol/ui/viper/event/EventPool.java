@@ -0,0 +1,106 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper.event;
+
+/**
+ * <p>
+ * A small pool of recycled event objects. The frame and the components acquire events from the
+ * pool of the respective event class and release them after they have been dispatched. Thus, no
+ * garbage is produced by events while the user drags on the touch screen or changes a value.
+ * </p>
+ * <p>
+ * <b>Note:</b> A released event may be reused at any time. Listeners must not keep a reference to
+ * an event after they have returned.
+ * </p>
+ * 
+ * @see TouchEvent#acquire(int, int, int)
+ * @see KeyEvent#acquire(int, char)
+ * @see RotaryTouchEvent#acquire(int, int, int)
+ * @see ActionEvent#acquire(ActionProducer, int, String)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class EventPool {
+
+    /** The pooled events. */
+    private IEvent[] m_events;
+
+    /** The number of pooled events. */
+    private int m_count;
+
+    /** The number of events allocated because the pool was empty. */
+    private int m_allocations;
+
+    /**
+     * Creates an event pool.
+     * 
+     * @param capacity the maximum number of events kept in the pool
+     */
+    public EventPool(int capacity) {
+        m_events = new IEvent[capacity];
+    }
+
+    /**
+     * Returns the number of events that have been allocated because the pool was empty. While the
+     * events are released properly, this number does not grow.
+     * 
+     * @return the number of allocations
+     */
+    public synchronized int getAllocationCount() {
+        return m_allocations;
+    }
+
+    /**
+     * Returns the number of events currently kept in the pool.
+     * 
+     * @return the number of free events
+     */
+    public synchronized int getSize() {
+        return m_count;
+    }
+
+    /**
+     * Returns a released event to the pool. If the pool is full or already holds the event, it is
+     * ignored.
+     * 
+     * @param event the event
+     */
+    synchronized void put(IEvent event) {
+        if (m_count == m_events.length) return;
+        for (int i = 0; i < m_count; i++) {
+            if (m_events[i] == event) return; // released twice
+        }
+        m_events[m_count++] = event;
+    }
+
+    /**
+     * Takes an event out of the pool. If the pool is empty, the allocation is counted and
+     * <code>null</code> is returned; the caller creates a new event then.
+     * 
+     * @return a recycled event or <code>null</code>
+     */
+    synchronized IEvent take() {
+        if (m_count == 0) {
+            m_allocations++;
+            return null;
+        }
+        IEvent event = m_events[--m_count];
+        m_events[m_count] = null;
+        return event;
+    }
+}
@@ -73,6 +73,26 @@ public class KeyEvent implements IEvent {
     public int m_key;
     public char m_char;
 
+    /** The pool of recycled key events. */
+    public static final EventPool POOL = new EventPool(2);
+
+    /**
+     * Returns a key event from the pool or creates a new one if the pool is empty. The event should
+     * be released after it has been dispatched.
+     * 
+     * @param key The key specified by a constant value
+     * @param c The character that was pressed
+     * @return the key event
+     * @see #release()
+     */
+    public static KeyEvent acquire(int key, char c) {
+        KeyEvent e = (KeyEvent) POOL.take();
+        if (e == null) return new KeyEvent(key, c);
+        e.m_key = key;
+        e.m_char = c;
+        return e;
+    }
+
     /**
      * Constructs a KeyEvent.
      * 
@@ -84,4 +104,10 @@ public class KeyEvent implements IEvent {
         m_char = c;
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns this event to the pool. It must not be used afterwards.
+     */
+    public void release() {
+        POOL.put(this);
+    }
+}
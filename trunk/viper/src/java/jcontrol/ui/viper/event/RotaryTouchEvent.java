@@ -62,6 +62,52 @@ public class RotaryTouchEvent implements IEvent {
     /** The rotate direction. */
     private int m_rotaryDirection = ROTATES_NONE;
 
+    /** The acceleration factor of a rotation. */
+    private int m_acceleration = 1;
+
+    /** The pool of recycled rotary touch events. */
+    public static final EventPool POOL = new EventPool(2);
+
+    /**
+     * Returns a rotary touch event from the pool or creates a new one if the pool is empty. The
+     * event should be released after it has been dispatched.
+     * 
+     * @param touchedSensorField the touched sensor field
+     * @param rotaryState the rotary state
+     * @param rotaryDirection the rotate direction
+     * @return the rotary touch event
+     * @see #release()
+     */
+    public static RotaryTouchEvent acquire(int touchedSensorField, int rotaryState,
+            int rotaryDirection) {
+        return acquire(touchedSensorField, rotaryState, rotaryDirection, 1);
+    }
+
+    /**
+     * Returns a rotary touch event with an acceleration factor from the pool or creates a new one
+     * if the pool is empty. The event should be released after it has been dispatched.
+     * 
+     * @param touchedSensorField the touched sensor field
+     * @param rotaryState the rotary state
+     * @param rotaryDirection the rotate direction
+     * @param acceleration the acceleration factor, 1 for a slow rotation
+     * @return the rotary touch event
+     * @see #release()
+     */
+    public static RotaryTouchEvent acquire(int touchedSensorField, int rotaryState,
+            int rotaryDirection, int acceleration) {
+        RotaryTouchEvent e = (RotaryTouchEvent) POOL.take();
+        if (e == null) {
+            e = new RotaryTouchEvent(touchedSensorField, rotaryState, rotaryDirection);
+        } else {
+            e.m_touchedSensorField = touchedSensorField;
+            e.m_rotaryState = rotaryState;
+            e.m_rotaryDirection = rotaryDirection;
+        }
+        e.m_acceleration = acceleration < 1 ? 1 : acceleration;
+        return e;
+    }
+
     /**
      * Creates a rotary touch event.
      * 
@@ -76,6 +122,16 @@ public class RotaryTouchEvent implements IEvent {
         m_rotaryDirection = rotaryDirection;
     }
 
+    /**
+     * Returns the acceleration factor of a rotation. Components that scroll or count on rotations
+     * may move this many steps per event; it is 1 for slow rotations and grows with the speed.
+     * 
+     * @return the acceleration factor, at least 1
+     */
+    public int getAcceleration() {
+        return m_acceleration;
+    }
+
     /**
      * Returns the rotate direction of the sensor field.
      * 
@@ -102,4 +158,11 @@ public class RotaryTouchEvent implements IEvent {
     public int getTouchedSensorField() {
         return m_touchedSensorField;
     }
+
+    /**
+     * Returns this event to the pool. It must not be used afterwards.
+     */
+    public void release() {
+        POOL.put(this);
+    }
 }
@@ -48,6 +48,28 @@ public class TouchEvent implements IEvent {
     /** The type of the last touch. */
     public int type;
 
+    /** The pool of recycled touch events. */
+    public static final EventPool POOL = new EventPool(2);
+
+    /**
+     * Returns a touch event from the pool or creates a new one if the pool is empty. The event
+     * should be released after it has been dispatched.
+     * 
+     * @param type the type
+     * @param x the x position
+     * @param y the y position
+     * @return the touch event
+     * @see #release()
+     */
+    public static TouchEvent acquire(int type, int x, int y) {
+        TouchEvent e = (TouchEvent) POOL.take();
+        if (e == null) return new TouchEvent(type, x, y);
+        e.type = type;
+        e.x = x;
+        e.y = y;
+        return e;
+    }
+
     /**
      * Creates a new touch event.
      * 
@@ -61,4 +83,10 @@ public class TouchEvent implements IEvent {
         this.type = type;
     }
 
+    /**
+     * Returns this event to the pool. It must not be used afterwards.
+     */
+    public void release() {
+        POOL.put(this);
+    }
 }
@@ -0,0 +1,559 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper.graph;
+
+import jcontrol.io.Graphics;
+import jcontrol.lang.Math;
+import jcontrol.system.Management;
+import jcontrol.ui.viper.Component;
+import jcontrol.ui.viper.TextMetrics;
+import jcontrol.util.DataProducer;
+
+/**
+ * <p>
+ * A time series chart showing several series in one frame. All series share the time axis: every
+ * call of <code>sample()</code> adds one sample to each series, and every
+ * <code>getSamplesPerColumn()</code> samples complete a pixel column. New columns are pushed in
+ * from the right side, like in a <code>Diagram</code> in streaming mode.
+ * </p>
+ * <p>
+ * Each series has its own range, which is either fixed or follows the shown samples. A series may
+ * be bound to a <code>DataProducer</code>, which is then read by <code>sample()</code>; the other
+ * series are fed by <code>setValue()</code>.
+ * </p>
+ * <p>
+ * Each series is drawn in its own style, see <code>setSeriesStyle()</code>: as solid columns from
+ * the lowest to the highest sample, dotted, in XOR mode or as markers at the last sample of each
+ * column. Like a <code>Diagram</code>, the chart may show captions for the bottom and the top
+ * value, see <code>setCaption()</code>.
+ * </p>
+ * <p>
+ * The columns of all series are stored in <code>ColumnBuffer</code> rings. New columns are drawn
+ * in one pass: the plot is shifted once, then each new column is cleared and the series are drawn
+ * into it. The whole plot is only redrawn if a range has changed.
+ * </p>
+ * 
+ * <pre>
+ *  maxvalue |  __      ___|
+ *           |_/  \    /\__|
+ *           |_____\__/____|
+ *  minvalue |_____________|
+ * </pre>
+ * 
+ * @see jcontrol.ui.viper.graph.Diagram
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class Chart extends Component {
+
+    /** Align the captions to the left side of the chart. */
+    public static final int STYLE_ALIGN_LEFT = 0;
+
+    /** Align the captions to the right side of the chart. */
+    public static final int STYLE_ALIGN_RIGHT = 2;
+
+    /** Draws a series as solid columns from the lowest to the highest sample. */
+    public static final int SERIES_SOLID = 0;
+
+    /** Draws a series as solid columns on every second pixel column only. */
+    public static final int SERIES_DOTTED = 1;
+
+    /** Draws a series in XOR mode, so it stays visible where it crosses other series. */
+    public static final int SERIES_XOR = 2;
+
+    /** Draws a series as one pixel at the last sample of each column. */
+    public static final int SERIES_MARKER = 3;
+
+    /** The alignment of the captions. */
+    private int m_style = STYLE_ALIGN_LEFT;
+
+    /** Optional caption texts. */
+    private String m_captionMin, m_captionMax;
+
+    /** The horizontal position and the width of the plot frame, set by <code>paint()</code>. */
+    private int m_plotX, m_plotWidth;
+
+    /** The number of columns completed so far, it keeps the dots in place while scrolling. */
+    private int m_columnCount;
+
+    /** The series of the chart. */
+    private Series[] m_series = new Series[0];
+
+    /** The number of samples per column. */
+    private int m_samplesPerColumn = 1;
+
+    /** The number of columns painted last, -1 if the columns must be painted again. */
+    private int m_paintedColumns = -1;
+
+    /** A series of the chart. */
+    private static final class Series {
+
+        /** The columns. */
+        ColumnBuffer columns;
+
+        /** The bound producer or <code>null</code>. */
+        DataProducer producer;
+
+        /** The current range. */
+        int min, max;
+
+        /** The range the columns have been painted with. */
+        int paintedMin, paintedMax;
+
+        /** Indicates whether the range follows the shown samples. */
+        boolean autoscale;
+
+        /** The value added by the next sample. */
+        int value;
+
+        /** The drawing style, one of the <code>SERIES_</code> constants. */
+        int style;
+    }
+
+    /**
+     * Creates a chart without series.
+     * 
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param width the width
+     * @param height the height
+     */
+    public Chart(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        m_plotX = x;
+        m_plotWidth = width;
+    }
+
+    /**
+     * Adds a series bound to a data producer. Its range is the range of the producer.
+     * 
+     * @param producer the producer, read by <code>sample()</code>
+     * @return the index of the series
+     */
+    public synchronized int addSeries(DataProducer producer) {
+        int index = addSeries(producer.getMin(), producer.getMax());
+        m_series[index].producer = producer;
+        return index;
+    }
+
+    /**
+     * Adds a series with a fixed range.
+     * 
+     * @param min the value shown at the bottom
+     * @param max the value shown at the top
+     * @return the index of the series
+     */
+    public synchronized int addSeries(int min, int max) {
+        if (min == max) max = min + 1;
+        Series s = new Series();
+        // one column more than shown, the leftmost column is joined to it
+        s.columns = new ColumnBuffer(width - 1);
+        s.columns.setDecimation(m_samplesPerColumn);
+        s.min = min;
+        s.max = max;
+        s.value = min;
+        Series[] series = m_series;
+        Series[] newSeries = new Series[series.length + 1];
+        Management.arraycopy(series, 0, newSeries, 0, series.length);
+        newSeries[series.length] = s;
+        // the new series starts empty, the others are cleared to keep the time axis aligned
+        for (int i = 0; i < series.length; i++) {
+            series[i].columns.clear();
+        }
+        m_series = newSeries;
+        m_paintedColumns = -1;
+        setDirty(STATE_DIRTY_REPAINT, true);
+        return series.length;
+    }
+
+    /**
+     * Adapts the range of a series to its shown columns. The range is only changed if a sample is
+     * out of range or if the samples use less than a quarter of it, so it does not change with
+     * every column. The new range has a margin of an eighth of the samples' span.
+     * 
+     * @param s the series
+     * @param cols the number of shown columns
+     */
+    private static void autoscale(Series s, int cols) {
+        ColumnBuffer columns = s.columns;
+        int count = columns.getCount();
+        if (count > cols) count = cols;
+        if (count == 0) return;
+        int low = columns.getMin(0);
+        int high = columns.getMax(0);
+        for (int age = 1; age < count; age++) {
+            int v = columns.getMin(age);
+            if (v < low) low = v;
+            v = columns.getMax(age);
+            if (v > high) high = v;
+        }
+        int min = s.min < s.max ? s.min : s.max;
+        int max = s.min < s.max ? s.max : s.min;
+        if (low >= min && high <= max && (high - low) >= ((max - min) >> 2)) return;
+        int margin = (high - low) >> 3;
+        if (margin < 1) margin = 1;
+        s.min = low - margin;
+        s.max = high + margin;
+    }
+
+    /**
+     * Draws the new columns of all series. On an update, the plot is shifted by the number of new
+     * columns and only these are drawn, if the graphics can copy areas.
+     * 
+     * @param g the graphics
+     * @param update <code>true</code> if only new columns may have to be drawn
+     */
+    private void drawColumns(Graphics g, boolean update) {
+        int left = m_plotX + 1;
+        int top = y + 1;
+        int cols = m_plotWidth - 2;
+        int rows = height - 2;
+        if (cols <= 0 || rows <= 0) return;
+        Series[] series = m_series;
+        int pending = 0;
+        boolean rescaled = false;
+        for (int i = 0; i < series.length; i++) {
+            Series s = series[i];
+            int p = s.columns.takePending();
+            if (p > pending) pending = p;
+            if (s.autoscale) autoscale(s, cols);
+            if (s.min != s.paintedMin || s.max != s.paintedMax) rescaled = true;
+        }
+        int first = 0;
+        if (update && !rescaled && m_paintedColumns == cols) {
+            if (pending == 0) return;
+            if (pending < cols && scrollArea(g, left, top, cols, rows, -pending, 0)) {
+                first = cols - pending;
+            }
+        }
+        int bottom = top + rows - 1;
+        for (int c = first; c < cols; c++) {
+            int cx = left + c;
+            int age = cols - 1 - c;
+            g.clearRect(cx, top, 1, rows);
+            for (int i = 0; i < series.length; i++) {
+                Series s = series[i];
+                ColumnBuffer columns = s.columns;
+                int count = columns.getCount();
+                if (age >= count) continue;
+                int low = columns.getMin(age);
+                int high = columns.getMax(age);
+                if (age + 1 < count) {
+                    // join the last sample of the previous column
+                    int last = columns.getLast(age + 1);
+                    if (last < low) low = last;
+                    if (last > high) high = last;
+                }
+                switch (s.style) {
+                    case SERIES_MARKER:
+                        g.setPixel(cx, bottom - toRow(s, columns.getLast(age), rows - 1));
+                        break;
+                    case SERIES_XOR:
+                        g.setDrawMode(Graphics.XOR);
+                        g.drawLine(cx, bottom - toRow(s, high, rows - 1), cx,
+                                bottom - toRow(s, low, rows - 1));
+                        g.setDrawMode(Graphics.NORMAL);
+                        break;
+                    case SERIES_DOTTED:
+                        if (((m_columnCount - age) & 1) != 0) break;
+                        // |
+                        // fall trough \|/
+                        // '
+                    default:
+                        g.drawLine(cx, bottom - toRow(s, high, rows - 1), cx,
+                                bottom - toRow(s, low, rows - 1));
+                }
+            }
+        }
+        for (int i = 0; i < series.length; i++) {
+            series[i].paintedMin = series[i].min;
+            series[i].paintedMax = series[i].max;
+        }
+        m_paintedColumns = cols;
+    }
+
+    /**
+     * Returns the data producer a series is bound to.
+     * 
+     * @param series the index of the series
+     * @return the producer or <code>null</code>
+     */
+    public DataProducer getDataProducer(int series) {
+        return m_series[series].producer;
+    }
+
+    /**
+     * Returns the largest value of a series' range.
+     * 
+     * @param series the index of the series
+     * @return the value shown at the top
+     */
+    public int getMax(int series) {
+        return m_series[series].max;
+    }
+
+    /**
+     * Returns the smallest value of a series' range.
+     * 
+     * @param series the index of the series
+     * @return the value shown at the bottom
+     */
+    public int getMin(int series) {
+        return m_series[series].min;
+    }
+
+    /**
+     * Returns the number of samples per pixel column.
+     * 
+     * @return the number of samples
+     */
+    public int getSamplesPerColumn() {
+        return m_samplesPerColumn;
+    }
+
+    /**
+     * Returns the number of series.
+     * 
+     * @return the number of series
+     */
+    public int getSeriesCount() {
+        return m_series.length;
+    }
+
+    /**
+     * Returns the drawing style of a series.
+     * 
+     * @param series the index of the series
+     * @return one of the <code>SERIES_</code> constants
+     */
+    public int getSeriesStyle(int series) {
+        return m_series[series].style;
+    }
+
+    /**
+     * Indicates whether the range of a series follows its samples.
+     * 
+     * @param series the index of the series
+     * @return <code>true</code> if the series is scaled automatically
+     */
+    public boolean isAutoscale(int series) {
+        return m_series[series].autoscale;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.Component#paint(jcontrol.io.Graphics)
+     */
+    @Override
+    public synchronized void paint(Graphics g) {
+        switch ((state & STATE_DIRTY_MASK)) {
+            case STATE_DIRTY_PAINT_ALL:
+                g.clearRect(x, y, width, height);
+            case STATE_DIRTY_REPAINT:
+                g.setFont(font);
+                int fontHeight = TextMetrics.getFontHeight(g, font);
+                // determine maximum width of the caption
+                int captionWidth = 0;
+                if (m_captionMin != null) {
+                    captionWidth = TextMetrics.getTextWidth(g, font, m_captionMin);
+                }
+                if (m_captionMax != null) {
+                    int maxWidth = TextMetrics.getTextWidth(g, font, m_captionMax);
+                    if (maxWidth > captionWidth) captionWidth = maxWidth;
+                }
+                if (captionWidth > width) captionWidth = width;
+                // the plot takes the width that is left
+                m_plotWidth = captionWidth > 0 ? width - captionWidth - 1 : width;
+                if (m_plotWidth < 0) m_plotWidth = 0;
+                if ((m_style & STYLE_ALIGN_RIGHT) == STYLE_ALIGN_RIGHT) {
+                    m_plotX = x;
+                    if (fontHeight <= height) {
+                        if (m_captionMin != null)
+                            g.drawString(m_captionMin, x + m_plotWidth + 1, y + height
+                                    - fontHeight + 1, captionWidth, fontHeight, 0, 0);
+                        if (m_captionMax != null)
+                            g.drawString(m_captionMax, x + m_plotWidth + 1, y, captionWidth,
+                                    fontHeight, 0, 0);
+                    }
+                } else {
+                    m_plotX = x + width - m_plotWidth;
+                    if (fontHeight <= height) {
+                        if (m_captionMin != null)
+                            g.drawString(m_captionMin, x, y + height - fontHeight + 1,
+                                    captionWidth, fontHeight, 0, 0);
+                        if (m_captionMax != null)
+                            g.drawString(m_captionMax, x, y, captionWidth, fontHeight, 0, 0);
+                    }
+                }
+                g.setFont(null);
+                g.drawRect(m_plotX, y, m_plotWidth, height);
+                // |
+                // fall trough \|/
+                // '
+            default:
+                // draw the new columns only if nothing else has changed
+                drawColumns(g, (state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE);
+        }
+        state &= ~STATE_DIRTY_MASK;
+    }
+
+    /**
+     * Adds one sample to every series. The bound data producers are updated and read, the other
+     * series add the value last set by <code>setValue()</code>. The chart is marked dirty when a
+     * column is complete.
+     */
+    public void sample() {
+        Series[] series = m_series;
+        // read the producers without holding the lock of the chart
+        for (int i = 0; i < series.length; i++) {
+            DataProducer producer = series[i].producer;
+            if (producer != null) {
+                producer.updateValue();
+                series[i].value = producer.getValue();
+            }
+        }
+        boolean dirty = false;
+        synchronized (this) {
+            series = m_series;
+            for (int i = 0; i < series.length; i++) {
+                if (series[i].columns.add(series[i].value)) dirty = true;
+            }
+            if (dirty) m_columnCount++;
+        }
+        if (dirty) setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Switches the automatic range of a series on or off. The range is adapted to the shown samples
+     * with a hysteresis, see the class description.
+     * 
+     * @param series the index of the series
+     * @param autoscale <code>true</code> to scale the series automatically
+     */
+    public synchronized void setAutoscale(int series, boolean autoscale) {
+        m_series[series].autoscale = autoscale;
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.Component#setBounds(int, int, int, int)
+     */
+    @Override
+    public synchronized void setBounds(int x, int y, int width, int height) {
+        if (this.width != width) {
+            Series[] series = m_series;
+            for (int i = 0; i < series.length; i++) {
+                series[i].columns.setCapacity(width - 1);
+            }
+        }
+        super.setBounds(x, y, width, height);
+    }
+
+    /**
+     * Sets caption texts that are displayed for the bottom and the top value beside the plot.
+     * 
+     * @param captionMin text to display at the bottom, <code>null</code> for none
+     * @param captionMax text to display at the top, <code>null</code> for none
+     * @param captionAlign <code>STYLE_ALIGN_LEFT</code> or <code>STYLE_ALIGN_RIGHT</code>
+     */
+    public synchronized void setCaption(String captionMin, String captionMax, int captionAlign) {
+        m_captionMin = captionMin != null && captionMin.equals("") ? null : captionMin;
+        m_captionMax = captionMax != null && captionMax.equals("") ? null : captionMax;
+        m_style = captionAlign;
+        // the width of the plot may change
+        m_paintedColumns = -1;
+        setDirty(STATE_DIRTY_PAINT_ALL, true);
+    }
+
+    /**
+     * Sets the range of a series and switches its automatic range off.
+     * 
+     * @param series the index of the series
+     * @param min the value shown at the bottom
+     * @param max the value shown at the top
+     */
+    public synchronized void setRange(int series, int min, int max) {
+        if (min == max) return;
+        Series s = m_series[series];
+        s.min = min;
+        s.max = max;
+        s.autoscale = false;
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Sets the number of samples per pixel column, i.e. the time scale. The shown columns are
+     * cleared.
+     * 
+     * @param samplesPerColumn the number of samples, at least 1
+     */
+    public synchronized void setSamplesPerColumn(int samplesPerColumn) {
+        if (samplesPerColumn < 1) samplesPerColumn = 1;
+        m_samplesPerColumn = samplesPerColumn;
+        Series[] series = m_series;
+        for (int i = 0; i < series.length; i++) {
+            series[i].columns.clear();
+            series[i].columns.setDecimation(samplesPerColumn);
+        }
+        m_paintedColumns = -1;
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Sets the drawing style of a series.
+     * 
+     * @param series the index of the series
+     * @param style <code>SERIES_SOLID</code>, <code>SERIES_DOTTED</code>,
+     *        <code>SERIES_XOR</code> or <code>SERIES_MARKER</code>
+     */
+    public synchronized void setSeriesStyle(int series, int style) {
+        m_series[series].style = style;
+        m_paintedColumns = -1;
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Sets the value a series adds with the next sample. Values of series bound to a data producer
+     * are overwritten by <code>sample()</code>.
+     * 
+     * @param series the index of the series
+     * @param value the value
+     */
+    public void setValue(int series, int value) {
+        m_series[series].value = value;
+    }
+
+    /**
+     * Converts a value of a series to a height in the plot area.
+     * 
+     * @param s the series
+     * @param value the value
+     * @param range the largest height
+     * @return the height, from 0 for the minimum to <code>range</code> for the maximum
+     */
+    private static int toRow(Series s, int value, int range) {
+        int row = Math.scale(range, s.max - s.min, value - s.min);
+        return row < 0 ? 0 : row > range ? range : row;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.ui.viper.graph;
+
+/**
+ * <p>
+ * Decimates a stream of samples into pixel columns. Every <code>getDecimation()</code> samples
+ * complete a column, which keeps the smallest, the largest and the last of its samples. A peak
+ * that falls between two columns is thus still drawn, however fast the samples arrive.
+ * </p>
+ * <p>
+ * The columns are stored in a ring of fixed capacity, the newest column has the age 0. The buffer
+ * counts the columns completed since <code>takePending()</code> was called last, so a plot only
+ * has to shift by that many columns and draw the new ones.
+ * </p>
+ * 
+ * @see Diagram#setStreaming(int)
+ * @see Histogram#setStreaming(int)
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class ColumnBuffer {
+
+    /** The smallest samples of the columns. */
+    private int[] m_mins;
+
+    /** The largest samples of the columns. */
+    private int[] m_maxs;
+
+    /** The last samples of the columns. */
+    private int[] m_lasts;
+
+    /** The index of the newest column. */
+    private int m_head = -1;
+
+    /** The number of stored columns. */
+    private int m_count;
+
+    /** The number of columns completed since the last call of <code>takePending()</code>. */
+    private int m_pending;
+
+    /** The number of samples per column. */
+    private int m_decimation = 1;
+
+    /** The column in progress. */
+    private int m_min, m_max, m_samples;
+
+    /**
+     * Creates a column buffer.
+     * 
+     * @param capacity the number of columns
+     */
+    public ColumnBuffer(int capacity) {
+        if (capacity < 1) capacity = 1;
+        m_mins = new int[capacity];
+        m_maxs = new int[capacity];
+        m_lasts = new int[capacity];
+    }
+
+    /**
+     * Adds a sample to the column in progress.
+     * 
+     * @param value the sample
+     * @return <code>true</code> if the sample has completed a column
+     */
+    public synchronized boolean add(int value) {
+        if (m_samples == 0) {
+            m_min = value;
+            m_max = value;
+        } else if (value < m_min) {
+            m_min = value;
+        } else if (value > m_max) {
+            m_max = value;
+        }
+        if (++m_samples < m_decimation) return false;
+        int head = m_head + 1;
+        if (head == m_mins.length) head = 0;
+        m_mins[head] = m_min;
+        m_maxs[head] = m_max;
+        m_lasts[head] = value;
+        m_head = head;
+        if (m_count < m_mins.length) m_count++;
+        if (m_pending < m_mins.length) m_pending++;
+        m_samples = 0;
+        return true;
+    }
+
+    /**
+     * Removes all columns and the column in progress.
+     */
+    public synchronized void clear() {
+        m_head = -1;
+        m_count = 0;
+        m_pending = 0;
+        m_samples = 0;
+    }
+
+    /**
+     * Returns the number of columns the buffer can store.
+     * 
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return m_mins.length;
+    }
+
+    /**
+     * Returns the number of stored columns.
+     * 
+     * @return the number of columns, up to the capacity
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * Returns the number of samples per column.
+     * 
+     * @return the decimation
+     */
+    public int getDecimation() {
+        return m_decimation;
+    }
+
+    /**
+     * Returns the last sample of a column.
+     * 
+     * @param age the age of the column, 0 for the newest one
+     * @return the sample
+     */
+    public int getLast(int age) {
+        return m_lasts[index(age)];
+    }
+
+    /**
+     * Returns the largest sample of a column.
+     * 
+     * @param age the age of the column, 0 for the newest one
+     * @return the sample
+     */
+    public int getMax(int age) {
+        return m_maxs[index(age)];
+    }
+
+    /**
+     * Returns the smallest sample of a column.
+     * 
+     * @param age the age of the column, 0 for the newest one
+     * @return the sample
+     */
+    public int getMin(int age) {
+        return m_mins[index(age)];
+    }
+
+    /**
+     * Returns the ring index of a column.
+     * 
+     * @param age the age of the column
+     * @return the index
+     */
+    private int index(int age) {
+        int index = m_head - age;
+        return index < 0 ? index + m_mins.length : index;
+    }
+
+    /**
+     * Changes the capacity. The newest columns are kept.
+     * 
+     * @param capacity the number of columns
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) capacity = 1;
+        if (capacity == m_mins.length) return;
+        int count = m_count < capacity ? m_count : capacity;
+        int[] mins = new int[capacity];
+        int[] maxs = new int[capacity];
+        int[] lasts = new int[capacity];
+        // oldest kept column first
+        for (int i = 0; i < count; i++) {
+            int index = index(count - 1 - i);
+            mins[i] = m_mins[index];
+            maxs[i] = m_maxs[index];
+            lasts[i] = m_lasts[index];
+        }
+        m_mins = mins;
+        m_maxs = maxs;
+        m_lasts = lasts;
+        m_head = count - 1;
+        m_count = count;
+        if (m_pending > capacity) m_pending = capacity;
+    }
+
+    /**
+     * Sets the number of samples per column. The column in progress is restarted.
+     * 
+     * @param decimation the number of samples, at least 1
+     */
+    public synchronized void setDecimation(int decimation) {
+        m_decimation = decimation < 1 ? 1 : decimation;
+        m_samples = 0;
+    }
+
+    /**
+     * Returns the number of columns completed since the last call and resets it.
+     * 
+     * @return the number of new columns, up to the capacity
+     */
+    public synchronized int takePending() {
+        int pending = m_pending;
+        m_pending = 0;
+        return pending;
+    }
+}
@@ -19,6 +19,7 @@ package jcontrol.ui.viper.graph;
 
 import jcontrol.io.Graphics;
 import jcontrol.lang.Math;
+import jcontrol.ui.viper.TextMetrics;
 import jcontrol.ui.viper.meter.AbstractMeter;
 
 /**
@@ -27,6 +28,10 @@ import jcontrol.ui.viper.meter.AbstractMeter;
  * New values are pushed in from the right side, older values are moved over to the left. Thus, the
  * oldest value shown is the value on the very left.
  * </p>
+ * <p>
+ * In streaming mode, see <code>setStreaming()</code>, every pixel column shows the largest of a
+ * number of samples. A new column only shifts the plot and draws the new column.
+ * </p>
  * 
  * <pre>
  *     |    X      X | maxvalue
@@ -61,6 +66,15 @@ public class Histogram extends AbstractMeter {
     private int m_displayWidth;
     private int m_displayHeight;
 
+    /** The columns of the streaming mode, <code>null</code> in block mode. */
+    private ColumnBuffer m_columns;
+
+    /** The number of columns painted last, -1 if the columns must be painted again. */
+    private int m_paintedColumns = -1;
+
+    /** The range the columns have been painted with. */
+    private int m_paintedMin, m_paintedMax;
+
     /**
      * Creates a Histogram.
      * 
@@ -115,6 +129,56 @@ public class Histogram extends AbstractMeter {
         }
     }
 
+    /**
+     * Draws a column of the streaming mode. The bar reaches the largest sample of the column.
+     * 
+     * @param g the graphics
+     * @param cx the x-coordinate of the column
+     * @param top the y-coordinate of the plot area
+     * @param rows the height of the plot area
+     * @param age the age of the column
+     */
+    private void drawColumn(Graphics g, int cx, int top, int rows, int age) {
+        ColumnBuffer columns = m_columns;
+        int bar = age < columns.getCount() ? toRow(columns.getMax(age), rows) : 0;
+        if (bar < rows) g.clearRect(cx, top, 1, rows - bar);
+        if (bar > 0) g.fillRect(cx, top + rows - bar, 1, bar);
+    }
+
+    /**
+     * Draws the columns of the streaming mode. On an update, the plot is shifted by the number of
+     * new columns and only these are drawn, if the graphics can copy areas.
+     * 
+     * @param g the graphics
+     * @param update <code>true</code> if only new columns may have to be drawn
+     */
+    private void drawColumns(Graphics g, boolean update) {
+        int xoff = (m_style & STYLE_ALIGN_RIGHT) == STYLE_ALIGN_RIGHT ? 0 : width - m_displayWidth;
+        int left = x + xoff + 1;
+        int top = y + 1;
+        int cols = m_displayWidth - 2;
+        int rows = m_displayHeight - 2;
+        if (cols <= 0 || rows <= 0 || m_min == m_max) return;
+        ColumnBuffer columns = m_columns;
+        synchronized (columns) {
+            int pending = columns.takePending();
+            int first = 0;
+            if (update && m_paintedColumns == cols && m_paintedMin == m_min
+                    && m_paintedMax == m_max) {
+                if (pending == 0) return;
+                if (pending < cols && scrollArea(g, left, top, cols, rows, -pending, 0)) {
+                    first = cols - pending;
+                }
+            }
+            for (int c = first; c < cols; c++) {
+                drawColumn(g, left + c, top, rows, cols - 1 - c);
+            }
+            m_paintedColumns = cols;
+            m_paintedMin = m_min;
+            m_paintedMax = m_max;
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -127,12 +191,15 @@ public class Histogram extends AbstractMeter {
                 g.clearRect(x, y, width, height);
             case STATE_DIRTY_REPAINT:
                 g.setFont(font);
+                int fontHeight = TextMetrics.getFontHeight(g, font);
                 // determine maximum width of the caption
                 int captionWidth = 0;
-                if (m_captionMin != null) captionWidth = g.getTextWidth(m_captionMin);
+                if (m_captionMin != null) {
+                    captionWidth = TextMetrics.getTextWidth(g, font, m_captionMin);
+                }
                 if (m_captionMax != null) {
-                    if (g.getTextWidth(m_captionMax) > captionWidth)
-                        captionWidth = g.getTextWidth(m_captionMax);
+                    int maxWidth = TextMetrics.getTextWidth(g, font, m_captionMax);
+                    if (maxWidth > captionWidth) captionWidth = maxWidth;
                 }
                 if (captionWidth > width) captionWidth = width;
                 // get internal display width
@@ -143,35 +210,40 @@ public class Histogram extends AbstractMeter {
                 // get internal display height
                 m_displayHeight = height;
                 if (labelWidth > 0) {
-                    m_displayHeight -= g.getFontHeight() + 1;
+                    m_displayHeight -= fontHeight + 1;
                     if (m_displayHeight < 0) m_displayHeight = 0;
                 }
                 if ((m_style & STYLE_ALIGN_RIGHT) == STYLE_ALIGN_RIGHT) {
                     // draw rect, label and caption for right-aligned components
                     g.drawRect(x, y, m_displayWidth, m_displayHeight);
-                    if (g.getFontHeight() <= height) {
+                    if (fontHeight <= height) {
                         if (m_captionMin != null)
                             g.drawString(m_captionMin, x + m_displayWidth + 1, y + m_displayHeight
-                                    - g.getFontHeight() + 1, captionWidth, g.getFontHeight(), 0, 0);
+                                    - fontHeight + 1, captionWidth, fontHeight, 0, 0);
                         if (m_captionMax != null)
-                            g.drawString(m_captionMax, x + m_displayWidth + 1, y, captionWidth, g
-                                    .getFontHeight(), 0, 0);
+                            g.drawString(m_captionMax, x + m_displayWidth + 1, y, captionWidth,
+                                    fontHeight, 0, 0);
                     }
                 } else {
                     // draw rect, label and caption for left-aligned components
                     g.drawRect(x + width - m_displayWidth, y, m_displayWidth, m_displayHeight);
-                    if (g.getFontHeight() <= height) {
+                    if (fontHeight <= height) {
                         if (m_captionMin != null)
-                            g.drawString(m_captionMin, x, y + m_displayHeight - g.getFontHeight()
-                                    + 1, captionWidth, g.getFontHeight(), 0, 0);
+                            g.drawString(m_captionMin, x, y + m_displayHeight - fontHeight + 1,
+                                    captionWidth, fontHeight, 0, 0);
                         if (m_captionMax != null)
-                            g.drawString(m_captionMax, x, y, captionWidth, g.getFontHeight(), 0, 0);
+                            g.drawString(m_captionMax, x, y, captionWidth, fontHeight, 0, 0);
                     }
                 }
                 g.setFont(null);
             default:
-                // draw all values of the history
-                drawValue(g);
+                if (m_columns != null) {
+                    // draw the new columns only if nothing else has changed
+                    drawColumns(g, (state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE);
+                } else {
+                    // draw all values of the history
+                    drawValue(g);
+                }
         }
         state &= ~STATE_DIRTY_MASK;
     }
@@ -200,6 +272,7 @@ public class Histogram extends AbstractMeter {
                 m_historyCounter = 0;
                 m_history = history;
             }
+            if (m_columns != null) m_columns.setCapacity(width - 2);
             this.width = width;
         }
         setDirty(STATE_DIRTY_PAINT_ALL, true);
@@ -227,6 +300,50 @@ public class Histogram extends AbstractMeter {
         redrawInternalAndParent();
     }
 
+    /**
+     * Switches the streaming mode on or off. In streaming mode, the histogram has one column per
+     * pixel, each summarizing a number of samples, and the resolution passed to the constructor is
+     * ignored. The samples added so far are discarded.
+     * 
+     * @param samplesPerColumn the number of samples per pixel column, 0 to switch back to the
+     *        block mode
+     */
+    public void setStreaming(int samplesPerColumn) {
+        synchronized (m_history) {
+            if (samplesPerColumn < 1) {
+                m_columns = null;
+            } else {
+                if (m_columns == null) m_columns = new ColumnBuffer(width - 2);
+                m_columns.clear();
+                m_columns.setDecimation(samplesPerColumn);
+            }
+            m_paintedColumns = -1;
+        }
+        setDirty(STATE_DIRTY_REPAINT, true);
+    }
+
+    /**
+     * Returns the number of samples per pixel column of the streaming mode.
+     * 
+     * @return the number of samples, 0 in block mode
+     */
+    public int getStreaming() {
+        ColumnBuffer columns = m_columns;
+        return columns != null ? columns.getDecimation() : 0;
+    }
+
+    /**
+     * Converts a value to a height in the plot area.
+     * 
+     * @param value the value
+     * @param range the largest height
+     * @return the height, from 0 for the minimum to <code>range</code> for the maximum
+     */
+    private int toRow(int value, int range) {
+        int row = Math.scale(range, m_max - m_min, value - m_min);
+        return row < 0 ? 0 : row > range ? range : row;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -234,17 +351,24 @@ public class Histogram extends AbstractMeter {
      */
     @Override
     public void setValue(int value) {
+        boolean dirty = true;
         synchronized (m_history) {
             if (value < m_min) {
                 value = m_min;
             } else if (value > m_max) {
                 value = m_max;
             }
-            m_historyCounter++;
-            m_historyCounter %= m_history.length;
-            m_history[m_historyCounter] = value;
+            ColumnBuffer columns = m_columns;
+            if (columns != null) {
+                // only a completed column has to be drawn
+                dirty = columns.add(value);
+            } else {
+                m_historyCounter++;
+                m_historyCounter %= m_history.length;
+                m_history[m_historyCounter] = value;
+            }
         }
-        setDirty(STATE_DIRTY_UPDATE, true);
+        if (dirty) setDirty(STATE_DIRTY_UPDATE, true);
     }
 
 }
\ No newline at end of file
@@ -61,9 +61,10 @@ public class BigImageMenu extends Menu {
         switch (e.m_key) {
             case KeyEvent.KEY_RIGHT_PRESSED:
             case KeyEvent.KEY_SELECT_PRESSED:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_UP_PRESSED:
@@ -86,9 +87,10 @@ public class BigImageMenu extends Menu {
     public RotaryTouchEvent onRotaryTouchEvent(RotaryTouchEvent e) {
         switch (e.getRotaryTouchState()) {
             case RotaryTouchEvent.STATE_IDLE:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_UP_PRESSED:
@@ -110,13 +112,13 @@ public class BigImageMenu extends Menu {
     @Override
     public int onTouchEvent(TouchEvent e) {
         if (e.type != TouchEvent.TYPE_TOUCH_PRESSED) return RESULT_NONE;
-        if (m_items.length > 0) {
+        if (m_items.getItemCount() > 0) {
             if (e.x >= x && e.x < x + width) {
                 if (e.y > y + 4 && e.y < y + height - 4) {
-                    if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length
+                    if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
                             && listener != null) {
-                        onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                                m_items[m_selectedIndex]));
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                                m_items.getItem(m_selectedIndex)));
                         return RESULT_EXECUTED;
                     }
                 }
@@ -131,7 +133,7 @@ public class BigImageMenu extends Menu {
                             }
                         }
                     }
-                    if (m_selectedIndex < m_items.length - 1) { // draw down-arrow
+                    if (m_selectedIndex < m_items.getItemCount() - 1) { // draw down-arrow
                         if (e.x < x + width - 4 && e.y >= y + height - 4 && e.y < y + height) {
                             // touched on down arrow
                             if (selectNextOrPrev(true)) {
@@ -164,17 +166,17 @@ public class BigImageMenu extends Menu {
         if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
             g.clearRect(x, y, width, height);
         }
-        if (m_items.length > 0) {
-            if (m_selectedIndex < 0 || m_selectedIndex >= m_items.length) {
+        if (m_items.getItemCount() > 0) {
+            if (m_selectedIndex < 0 || m_selectedIndex >= m_items.getItemCount()) {
                 m_selectedIndex = 0;
             }
             if (m_selectedIndex == 0) { // delete old up-arrow
                 g.clearRect((width - 13) >> 1, 0, 13, 4);
             }
-            if (m_selectedIndex == m_items.length - 1) { // delete old down-arrow
+            if (m_selectedIndex == m_items.getItemCount() - 1) { // delete old down-arrow
                 g.clearRect((width - 13) >> 1, height - 4, 13, 4);
             }
-            String item = m_items[m_selectedIndex]; // take active item
+            String item = m_items.getItem(m_selectedIndex); // take active item
             try {
                 Resource image = new Resource(item);
                 int iwidth = ImageUtils.getWidth(image);
@@ -188,7 +190,7 @@ public class BigImageMenu extends Menu {
             // draw right-arrow
             g.drawImage(new String[]{"\uFFFC\uF040", "\u1F07\u0100"}, x + width - 4, y
                     + (height - 13) >> 1);
-            if (m_inactives[m_selectedIndex]) {
+            if (!isEnabled(m_selectedIndex)) {
                 g.setDrawMode(jcontrol.io.Graphics.AND);
                 String[] mask = new String[]{"\u55AA\u55AA\u55AA\u55AA"};
                 for (int j = 0; j < width; j += 8) {
@@ -203,7 +205,7 @@ public class BigImageMenu extends Menu {
                 g.drawImage(new String[]{"\u0808\u1C1C\u3E3E\u7F3E\u3E1C\u1C08\u0800"}, x
                         + (width - 13) >> 1, y, 13, 4, 0, 0);
             }
-            if (m_selectedIndex < m_items.length - 1) { // draw down-arrow
+            if (m_selectedIndex < m_items.getItemCount() - 1) { // draw down-arrow
                 g.drawImage(new String[]{"\u0808\u1C1C\u3E3E\u7F3E\u3E1C\u1C08\u0800"}, x
                         + (width - 13) >> 1, y + height - 4, 13, 4, 0, 3);
             }
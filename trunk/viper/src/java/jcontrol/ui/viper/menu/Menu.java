@@ -19,6 +19,8 @@ package jcontrol.ui.viper.menu;
 
 import jcontrol.system.Management;
 import jcontrol.ui.viper.AbstractFocusComponent;
+import jcontrol.ui.viper.IItemProvider;
+import jcontrol.ui.viper.ItemList;
 
 /**
  * <p>
@@ -33,46 +35,43 @@ public abstract class Menu extends AbstractFocusComponent {
 
     protected int m_selectedIndex = -1;
     protected int m_scrollValue = 0;
-    protected String[] m_items; // list of item names
-    protected boolean[] m_inactives; // list of inactive flags
+    protected IItemProvider m_items; // the menu items
+    protected boolean[] m_inactives; // inactive flags, null if all items are active
 
     public Menu(String[] items, int x, int y, int width, int height) {
+        this(new ItemList(items), x, y, width, height);
+    }
+
+    /**
+     * Creates a menu that shows the items of a provider. Only the visible items are requested
+     * from the provider, so it may hold thousands of them.
+     * 
+     * @param items the item provider
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param width the width
+     * @param height the height
+     */
+    public Menu(IItemProvider items, int x, int y, int width, int height) {
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
-        m_items = new String[items != null ? items.length : 0];
-        m_inactives = new boolean[m_items.length];
-        if (items != null) Management.arraycopy(items, 0, m_items, 0, m_items.length);
+        m_items = items != null ? items : new ItemList();
         state |= STATE_REVALIDATE; // should be recomputed on paint
     }
 
     /**
-     * Adds a menu item to this menu. This method should be used with care. Initializing a menu with
-     * a list of menu items should always be done via the constructor instead. Adding or removing
-     * items in a menu will cause an array copy which may lead to a lot of memory consumption for a
-     * short period of time.
+     * Adds a menu item to this menu. The items are kept in an array that grows by doubling, so
+     * adding many items is cheap. Has no effect if the items are provided by another provider
+     * than an <code>ItemList</code>.
      * 
      * @param item the name of the menu item, can even specify an image name
-     * @return the index of the new menu item
+     * @return the index of the new menu item or -1 if it could not be added
      * @see #insertMenuItem(String, int)
      */
     public int addMenuItem(String item) {
-        {
-            String[] newItems = new String[m_items.length + 1];
-            if (m_items.length > 0) Management.arraycopy(m_items, 0, newItems, 0, m_items.length);
-            newItems[newItems.length - 1] = item;
-            m_items = newItems;
-        }
-        {
-            boolean[] newInactives = new boolean[m_items.length];
-            if (newInactives.length > 0)
-                Management.arraycopy(m_inactives, 0, newInactives, 0, m_inactives.length);
-            m_inactives = newInactives;
-        }
-        state |= STATE_REVALIDATE; // should be recomputed on paint
-        redrawInternalAndParent();
-        return m_items.length - 1;
+        return insertMenuItem(item, m_items.getItemCount());
     }
 
     /**
@@ -83,8 +82,9 @@ public abstract class Menu extends AbstractFocusComponent {
      * @return the index of the specified item
      */
     public int getIndex(String item) {
-        for (int i = 0; i < m_items.length; i++) {
-            if (m_items[i].equals(item)) return i;
+        if (m_items instanceof ItemList) return ((ItemList) m_items).indexOf(item);
+        for (int i = 0, count = m_items.getItemCount(); i < count; i++) {
+            if (m_items.getItem(i).equals(item)) return i;
         }
         return -1;
     }
@@ -96,7 +96,7 @@ public abstract class Menu extends AbstractFocusComponent {
      * @return the item at the specified index
      */
     public String getItem(int index) {
-        if (index >= 0 && index < m_items.length) { return m_items[index]; }
+        if (index >= 0 && index < m_items.getItemCount()) { return m_items.getItem(index); }
         return null;
     }
 
@@ -106,7 +106,16 @@ public abstract class Menu extends AbstractFocusComponent {
      * @return The numer of menu items.
      */
     public int getItemCount() {
-        return m_items.length;
+        return m_items.getItemCount();
+    }
+
+    /**
+     * Returns the provider of the menu items.
+     * 
+     * @return the item provider
+     */
+    public IItemProvider getItemProvider() {
+        return m_items;
     }
 
     /**
@@ -119,45 +128,51 @@ public abstract class Menu extends AbstractFocusComponent {
     }
 
     /**
-     * Inserts a menu item at the specified position. This method should be used with care.
-     * Initializing a menu with a list of menu items should always be done via the constructor
-     * instead. Adding or removing items in a menu will cause an array copy which may lead to a lot
-     * of memory consumption for a short period of time.
+     * Inserts a menu item at the specified position. The items behind it are shifted in place.
+     * Has no effect if the items are provided by another provider than an <code>ItemList</code>.
      * 
      * @param item the name of the menu item, can even specify an image name
      * @param index the position
-     * @return the index of the new menu item
+     * @return the index of the new menu item or -1 if it could not be inserted
      * @see #addMenuItem(String)
      */
     public int insertMenuItem(String item, int index) {
-        String[] newItems = new String[m_items.length + 1];
-        boolean[] newInactives = new boolean[m_items.length + 1];
-        int count = 0;
-        int i = 0;
-        for (; i < m_items.length; i++) {
-            if (count == index) {
-                newItems[count++] = item;
+        if (!(m_items instanceof ItemList)) return -1;
+        index = ((ItemList) m_items).insert(index, item);
+        boolean[] inactives = m_inactives;
+        if (inactives != null) {
+            if (m_items.getItemCount() > inactives.length) {
+                inactives = new boolean[inactives.length << 1];
+                Management.arraycopy(m_inactives, 0, inactives, 0, m_inactives.length);
+                m_inactives = inactives;
             }
-            newInactives[count] = m_inactives[i];
-            newItems[count++] = m_items[i];
-        }
-        if (count == i) {
-            newItems[count] = item;
-            newInactives[count] = m_inactives[i];
+            for (int i = m_items.getItemCount() - 1; i > index; i--) {
+                inactives[i] = inactives[i - 1];
+            }
+            inactives[index] = false;
         }
-        m_items = newItems;
-        m_inactives = newInactives;
         state |= STATE_REVALIDATE;
         redrawInternalAndParent();
         return index;
     }
 
     /**
-     * Removes a menu at the specified index item from this menu. This method should be used with
-     * care. Adding or removing items in a menu will cause an array copy which may lead to a lot of
-     * memory consumption for a short period of time. If a menu item should be removed temporary it
-     * should better be <i>disabled</i> using the <code>setEnabled(int, boolean)</code> method
-     * instead.
+     * Returns whether the menu item at the specified index is enabled.
+     * 
+     * @param index the index
+     * @return <code>false</code> if the menu item is disabled
+     * @see #setEnabled(int, boolean)
+     */
+    public boolean isEnabled(int index) {
+        boolean[] inactives = m_inactives;
+        return inactives == null || index >= inactives.length || !inactives[index];
+    }
+
+    /**
+     * Removes a menu at the specified index item from this menu. If a menu item should be
+     * removed temporary it should better be <i>disabled</i> using the
+     * <code>setEnabled(int, boolean)</code> method instead. Has no effect if the items are
+     * provided by another provider than an <code>ItemList</code>.
      * 
      * @param index the index to remove
      * @return boolean <code>true</code> if the item has been removed successfully,
@@ -165,24 +180,18 @@ public abstract class Menu extends AbstractFocusComponent {
      * @see #setEnabled(int, boolean)
      */
     public boolean removeMenuItem(int index) {
-        if (index >= 0 && index < m_items.length) {
-            String[] newItems = new String[m_items.length - 1];
-            boolean[] newInactives = new boolean[m_items.length - 1];
-            int count = 0;
-            for (int i = 0; i < m_items.length; i++) {
-                if (i != index) {
-                    newItems[count] = m_items[i];
-                    newInactives[count] = m_inactives[i];
-                    count++;
+        if (m_items instanceof ItemList && ((ItemList) m_items).remove(index)) {
+            boolean[] inactives = m_inactives;
+            if (inactives != null) {
+                for (int i = index; i < inactives.length - 1; i++) {
+                    inactives[i] = inactives[i + 1];
                 }
+                inactives[inactives.length - 1] = false;
             }
-
-            m_items = newItems;
-            m_inactives = newInactives;
-            if (m_selectedIndex > m_items.length - 1) {
+            if (m_selectedIndex > m_items.getItemCount() - 1) {
                 m_selectedIndex--;
             }
-            if (m_items.length == 0) {
+            if (m_items.getItemCount() == 0) {
                 m_selectedIndex = -1;
             }
             state |= STATE_REVALIDATE; // should be recomputed on paint
@@ -200,24 +209,22 @@ public abstract class Menu extends AbstractFocusComponent {
      * @return true if the selection has changed
      */
     protected boolean selectNextOrPrev(boolean updown) {
-        synchronized (m_items) {
-            if (updown) {
-                for (int i = m_selectedIndex + 1; i < m_items.length; i++) {
-                    if (!m_inactives[i]) {
-                        m_selectedIndex = i;
-                        return true;
-                    }
+        if (updown) {
+            for (int i = m_selectedIndex + 1, count = m_items.getItemCount(); i < count; i++) {
+                if (isEnabled(i)) {
+                    m_selectedIndex = i;
+                    return true;
                 }
-            } else {
-                for (int i = m_selectedIndex - 1; i >= 0; i--) {
-                    if (!m_inactives[i]) {
-                        m_selectedIndex = i;
-                        return true;
-                    }
+            }
+        } else {
+            for (int i = m_selectedIndex - 1; i >= 0; i--) {
+                if (isEnabled(i)) {
+                    m_selectedIndex = i;
+                    return true;
                 }
             }
-            return false;
         }
+        return false;
     }
 
     /**
@@ -228,8 +235,16 @@ public abstract class Menu extends AbstractFocusComponent {
      * @param enabled the new enabled state
      */
     public void setEnabled(int index, boolean enabled) {
-        if (index >= 0 && index < m_inactives.length) {
-            if (m_inactives[index] == enabled) {
+        if (index >= 0 && index < m_items.getItemCount()) {
+            if (isEnabled(index) != enabled) {
+                if (m_inactives == null || index >= m_inactives.length) {
+                    // the flags are only allocated once an item is disabled
+                    boolean[] inactives = new boolean[m_items.getItemCount()];
+                    if (m_inactives != null) {
+                        Management.arraycopy(m_inactives, 0, inactives, 0, m_inactives.length);
+                    }
+                    m_inactives = inactives;
+                }
                 m_inactives[index] = !enabled;
                 if (index == m_selectedIndex) {
                     m_selectedIndex = -1;
@@ -239,6 +254,39 @@ public abstract class Menu extends AbstractFocusComponent {
         }
     }
 
+    /**
+     * Sets the provider of the menu items. All items are enabled and none is selected.
+     * 
+     * @param items the item provider
+     */
+    public void setItemProvider(IItemProvider items) {
+        m_items = items != null ? items : new ItemList();
+        m_inactives = null;
+        m_selectedIndex = -1;
+        m_scrollValue = 0;
+        state |= STATE_REVALIDATE; // should be recomputed on paint
+        redrawInternalAndParent();
+    }
+
+    /**
+     * Replaces all menu items. The items are copied in one pass, regardless of their number. All
+     * items are enabled and none is selected.
+     * 
+     * @param items the names of the menu items
+     */
+    public void setItems(String[] items) {
+        if (m_items instanceof ItemList) {
+            ((ItemList) m_items).setItems(items);
+            m_inactives = null;
+            m_selectedIndex = -1;
+            m_scrollValue = 0;
+            state |= STATE_REVALIDATE; // should be recomputed on paint
+            redrawInternalAndParent();
+        } else {
+            setItemProvider(new ItemList(items));
+        }
+    }
+
     /**
      * Selects the item at the given zero-relative index in the receiver's list. If the item at the
      * index was already selected, it remains selected. Indices that are out of range are ignored.
@@ -248,8 +296,8 @@ public abstract class Menu extends AbstractFocusComponent {
      *         <code>false</code> otherwise
      */
     public boolean setSelection(int index) {
-        if (index >= 0 && index < m_items.length && m_selectedIndex != index) {
-            if (m_items[index] == null || m_inactives[index]) return false;
+        if (index >= 0 && index < m_items.getItemCount() && m_selectedIndex != index) {
+            if (m_items.getItem(index) == null || !isEnabled(index)) return false;
             m_selectedIndex = index;
             redrawInternalAndParent();
             return true;
@@ -68,9 +68,10 @@ public class MenuBar extends Menu {
     public KeyEvent onKeyEvent(KeyEvent e) {
         switch (e.m_key) {
             case KeyEvent.KEY_SELECT_PRESSED:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_RIGHT_PRESSED:
@@ -99,9 +100,10 @@ public class MenuBar extends Menu {
     public RotaryTouchEvent onRotaryTouchEvent(RotaryTouchEvent e) {
         switch (e.getRotaryTouchState()) {
             case KeyEvent.KEY_SELECT_PRESSED:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_RIGHT_PRESSED:
@@ -142,7 +144,7 @@ public class MenuBar extends Menu {
                     return RESULT_ACCEPTED;
                 }
             } else if (e.x >= x + width - 6) {
-                if (m_scrollValue + visibleItems - 1 < m_items.length - 1) {
+                if (m_scrollValue + visibleItems - 1 < m_items.getItemCount() - 1) {
                     m_scrollValue++;
                     selectNextOrPrev(true);
                     redrawInternalAndParent();
@@ -151,11 +153,11 @@ public class MenuBar extends Menu {
             } else {
                 int selected = (e.x - (x + 5)) / m_maxWidth;
                 if (selected < visibleItems) {
-                    if (!m_inactives[selected + m_scrollValue]) {
+                    if (isEnabled(selected + m_scrollValue)) {
                         m_selectedIndex = selected + m_scrollValue;
                         redrawInternalAndParent();
-                        onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                                m_items[m_selectedIndex]));
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                                m_items.getItem(m_selectedIndex)));
                         return RESULT_EXECUTED;
                     }
                 }
@@ -179,8 +181,8 @@ public class MenuBar extends Menu {
                 || (state & STATE_REVALIDATE) == STATE_REVALIDATE) {
             m_maxWidth = 0;
             m_fontSize = g.getFontHeight();
-            for (int i = 0; i < m_items.length; i++) {
-                int w = g.getTextWidth(m_items[i]);
+            for (int i = 0; i < m_items.getItemCount(); i++) {
+                int w = g.getTextWidth(m_items.getItem(i));
                 if (w > m_maxWidth) m_maxWidth = w;
             }
             m_maxWidth += 2; // one pixel on each side
@@ -200,8 +202,8 @@ public class MenuBar extends Menu {
         if (m_selectedIndex >= m_scrollValue + visibleItems) {
             m_scrollValue = m_selectedIndex - visibleItems + 1;
         }
-        if (m_scrollValue > m_items.length - visibleItems) {
-            m_scrollValue = m_items.length - visibleItems;
+        if (m_scrollValue > m_items.getItemCount() - visibleItems) {
+            m_scrollValue = m_items.getItemCount() - visibleItems;
         }
         if (m_scrollValue < 0) {
             m_scrollValue = 0;
@@ -216,8 +218,8 @@ public class MenuBar extends Menu {
         {
             int xpos = x + 6; // centered x pos
             for (int i = m_scrollValue; i < m_scrollValue + visibleItems; i++) {
-                if (i >= m_items.length) break;
-                int w = g.getTextWidth(m_items[i]);
+                if (i >= m_items.getItemCount()) break;
+                int w = g.getTextWidth(m_items.getItem(i));
                 if (i == m_selectedIndex) {
                     g.setDrawMode(Graphics.NORMAL);
                 } else {
@@ -225,8 +227,8 @@ public class MenuBar extends Menu {
                 }
                 g.clearRect(xpos, y + 1, m_maxWidth - 2, m_fontSize);
                 int sxpos = xpos + (((m_maxWidth - 2) - w) >> 1);
-                g.drawString(m_items[i], sxpos, y + 1, -1, height - 2, 0, 0);
-                if (m_inactives[i]) {
+                g.drawString(m_items.getItem(i), sxpos, y + 1, -1, height - 2, 0, 0);
+                if (!isEnabled(i)) {
                     g.setDrawMode(Graphics.OR);
                     String[] mask = new String[]{"\u55AA\u55AA\u55AA\u55AA"};
                     for (int j = 0; j < w; j += 8) {
@@ -249,7 +251,7 @@ public class MenuBar extends Menu {
 
             g.fillRect(xpos, y + 1, width - 4 - xpos, m_fontSize); // fill up with black
         }
-        if (m_scrollValue + visibleItems - 1 < m_items.length - 1) {
+        if (m_scrollValue + visibleItems - 1 < m_items.getItemCount() - 1) {
             // right arrow
             int space = ((height - 7) >> 1); // space between top and arrow
             g.drawImage(new String[]{"\u7763\u4100\u4163\u7700"}, x + width - 4, y + space, 4, 7,
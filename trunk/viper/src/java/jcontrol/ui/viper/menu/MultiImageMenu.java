@@ -67,9 +67,10 @@ public class MultiImageMenu extends Menu {
     public KeyEvent onKeyEvent(KeyEvent e) {
         switch (e.m_key) {
             case KeyEvent.KEY_SELECT:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_RIGHT_PRESSED:
@@ -98,9 +99,10 @@ public class MultiImageMenu extends Menu {
     public RotaryTouchEvent onRotaryTouchEvent(RotaryTouchEvent e) {
         switch (e.getRotaryTouchState()) {
             case KeyEvent.KEY_SELECT:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_RIGHT_PRESSED:
@@ -131,8 +133,8 @@ public class MultiImageMenu extends Menu {
 
         if (e.x >= x && e.x < x + width && e.y >= y && e.y < y + height) {
             int visibleItems = m_maxVisibleItems;
-            if (visibleItems < 0 || visibleItems > m_items.length) {
-                visibleItems = m_items.length;
+            if (visibleItems < 0 || visibleItems > m_items.getItemCount()) {
+                visibleItems = m_items.getItemCount();
             }
             int maxImageWidth = (width - 6) / visibleItems;
             if (e.x <= x + 3) {
@@ -143,7 +145,7 @@ public class MultiImageMenu extends Menu {
                     return RESULT_ACCEPTED;
                 }
             } else if (e.x >= x + width - 3) {
-                if (m_scrollValue + visibleItems - 1 < m_items.length - 1) {
+                if (m_scrollValue + visibleItems - 1 < m_items.getItemCount() - 1) {
                     m_scrollValue++;
                     selectNextOrPrev(true);
                     redrawInternalAndParent();
@@ -152,11 +154,11 @@ public class MultiImageMenu extends Menu {
             } else {
                 int selected = (e.x - (x + 3)) / maxImageWidth;
                 if (selected < visibleItems) {
-                    if (!m_inactives[selected + m_scrollValue]) {
+                    if (isEnabled(selected + m_scrollValue)) {
                         m_selectedIndex = selected + m_scrollValue;
                         redrawInternalAndParent();
-                        onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                                m_items[m_selectedIndex]));
+                        onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                                m_items.getItem(m_selectedIndex)));
                         return RESULT_EXECUTED;
                     }
                 }
@@ -175,10 +177,10 @@ public class MultiImageMenu extends Menu {
         if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_PAINT_ALL) {
             g.clearRect(x, y, width, height);
         }
-        if (m_items.length > 0) {
+        if (m_items.getItemCount() > 0) {
             int visibleItems = m_maxVisibleItems;
-            if (visibleItems < 0 || visibleItems > m_items.length) {
-                visibleItems = m_items.length;
+            if (visibleItems < 0 || visibleItems > m_items.getItemCount()) {
+                visibleItems = m_items.getItemCount();
             }
             // check if scroll value is valid
             if (m_selectedIndex < m_scrollValue) {
@@ -188,8 +190,8 @@ public class MultiImageMenu extends Menu {
             if (m_selectedIndex >= m_scrollValue + visibleItems) {
                 m_scrollValue = m_selectedIndex - visibleItems + 1;
             }
-            if (m_scrollValue > m_items.length - visibleItems) {
-                m_scrollValue = m_items.length - visibleItems;
+            if (m_scrollValue > m_items.getItemCount() - visibleItems) {
+                m_scrollValue = m_items.getItemCount() - visibleItems;
             }
             if (m_scrollValue < 0) {
                 m_scrollValue = 0;
@@ -199,9 +201,9 @@ public class MultiImageMenu extends Menu {
             int iWidth = maxImageWidth;
             int imageXoff;
             int iHeight;
-            for (int i = 0; i < visibleItems && i + m_scrollValue < m_items.length; i++) {
+            for (int i = 0; i < visibleItems && i + m_scrollValue < m_items.getItemCount(); i++) {
                 try {
-                    Resource image = new Resource(m_items[i + m_scrollValue]);
+                    Resource image = new Resource(m_items.getItem(i + m_scrollValue));
                     iWidth = ImageUtils.getWidth(image);
                     if (iWidth > maxImageWidth) iWidth = maxImageWidth;
                     iHeight = ImageUtils.getHeight(image);
@@ -212,11 +214,11 @@ public class MultiImageMenu extends Menu {
                     iWidth = maxImageWidth;
                     iHeight = g.getFontHeight();
                     imageXoff = ((maxImageWidth - iWidth) >> 1);
-                    g.drawString(m_items[i + m_scrollValue],
+                    g.drawString(m_items.getItem(i + m_scrollValue),
                             xoff + ((maxImageWidth - iWidth) >> 1), (height - iHeight) >> 1,
                             iWidth, -1, 0, 0);
                 }
-                if (m_inactives[i + m_scrollValue]) {
+                if (!isEnabled(i + m_scrollValue)) {
                     g.setDrawMode(Graphics.AND);
                     String[] mask = new String[]{"\u55AA\u55AA\u55AA\u55AA\u55AA\u55AA\u55AA\u55AA"};
                     for (int j = 0; j < iWidth; j += 16) {
@@ -254,7 +256,7 @@ public class MultiImageMenu extends Menu {
             } else {
                 g.clearRect(x, y + ((height - 9) >> 1), 3, 9);
             }
-            if (m_scrollValue + visibleItems - 1 < m_items.length - 1) {
+            if (m_scrollValue + visibleItems - 1 < m_items.getItemCount() - 1) {
                 // right arrow
                 g.drawImage(new String[]{"\uFF7C\u1000", "\u0100\u0000"}, x + width - 3, y
                         + ((height - 9) >> 1));
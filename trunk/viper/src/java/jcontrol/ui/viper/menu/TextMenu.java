@@ -38,6 +38,18 @@ public class TextMenu extends Menu {
     /** The font height. */
     private int m_fontHeight;
 
+    /** The scroll value of the last paint, -1 if all rows must be painted. */
+    private int m_paintedScroll = -1;
+
+    /** The selection of the last paint. */
+    private int m_paintedSelection;
+
+    /** The number of visible rows of the last paint. */
+    private int m_paintedRows;
+
+    /** The top of the first row of the last paint. */
+    private int m_paintedTop;
+
     /**
      * Creates a textMenu.
      * 
@@ -59,16 +71,17 @@ public class TextMenu extends Menu {
     public KeyEvent onKeyEvent(KeyEvent e) {
         switch (e.m_key) {
             case KeyEvent.KEY_SELECT_PRESSED:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_UP_PRESSED:
-                if (selectNextOrPrev(false)) redrawInternalAndParent();
+                if (selectNextOrPrev(false)) setDirty(STATE_DIRTY_UPDATE, true);
                 return null;
             case KeyEvent.KEY_DOWN_PRESSED:
-                if (selectNextOrPrev(true)) redrawInternalAndParent();
+                if (selectNextOrPrev(true)) setDirty(STATE_DIRTY_UPDATE, true);
                 return null;
         }
         return e;
@@ -84,16 +97,17 @@ public class TextMenu extends Menu {
     public RotaryTouchEvent onRotaryTouchEvent(RotaryTouchEvent e) {
         switch (e.getRotaryTouchState()) {
             case KeyEvent.KEY_SELECT_PRESSED:
-                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.length && listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.MENU_ACTION,
-                            m_items[m_selectedIndex]));
+                if (m_selectedIndex >= 0 && m_selectedIndex < m_items.getItemCount()
+                        && listener != null) {
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.MENU_ACTION,
+                            m_items.getItem(m_selectedIndex)));
                 }
                 return null;
             case KeyEvent.KEY_UP_PRESSED:
-                if (selectNextOrPrev(false)) redrawInternalAndParent();
+                if (selectNextOrPrev(false)) setDirty(STATE_DIRTY_UPDATE, true);
                 return null;
             case KeyEvent.KEY_DOWN_PRESSED:
-                if (selectNextOrPrev(true)) redrawInternalAndParent();
+                if (selectNextOrPrev(true)) setDirty(STATE_DIRTY_UPDATE, true);
                 return null;
         }
         return e;
@@ -111,8 +125,8 @@ public class TextMenu extends Menu {
         if (e.x >= x && e.x < x + width && e.y >= y && e.y < y + height) {
             int visibleItems = (height - 8) / m_fontHeight;
             int yoffset = y + 4;
-            if (visibleItems > m_items.length) {
-                visibleItems = m_items.length;
+            if (visibleItems > m_items.getItemCount()) {
+                visibleItems = m_items.getItemCount();
                 yoffset += (((height - 8) - visibleItems * m_fontHeight) >> 1);
             } else {
                 yoffset += (((height - 8) % m_fontHeight) >> 1);
@@ -121,7 +135,7 @@ public class TextMenu extends Menu {
             if (e.y < y + yoffset) {
                 // scroll up
                 if (selectNextOrPrev(false)) {
-                    redrawInternalAndParent();
+                    setDirty(STATE_DIRTY_UPDATE, true);
                 }
                 return RESULT_ACCEPTED;
             }
@@ -129,7 +143,7 @@ public class TextMenu extends Menu {
             if (e.y >= y + height - yoffset) {
                 // scroll up
                 if (selectNextOrPrev(true)) {
-                    redrawInternalAndParent();
+                    setDirty(STATE_DIRTY_UPDATE, true);
                 }
                 return RESULT_ACCEPTED;
             }
@@ -140,15 +154,15 @@ public class TextMenu extends Menu {
             } else {
                 selection = ((e.y - (yoffset + y)) / m_fontHeight) + m_scrollValue;
             }
-            if (!m_inactives[selection]) {
+            if (isEnabled(selection)) {
                 if (m_selectedIndex != selection) {
-                    redrawInternalAndParent();
                     m_selectedIndex = selection;
+                    setDirty(STATE_DIRTY_UPDATE, true);
                 }
 
                 if (listener != null) {
-                    onActionEvent(new ActionEvent(this, ActionEvent.ITEM_SELECTED,
-                            m_items[m_selectedIndex]));
+                    onActionEvent(ActionEvent.acquire(this, ActionEvent.ITEM_SELECTED,
+                            m_items.getItem(m_selectedIndex)));
                     return RESULT_EXECUTED;
                 }
             }
@@ -173,18 +187,18 @@ public class TextMenu extends Menu {
                 m_fontHeight = g.getFontHeight();
                 int visibleItems = (height - 8) / m_fontHeight;
                 int yoffset = y + 4;
-                if (visibleItems > m_items.length) {
-                    visibleItems = m_items.length;
+                if (visibleItems > m_items.getItemCount()) {
+                    visibleItems = m_items.getItemCount();
                     yoffset += (((height - 8) - visibleItems * m_fontHeight) >> 1);
                 } else {
                     yoffset += (((height - 8) % m_fontHeight) >> 1);
                 }
 
                 int selectionPos = visibleItems >> 1; // keep selection bar at center position
-                if (m_selectedIndex >= m_items.length) {
-                    m_selectedIndex = m_items.length - 1;
+                if (m_selectedIndex >= m_items.getItemCount()) {
+                    m_selectedIndex = m_items.getItemCount() - 1;
                 }
-                if (m_selectedIndex < 0 && m_items.length > 0) {
+                if (m_selectedIndex < 0 && m_items.getItemCount() > 0) {
                     m_selectedIndex = 0;
                 }
                 if (m_selectedIndex <= selectionPos) {
@@ -198,8 +212,8 @@ public class TextMenu extends Menu {
                 if (m_selectedIndex >= m_scrollValue + selectionPos) {
                     m_scrollValue = m_selectedIndex - selectionPos;
                 }
-                if (m_scrollValue > m_items.length - visibleItems) {
-                    m_scrollValue = m_items.length - visibleItems;
+                if (m_scrollValue > m_items.getItemCount() - visibleItems) {
+                    m_scrollValue = m_items.getItemCount() - visibleItems;
                 }
                 if (m_scrollValue < 0) {
                     m_scrollValue = 0;
@@ -214,7 +228,7 @@ public class TextMenu extends Menu {
                     } else {
                         g.clearRect(x, y, width, 4);
                     }
-                    if (m_scrollValue + visibleItems < m_items.length) {
+                    if (m_scrollValue + visibleItems < m_items.getItemCount()) {
                         // down arrow
                         g.drawImage(new String[]{"\u1818\u3C3C\u7EFF\u7E3C\u3C18\u1800"}, center, y
                                 + height - 4, 11, 4, 0, 4);
@@ -223,16 +237,43 @@ public class TextMenu extends Menu {
                     }
                 }
                 {
+                    // a selection change only paints the rows that have changed
+                    int top = yoffset;
+                    boolean update = (state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE
+                            && m_paintedScroll >= 0 && m_paintedRows == visibleItems
+                            && m_paintedTop == top;
+                    int first = 0, last = visibleItems;
+                    if (update) {
+                        int d = m_scrollValue - m_paintedScroll;
+                        if (d == 0) {
+                            last = 0;
+                        } else if (d > -visibleItems && d < visibleItems
+                                && scrollArea(g, x, top, width, visibleItems * m_fontHeight,
+                                        -d * m_fontHeight)) {
+                            // the remaining rows have been moved, paint the new ones
+                            if (d > 0) {
+                                first = visibleItems - d;
+                            } else {
+                                last = -d;
+                            }
+                        }
+                    }
                     for (int c = 0; c < visibleItems; c++) {
                         int h = m_fontHeight;
                         if ((yoffset + h - (y + 4)) > height - 8) {
                             h = height - 8 - yoffset + (y + 1);
                         }
+                        int index = c + m_scrollValue;
+                        if (update && (c < first || c >= last) && index != m_selectedIndex
+                                && index != m_paintedSelection) {
+                            yoffset += h;
+                            continue;
+                        }
                         g.clearRect(x, yoffset, 3, h);
-                        int w = g.drawString(m_items[c + m_scrollValue], x + 3, yoffset, width - 6,
-                                h, 0, 0);
+                        int w = g.drawString(m_items.getItem(index), x + 3, yoffset, width - 6, h,
+                                0, 0);
                         g.clearRect(x + 3 + w, yoffset, width - 3 - w, h);
-                        if (m_selectedIndex == c + m_scrollValue) {
+                        if (m_selectedIndex == index) {
                             if ((state & STATE_FOCUS) == 0) {
                                 drawDottedRect(g, x, yoffset, width, h);
                             } else {
@@ -241,7 +282,7 @@ public class TextMenu extends Menu {
                                 g.setDrawMode(Graphics.NORMAL);
                             }
                         }
-                        if (m_inactives[c + m_scrollValue]) {
+                        if (!isEnabled(index)) {
                             g.setDrawMode(Graphics.AND);
                             String[] mask = new String[]{"\u55AA\u55AA\u55AA\u55AA"};
                             for (int j = 0; j < w; j += 8) {
@@ -254,7 +295,11 @@ public class TextMenu extends Menu {
                         }
                         yoffset += h;
                     }
-                    if (yoffset < y + height - 8) {
+                    m_paintedScroll = m_scrollValue;
+                    m_paintedSelection = m_selectedIndex;
+                    m_paintedRows = visibleItems;
+                    m_paintedTop = top;
+                    if (!update && yoffset < y + height - 8) {
                         g.clearRect(x, yoffset, width, height - 8 - yoffset);
                     }
                 }
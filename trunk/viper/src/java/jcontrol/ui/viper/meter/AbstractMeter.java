@@ -17,12 +17,25 @@
  */
 package jcontrol.ui.viper.meter;
 
+import jcontrol.lang.Math;
+import jcontrol.ui.viper.AnimationScheduler;
 import jcontrol.ui.viper.Component;
+import jcontrol.ui.viper.IAnimated;
 import jcontrol.util.DataConsumer;
 import jcontrol.util.DataProducer;
 
 /**
+ * <p>
  * Abstract superclass for meter components.
+ * </p>
+ * <p>
+ * A meter that draws its value at a limited resolution, e.g. a bar of some pixels or a needle of
+ * some degrees, reports it by <code>getResolution()</code>. A new value is then only painted if
+ * it maps to another position than the painted value. A numeric readout is updated with every
+ * change, or at most once per <code>getReadoutInterval()</code> if the position has not changed.
+ * A readout that is held back is shown by the <code>AnimationScheduler</code> once the interval
+ * has passed.
+ * </p>
  * 
  * @author Marcus Timmermann
  * @since Viper 1.0
@@ -43,6 +56,109 @@ public abstract class AbstractMeter extends Component implements DataConsumer {
 
     protected DataProducer m_dataProducer;
 
+    /** The position of the painted value, <code>NO_POSITION</code> if unknown. */
+    private int m_paintedPosition = NO_POSITION;
+
+    /** The minimum time between two readout updates in milliseconds. */
+    private int m_readoutInterval;
+
+    /** The time the readout has been marked dirty last. */
+    private long m_readoutTime;
+
+    /** <code>true</code> if a readout update is held back. */
+    private boolean m_readoutPending;
+
+    /** Shows a held back readout once the readout interval has passed. */
+    private IAnimated m_readoutFlush = new IAnimated() {
+
+        public void tick(long now) {
+            AnimationScheduler.getScheduler().remove(this);
+            if (!m_readoutPending) return;
+            m_readoutPending = false;
+            m_readoutTime = now;
+            setDirty(STATE_DIRTY_UPDATE, true);
+        }
+    };
+
+    /** Position of a value that has not been painted. */
+    private static final int NO_POSITION = Integer.MIN_VALUE;
+
+    /**
+     * Returns the position a value is drawn at. By default, the value is mapped linearly from the
+     * range of the meter to 0..<code>getResolution()</code>. Meters that do not have a resolution
+     * return the value itself.
+     * 
+     * @param value the value
+     * @return the position, e.g. a pixel offset or an angle
+     */
+    protected int getPosition(int value) {
+        int resolution = getResolution();
+        if (resolution <= 0) return value;
+        if (m_min < m_max) return Math.scale(value - m_min, m_max - m_min, resolution);
+        if (m_min > m_max) return Math.scale(m_min - value, m_min - m_max, resolution);
+        return 0;
+    }
+
+    /**
+     * Returns the smallest change of the value that may move the drawn value by one position.
+     * 
+     * @return the quantization step in value units, 1 if every value is drawn differently
+     */
+    public int getQuantizationStep() {
+        int resolution = getResolution();
+        if (resolution <= 0) return 1;
+        int range = m_max > m_min ? m_max - m_min : m_min - m_max;
+        int step = range / resolution;
+        return step < 1 ? 1 : step;
+    }
+
+    /**
+     * Returns the minimum time between two updates of the readout that do not move the drawn
+     * value.
+     * 
+     * @return the interval in milliseconds, 0 if every change is shown
+     */
+    public int getReadoutInterval() {
+        return m_readoutInterval;
+    }
+
+    /**
+     * Returns the number of positions the value can be drawn at, minus one. By default, the meter
+     * has no resolution and every new value is painted.
+     * 
+     * @return the resolution, 0 if it is unknown or unlimited
+     */
+    protected int getResolution() {
+        return 0;
+    }
+
+    /**
+     * Indicates whether the meter shows the value as text, which changes with every value.
+     * 
+     * @return <code>true</code> if the meter has a numeric readout
+     */
+    protected boolean hasReadout() {
+        return false;
+    }
+
+    /**
+     * Sets the minimum time between two updates of the readout that do not move the drawn value.
+     * A readout update that is held back is shown once the interval has passed.
+     * 
+     * @param interval the interval in milliseconds, 0 to show every change
+     */
+    public void setReadoutInterval(int interval) {
+        m_readoutInterval = interval < 0 ? 0 : interval;
+    }
+
+    /**
+     * Records that the current value has been painted. Meters with a resolution call it from their
+     * <code>paint()</code> method.
+     */
+    protected void valuePainted() {
+        m_paintedPosition = getPosition(m_value);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -128,32 +244,53 @@ public abstract class AbstractMeter extends Component implements DataConsumer {
         if (m_digits < minLog10) m_digits = minLog10;
     }
 
-    /*
-     * (non-Javadoc)
+    /**
+     * Sets the value. The meter is only marked dirty if the value is drawn at another position
+     * than the painted one, or if the readout is due.
      * 
      * @see jcontrol.util.DataConsumer#setValue(int)
      */
     public void setValue(int value) {
-        if (value != m_value) {
-            if (m_min < m_max) {
-                if (value < m_min) {
-                    m_value = m_min;
-                } else if (value > m_max) {
-                    m_value = m_max;
-                } else {
-                    m_value = value;
-                }
-            } else {
-                if (value < m_max) {
-                    m_value = m_max;
-                } else if (value > m_min) {
-                    m_value = m_min;
-                } else {
-                    m_value = value;
+        value = clampValue(value);
+        if (value == m_value) return;
+        m_value = value;
+        int painted = m_paintedPosition;
+        if (painted != NO_POSITION && getResolution() > 0 && getPosition(value) == painted) {
+            // the drawing does not change, only the readout may
+            if (!hasReadout()) return;
+            if (m_readoutInterval > 0) {
+                long elapsed = System.currentTimeMillis() - m_readoutTime;
+                if (elapsed < m_readoutInterval) {
+                    // show the value when the interval has passed, even if no other value follows
+                    if (!m_readoutPending) {
+                        m_readoutPending = true;
+                        AnimationScheduler.getScheduler().add(m_readoutFlush,
+                                m_readoutInterval - (int) elapsed);
+                    }
+                    return;
                 }
             }
-            setDirty(STATE_DIRTY_UPDATE, true);
         }
+        m_readoutPending = false;
+        if (m_readoutInterval > 0) m_readoutTime = System.currentTimeMillis();
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Limits a value to the range of the meter.
+     * 
+     * @param value the value
+     * @return the value, or the nearest range limit if it is out of range
+     */
+    protected int clampValue(int value) {
+        if (m_min < m_max) {
+            if (value < m_min) return m_min;
+            if (value > m_max) return m_max;
+        } else {
+            if (value < m_max) return m_max;
+            if (value > m_min) return m_min;
+        }
+        return value;
     }
 
 }
@@ -21,23 +21,37 @@ import jcontrol.io.Display;
 import jcontrol.io.Graphics;
 import jcontrol.lang.Math;
 import jcontrol.system.Time;
+import jcontrol.ui.viper.AnimationScheduler;
 import jcontrol.ui.viper.Component;
+import jcontrol.ui.viper.IAnimated;
 
 /**
  * <p>
  * This class provides an analog clock for JControl.
  * </p>
+ * <p>
+ * A running clock sets itself to the time of the real-time clock, ticked by the
+ * <code>AnimationScheduler</code>. Otherwise, the application sets the time with
+ * <code>setValue()</code>.
+ * </p>
  * 
+ * @see #setRunning(boolean)
  * @author Marcus Timmermann, Wolfgang Klingauf, Gerrit Telkamp
  * @since Viper 1.0
  * @version $Revision$
  */
-public class AnalogClock extends Component {
+public class AnalogClock extends Component implements IAnimated {
 
     public static final int NONE = 0;
 
     public static final int STYLE_SHOW_SECONDS = RESERVED1;
 
+    /** Set if the clock sets itself to the time of the real-time clock. */
+    private static final int STATE_RUNNING = RESERVED2;
+
+    /** The time between two readings of the real-time clock, in milliseconds. */
+    private static final int TICK_INTERVAL = 500;
+
     private static final int MINUTE_NEEDLE = 2;
 
     private static final int HOUR_NEEDLE = 1;
@@ -170,6 +184,10 @@ public class AnalogClock extends Component {
                 int size = width < height ? width - 1 >> 1 : height - 1 >> 1;
                 int xoff = x + (width - 1 >> 1);
                 int yoff = y + (height - 1 >> 1);
+                // (re)starts the ticks, they are dropped while the clock is hidden
+                if ((state & STATE_RUNNING) != 0) {
+                    AnimationScheduler.getScheduler().add(this, TICK_INTERVAL);
+                }
                 for (int dial = 0; dial < 360; dial += 30) { // Skala malen
                     int sin = Math.sin(dial);
                     int cos = Math.cos(dial);
@@ -189,6 +207,32 @@ public class AnalogClock extends Component {
         }
     }
 
+    /**
+     * Returns whether the clock sets itself to the time of the real-time clock.
+     * 
+     * @return <code>true</code> if the clock is running
+     */
+    public boolean isRunning() {
+        return (state & STATE_RUNNING) != 0;
+    }
+
+    /**
+     * Lets the clock set itself to the time of the real-time clock, so the application needs no
+     * thread to update it. The time is read twice a second while the clock is visible.
+     * 
+     * @param running <code>true</code> to start the clock, <code>false</code> to stop it
+     */
+    public void setRunning(boolean running) {
+        if (running) {
+            state |= STATE_RUNNING;
+            setValue(new Time());
+            AnimationScheduler.getScheduler().add(this, TICK_INTERVAL);
+        } else {
+            state &= ~STATE_RUNNING;
+            AnimationScheduler.getScheduler().remove(this);
+        }
+    }
+
     /**
      * Sets a the specified time to the clock.
      * 
@@ -204,4 +248,13 @@ public class AnalogClock extends Component {
             setDirty(STATE_DIRTY_UPDATE, true);
         }
     }
+
+    /**
+     * Sets the clock to the time of the real-time clock.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public void tick(long now) {
+        setValue(new Time());
+    }
 }
\ No newline at end of file
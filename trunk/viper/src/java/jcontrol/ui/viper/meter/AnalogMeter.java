@@ -27,6 +27,11 @@ import jcontrol.lang.Math;
  * Several parameters of the analog meter such as opening angle and m_orientation are user
  * controllable.
  * </p>
+ * <p>
+ * The end points of the needle and the dial lines are computed once per layout and kept in
+ * tables, one needle entry per degree of the scale. A new value that does not move the needle by
+ * at least a degree does not cause a repaint, see <code>getQuantizationStep()</code>.
+ * </p>
  * 
  * @author Marcus Timmermann, Wolfgang Klingauf, Gerrit Telkamp
  * @since Viper 1.0
@@ -70,6 +75,18 @@ public class AnalogMeter extends AbstractMeter {
 
     private int m_anchorY;
 
+    /** The first angle of the scale. */
+    private int m_angleOffset;
+
+    /** The needle end points relative to the component, one per degree of the scale. */
+    private int[] m_needleX, m_needleY;
+
+    /** The dial lines relative to the component, four coordinates per dial. */
+    private int[] m_dialLines;
+
+    /** The radius and anchor the tables have been computed for. */
+    private int m_tableRadius = -1, m_tableAnchorX, m_tableAnchorY;
+
     /**
      * Creates a new AnalogMeter.
      * 
@@ -94,47 +111,50 @@ public class AnalogMeter extends AbstractMeter {
         m_dials = dials;
     }
 
+    /**
+     * Computes the needle and dial tables for the current radius and anchor.
+     */
+    private void computeTables() {
+        int steps = m_openAngle + 1;
+        if (m_needleX == null || m_needleX.length != steps) {
+            m_needleX = new int[steps];
+            m_needleY = new int[steps];
+        }
+        for (int i = 0; i < steps; i++) {
+            int angle = m_angleOffset + i;
+            m_needleX[i] = m_anchorX - Math.sin(angle) / 129 * 88 / 100 * m_radius / 254;
+            m_needleY[i] = m_anchorY + Math.cos(angle) / 129 * 88 / 100 * m_radius / 254;
+        }
+        int dials = m_dials > 0 ? m_dials : 0;
+        if (m_dialLines == null || m_dialLines.length != dials << 2) {
+            m_dialLines = new int[dials << 2];
+        }
+        for (int d = 0; d < dials; d++) {
+            int dial = m_angleOffset
+                    + (m_dials == 1 ? m_openAngle / 2 : (d * m_openAngle / (m_dials - 1)));
+            int sin = Math.sin(dial);
+            int cos = Math.cos(dial);
+            m_dialLines[d << 2] = m_anchorX - sin / 129 * 88 / 100 * m_radius / 254;
+            m_dialLines[(d << 2) + 1] = m_anchorY + cos / 129 * 88 / 100 * m_radius / 254;
+            m_dialLines[(d << 2) + 2] = m_anchorX - sin / 129 * m_radius / 254;
+            m_dialLines[(d << 2) + 3] = m_anchorY + cos / 129 * m_radius / 254;
+        }
+        m_tableRadius = m_radius;
+        m_tableAnchorX = m_anchorX;
+        m_tableAnchorY = m_anchorY;
+    }
+
     /**
      * Draws the AnalogMeter's pointer with the current value.
      */
     private void drawValue(Graphics g) {
-        int needleX;
-        int needleY;
-        {
-            int angle;
-            switch (m_style & ORIENTATION_MASK) {
-                case STYLE_ORIENTATION_LEFT:
-                    if (m_min < m_max) {
-                        angle = 90 + Math.scale(m_value - m_min, m_max - m_min, m_openAngle);
-                    } else if (m_min > m_max) {
-                        angle = 90 + Math.scale(m_min - m_value, m_min - m_max, m_openAngle);
-                    } else
-                        return;
-                    break;
-                case STYLE_ORIENTATION_RIGHT:
-                    if (m_min < m_max) {
-                        angle = 270 - m_openAngle
-                                + Math.scale(m_value - m_min, m_max - m_min, m_openAngle);
-                    } else if (m_min > m_max) {
-                        angle = 270 - m_openAngle
-                                + Math.scale(m_min - m_value, m_min - m_max, m_openAngle);
-                    } else
-                        return;
-                    break;
-                default:
-                    if (m_min < m_max) {
-                        angle = (180 - (m_openAngle >> 1))
-                                + Math.scale(m_value - m_min, m_max - m_min, m_openAngle);
-                    } else if (m_min > m_max) {
-                        angle = (180 - (m_openAngle >> 1))
-                                + Math.scale(m_min - m_value, m_min - m_max, m_openAngle);
-                    } else
-                        return;
-                    break;
-            }
-            needleX = x + m_anchorX - Math.sin(angle) / 129 * 88 / 100 * m_radius / 254;
-            needleY = y + m_anchorY + Math.cos(angle) / 129 * 88 / 100 * m_radius / 254;
-        }
+        if (m_min == m_max || m_needleX == null) return;
+        // the position is the needle angle relative to the start of the scale
+        int step = getPosition(m_value);
+        if (step >= m_needleX.length) step = m_needleX.length - 1;
+        int needleX = x + m_needleX[step];
+        int needleY = y + m_needleY[step];
+        valuePainted();
         if ((needleX != m_lastX) || (needleY != m_lastY)) {
             // draw new needle
             g.setDrawMode(Display.XOR);
@@ -305,15 +325,17 @@ public class AnalogMeter extends AbstractMeter {
                     }
                         break;
                 }
+                // the tables only change with the layout
+                if (m_tableRadius != m_radius || m_tableAnchorX != m_anchorX
+                        || m_tableAnchorY != m_anchorY || m_angleOffset != angleOffset) {
+                    m_angleOffset = angleOffset;
+                    computeTables();
+                }
                 // draw scale
-                for (int d = 0; d < m_dials; d++) {
-                    int dial = angleOffset
-                            + (m_dials == 1 ? m_openAngle / 2 : (d * m_openAngle / (m_dials - 1)));
-                    int sin = Math.sin(dial);
-                    int cos = Math.cos(dial);
-                    g.drawLine(x + m_anchorX - sin / 129 * 88 / 100 * m_radius / 254, y + m_anchorY
-                            + cos / 129 * 88 / 100 * m_radius / 254, x + m_anchorX - sin / 129
-                            * m_radius / 254, y + m_anchorY + cos / 129 * m_radius / 254);
+                int[] dialLines = m_dialLines;
+                for (int i = 0; i < dialLines.length; i += 4) {
+                    g.drawLine(x + dialLines[i], y + dialLines[i + 1], x + dialLines[i + 2], y
+                            + dialLines[i + 3]);
                 }
                 g.setFont(null);
             default:
@@ -323,6 +345,26 @@ public class AnalogMeter extends AbstractMeter {
         state &= ~STATE_DIRTY_MASK;
     }
 
+    /**
+     * Returns the resolution of the needle, one position per degree.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getResolution()
+     */
+    @Override
+    protected int getResolution() {
+        return m_needleX != null ? m_needleX.length - 1 : 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#hasReadout()
+     */
+    @Override
+    protected boolean hasReadout() {
+        return (m_style & STYLE_SHOW_NUMERIC_VALUE) != 0;
+    }
+
     /**
      * Sets a caption text which is displayed for the min and max values at the bottom of the analog
      * meter.
@@ -92,6 +92,7 @@ public class BarMeter extends AbstractMeter {
      * Draws the BarMeter with the current value.
      */
     private void drawValue(Graphics g) {
+        valuePainted();
         if ((m_style & STYLE_ORIENTATION_VERTICAL) == STYLE_ORIENTATION_VERTICAL) {
             // draw vertical bar meter
             int value;
@@ -186,6 +187,28 @@ public class BarMeter extends AbstractMeter {
         }
     }
 
+    /**
+     * Returns the resolution of the bar, one position per pixel.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getResolution()
+     */
+    @Override
+    protected int getResolution() {
+        int length = (m_style & STYLE_ORIENTATION_VERTICAL) == STYLE_ORIENTATION_VERTICAL
+                ? m_barHeight - 2 : m_barWidth - 2;
+        return length > 0 ? length : 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#hasReadout()
+     */
+    @Override
+    protected boolean hasReadout() {
+        return (m_style & STYLE_SHOW_NUMERIC_VALUE) != 0;
+    }
+
     /*
      * (non-Javadoc)
      * 
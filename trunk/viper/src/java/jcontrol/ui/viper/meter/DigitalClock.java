@@ -19,23 +19,42 @@ package jcontrol.ui.viper.meter;
 
 import jcontrol.io.Graphics;
 import jcontrol.system.Time;
+import jcontrol.ui.viper.AnimationScheduler;
 import jcontrol.ui.viper.Component;
+import jcontrol.ui.viper.GlyphRenderer;
+import jcontrol.ui.viper.IAnimated;
 
 /**
  * <p>
  * This class provides an digital clock for JControl.
  * </p>
+ * <p>
+ * A new time only redraws the digits that have changed, so a clock that is set every second
+ * usually draws a single digit.
+ * </p>
+ * <p>
+ * A running clock sets itself to the time of the real-time clock, ticked by the
+ * <code>AnimationScheduler</code>. Otherwise, the application sets the time with
+ * <code>setValue()</code>.
+ * </p>
  * 
+ * @see #setRunning(boolean)
  * @author Marcus Timmermann
  * @since Viper 1.0
  * @version $Revision$
  */
-public class DigitalClock extends Component {
+public class DigitalClock extends Component implements IAnimated {
 
     public static final int NONE = 0;
 
     public static final int STYLE_SHOW_SECONDS = RESERVED1;
 
+    /** Set if the clock sets itself to the time of the real-time clock. */
+    private static final int STATE_RUNNING = RESERVED2;
+
+    /** The time between two readings of the real-time clock, in milliseconds. */
+    private static final int TICK_INTERVAL = 500;
+
     private int m_hour;
 
     private int m_minute;
@@ -44,6 +63,9 @@ public class DigitalClock extends Component {
 
     private int m_maxDigitWidth;
 
+    /** The drawn digits, from the left. */
+    private GlyphRenderer m_glyphs = new GlyphRenderer(6);
+
     /**
      * Creates a clock.
      * 
@@ -59,21 +81,19 @@ public class DigitalClock extends Component {
     }
 
     /**
-     * Draws a digit.
+     * Draws a digit, unless the cell already shows it.
      * 
      * @param g
+     * @param cell The index of the cell, 0 for the leftmost one
      * @param digit The digit to draw
      * @param x The x coordinate
      * @param y The y coordinate
-     * @param width The width of a digit
-     * @param height The height of a digit
      */
-    private void drawDigit(Graphics g, String digit, int x, int y, int width, int height) {
-        // center digit, so calculate the space before and behind it
-        int padWidth = (width - g.getTextWidth(digit)) >> 1;
-        g.clearRect(x, y, padWidth, height);
-        g.clearRect(x + width - padWidth, y, padWidth, height);
-        g.drawString(digit, x + padWidth, y);
+    private void drawDigit(Graphics g, int cell, int digit, int x, int y) {
+        char c = (char) ('0' + digit);
+        if (m_glyphs.update(cell, c)) {
+            m_glyphs.drawGlyph(g, font, c, x, y, m_maxDigitWidth, height, 0, 0);
+        }
     }
 
     /*
@@ -83,60 +103,104 @@ public class DigitalClock extends Component {
      */
     @Override
     public synchronized void paint(Graphics g) {
-        switch ((state & STATE_DIRTY_MASK)) {
-            case STATE_DIRTY_PAINT_ALL:
-                g.clearRect(x, y, width, height);
-            default:
-
-                g.setFont(font);
-                if (width == 0 || height == 0 || (state & STATE_REVALIDATE) != 0) {
-                    // validate
-                    // calculate m_maxDigitWidth
-                    for (int i = 0; i < 9; i++) {
-                        int w = g.getTextWidth(String.valueOf(i));
-                        if (w > m_maxDigitWidth) m_maxDigitWidth = w;
-                    }
-                    width = 4 * m_maxDigitWidth;
-                    if ((state & STYLE_SHOW_SECONDS) != 0) {
-                        width = 6 * m_maxDigitWidth + g.getTextWidth(":") * 2;
-                    } else {
-                        width = 4 * m_maxDigitWidth + g.getTextWidth(":");
-                    }
-                    height = g.getFontHeight();
-                    state &= ~STATE_REVALIDATE;
-                }
-                int xoff = x;
-                drawDigit(g, String.valueOf(m_hour / 10), xoff, y, m_maxDigitWidth, height);
-                xoff += m_maxDigitWidth;
-                drawDigit(g, String.valueOf(m_hour % 10), xoff, y, m_maxDigitWidth, height);
-                xoff += m_maxDigitWidth;
-                xoff += g.drawString(":", xoff, y);
-
-                drawDigit(g, String.valueOf(m_minute / 10), xoff, y, m_maxDigitWidth, height);
-                xoff += m_maxDigitWidth;
-                drawDigit(g, String.valueOf(m_minute % 10), xoff, y, m_maxDigitWidth, height);
-                xoff += m_maxDigitWidth;
-
-                if ((state & STYLE_SHOW_SECONDS) != 0) {
-                    xoff += g.drawString(":", xoff, y);
-                    drawDigit(g, String.valueOf(m_second / 10), xoff, y, m_maxDigitWidth, height);
-                    xoff += m_maxDigitWidth;
-                    drawDigit(g, String.valueOf(m_second % 10), xoff, y, m_maxDigitWidth, height);
-                }
-                g.setFont(null);
-                state &= ~STATE_DIRTY_MASK;
+        int dirty = state & STATE_DIRTY_MASK;
+        if (dirty == STATE_DIRTY_PAINT_ALL) g.clearRect(x, y, width, height);
+        g.setFont(font);
+        if (width == 0 || height == 0 || (state & STATE_REVALIDATE) != 0) {
+            // validate
+            // calculate m_maxDigitWidth
+            for (int i = 0; i < 9; i++) {
+                int w = g.getTextWidth(String.valueOf(i));
+                if (w > m_maxDigitWidth) m_maxDigitWidth = w;
+            }
+            width = 4 * m_maxDigitWidth;
+            if ((state & STYLE_SHOW_SECONDS) != 0) {
+                width = 6 * m_maxDigitWidth + g.getTextWidth(":") * 2;
+            } else {
+                width = 4 * m_maxDigitWidth + g.getTextWidth(":");
+            }
+            height = g.getFontHeight();
+            state &= ~STATE_REVALIDATE;
+            dirty = STATE_DIRTY_REPAINT;
+        }
+        int colonWidth = m_glyphs.getWidth(g, font, ':');
+        boolean seconds = (state & STYLE_SHOW_SECONDS) != 0;
+        if (dirty != STATE_DIRTY_UPDATE) {
+            // draw the colons and all digits
+            m_glyphs.invalidate();
+            // (re)starts the ticks, they are dropped while the clock is hidden
+            if ((state & STATE_RUNNING) != 0) {
+                AnimationScheduler.getScheduler().add(this, TICK_INTERVAL);
+            }
+            g.drawChar(':', x + 2 * m_maxDigitWidth, y);
+            if (seconds) g.drawChar(':', x + 4 * m_maxDigitWidth + colonWidth, y);
+        }
+        int xoff = x;
+        drawDigit(g, 0, m_hour / 10, xoff, y);
+        xoff += m_maxDigitWidth;
+        drawDigit(g, 1, m_hour % 10, xoff, y);
+        xoff += m_maxDigitWidth + colonWidth;
+
+        drawDigit(g, 2, m_minute / 10, xoff, y);
+        xoff += m_maxDigitWidth;
+        drawDigit(g, 3, m_minute % 10, xoff, y);
+        xoff += m_maxDigitWidth;
+
+        if (seconds) {
+            xoff += colonWidth;
+            drawDigit(g, 4, m_second / 10, xoff, y);
+            xoff += m_maxDigitWidth;
+            drawDigit(g, 5, m_second % 10, xoff, y);
+        }
+        g.setFont(null);
+        state &= ~STATE_DIRTY_MASK;
+    }
+
+    /**
+     * Returns whether the clock sets itself to the time of the real-time clock.
+     * 
+     * @return <code>true</code> if the clock is running
+     */
+    public boolean isRunning() {
+        return (state & STATE_RUNNING) != 0;
+    }
+
+    /**
+     * Lets the clock set itself to the time of the real-time clock, so the application needs no
+     * thread to update it. The time is read twice a second while the clock is visible.
+     * 
+     * @param running <code>true</code> to start the clock, <code>false</code> to stop it
+     */
+    public void setRunning(boolean running) {
+        if (running) {
+            state |= STATE_RUNNING;
+            setValue(new Time());
+            AnimationScheduler.getScheduler().add(this, TICK_INTERVAL);
+        } else {
+            state &= ~STATE_RUNNING;
+            AnimationScheduler.getScheduler().remove(this);
         }
     }
 
     /**
-     * Sets a the specified time to the clock.
+     * Sets a the specified time to the clock. Only the digits that change are redrawn.
      * 
      * @param time the time to set
      */
     public void setValue(Time time) {
+        if (time.hour == m_hour && time.minute == m_minute && time.second == m_second) return;
         m_hour = time.hour;
         m_minute = time.minute;
         m_second = time.second;
-        redrawInternalAndParent();
+        setDirty(STATE_DIRTY_UPDATE, true);
+    }
+
+    /**
+     * Sets the clock to the time of the real-time clock.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public void tick(long now) {
+        setValue(new Time());
     }
 }
\ No newline at end of file
@@ -18,12 +18,16 @@
 package jcontrol.ui.viper.meter;
 
 import jcontrol.io.Graphics;
+import jcontrol.ui.viper.GlyphRenderer;
 
 /**
  * <p>
  * The class <code>DigitalMeter</code> draws decimal values with a specified font and a specified
  * number of digits. Several display parameters are user controllable.
  * </p>
+ * <p>
+ * A new value only redraws the digits that have changed.
+ * </p>
  * 
  * @author Marcus Timmermann, Wolfgang Klingauf, Gerrit Telkamp
  * @since Viper 1.0
@@ -33,6 +37,12 @@ public class DigitalMeter extends AbstractMeter {
 
     int m_maxDigitWidth;
 
+    /** The drawn digits, cell 0 is the rightmost one. */
+    private GlyphRenderer m_glyphs = new GlyphRenderer(8);
+
+    /** The formatted value, cell 0 is the rightmost one. */
+    private char[] m_text = new char[8];
+
     /**
      * Creates a new <code>DigitalMeter</code> at the specified x- and y-coordinates. The font used
      * for writing the current meter value can be set by using the method <code>setFont</code>. The
@@ -49,54 +59,64 @@ public class DigitalMeter extends AbstractMeter {
     }
 
     /**
-     * Draws one digit, centered at the given position
+     * Formats the value into <code>m_text</code>, right aligned with leading blanks.
      * 
-     * @param g
-     * @param digit The digit to draw
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @param width The width of a digit
-     * @param height The height of a digit
+     * @param decimals The number of decimals
      */
-    private void drawDigit(Graphics g, String digit, int x, int y, int width, int height) {
-        // center digit, so calculate the space before and behind it
-        int padWidth = (width - g.getTextWidth(digit) + 3) >> 1;
-        g.clearRect(x, y, padWidth, height);
-        g.clearRect(x + width - padWidth, y, padWidth, height);
-        g.drawString(digit, x + padWidth, y);
+    private void formatValue(int decimals) {
+        if (m_text.length < m_digits) m_text = new char[m_digits];
+        char[] text = m_text;
+        int v = m_value < 0 ? -m_value : m_value;
+        int i = 0;
+        for (; i < m_digits && ((v != 0) || i <= decimals); i++) {
+            text[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        // optionally, a minus sign
+        if ((m_value < 0) && (i < m_digits)) text[i++] = '-';
+        for (; i < m_digits; i++) {
+            text[i] = ' ';
+        }
     }
 
     /**
-     * Draws the DigitalMeter's value
+     * Draws the DigitalMeter's value, only the changed digits are redrawn.
      */
     private void drawValue(Graphics g) {
         g.setFont(font);
         int decimals = m_dataProducer != null ? -m_dataProducer.getExponent() : 0;
         int digitHeight = g.getFontHeight();
-        int xoff = x + (m_digits * m_maxDigitWidth) + (decimals > 0 ? g.getTextWidth(".") : 0);
-        int v = m_value < 0 ? -m_value : m_value;
-        int i = 0;
-        for (; i < m_digits && ((v != 0) || i <= decimals); i++) {
+        int pointWidth = decimals > 0 ? m_glyphs.getWidth(g, font, '.') : 0;
+        int xoff = x + (m_digits * m_maxDigitWidth) + pointWidth;
+        formatValue(decimals);
+        char[] text = m_text;
+        for (int i = 0; i < m_digits; i++) {
             // skip decimal point
             if ((decimals > 0) && (i == decimals)) {
-                xoff -= g.getTextWidth(".");
+                xoff -= pointWidth;
             }
-            // draw digit
-            xoff -= m_maxDigitWidth;
-            drawDigit(g, String.valueOf(v % 10), xoff, y, m_maxDigitWidth, digitHeight);
-            v /= 10;
-        }
-        // optionally, draw a minus sign
-        if ((m_value < 0) && (i < m_digits)) {
-            xoff -= m_maxDigitWidth;
-            drawDigit(g, "-", xoff, y, m_maxDigitWidth, digitHeight);
-            i++;
-        }
-        // clear digits before number
-        for (; i < m_digits; i++) {
-            // clear position
             xoff -= m_maxDigitWidth;
-            g.clearRect(xoff, y, m_maxDigitWidth, digitHeight);
+            char c = text[i];
+            char old = m_glyphs.getGlyph(i);
+            if (!m_glyphs.update(i, c)) continue;
+            // remove what the old digit drew beyond its cell
+            if ((decimals > 0) && (i == decimals)) {
+                g.drawChar('.', xoff + m_maxDigitWidth, y);
+            } else if (i > 0 && old != 0 && old != ' ') {
+                int overhang = m_glyphs.getOverhang(g, font, old, m_maxDigitWidth, 3);
+                if (overhang > 0) g.clearRect(xoff + m_maxDigitWidth, y, overhang, digitHeight);
+            }
+            if (c == ' ') {
+                // clear position
+                g.clearRect(xoff, y, m_maxDigitWidth, digitHeight);
+            } else {
+                // the digit to the left reaches into this one, unless the point is in between
+                int covered = 0;
+                if (i + 1 < m_digits && i + 1 != decimals && text[i + 1] != ' ') {
+                    covered = m_glyphs.getOverhang(g, font, text[i + 1], m_maxDigitWidth, 3);
+                }
+                m_glyphs.drawGlyph(g, font, c, xoff, y, m_maxDigitWidth, digitHeight, 3, covered);
+            }
         }
         g.setFont(null);
     }
@@ -128,6 +148,8 @@ public class DigitalMeter extends AbstractMeter {
                     width = (m_digits * m_maxDigitWidth) + (decimals > 0 ? g.getTextWidth(".") : 0);
                     height = g.getFontHeight();
                 }
+                // all digits are drawn again
+                m_glyphs.invalidate();
                 // clear the background of this metering element
                 g.clearRect(x + 1, y + 1, width - 2, height - 2);
                 // draw a decimal point when necessary
@@ -18,34 +18,53 @@
 package jcontrol.ui.viper.meter;
 
 import jcontrol.io.Graphics;
+import jcontrol.ui.viper.AnimationScheduler;
+import jcontrol.ui.viper.IAnimated;
 
 /**
  * <p>
  * This class <code>FanMeter</code> implements a simple animation representing a fan. This component
  * can be used e.g. for system monitoring applications. The animation speed depends on the current
  * value relating to the minimum and maximum ranges that have been specified for this FanMeter.
+ * The fan is turned by the <code>AnimationScheduler</code> and stands still at a value of 0.
  * </p>
  * 
+ * @see AnimationScheduler
  * @author Marcus Timmermann, Wolfgang Klingauf, Gerrit Telkamp
  * @since Viper 1.0
  * @version $Revision$
  */
-public class FanMeter extends AbstractMeter {
+public class FanMeter extends AbstractMeter implements IAnimated {
 
     public static final int NONE = 0;
 
     public static final int STYLE_SHOW_NUMERIC_VALUE = 4;
 
+    /** The number of animation speeds. */
+    private static final int SPEED_STEPS = 10;
+
+    /** The time between two frames of the fan at full speed, in milliseconds. */
+    private static final int STEP_INTERVAL = 50;
+
+    /** The two frames of the fan, 16x16 pixels each. */
+    private static final String[] FAN_IMAGE = new String[]{
+            "\uC0B0\uC8C4\uC2C2\uBDFF\uFFBD\uC2C2\uC4C8\uB0C0\uC030\u083C\u7A7A\uF1C1\uC1F1\u7A7A\u3C08\u30C0",
+            "\u030D\u1323\u4343\uBDFF\uFFBD\u4343\u2313\u0D03\u030C\u103C\u5E5E\u8F83\u838F\u5E5E\u3C10\u0C03"};
+
     /** Optional caption text */
     private String m_caption;
 
     /** Parameters for numeric display */
     private int m_lastNumericWidth;
 
-    private int m_paintcount;
-
     private int m_maxDigitWidth;
 
+    /** The value of the drawn numeric display. */
+    private int m_drawnValue;
+
+    /** Indicates whether the numeric display shows <code>m_drawnValue</code>. */
+    private boolean m_valueDrawn;
+
     /**
      * Create a FanMeter.
      * 
@@ -57,15 +76,17 @@ public class FanMeter extends AbstractMeter {
         this.x = x;
         this.y = y;
         m_style = style;
-        setDirty(STATE_ANIMATED, true);
     }
 
     /**
-     * Draws the Fan's value
+     * Draws the Fan's value. The numeric display is only drawn if the value has changed, the fan
+     * image on every call.
      */
     protected void drawValue(Graphics g) {
+        valuePainted();
         // draw value and unit of numeric display
-        if ((m_style & STYLE_SHOW_NUMERIC_VALUE) != 0) {
+        if ((m_style & STYLE_SHOW_NUMERIC_VALUE) != 0
+                && (!m_valueDrawn || m_drawnValue != m_value)) {
             String v = String.valueOf(m_value >= 0 ? m_value : -m_value);
             int decimals = m_dataProducer != null ? -m_dataProducer.getExponent() : 0;
             if (v.length() > m_digits) v = v.substring(0, m_digits);
@@ -104,15 +125,44 @@ public class FanMeter extends AbstractMeter {
                         .getFontHeight());
             g.drawString(v, x + 18, y + yoff, numericWidth, g.getFontHeight(), 0, 0);
             m_lastNumericWidth = numericWidth;
+            m_drawnValue = m_value;
+            m_valueDrawn = true;
         }
 
-        g
-                .drawImage(
-                        new String[]{
-                                "\uC0B0\uC8C4\uC2C2\uBDFF\uFFBD\uC2C2\uC4C8\uB0C0\uC030\u083C\u7A7A\uF1C1\uC1F1\u7A7A\u3C08\u30C0",
-                                "\u030D\u1323\u4343\uBDFF\uFFBD\u4343\u2313\u0D03\u030C\u103C\u5E5E\u8F83\u838F\u5E5E\u3C10\u0C03"},
-                        x, y + ((height - 16) >> 1), 16, 16, ((state & STATE_SELECTED) != 0) ? 0
-                                : 16, 0);
+        g.drawImage(FAN_IMAGE, x, y + ((height - 16) >> 1), 16, 16,
+                ((state & STATE_SELECTED) != 0) ? 0 : 16, 0);
+    }
+
+    /**
+     * Returns the speed step of a value. A stopped fan has the position -1.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getPosition(int)
+     */
+    @Override
+    protected int getPosition(int value) {
+        if (value <= 0) return -1;
+        return jcontrol.lang.Math.scale(value, m_max > m_min ? m_max - m_min : m_min - m_max,
+                SPEED_STEPS);
+    }
+
+    /**
+     * Returns the resolution of the animation speed.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getResolution()
+     */
+    @Override
+    protected int getResolution() {
+        return SPEED_STEPS;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#hasReadout()
+     */
+    @Override
+    protected boolean hasReadout() {
+        return (m_style & STYLE_SHOW_NUMERIC_VALUE) != 0;
     }
 
     /*
@@ -149,6 +199,7 @@ public class FanMeter extends AbstractMeter {
                 }
                 // default last values
                 m_lastNumericWidth = 0;
+                m_valueDrawn = false;
                 // draw caption
                 if (m_caption != null) {
                     int yoff = (height - (g.getFontHeight() << 1)) >> 1;
@@ -156,33 +207,27 @@ public class FanMeter extends AbstractMeter {
                     g.drawString(m_caption, x + 18, y + yoff, width - 18, height - yoff, 0, 0);
                 }
             default:
+                // the speed may have changed, the same period keeps the fan turning evenly
                 if (m_value > 0) {
-                    int sleep = 10 - jcontrol.lang.Math.scale(m_value, m_max > m_min ? m_max
-                            - m_min : m_min - m_max, 10);
-                    if (m_paintcount >= sleep) {
-                        m_paintcount = 0; // paint this time
-                        if ((state & STATE_SELECTED) != 0) {
-                            state &= ~STATE_SELECTED;
-                        } else {
-                            state |= STATE_SELECTED;
-                        }
-                    } else {
-                        m_paintcount++;
-                        if ((state & STATE_DIRTY_MASK) == STATE_DIRTY_UPDATE) {
-                            state &= ~STATE_UPDATED;
-                            if ((state & STATE_DIRTY_REPAINT) == 0) break;
-                        }
-                    }
+                    AnimationScheduler.getScheduler().add(this,
+                            STEP_INTERVAL * (SPEED_STEPS + 1 - getPosition(m_value)));
+                } else {
+                    AnimationScheduler.getScheduler().remove(this);
                 }
                 drawValue(g);// draw the current value
         }
         g.setFont(null);
-        if (m_value == 0) {
-            // keep the animated flag but reset the update-flag
-            state &= ~(STATE_DIRTY_PAINT_ALL & ~(STATE_ANIMATED & ~STATE_DIRTY_UPDATE));
-        } else {
-            state &= ~(STATE_DIRTY_PAINT_ALL & ~STATE_ANIMATED);
-        }
+        state &= ~STATE_DIRTY_PAINT_ALL;
+    }
+
+    /**
+     * Shows the next frame of the fan.
+     * 
+     * @param now the current time in milliseconds
+     */
+    public synchronized void tick(long now) {
+        state ^= STATE_SELECTED;
+        setDirty(STATE_DIRTY_UPDATE, true);
     }
 
     /**
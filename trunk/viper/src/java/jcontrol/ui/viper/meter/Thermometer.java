@@ -116,6 +116,7 @@ public class Thermometer extends AbstractMeter {
      * Draws the Thermometer's value
      */
     private void drawValue(Graphics g) {
+        valuePainted();
         // calculate some drawing parameters
         int columnRadius = (m_reservoirRadius + 1) >> 1;
         int xoff1 = x + m_reservoirCenter - columnRadius;
@@ -219,6 +220,42 @@ public class Thermometer extends AbstractMeter {
         }
     }
 
+    /**
+     * Returns the position of the fluid level. Unlike the other meters, an inverted range is drawn
+     * from the maximum upwards.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getPosition(int)
+     */
+    @Override
+    protected int getPosition(int value) {
+        int resolution = getResolution();
+        if (m_min > m_max && resolution > 0) {
+            return Math.scale(value - m_max, m_min - m_max, resolution);
+        }
+        return super.getPosition(value);
+    }
+
+    /**
+     * Returns the resolution of the fluid column, one position per pixel.
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#getResolution()
+     */
+    @Override
+    protected int getResolution() {
+        int length = m_reservoirTop - ((m_reservoirRadius + 1) >> 1);
+        return length > 0 ? length : 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see jcontrol.ui.viper.meter.AbstractMeter#hasReadout()
+     */
+    @Override
+    protected boolean hasReadout() {
+        return (m_style & STYLE_SHOW_NUMERIC_VALUE) != 0;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -0,0 +1,198 @@
+/*
+ * $Id$
+ * 
+ * Copyright (C) 2005-2009 The JControl Group and individual authors listed below
+ * 
+ * This library is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ */
+package jcontrol.util;
+
+/**
+ * <p>
+ * A FIFO (<b>F</b>irst-<b>I</b>n-<b>F</b>irst-<b>O</b>ut) queue with a fixed capacity. The
+ * elements are stored in a ring buffer whose size is a power of two, so no memory is allocated
+ * after construction.
+ * </p>
+ * <p>
+ * If an element is pushed into a full queue, the overflow policy decides what happens:
+ * <ul>
+ * <li><code>POLICY_DROP_OLDEST</code>: the oldest element is removed.</li>
+ * <li><code>POLICY_COALESCE</code>: a queued element that is replaced by the new one (see
+ * <code>canCoalesce()</code>) is overwritten in place. If there is none, the oldest element is
+ * removed.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Popping an empty queue does not lock. This is the common case for a consumer thread that polls
+ * the queue on every pass of its main loop.
+ * </p>
+ * 
+ * @see Queue
+ * @since Viper 1.0
+ * @version $Revision$
+ */
+public class RingQueue {
+
+    /** Overflow policy: remove the oldest element. Value: 0. */
+    public static final int POLICY_DROP_OLDEST = 0;
+
+    /** Overflow policy: overwrite an element that may be coalesced with the new one. Value: 1. */
+    public static final int POLICY_COALESCE = 1;
+
+    /** The elements. */
+    private Object[] m_elements;
+
+    /** The capacity minus one, used to wrap the indices. */
+    private int m_mask;
+
+    /** The overflow policy. */
+    private int m_policy;
+
+    /** The number of elements popped so far, the index of the oldest element. */
+    private volatile int m_head;
+
+    /** The number of elements pushed so far, the index behind the newest element. */
+    private volatile int m_tail;
+
+    /** The number of elements that have been dropped or coalesced because the queue was full. */
+    private int m_overflowCount;
+
+    /**
+     * Creates a ring queue.
+     * 
+     * @param capacity the minimum capacity, rounded up to the next power of two
+     * @param policy the overflow policy, <code>POLICY_DROP_OLDEST</code> or
+     *        <code>POLICY_COALESCE</code>
+     */
+    public RingQueue(int capacity, int policy) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        m_elements = new Object[size];
+        m_mask = size - 1;
+        m_policy = policy;
+    }
+
+    /**
+     * Returns <code>true</code> if the new element replaces the queued one in case of an
+     * overflow. This implementation returns <code>false</code>, subclasses may override it.
+     * 
+     * @param queued an element in the queue
+     * @param o the element to push
+     * @return <code>true</code> if <code>o</code> may replace <code>queued</code>
+     */
+    protected boolean canCoalesce(Object queued, Object o) {
+        return false;
+    }
+
+    /**
+     * Removes all elements from the queue.
+     */
+    public synchronized void clear() {
+        while (m_head != m_tail) {
+            discard(m_elements[m_head & m_mask]);
+            m_elements[m_head & m_mask] = null;
+            m_head++;
+        }
+    }
+
+    /**
+     * Called for every element that is removed from the queue without being popped, i.e. on
+     * overflow or by <code>clear()</code>. This implementation does nothing, subclasses may
+     * override it to recycle the element.
+     * 
+     * @param o the removed element
+     */
+    protected void discard(Object o) {}
+
+    /**
+     * Returns the capacity of the queue.
+     * 
+     * @return the maximum number of elements
+     */
+    public int getCapacity() {
+        return m_elements.length;
+    }
+
+    /**
+     * Returns the number of elements that have been dropped or coalesced because the queue was
+     * full.
+     * 
+     * @return the overflow count
+     */
+    public synchronized int getOverflowCount() {
+        return m_overflowCount;
+    }
+
+    /**
+     * Returns the size of the queue.
+     * 
+     * @return the number of elements in the queue.
+     */
+    public int getSize() {
+        return m_tail - m_head;
+    }
+
+    /**
+     * Returns <code>true</code> if the queue is empty.
+     * 
+     * @return <code>true</code> if there are no elements in the queue
+     */
+    public boolean isEmpty() {
+        return m_head == m_tail;
+    }
+
+    /**
+     * Removes the oldest element from the queue and returns it.
+     * 
+     * @return the oldest element or <code>null</code> if the queue is empty.
+     */
+    public Object pop() {
+        if (m_head == m_tail) return null; // fast path without locking
+        synchronized (this) {
+            if (m_head == m_tail) return null;
+            int index = m_head & m_mask;
+            Object o = m_elements[index];
+            m_elements[index] = null;
+            m_head++;
+            return o;
+        }
+    }
+
+    /**
+     * Pushes an object into the queue. If the queue is full, the overflow policy is applied.
+     * 
+     * @param o an object to push into the queue.
+     */
+    public synchronized void push(Object o) {
+        if (m_tail - m_head == m_elements.length) {
+            m_overflowCount++;
+            if (m_policy == POLICY_COALESCE) {
+                for (int i = m_tail - 1; i - m_head >= 0; i--) {
+                    if (canCoalesce(m_elements[i & m_mask], o)) {
+                        discard(m_elements[i & m_mask]);
+                        m_elements[i & m_mask] = o;
+                        return;
+                    }
+                }
+            }
+            // drop the oldest element
+            discard(m_elements[m_head & m_mask]);
+            m_elements[m_head & m_mask] = null;
+            m_head++;
+        }
+        m_elements[m_tail & m_mask] = o;
+        m_tail++;
+    }
+}